@@ -320,6 +320,13 @@ public class AsmUtil {
         v.invokespecial("java/lang/StringBuilder", "<init>", "()V");
     }
 
+    public static void genStringBuilderConstructor(InstructionAdapter v, int capacity) {
+        v.visitTypeInsn(NEW, "java/lang/StringBuilder");
+        v.dup();
+        v.iconst(capacity);
+        v.invokespecial("java/lang/StringBuilder", "<init>", "(I)V");
+    }
+
     public static void genInvokeAppendMethod(InstructionAdapter v, Type type) {
         type = stringValueOfOrStringBuilderAppendType(type);
         v.invokevirtual("java/lang/StringBuilder", "append", "(" + type.getDescriptor() + ")Ljava/lang/StringBuilder;");
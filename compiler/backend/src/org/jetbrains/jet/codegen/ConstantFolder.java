@@ -0,0 +1,295 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import com.intellij.psi.tree.IElementType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.asm4.Type;
+import org.jetbrains.jet.codegen.state.JetTypeMapper;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
+import org.jetbrains.jet.lang.psi.*;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.constants.CompileTimeConstant;
+import org.jetbrains.jet.lang.resolve.constants.ErrorValue;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+import org.jetbrains.jet.lexer.JetTokens;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Evaluates expressions built of compile-time constants (recorded by the frontend in {@link BindingContext#COMPILE_TIME_VALUE})
+ * with built-in arithmetic, comparison, boolean and string concatenation operators.
+ *
+ * The result is the boxed value the expression would evaluate to at runtime, or null if it can not be computed at compile time.
+ * Integer division by zero is never folded, so that the exception is still thrown at runtime.
+ */
+/*package*/ class ConstantFolder {
+    private static final Object NOT_CONSTANT = new Object();
+
+    private final BindingContext bindingContext;
+    private final JetTypeMapper typeMapper;
+
+    // Codegen visits nested expressions after their parents, so results (including failures) are memoized
+    private final Map<JetExpression, Object> values = new HashMap<JetExpression, Object>();
+
+    public ConstantFolder(@NotNull BindingContext bindingContext, @NotNull JetTypeMapper typeMapper) {
+        this.bindingContext = bindingContext;
+        this.typeMapper = typeMapper;
+    }
+
+    @Nullable
+    public Object fold(@Nullable JetExpression expression) {
+        if (expression == null) return null;
+
+        Object value = values.get(expression);
+        if (value == null) {
+            value = doFold(expression);
+            values.put(expression, value == null ? NOT_CONSTANT : value);
+        }
+        return value == NOT_CONSTANT ? null : value;
+    }
+
+    @Nullable
+    private Object doFold(@NotNull JetExpression expression) {
+        CompileTimeConstant<?> constant = bindingContext.get(BindingContext.COMPILE_TIME_VALUE, expression);
+        if (constant != null) {
+            return constant instanceof ErrorValue ? null : constant.getValue();
+        }
+
+        if (expression instanceof JetParenthesizedExpression) {
+            return fold(((JetParenthesizedExpression) expression).getExpression());
+        }
+        if (expression instanceof JetPrefixExpression) {
+            return foldPrefix((JetPrefixExpression) expression);
+        }
+        if (expression instanceof JetBinaryExpression) {
+            return foldBinary((JetBinaryExpression) expression);
+        }
+        if (expression instanceof JetStringTemplateExpression) {
+            return foldStringTemplate((JetStringTemplateExpression) expression);
+        }
+        return null;
+    }
+
+    @Nullable
+    private String foldStringTemplate(@NotNull JetStringTemplateExpression expression) {
+        StringBuilder builder = new StringBuilder();
+        for (JetStringTemplateEntry entry : expression.getEntries()) {
+            if (entry instanceof JetLiteralStringTemplateEntry) {
+                builder.append(entry.getText());
+            }
+            else if (entry instanceof JetEscapeStringTemplateEntry) {
+                builder.append(((JetEscapeStringTemplateEntry) entry).getUnescapedValue());
+            }
+            else {
+                Object value = fold(entry.getExpression());
+                if (value == null) return null;
+                builder.append(value);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Nullable
+    private Object foldPrefix(@NotNull JetPrefixExpression expression) {
+        if (!isBuiltInOperator(expression.getOperationReference())) return null;
+
+        Object operand = fold(expression.getBaseExpression());
+        if (operand == null) return null;
+
+        IElementType opToken = expression.getOperationReference().getReferencedNameElementType();
+        if (opToken == JetTokens.EXCL && operand instanceof Boolean) {
+            return !(Boolean) operand;
+        }
+        if (operand instanceof Number) {
+            Number number = (Number) operand;
+            if (opToken == JetTokens.PLUS) {
+                return castTo(number, expressionType(expression));
+            }
+            if (opToken == JetTokens.MINUS) {
+                switch (expressionType(expression).getSort()) {
+                    case Type.INT:
+                        return -number.intValue();
+                    case Type.LONG:
+                        return -number.longValue();
+                    case Type.FLOAT:
+                        return -number.floatValue();
+                    case Type.DOUBLE:
+                        return -number.doubleValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private Object foldBinary(@NotNull JetBinaryExpression expression) {
+        IElementType opToken = expression.getOperationReference().getReferencedNameElementType();
+
+        if (opToken == JetTokens.ANDAND || opToken == JetTokens.OROR) {
+            Object left = fold(expression.getLeft());
+            Object right = fold(expression.getRight());
+            if (!(left instanceof Boolean) || !(right instanceof Boolean)) return null;
+            return opToken == JetTokens.ANDAND ? (Boolean) left && (Boolean) right : (Boolean) left || (Boolean) right;
+        }
+
+        if (!isBuiltInOperator(expression.getOperationReference())) return null;
+
+        Object left = fold(expression.getLeft());
+        if (left == null) return null;
+        Object right = fold(expression.getRight());
+        if (right == null) return null;
+
+        if (opToken == JetTokens.EQEQ || opToken == JetTokens.EXCLEQ) {
+            // Floating point equality is left to runtime because of NaN and signed zeroes
+            if (left.getClass() != right.getClass() || left instanceof Float || left instanceof Double) return null;
+            return left.equals(right) == (opToken == JetTokens.EQEQ);
+        }
+
+        if (left instanceof String && opToken == JetTokens.PLUS) {
+            return left + String.valueOf(right);
+        }
+
+        if (!(left instanceof Number) || !(right instanceof Number)) return null;
+        Number l = (Number) left;
+        Number r = (Number) right;
+
+        if (opToken == JetTokens.LT || opToken == JetTokens.LTEQ || opToken == JetTokens.GT || opToken == JetTokens.GTEQ) {
+            return foldComparison(opToken, l, r);
+        }
+        return foldArithmetic(opToken, l, r, expressionType(expression));
+    }
+
+    @Nullable
+    private static Object foldArithmetic(@NotNull IElementType opToken, @NotNull Number l, @NotNull Number r, @NotNull Type resultType) {
+        switch (resultType.getSort()) {
+            case Type.INT: {
+                int a = l.intValue();
+                int b = r.intValue();
+                if (opToken == JetTokens.PLUS) return a + b;
+                if (opToken == JetTokens.MINUS) return a - b;
+                if (opToken == JetTokens.MUL) return a * b;
+                if (b == 0) return null;
+                if (opToken == JetTokens.DIV) return a / b;
+                if (opToken == JetTokens.PERC) return a % b;
+                return null;
+            }
+            case Type.LONG: {
+                long a = l.longValue();
+                long b = r.longValue();
+                if (opToken == JetTokens.PLUS) return a + b;
+                if (opToken == JetTokens.MINUS) return a - b;
+                if (opToken == JetTokens.MUL) return a * b;
+                if (b == 0) return null;
+                if (opToken == JetTokens.DIV) return a / b;
+                if (opToken == JetTokens.PERC) return a % b;
+                return null;
+            }
+            case Type.FLOAT: {
+                float a = l.floatValue();
+                float b = r.floatValue();
+                if (opToken == JetTokens.PLUS) return a + b;
+                if (opToken == JetTokens.MINUS) return a - b;
+                if (opToken == JetTokens.MUL) return a * b;
+                if (opToken == JetTokens.DIV) return a / b;
+                if (opToken == JetTokens.PERC) return a % b;
+                return null;
+            }
+            case Type.DOUBLE: {
+                double a = l.doubleValue();
+                double b = r.doubleValue();
+                if (opToken == JetTokens.PLUS) return a + b;
+                if (opToken == JetTokens.MINUS) return a - b;
+                if (opToken == JetTokens.MUL) return a * b;
+                if (opToken == JetTokens.DIV) return a / b;
+                if (opToken == JetTokens.PERC) return a % b;
+                return null;
+            }
+            default:
+                return null;
+        }
+    }
+
+    // Operands are compared in the same type the generated code would convert them to
+    @NotNull
+    private static Boolean foldComparison(@NotNull IElementType opToken, @NotNull Number l, @NotNull Number r) {
+        int result;
+        if (l instanceof Double || r instanceof Double) {
+            double a = l.doubleValue();
+            double b = r.doubleValue();
+            // any comparison with NaN is false
+            if (a != a || b != b) return false;
+            result = a < b ? -1 : a > b ? 1 : 0;
+        }
+        else if (l instanceof Float || r instanceof Float) {
+            float a = l.floatValue();
+            float b = r.floatValue();
+            if (a != a || b != b) return false;
+            result = a < b ? -1 : a > b ? 1 : 0;
+        }
+        else if (l instanceof Long || r instanceof Long) {
+            long a = l.longValue();
+            long b = r.longValue();
+            result = a < b ? -1 : a > b ? 1 : 0;
+        }
+        else {
+            int a = l.intValue();
+            int b = r.intValue();
+            result = a < b ? -1 : a > b ? 1 : 0;
+        }
+
+        if (opToken == JetTokens.LT) return result < 0;
+        if (opToken == JetTokens.LTEQ) return result <= 0;
+        if (opToken == JetTokens.GT) return result > 0;
+        return result >= 0;
+    }
+
+    @Nullable
+    private static Object castTo(@NotNull Number number, @NotNull Type type) {
+        switch (type.getSort()) {
+            case Type.INT:
+                return number.intValue();
+            case Type.LONG:
+                return number.longValue();
+            case Type.FLOAT:
+                return number.floatValue();
+            case Type.DOUBLE:
+                return number.doubleValue();
+            default:
+                return null;
+        }
+    }
+
+    // User-defined operator functions and extensions can not be evaluated at compile time
+    private boolean isBuiltInOperator(@NotNull JetSimpleNameExpression operationReference) {
+        DeclarationDescriptor operator = bindingContext.get(BindingContext.REFERENCE_TARGET, operationReference);
+        if (operator == null) return false;
+        DeclarationDescriptor containingClass = operator.getContainingDeclaration();
+        return containingClass instanceof ClassDescriptor &&
+               containingClass.getContainingDeclaration() == KotlinBuiltIns.getInstance().getBuiltInsPackage();
+    }
+
+    @NotNull
+    private Type expressionType(@NotNull JetExpression expression) {
+        JetType type = bindingContext.get(BindingContext.EXPRESSION_TYPE, expression);
+        return type == null ? Type.VOID_TYPE : typeMapper.mapType(type);
+    }
+}
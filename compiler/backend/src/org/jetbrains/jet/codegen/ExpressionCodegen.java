@@ -77,7 +77,6 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
 
     private static final String CLASS_NO_PATTERN_MATCHED_EXCEPTION = "jet/NoPatternMatchedException";
     private static final String CLASS_TYPE_CAST_EXCEPTION = "jet/TypeCastException";
-    public static final Set<DeclarationDescriptor> INTEGRAL_RANGES = KotlinBuiltIns.getInstance().getIntegralRanges();
 
     private int myLastLineNumber = -1;
 
@@ -101,6 +100,8 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
      */
     private final Map<JetElement, StackValue.Local> tempVariables = Maps.newHashMap();
 
+    private final ConstantFolder constantFolder;
+
     public CalculatedClosure generateObjectLiteral(
             GenerationState state,
             JetObjectLiteralExpression literal
@@ -179,6 +180,7 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
         this.bindingContext = state.getBindingContext();
         this.context = context;
         this.statementVisitor = new CodegenStatementVisitor(this);
+        this.constantFolder = new ConstantFolder(bindingContext, typeMapper);
     }
 
     public GenerationState getState() {
@@ -231,6 +233,10 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
             if (constant != null) {
                 return StackValue.constant(constant.getValue(), expressionType(expression));
             }
+            Object foldedValue = constantFolder.fold(expression);
+            if (foldedValue != null) {
+                return StackValue.constant(foldedValue, expressionType(expression));
+            }
         }
         try {
             return selector.accept(visitor, receiver);
@@ -1001,45 +1007,87 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
 
     @Override
     public StackValue visitStringTemplateExpression(JetStringTemplateExpression expression, StackValue receiver) {
-        StringBuilder constantValue = new StringBuilder("");
         final JetStringTemplateEntry[] entries = expression.getEntries();
 
         if (entries.length == 1 && entries[0] instanceof JetStringTemplateEntryWithExpression) {
+            String constantText = getConstantText(entries[0]);
+            if (constantText != null) {
+                return StackValue.constant(constantText, expressionType(expression));
+            }
             return genToString(v, gen(entries[0].getExpression()));
         }
 
+        // Literal entries and entries with compile-time constant values are merged into single strings
+        List<Object> parts = new ArrayList<Object>(entries.length);
+        StringBuilder constantPart = new StringBuilder();
         for (JetStringTemplateEntry entry : entries) {
-            if (entry instanceof JetLiteralStringTemplateEntry) {
-                constantValue.append(entry.getText());
-            }
-            else if (entry instanceof JetEscapeStringTemplateEntry) {
-                constantValue.append(((JetEscapeStringTemplateEntry) entry).getUnescapedValue());
+            String constantText = getConstantText(entry);
+            if (constantText != null) {
+                constantPart.append(constantText);
             }
             else {
-                constantValue = null;
-                break;
+                if (constantPart.length() > 0) {
+                    parts.add(constantPart.toString());
+                    constantPart.setLength(0);
+                }
+                parts.add(entry.getExpression());
             }
         }
-        if (constantValue != null) {
-            final Type type = expressionType(expression);
-            return StackValue.constant(constantValue.toString(), type);
+        if (parts.isEmpty()) {
+            return StackValue.constant(constantPart.toString(), expressionType(expression));
         }
-        else {
-            genStringBuilderConstructor(v);
-            for (JetStringTemplateEntry entry : entries) {
-                if (entry instanceof JetStringTemplateEntryWithExpression) {
-                    invokeAppend(entry.getExpression());
-                }
-                else {
-                    String text = entry instanceof JetEscapeStringTemplateEntry
-                                  ? ((JetEscapeStringTemplateEntry) entry).getUnescapedValue()
-                                  : entry.getText();
-                    v.aconst(text);
-                    genInvokeAppendMethod(v, JAVA_STRING_TYPE);
-                }
+        if (constantPart.length() > 0) {
+            parts.add(constantPart.toString());
+        }
+
+        int capacity = 0;
+        for (Object part : parts) {
+            capacity += part instanceof String ? ((String) part).length() : estimateStringLength(expressionType((JetExpression) part));
+        }
+
+        genStringBuilderConstructor(v, capacity);
+        for (Object part : parts) {
+            if (part instanceof String) {
+                v.aconst(part);
+                genInvokeAppendMethod(v, JAVA_STRING_TYPE);
             }
-            v.invokevirtual("java/lang/StringBuilder", "toString", "()Ljava/lang/String;");
-            return StackValue.onStack(AsmTypeConstants.JAVA_STRING_TYPE);
+            else {
+                invokeAppend((JetExpression) part);
+            }
+        }
+        v.invokevirtual("java/lang/StringBuilder", "toString", "()Ljava/lang/String;");
+        return StackValue.onStack(AsmTypeConstants.JAVA_STRING_TYPE);
+    }
+
+    @Nullable
+    private String getConstantText(@NotNull JetStringTemplateEntry entry) {
+        if (entry instanceof JetLiteralStringTemplateEntry) {
+            return entry.getText();
+        }
+        if (entry instanceof JetEscapeStringTemplateEntry) {
+            return ((JetEscapeStringTemplateEntry) entry).getUnescapedValue();
+        }
+        Object value = constantFolder.fold(entry.getExpression());
+        return value != null ? String.valueOf(value) : null;
+    }
+
+    // Maximal length of a string representation of a primitive value, or the default StringBuilder capacity for other values
+    private static int estimateStringLength(@NotNull Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return 5;
+            case Type.CHAR:
+                return 1;
+            case Type.BYTE:
+                return 4;
+            case Type.SHORT:
+                return 6;
+            case Type.INT:
+                return 11;
+            case Type.LONG:
+                return 20;
+            default:
+                return 16;
         }
     }
 
@@ -2306,10 +2354,12 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
 
     private StackValue generateIn(JetBinaryExpression expression) {
         boolean inverted = expression.getOperationReference().getReferencedNameElementType() == JetTokens.NOT_IN;
-        if (isIntRangeExpr(expression.getRight())) {
-            StackValue leftValue = StackValue.expression(Type.INT_TYPE, expression.getLeft(), this);
-            JetBinaryExpression rangeExpression = (JetBinaryExpression) expression.getRight();
-            getInIntRange(leftValue, rangeExpression, inverted);
+        //noinspection ConstantConditions
+        JetExpression rangeExpression = JetPsiUtil.deparenthesizeWithNoTypeResolution(expression.getRight());
+        Type elementType = getPrimitiveRangeLiteralElementType(rangeExpression);
+        if (elementType != null) {
+            StackValue leftValue = StackValue.expression(elementType, expression.getLeft(), this);
+            genInPrimitiveRangeLiteral(leftValue, (JetBinaryExpression) rangeExpression, elementType, inverted);
         }
         else {
             invokeFunctionByReference(expression.getOperationReference());
@@ -2320,42 +2370,117 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
         return StackValue.onStack(Type.BOOLEAN_TYPE);
     }
 
-    private void getInIntRange(StackValue leftValue, JetBinaryExpression rangeExpression, boolean inverted) {
-        v.iconst(1);
-        // 1
-        leftValue.put(Type.INT_TYPE, v);
-        // 1 l
-        v.dup2();
-        // 1 l 1 l
+    /**
+     * Checks the element against the bounds of a range literal without creating the range. Both bounds and then the element are
+     * always evaluated, in the same order as with a call to contains() on the range. Float and double ranges keep the semantics of
+     * FloatRange and DoubleRange: the range spans from the start by (end - start), the end itself excluded.
+     */
+    private void genInPrimitiveRangeLiteral(
+            @NotNull StackValue element,
+            @NotNull JetBinaryExpression rangeExpression,
+            @NotNull Type elementType,
+            boolean inverted
+    ) {
+        int startIndex = myFrameMap.enterTemp(elementType);
+        //noinspection ConstantConditions
+        gen(rangeExpression.getLeft(), elementType);
+        v.store(startIndex, elementType);
 
+        int endIndex = myFrameMap.enterTemp(elementType);
         //noinspection ConstantConditions
-        gen(rangeExpression.getLeft(), Type.INT_TYPE);
-        // 1 l 1 l r
-        Label lok = new Label();
-        v.ificmpge(lok);
-        // 1 l 1
-        v.pop();
-        v.iconst(0);
-        v.mark(lok);
-        // 1 l c
-        v.dupX2();
-        // c 1 l c
-        v.pop();
-        // c 1 l
+        gen(rangeExpression.getRight(), elementType);
+        v.store(endIndex, elementType);
+
+        int elementIndex = myFrameMap.enterTemp(elementType);
+        element.put(elementType, v);
+        v.store(elementIndex, elementType);
+
+        Label inRange = new Label();
+        Label notInRange = new Label();
+        if (elementType == Type.FLOAT_TYPE || elementType == Type.DOUBLE_TYPE) {
+            // the end is replaced with the size of the range
+            int sizeIndex = endIndex;
+            v.load(endIndex, elementType);
+            v.load(startIndex, elementType);
+            v.sub(elementType);
+            v.store(sizeIndex, elementType);
+
+            Label reversed = new Label();
+            v.load(sizeIndex, elementType);
+            if (elementType == Type.FLOAT_TYPE) {
+                v.fconst(0);
+            }
+            else {
+                v.dconst(0);
+            }
+            genJumpUnless(elementType, IFGE, reversed);
+
+            // start <= element < start + size
+            v.load(elementIndex, elementType);
+            v.load(startIndex, elementType);
+            genJumpUnless(elementType, IFGE, notInRange);
+            v.load(elementIndex, elementType);
+            v.load(startIndex, elementType);
+            v.load(sizeIndex, elementType);
+            v.add(elementType);
+            genJumpUnless(elementType, IFLT, notInRange);
+            v.goTo(inRange);
+
+            // start + size < element <= start
+            v.mark(reversed);
+            v.load(elementIndex, elementType);
+            v.load(startIndex, elementType);
+            genJumpUnless(elementType, IFLE, notInRange);
+            v.load(elementIndex, elementType);
+            v.load(startIndex, elementType);
+            v.load(sizeIndex, elementType);
+            v.add(elementType);
+            genJumpUnless(elementType, IFGT, notInRange);
+        }
+        else {
+            // start <= element <= end, a range with start > end is empty
+            v.load(endIndex, elementType);
+            v.load(elementIndex, elementType);
+            genJumpUnless(elementType, IFGE, notInRange);
+            v.load(startIndex, elementType);
+            v.load(elementIndex, elementType);
+            genJumpUnless(elementType, IFLE, notInRange);
+        }
+        myFrameMap.leaveTemp(elementType);
+        myFrameMap.leaveTemp(elementType);
+        myFrameMap.leaveTemp(elementType);
 
-        gen(rangeExpression.getRight(), Type.INT_TYPE);
-        // c 1 l r
-        Label rok = new Label();
-        v.ificmple(rok);
-        // c 1
-        v.pop();
-        v.iconst(0);
-        v.mark(rok);
-        // c c
+        Label end = new Label();
+        v.mark(inRange);
+        v.iconst(inverted ? 0 : 1);
+        v.goTo(end);
+        v.mark(notInRange);
+        v.iconst(inverted ? 1 : 0);
+        v.mark(end);
+    }
 
-        v.and(Type.INT_TYPE);
-        if (inverted) {
-            genInvertBoolean(v);
+    /**
+     * Compares two primitive values on the stack and jumps to the label unless {@code first op second} holds,
+     * op being one of IFLT, IFLE, IFGT and IFGE. Comparisons with NaN never hold.
+     */
+    private void genJumpUnless(@NotNull Type type, int op, @NotNull Label label) {
+        int negated = op == IFLT ? IFGE : op == IFLE ? IFGT : op == IFGT ? IFLE : IFLT;
+        if (type == Type.FLOAT_TYPE || type == Type.DOUBLE_TYPE) {
+            // NaN gives 1 with cmpg and -1 with cmpl, it must make the negated condition true
+            if (op == IFLT || op == IFLE) {
+                v.cmpg(type);
+            }
+            else {
+                v.cmpl(type);
+            }
+            v.visitJumpInsn(negated, label);
+        }
+        else if (type == Type.LONG_TYPE) {
+            v.lcmp();
+            v.visitJumpInsn(negated, label);
+        }
+        else {
+            v.visitJumpInsn(negated + (IF_ICMPEQ - IFEQ), label);
         }
     }
 
@@ -3439,8 +3564,10 @@ The "returned" value of try expression with no finally is either the last expres
             }
             JetSimpleNameExpression operationReference = conditionInRange.getOperationReference();
             boolean inverted = operationReference.getReferencedNameElementType() == JetTokens.NOT_IN;
-            if (isIntRangeExpr(rangeExpression)) {
-                getInIntRange(new StackValue.Local(subjectLocal, subjectType), (JetBinaryExpression) rangeExpression, inverted);
+            Type elementType = getPrimitiveRangeLiteralElementType(rangeExpression);
+            if (elementType != null) {
+                genInPrimitiveRangeLiteral(new StackValue.Local(subjectLocal, subjectType), (JetBinaryExpression) rangeExpression,
+                                           elementType, inverted);
             }
             else {
                 //FunctionDescriptor op =
@@ -3476,17 +3603,26 @@ The "returned" value of try expression with no finally is either the last expres
         invokeFunction(call, StackValue.none(), resolvedCall);
     }
 
-    private boolean isIntRangeExpr(JetExpression rangeExpression) {
-        if (rangeExpression instanceof JetBinaryExpression) {
-            JetBinaryExpression binaryExpression = (JetBinaryExpression) rangeExpression;
-            if (binaryExpression.getOperationReference().getReferencedNameElementType() == JetTokens.RANGE) {
-                JetType jetType = bindingContext.get(BindingContext.EXPRESSION_TYPE, rangeExpression);
-                assert jetType != null;
-                final DeclarationDescriptor descriptor = jetType.getConstructor().getDeclarationDescriptor();
-                return INTEGRAL_RANGES.contains(descriptor);
-            }
-        }
-        return false;
+    /**
+     * @return the type of the elements if the expression is a range literal built by rangeTo() of primitive types, null otherwise
+     */
+    @Nullable
+    private Type getPrimitiveRangeLiteralElementType(@Nullable JetExpression rangeExpression) {
+        if (!(rangeExpression instanceof JetBinaryExpression)) {
+            return null;
+        }
+        JetBinaryExpression binaryExpression = (JetBinaryExpression) rangeExpression;
+        if (binaryExpression.getOperationReference().getReferencedNameElementType() != JetTokens.RANGE) {
+            return null;
+        }
+        ResolvedCall<? extends CallableDescriptor> rangeTo = bindingContext.get(RESOLVED_CALL, binaryExpression.getOperationReference());
+        if (rangeTo == null || !RangeCodegenUtil.isOptimizableRangeTo(rangeTo.getResultingDescriptor())) {
+            return null;
+        }
+        JetType rangeType = bindingContext.get(BindingContext.EXPRESSION_TYPE, rangeExpression);
+        assert rangeType != null;
+        JetType elementType = RangeCodegenUtil.getPrimitiveRangeElementType(rangeType);
+        return elementType == null ? null : asmType(elementType);
     }
 
     private void throwNewException(@NotNull final String className) {
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen.optimization;
+
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.asm4.*;
+import org.jetbrains.asm4.tree.MethodNode;
+import org.jetbrains.jet.codegen.ClassBuilder;
+
+/*package*/ class OptimizationClassBuilder extends ClassBuilder {
+    private final ClassBuilder delegate;
+
+    public OptimizationClassBuilder(@NotNull ClassBuilder delegate) {
+        this.delegate = delegate;
+    }
+
+    @NotNull
+    public ClassBuilder getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public FieldVisitor newField(
+            @Nullable PsiElement origin,
+            int access,
+            String name,
+            String desc,
+            @Nullable String signature,
+            @Nullable Object value
+    ) {
+        return delegate.newField(origin, access, name, desc, signature, value);
+    }
+
+    @Override
+    public MethodVisitor newMethod(
+            @Nullable PsiElement origin,
+            int access,
+            String name,
+            String desc,
+            @Nullable String signature,
+            @Nullable String[] exceptions
+    ) {
+        final MethodVisitor visitor = delegate.newMethod(origin, access, name, desc, signature, exceptions);
+        // The whole method is collected in a tree to be optimized and written to the original visitor at the end
+        return new MethodNode(Opcodes.ASM4, access, name, desc, signature, exceptions) {
+            @Override
+            public void visitEnd() {
+                super.visitEnd();
+                PeepholeMethodOptimizer.optimize(this);
+                accept(visitor);
+            }
+        };
+    }
+
+    @Override
+    public AnnotationVisitor newAnnotation(String desc, boolean visible) {
+        return delegate.newAnnotation(desc, visible);
+    }
+
+    @Override
+    public void done() {
+        delegate.done();
+    }
+
+    @Override
+    public ClassVisitor getVisitor() {
+        return delegate.getVisitor();
+    }
+
+    @Override
+    public void defineClass(
+            PsiElement origin,
+            int version,
+            int access,
+            String name,
+            @Nullable String signature,
+            String superName,
+            String[] interfaces
+    ) {
+        delegate.defineClass(origin, version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public void visitSource(String name, @Nullable String debug) {
+        delegate.visitSource(name, debug);
+    }
+
+    @Override
+    public void visitOuterClass(String owner, @Nullable String name, @Nullable String desc) {
+        delegate.visitOuterClass(owner, name, desc);
+    }
+
+    @Override
+    public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        delegate.visitInnerClass(name, outerName, innerName, access);
+    }
+}
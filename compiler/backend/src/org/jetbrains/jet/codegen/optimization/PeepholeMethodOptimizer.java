@@ -0,0 +1,413 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen.optimization;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.asm4.Opcodes;
+import org.jetbrains.asm4.Type;
+import org.jetbrains.asm4.tree.*;
+
+import java.util.*;
+
+/**
+ * Local cleanups of the generated bytecode of a method:
+ * <ul>
+ *     <li>boxing immediately followed by unboxing to the same primitive type is removed,</li>
+ *     <li>CHECKCAST of a value which type is already known is removed,</li>
+ *     <li>a temporary stored and immediately loaded only once is left on the stack, a never loaded one is popped,</li>
+ *     <li>a value duplicated and immediately popped is left as it is,</li>
+ *     <li>jumps to GOTOs are redirected to their targets, GOTOs to returns are replaced with returns,
+ *     GOTOs to the next instruction are removed.</li>
+ * </ul>
+ * Only instructions not separated by labels are combined, so values coming by jumps are never affected.
+ * Locals having an entry in the local variable table are kept for the debugger.
+ */
+public class PeepholeMethodOptimizer implements Opcodes {
+    private static final int MAX_ITERATIONS = 10;
+
+    private static final Map<String, Type> BOXED_TO_PRIMITIVE = new HashMap<String, Type>();
+
+    static {
+        BOXED_TO_PRIMITIVE.put("java/lang/Integer", Type.INT_TYPE);
+        BOXED_TO_PRIMITIVE.put("java/lang/Boolean", Type.BOOLEAN_TYPE);
+        BOXED_TO_PRIMITIVE.put("java/lang/Character", Type.CHAR_TYPE);
+        BOXED_TO_PRIMITIVE.put("java/lang/Short", Type.SHORT_TYPE);
+        BOXED_TO_PRIMITIVE.put("java/lang/Long", Type.LONG_TYPE);
+        BOXED_TO_PRIMITIVE.put("java/lang/Byte", Type.BYTE_TYPE);
+        BOXED_TO_PRIMITIVE.put("java/lang/Float", Type.FLOAT_TYPE);
+        BOXED_TO_PRIMITIVE.put("java/lang/Double", Type.DOUBLE_TYPE);
+    }
+
+    private PeepholeMethodOptimizer() {
+    }
+
+    public static void optimize(@NotNull MethodNode method) {
+        if (method.instructions.size() == 0) return;
+
+        boolean changed = true;
+        for (int i = 0; changed && i < MAX_ITERATIONS; i++) {
+            changed = removeBoxingUnboxing(method);
+            changed |= removeRedundantCheckcasts(method);
+            changed |= removeTemporaryStores(method);
+            changed |= removeDupPops(method);
+            changed |= threadJumps(method);
+        }
+        removeEmptyTryCatchBlocks(method);
+    }
+
+    private static boolean removeBoxingUnboxing(@NotNull MethodNode method) {
+        boolean changed = false;
+        InsnList instructions = method.instructions;
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+
+            Type primitive = getBoxedPrimitive(insn);
+            if (primitive != null) {
+                String boxedClass = ((MethodInsnNode) insn).owner;
+                List<AbstractInsnNode> pattern = new ArrayList<AbstractInsnNode>();
+                pattern.add(insn);
+
+                AbstractInsnNode current = nextInstruction(insn);
+                while (current != null && current.getOpcode() == CHECKCAST && isSupertypeOfBoxed(((TypeInsnNode) current).desc, boxedClass)) {
+                    pattern.add(current);
+                    current = nextInstruction(current);
+                }
+
+                if (current != null && isUnboxing(current, boxedClass, primitive)) {
+                    pattern.add(current);
+                    next = current.getNext();
+                    for (AbstractInsnNode node : pattern) {
+                        instructions.remove(node);
+                    }
+                    changed = true;
+                }
+            }
+
+            insn = next;
+        }
+        return changed;
+    }
+
+    @Nullable
+    private static Type getBoxedPrimitive(@NotNull AbstractInsnNode insn) {
+        if (insn.getOpcode() != INVOKESTATIC) return null;
+        MethodInsnNode call = (MethodInsnNode) insn;
+        Type primitive = BOXED_TO_PRIMITIVE.get(call.owner);
+        if (primitive == null || !call.name.equals("valueOf")) return null;
+        return call.desc.equals("(" + primitive.getDescriptor() + ")L" + call.owner + ";") ? primitive : null;
+    }
+
+    private static boolean isSupertypeOfBoxed(@NotNull String internalName, @NotNull String boxedClass) {
+        return internalName.equals(boxedClass) || internalName.equals("java/lang/Object") ||
+               (internalName.equals("java/lang/Number") && isNumber(BOXED_TO_PRIMITIVE.get(boxedClass)));
+    }
+
+    private static boolean isNumber(@NotNull Type primitive) {
+        return primitive != Type.BOOLEAN_TYPE && primitive != Type.CHAR_TYPE;
+    }
+
+    private static boolean isUnboxing(@NotNull AbstractInsnNode insn, @NotNull String boxedClass, @NotNull Type primitive) {
+        if (insn.getOpcode() != INVOKEVIRTUAL) return false;
+        MethodInsnNode call = (MethodInsnNode) insn;
+        boolean ownerMatches = call.owner.equals(boxedClass) || (call.owner.equals("java/lang/Number") && isNumber(primitive));
+        return ownerMatches &&
+               call.name.equals(primitive.getClassName() + "Value") &&
+               call.desc.equals("()" + primitive.getDescriptor());
+    }
+
+    private static boolean removeRedundantCheckcasts(@NotNull MethodNode method) {
+        boolean changed = false;
+        InsnList instructions = method.instructions;
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (insn.getOpcode() == CHECKCAST) {
+                String type = ((TypeInsnNode) insn).desc;
+                String knownType = getKnownResultType(previousInstruction(insn));
+                if (type.equals("java/lang/Object") || type.equals(knownType)) {
+                    instructions.remove(insn);
+                    changed = true;
+                }
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    /**
+     * @return internal name of the reference type of the value which the instruction puts on the stack if it's known exactly
+     */
+    @Nullable
+    private static String getKnownResultType(@Nullable AbstractInsnNode insn) {
+        if (insn == null) return null;
+        switch (insn.getOpcode()) {
+            case CHECKCAST:
+                return ((TypeInsnNode) insn).desc;
+            case INVOKEVIRTUAL:
+            case INVOKESPECIAL:
+            case INVOKESTATIC:
+            case INVOKEINTERFACE:
+                return getInternalName(Type.getReturnType(((MethodInsnNode) insn).desc));
+            case GETFIELD:
+            case GETSTATIC:
+                return getInternalName(Type.getType(((FieldInsnNode) insn).desc));
+            case LDC:
+                return ((LdcInsnNode) insn).cst instanceof String ? "java/lang/String" : null;
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static String getInternalName(@NotNull Type type) {
+        int sort = type.getSort();
+        return sort == Type.OBJECT || sort == Type.ARRAY ? type.getInternalName() : null;
+    }
+
+    private static boolean removeTemporaryStores(@NotNull MethodNode method) {
+        int maxLocals = Math.max(method.maxLocals, Type.getArgumentsAndReturnSizes(method.desc) >> 2) + 1;
+        int[] loads = new int[maxLocals];
+        int[] stores = new int[maxLocals];
+        boolean[] named = new boolean[maxLocals];
+
+        InsnList instructions = method.instructions;
+        for (AbstractInsnNode insn = instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            int var = getVarIndex(insn);
+            if (var < 0) continue;
+            if (var >= loads.length) {
+                int size = Math.max(var + 1, loads.length * 2);
+                loads = Arrays.copyOf(loads, size);
+                stores = Arrays.copyOf(stores, size);
+                named = Arrays.copyOf(named, size);
+            }
+            if (isStore(insn)) {
+                stores[var]++;
+            }
+            else {
+                loads[var]++;
+            }
+        }
+        if (method.localVariables != null) {
+            for (LocalVariableNode variable : method.localVariables) {
+                if (variable.index < named.length) {
+                    named[variable.index] = true;
+                }
+            }
+        }
+
+        boolean changed = false;
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (isStore(insn)) {
+                int var = ((VarInsnNode) insn).var;
+                if (!named[var]) {
+                    AbstractInsnNode following = nextInstruction(insn);
+                    if (loads[var] == 0) {
+                        int opcode = insn.getOpcode() == LSTORE || insn.getOpcode() == DSTORE ? POP2 : POP;
+                        instructions.set(insn, new InsnNode(opcode));
+                        stores[var]--;
+                        changed = true;
+                    }
+                    else if (loads[var] == 1 && stores[var] == 1 &&
+                             following != null && following.getOpcode() == insn.getOpcode() - ISTORE + ILOAD &&
+                             ((VarInsnNode) following).var == var) {
+                        next = following.getNext();
+                        instructions.remove(insn);
+                        instructions.remove(following);
+                        loads[var] = 0;
+                        stores[var] = 0;
+                        changed = true;
+                    }
+                }
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    private static boolean removeDupPops(@NotNull MethodNode method) {
+        boolean changed = false;
+        InsnList instructions = method.instructions;
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            int opcode = insn.getOpcode();
+            if (opcode == DUP || opcode == DUP2) {
+                AbstractInsnNode following = nextInstruction(insn);
+                if (following != null && following.getOpcode() == (opcode == DUP ? POP : POP2)) {
+                    next = following.getNext();
+                    instructions.remove(insn);
+                    instructions.remove(following);
+                    changed = true;
+                }
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    private static boolean isStore(@NotNull AbstractInsnNode insn) {
+        int opcode = insn.getOpcode();
+        return opcode >= ISTORE && opcode <= ASTORE;
+    }
+
+    /**
+     * @return index of the local variable accessed by the instruction, or -1
+     */
+    private static int getVarIndex(@NotNull AbstractInsnNode insn) {
+        if (insn instanceof VarInsnNode) {
+            return ((VarInsnNode) insn).var;
+        }
+        if (insn instanceof IincInsnNode) {
+            return ((IincInsnNode) insn).var;
+        }
+        return -1;
+    }
+
+    private static boolean threadJumps(@NotNull MethodNode method) {
+        boolean changed = false;
+        InsnList instructions = method.instructions;
+        AbstractInsnNode insn = instructions.getFirst();
+        while (insn != null) {
+            AbstractInsnNode next = insn.getNext();
+            if (insn instanceof JumpInsnNode) {
+                JumpInsnNode jump = (JumpInsnNode) insn;
+                LabelNode target = getFinalTarget(jump.label);
+                if (target != jump.label) {
+                    jump.label = target;
+                    changed = true;
+                }
+
+                if (jump.getOpcode() == GOTO) {
+                    AbstractInsnNode targetInsn = realInstructionFrom(target);
+                    if (targetInsn != null && targetInsn.getOpcode() >= IRETURN && targetInsn.getOpcode() <= RETURN) {
+                        instructions.set(jump, new InsnNode(targetInsn.getOpcode()));
+                        changed = true;
+                    }
+                    else if (isLabelBeforeNextInstruction(jump, target)) {
+                        instructions.remove(jump);
+                        changed = true;
+                    }
+                }
+            }
+            else if (insn instanceof TableSwitchInsnNode) {
+                TableSwitchInsnNode tableSwitch = (TableSwitchInsnNode) insn;
+                changed |= threadSwitch(tableSwitch.labels);
+                LabelNode target = getFinalTarget(tableSwitch.dflt);
+                changed |= target != tableSwitch.dflt;
+                tableSwitch.dflt = target;
+            }
+            else if (insn instanceof LookupSwitchInsnNode) {
+                LookupSwitchInsnNode lookupSwitch = (LookupSwitchInsnNode) insn;
+                changed |= threadSwitch(lookupSwitch.labels);
+                LabelNode target = getFinalTarget(lookupSwitch.dflt);
+                changed |= target != lookupSwitch.dflt;
+                lookupSwitch.dflt = target;
+            }
+            insn = next;
+        }
+        return changed;
+    }
+
+    private static boolean threadSwitch(@NotNull List<LabelNode> labels) {
+        boolean changed = false;
+        for (ListIterator<LabelNode> iterator = labels.listIterator(); iterator.hasNext(); ) {
+            LabelNode label = iterator.next();
+            LabelNode target = getFinalTarget(label);
+            if (target != label) {
+                iterator.set(target);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @NotNull
+    private static LabelNode getFinalTarget(@NotNull LabelNode label) {
+        Set<LabelNode> visited = new HashSet<LabelNode>();
+        LabelNode target = label;
+        while (visited.add(target)) {
+            AbstractInsnNode targetInsn = realInstructionFrom(target);
+            if (targetInsn == null || targetInsn.getOpcode() != GOTO) break;
+            target = ((JumpInsnNode) targetInsn).label;
+        }
+        return target;
+    }
+
+    private static boolean isLabelBeforeNextInstruction(@NotNull AbstractInsnNode insn, @NotNull LabelNode label) {
+        for (AbstractInsnNode node = insn.getNext(); node != null && node.getOpcode() < 0; node = node.getNext()) {
+            if (node == label) return true;
+        }
+        return false;
+    }
+
+    private static void removeEmptyTryCatchBlocks(@NotNull MethodNode method) {
+        for (Iterator<TryCatchBlockNode> iterator = method.tryCatchBlocks.iterator(); iterator.hasNext(); ) {
+            TryCatchBlockNode block = iterator.next();
+            boolean empty = true;
+            for (AbstractInsnNode node = block.start; node != null && node != block.end; node = node.getNext()) {
+                if (node.getOpcode() >= 0) {
+                    empty = false;
+                    break;
+                }
+            }
+            if (empty) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the first instruction starting from the given node, skipping labels, line numbers and frames
+     */
+    @Nullable
+    private static AbstractInsnNode realInstructionFrom(@Nullable AbstractInsnNode node) {
+        while (node != null && node.getOpcode() < 0) {
+            node = node.getNext();
+        }
+        return node;
+    }
+
+    /**
+     * @return the instruction executed right after the given one, or null if it's preceded by a label and may be reached by a jump
+     */
+    @Nullable
+    private static AbstractInsnNode nextInstruction(@NotNull AbstractInsnNode insn) {
+        AbstractInsnNode node = insn.getNext();
+        while (node != null && node.getOpcode() < 0) {
+            if (node instanceof LabelNode) return null;
+            node = node.getNext();
+        }
+        return node;
+    }
+
+    /**
+     * @return the instruction executed right before the given one, or null if the given one is preceded by a label
+     */
+    @Nullable
+    private static AbstractInsnNode previousInstruction(@NotNull AbstractInsnNode insn) {
+        AbstractInsnNode node = insn.getPrevious();
+        while (node != null && node.getOpcode() < 0) {
+            if (node instanceof LabelNode) return null;
+            node = node.getPrevious();
+        }
+        return node;
+    }
+}
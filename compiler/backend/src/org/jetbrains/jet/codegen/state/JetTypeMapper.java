@@ -19,6 +19,7 @@ package org.jetbrains.jet.codegen.state;
 import com.intellij.psi.PsiElement;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 import org.jetbrains.asm4.Type;
 import org.jetbrains.jet.codegen.*;
 import org.jetbrains.jet.codegen.binding.BindingTraceAware;
@@ -40,6 +41,7 @@ import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -54,12 +56,29 @@ public class JetTypeMapper extends BindingTraceAware {
     private final boolean mapBuiltinsToJava;
     private final ClassBuilderMode classBuilderMode;
 
+    // Results of mapType() without signature writing and of mapSignature(), which are requested many times for the same descriptors
+    private final Map<MappedTypeKey, Type> mappedTypes = new HashMap<MappedTypeKey, Type>();
+    private final Map<MappedSignatureKey, JvmMethodSignature> mappedSignatures = new HashMap<MappedSignatureKey, JvmMethodSignature>();
+    private final TypeMapperCacheStatistics cacheStatistics = new TypeMapperCacheStatistics();
+    private boolean cachesEnabled = true;
+
     public JetTypeMapper(BindingTrace bindingTrace, boolean mapBuiltinsToJava, ClassBuilderMode mode) {
         super(bindingTrace);
         this.mapBuiltinsToJava = mapBuiltinsToJava;
         classBuilderMode = mode;
     }
 
+    @NotNull
+    public TypeMapperCacheStatistics getCacheStatistics() {
+        return cacheStatistics;
+    }
+
+    // Lets tests check that the caches do not change the generated code
+    @TestOnly
+    public void setCachesEnabled(boolean cachesEnabled) {
+        this.cachesEnabled = cachesEnabled;
+    }
+
     @NotNull
     public JvmClassName getOwner(DeclarationDescriptor descriptor, OwnerKind kind) {
         JetTypeMapperMode mapTypeMode = ownerKindToMapTypeMode(kind);
@@ -214,6 +233,39 @@ public class JetTypeMapper extends BindingTraceAware {
             @Nullable BothSignatureWriter signatureVisitor,
             @NotNull JetTypeMapperMode kind,
             @NotNull Variance howThisTypeIsUsed
+    ) {
+        if (!cachesEnabled || signatureVisitor != null || !isMappedTypeCacheable(jetType)) {
+            return mapTypeUncached(jetType, signatureVisitor, kind, howThisTypeIsUsed);
+        }
+
+        ClassDescriptor classDescriptor = (ClassDescriptor) jetType.getConstructor().getDeclarationDescriptor();
+        MappedTypeKey key = new MappedTypeKey(classDescriptor, jetType.isNullable(), kind);
+        Type cached = mappedTypes.get(key);
+        if (cached != null) {
+            cacheStatistics.typeHit();
+            return cached;
+        }
+        cacheStatistics.typeMiss();
+
+        Type asmType = mapTypeUncached(jetType, null, kind, howThisTypeIsUsed);
+        mappedTypes.put(key, asmType);
+        return asmType;
+    }
+
+    // Without signature writing, an ASM type of a class type depends only on the class, nullability and the mode,
+    // except for arrays, whose ASM type depends on the type argument
+    private boolean isMappedTypeCacheable(@NotNull JetType jetType) {
+        DeclarationDescriptor descriptor = jetType.getConstructor().getDeclarationDescriptor();
+        if (!(descriptor instanceof ClassDescriptor) || ErrorUtils.isError(descriptor)) return false;
+        return !(mapBuiltinsToJava && KotlinBuiltIns.getInstance().isArray(jetType));
+    }
+
+    @NotNull
+    private Type mapTypeUncached(
+            JetType jetType,
+            @Nullable BothSignatureWriter signatureVisitor,
+            @NotNull JetTypeMapperMode kind,
+            @NotNull Variance howThisTypeIsUsed
     ) {
         Type known = null;
         DeclarationDescriptor descriptor = jetType.getConstructor().getDeclarationDescriptor();
@@ -552,6 +604,23 @@ public class JetTypeMapper extends BindingTraceAware {
     }
 
     private JvmMethodSignature mapSignature(FunctionDescriptor f, boolean needGenericSignature, OwnerKind kind) {
+        if (!cachesEnabled) {
+            return mapSignatureUncached(f, needGenericSignature, kind);
+        }
+        MappedSignatureKey key = new MappedSignatureKey(f, needGenericSignature, kind);
+        JvmMethodSignature cached = mappedSignatures.get(key);
+        if (cached != null) {
+            cacheStatistics.signatureHit();
+            return cached;
+        }
+        cacheStatistics.signatureMiss();
+
+        JvmMethodSignature signature = mapSignatureUncached(f, needGenericSignature, kind);
+        mappedSignatures.put(key, signature);
+        return signature;
+    }
+
+    private JvmMethodSignature mapSignatureUncached(FunctionDescriptor f, boolean needGenericSignature, OwnerKind kind) {
 
         if (kind == OwnerKind.TRAIT_IMPL) {
             needGenericSignature = false;
@@ -968,4 +1037,54 @@ public class JetTypeMapper extends BindingTraceAware {
                 owner, null, null, descriptor, INVOKEVIRTUAL,
                 getInternalClassName(fd), receiverParameterType, getInternalClassName(fd).getAsmType());
     }
+
+    private static final class MappedTypeKey {
+        private final ClassDescriptor descriptor;
+        private final boolean nullable;
+        private final JetTypeMapperMode kind;
+
+        private MappedTypeKey(@NotNull ClassDescriptor descriptor, boolean nullable, @NotNull JetTypeMapperMode kind) {
+            this.descriptor = descriptor;
+            this.nullable = nullable;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MappedTypeKey)) return false;
+            MappedTypeKey other = (MappedTypeKey) o;
+            return descriptor == other.descriptor && nullable == other.nullable && kind == other.kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(descriptor) + (nullable ? 1 : 0)) + kind.hashCode();
+        }
+    }
+
+    private static final class MappedSignatureKey {
+        private final FunctionDescriptor descriptor;
+        private final boolean needGenericSignature;
+        private final OwnerKind kind;
+
+        private MappedSignatureKey(@NotNull FunctionDescriptor descriptor, boolean needGenericSignature, @NotNull OwnerKind kind) {
+            this.descriptor = descriptor;
+            this.needGenericSignature = needGenericSignature;
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MappedSignatureKey)) return false;
+            MappedSignatureKey other = (MappedSignatureKey) o;
+            return descriptor == other.descriptor && needGenericSignature == other.needGenericSignature && kind == other.kind;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(descriptor) + (needGenericSignature ? 1 : 0)) + kind.hashCode();
+        }
+    }
 }
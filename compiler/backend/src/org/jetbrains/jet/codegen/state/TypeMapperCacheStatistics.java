@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen.state;
+
+/**
+ * Hit and miss counters of the caches in {@link JetTypeMapper}
+ */
+public class TypeMapperCacheStatistics {
+    private int typeHits;
+    private int typeMisses;
+    private int signatureHits;
+    private int signatureMisses;
+
+    /*package*/ void typeHit() {
+        typeHits++;
+    }
+
+    /*package*/ void typeMiss() {
+        typeMisses++;
+    }
+
+    /*package*/ void signatureHit() {
+        signatureHits++;
+    }
+
+    /*package*/ void signatureMiss() {
+        signatureMisses++;
+    }
+
+    public int getTypeHits() {
+        return typeHits;
+    }
+
+    public int getTypeMisses() {
+        return typeMisses;
+    }
+
+    public int getSignatureHits() {
+        return signatureHits;
+    }
+
+    public int getSignatureMisses() {
+        return signatureMisses;
+    }
+
+    @Override
+    public String toString() {
+        return "types: " + render(typeHits, typeMisses) + ", signatures: " + render(signatureHits, signatureMisses);
+    }
+
+    private static String render(int hits, int misses) {
+        int total = hits + misses;
+        int hitRate = total == 0 ? 0 : (int) (100L * hits / total);
+        return hits + "/" + total + " hits (" + hitRate + "%)";
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.common.messages;
+
+import com.intellij.openapi.util.Pair;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Phases of a compilation report their duration as LOGGING messages like "PHASE analyze 1234.567 ms". They are visible with -verbose
+ * and can be parsed back by tools measuring the performance of the compiler.
+ */
+public class PhaseTiming {
+    private static final String PREFIX = "PHASE ";
+    private static final String SUFFIX = " ms";
+
+    private PhaseTiming() {
+    }
+
+    public static void report(@Nullable MessageCollector messageCollector, @NotNull String phase, long startNanos) {
+        if (messageCollector != null) {
+            double millis = (System.nanoTime() - startNanos) / 1e6;
+            messageCollector.report(CompilerMessageSeverity.LOGGING, String.format(Locale.US, PREFIX + "%s %.3f" + SUFFIX, phase, millis),
+                                    CompilerMessageLocation.NO_LOCATION);
+        }
+    }
+
+    /**
+     * @return the phase and its duration in milliseconds if the rendered message text contains a phase timing, null otherwise
+     */
+    @Nullable
+    public static Pair<String, Double> parse(@NotNull String text) {
+        int start = text.indexOf(PREFIX);
+        if (start < 0 || !text.endsWith(SUFFIX)) {
+            return null;
+        }
+        String[] parts = text.substring(start + PREFIX.length(), text.length() - SUFFIX.length()).split(" ");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return Pair.create(parts[0], Double.parseDouble(parts[1]));
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.google.common.base.Predicates;
 import com.google.common.collect.Iterables;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
@@ -34,18 +35,24 @@ import org.jetbrains.jet.cli.common.ExitCode;
 import org.jetbrains.jet.cli.common.messages.AnalyzerWithCompilerReport;
 import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
 import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.jet.cli.common.messages.PhaseTiming;
 import org.jetbrains.jet.cli.common.messages.PrintingMessageCollector;
 import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
 import org.jetbrains.jet.config.CommonConfigurationKeys;
 import org.jetbrains.jet.config.CompilerConfiguration;
 import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
 import org.jetbrains.k2js.config.*;
 import org.jetbrains.k2js.facade.K2JSTranslator;
 import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.optimize.DeadCodeEliminator;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static org.jetbrains.jet.cli.common.messages.CompilerMessageLocation.NO_LOCATION;
@@ -71,6 +78,7 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
             return ExitCode.INTERNAL_ERROR;
         }
 
+        long start = System.nanoTime();
         CompilerConfiguration configuration = new CompilerConfiguration();
         configuration.addAll(CommonConfigurationKeys.SOURCE_ROOTS_KEY, Arrays.asList(arguments.sourceFiles));
         JetCoreEnvironment environmentForJS = new JetCoreEnvironment(rootDisposable, configuration);
@@ -80,13 +88,17 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         ClassPathLibrarySourcesLoader sourceLoader = new ClassPathLibrarySourcesLoader(project);
         List<JetFile> sourceFiles = sourceLoader.findSourceFiles();
         environmentForJS.getSourceFiles().addAll(sourceFiles);
+        PhaseTiming.report(messageCollector, "setup", start);
 
         if (arguments.isVerbose()) {
             reportCompiledSourcesList(messageCollector, environmentForJS);
         }
 
+        start = System.nanoTime();
         Config config = getConfig(arguments, project);
-        if (analyzeAndReportErrors(messageCollector, environmentForJS.getSourceFiles(), config)) {
+        AnalyzeExhaust exhaust = analyzeAndReportErrors(messageCollector, environmentForJS.getSourceFiles(), config, arguments.lazy);
+        PhaseTiming.report(messageCollector, "analyze", start);
+        if (exhaust == null) {
             return ExitCode.COMPILATION_ERROR;
         }
 
@@ -96,8 +108,20 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
             return ExitCode.INTERNAL_ERROR;
         }
 
+        if (arguments.outputHeaders != null) {
+            try {
+                LibraryHeaders.writeHeaders(environmentForJS.getSourceFiles(), new File(arguments.outputHeaders));
+            }
+            catch (IOException e) {
+                messageCollector.report(CompilerMessageSeverity.ERROR, "Could not write headers to " + arguments.outputHeaders + ": " +
+                                                                       e.getMessage(), CompilerMessageLocation.NO_LOCATION);
+                return ExitCode.INTERNAL_ERROR;
+            }
+        }
+
         MainCallParameters mainCallParameters = arguments.createMainCallParameters();
-        return translateAndGenerateOutputFile(mainCallParameters, messageCollector, environmentForJS, config, outputFile);
+        return translateAndGenerateOutputFile(mainCallParameters, messageCollector, environmentForJS, config, exhaust.getBindingContext(),
+                                              arguments, outputFile);
     }
 
     private static void reportCompiledSourcesList(@NotNull PrintingMessageCollector messageCollector,
@@ -121,9 +145,35 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
     @NotNull
     private static ExitCode translateAndGenerateOutputFile(@NotNull MainCallParameters mainCall,
             @NotNull PrintingMessageCollector messageCollector,
-            @NotNull JetCoreEnvironment environmentForJS, @NotNull Config config, @NotNull String outputFile) {
+            @NotNull JetCoreEnvironment environmentForJS, @NotNull Config config, @NotNull BindingContext bindingContext,
+            @NotNull K2JSCompilerArguments arguments, @NotNull String outputFile) {
         try {
-            K2JSTranslator.translateWithMainCallParametersAndSaveToFile(mainCall, environmentForJS.getSourceFiles(), outputFile, config);
+            List<JetFile> files = environmentForJS.getSourceFiles();
+            Collection<String> exportedNames = null;
+            if (arguments.eliminateDeadCode) {
+                exportedNames = arguments.exports != null ? Arrays.asList(arguments.exports) : Collections.<String>emptyList();
+                if (exportedNames.isEmpty() && "noCall".equals(arguments.main)) {
+                    messageCollector.report(CompilerMessageSeverity.WARNING,
+                                            "Main function is not called and no declarations are exported, all declarations will be removed",
+                                            CompilerMessageLocation.NO_LOCATION);
+                }
+            }
+
+            long start = System.nanoTime();
+            Ref<DeadCodeEliminator.Result> eliminated = Ref.create();
+            String programCode = K2JSTranslator.translateAnalyzedFiles(mainCall, files, config, bindingContext, exportedNames, eliminated);
+            PhaseTiming.report(messageCollector, "translate", start);
+            if (!eliminated.isNull() && arguments.isVerbose()) {
+                DeadCodeEliminator.Result result = eliminated.get();
+                messageCollector.report(CompilerMessageSeverity.LOGGING, "Dead code elimination: " + result.getRemovedDeclarations() +
+                                                                         " declarations of " + result.getRemovedCharacters() +
+                                                                         " characters removed, output size " + programCode.length() +
+                                                                         " characters",
+                                        CompilerMessageLocation.NO_LOCATION);
+            }
+            start = System.nanoTime();
+            FileUtil.writeToFile(new File(outputFile), programCode);
+            PhaseTiming.report(messageCollector, "write", start);
         }
         catch (Exception e) {
             messageCollector.report(CompilerMessageSeverity.ERROR, "Exception while translating:\n" + e.getMessage(),
@@ -135,16 +185,23 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         return ExitCode.OK;
     }
 
-    private static boolean analyzeAndReportErrors(@NotNull PrintingMessageCollector messageCollector,
-            @NotNull final List<JetFile> sources, @NotNull final Config config) {
+    /**
+     * @return the result of the analysis, or null if there were errors
+     */
+    @Nullable
+    private static AnalyzeExhaust analyzeAndReportErrors(@NotNull PrintingMessageCollector messageCollector,
+            @NotNull final List<JetFile> sources, @NotNull final Config config, final boolean lazy) {
         AnalyzerWithCompilerReport analyzerWithCompilerReport = new AnalyzerWithCompilerReport(messageCollector);
         analyzerWithCompilerReport.analyzeAndReport(new Function0<AnalyzeExhaust>() {
             @Override
             public AnalyzeExhaust invoke() {
+                if (lazy) {
+                    return AnalyzerFacadeForJS.analyzeFilesLazily(sources, Predicates.<PsiFile>alwaysTrue(), config);
+                }
                 return AnalyzerFacadeForJS.analyzeFiles(sources, Predicates.<PsiFile>alwaysTrue(), config);
             }
         }, sources);
-        return analyzerWithCompilerReport.hasErrors();
+        return analyzerWithCompilerReport.hasErrors() ? null : analyzerWithCompilerReport.getAnalyzeExhaust();
     }
 
     @NotNull
@@ -152,11 +209,11 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
         EcmaVersion ecmaVersion = EcmaVersion.fromString(arguments.target);
         String moduleId = FileUtil.getNameWithoutExtension(new File(arguments.outputFile));
         if (arguments.libraryFiles != null) {
-            return new LibrarySourcesConfig(project, moduleId, Arrays.asList(arguments.libraryFiles), ecmaVersion);
+            return new LibrarySourcesConfig(project, moduleId, Arrays.asList(arguments.libraryFiles), ecmaVersion, arguments.minify);
         }
         else {
             // lets discover the JS library definitions on the classpath
-            return new ClassPathLibraryDefintionsConfig(project, moduleId, ecmaVersion);
+            return new ClassPathLibraryDefintionsConfig(project, moduleId, ecmaVersion, arguments.minify);
         }
     }
 }
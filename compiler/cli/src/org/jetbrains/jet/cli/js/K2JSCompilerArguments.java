@@ -37,6 +37,21 @@ public class K2JSCompilerArguments extends CompilerArguments {
     @Argument(value = "sourceFiles", description = "Source files (dir or file)")
     public String[] sourceFiles;
 
+    @Argument(value = "outputHeaders", description = "Path to the archive of declaration headers of the sources, to be used as a library")
+    public String outputHeaders;
+
+    @Argument(value = "lazy", description = "Resolve library declarations lazily, as the sources need them (experimental)")
+    public boolean lazy;
+
+    @Argument(value = "eliminateDeadCode", description = "Remove declarations unreachable from the main function, tests and the exported declarations")
+    public boolean eliminateDeadCode;
+
+    @Argument(value = "exports", description = "Qualified names of the declarations kept by -eliminateDeadCode, e.g. sample.myApp")
+    public String[] exports;
+
+    @Argument(value = "minify", description = "Give parameters, local variables and temporaries short generated names")
+    public boolean minify;
+
     @Argument(value = "target", description = "Generate js files for specific ECMA version (3 or 5, default ECMA 3)")
     public String target;
 
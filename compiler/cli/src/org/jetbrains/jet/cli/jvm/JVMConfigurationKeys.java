@@ -39,4 +39,16 @@ public class JVMConfigurationKeys {
             CompilerConfigurationKey.create("generate not-null assertions");
     public static final CompilerConfigurationKey<Boolean> GENERATE_NOT_NULL_PARAMETER_ASSERTIONS =
             CompilerConfigurationKey.create("generate not-null parameter assertions");
+
+    public static final CompilerConfigurationKey<Boolean> OPTIMIZE_BYTECODE =
+            CompilerConfigurationKey.create("optimize bytecode");
+
+    public static final CompilerConfigurationKey<Boolean> PARSE_SOURCES_IN_PARALLEL =
+            CompilerConfigurationKey.create("parse sources in parallel");
+
+    public static final CompilerConfigurationKey<Boolean> LAZY_ANALYSIS =
+            CompilerConfigurationKey.create("lazy analysis");
+
+    public static final CompilerConfigurationKey<Boolean> CALL_RESOLUTION_STATISTICS =
+            CompilerConfigurationKey.create("call resolution statistics");
 }
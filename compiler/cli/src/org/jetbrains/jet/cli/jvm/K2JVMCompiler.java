@@ -107,6 +107,10 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
 
         configuration.put(JVMConfigurationKeys.GENERATE_NOT_NULL_ASSERTIONS, arguments.notNullAssertions);
         configuration.put(JVMConfigurationKeys.GENERATE_NOT_NULL_PARAMETER_ASSERTIONS, arguments.notNullParamAssertions);
+        configuration.put(JVMConfigurationKeys.OPTIMIZE_BYTECODE, arguments.optimize);
+        configuration.put(JVMConfigurationKeys.PARSE_SOURCES_IN_PARALLEL, arguments.parallelParsing);
+        configuration.put(JVMConfigurationKeys.LAZY_ANALYSIS, arguments.lazy);
+        configuration.put(JVMConfigurationKeys.CALL_RESOLUTION_STATISTICS, arguments.verbose);
 
         configuration.put(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, messageCollector);
 
@@ -135,7 +139,9 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
                 noErrors = KotlinToJVMBytecodeCompiler.compileAndExecuteScript(paths, environment, scriptArgs);
             }
             else {
+                long start = System.nanoTime();
                 JetCoreEnvironment environment = new JetCoreEnvironment(rootDisposable, configuration);
+                PhaseTiming.report(messageCollector, "setup", start);
                 noErrors = KotlinToJVMBytecodeCompiler.compileBunchOfSources(environment, jar, outputDir, arguments.includeRuntime);
             }
             return noErrors ? OK : COMPILATION_ERROR;
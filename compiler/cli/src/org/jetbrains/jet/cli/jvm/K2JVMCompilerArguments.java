@@ -70,6 +70,15 @@ public class K2JVMCompilerArguments extends CompilerArguments {
     @Argument(value = "notNullParamAssertions", description = "generate not-null assertions on parameters of methods accessible from Java")
     public boolean notNullParamAssertions;
 
+    @Argument(value = "optimize", description = "run peephole optimizations on generated bytecode")
+    public boolean optimize;
+
+    @Argument(value = "parallelParsing", description = "parse all source files up front on a pool of threads")
+    public boolean parallelParsing;
+
+    @Argument(value = "lazy", description = "resolve declarations lazily, as bodies and code generation need them (experimental)")
+    public boolean lazy;
+
     @Argument(value = "builtins", description = "compile builtin classes (internal)")
     public boolean builtins;
 
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import com.intellij.core.CoreApplicationEnvironment;
+import com.intellij.core.JavaCoreApplicationEnvironment;
+import com.intellij.core.JavaCoreProjectEnvironment;
+import com.intellij.lang.java.JavaParserDefinition;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.extensions.Extensions;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.psi.impl.compiled.ClsCustomNavigationPolicy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.parsing.JetParserDefinition;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+import org.jetbrains.jet.plugin.JetFileType;
+
+/**
+ * Application-level part of {@link JetCoreEnvironment}: file types, parsers and file systems.
+ *
+ * An application which embeds the compiler and runs many compilations, possibly in parallel, should create them with
+ * {@link JetCoreEnvironment#createWithSharedApplication}: the application environment and the built-ins are then created
+ * once and shared by all the environments, until {@link #disposeShared()} is called.
+ * An application environment is global for the JVM while it lives, so environments created with the constructor of
+ * {@link JetCoreEnvironment} should not be used at the same time as the shared ones.
+ *
+ * Built-ins are initialized once and live as long as the JVM: they are fully resolved when initialized, and the descriptors
+ * of the built-in classes are cached in static fields all over the compiler. If no environment has initialized them yet,
+ * the first shared application resolves them in a project of its own, and they outlive it after {@link #disposeShared()}.
+ */
+public final class JetCoreApplicationEnvironment {
+    private static final Object LOCK = new Object();
+
+    private static volatile JavaCoreApplicationEnvironment shared = null;
+    private static Disposable sharedDisposable = null;
+
+    private JetCoreApplicationEnvironment() {
+    }
+
+    @NotNull
+    public static JavaCoreApplicationEnvironment create(@NotNull Disposable parentDisposable) {
+        JavaCoreApplicationEnvironment applicationEnvironment = new JavaCoreApplicationEnvironment(parentDisposable);
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "kt");
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "kts");
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "ktm");
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, JetParserDefinition.KTSCRIPT_FILE_SUFFIX); // should be renamed to kts
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "jet");
+        applicationEnvironment.registerParserDefinition(new JavaParserDefinition());
+        applicationEnvironment.registerParserDefinition(new JetParserDefinition());
+
+        // This extension point should be registered in JavaCoreApplicationEnvironment
+        CoreApplicationEnvironment.registerExtensionPoint(Extensions.getRootArea(), ClsCustomNavigationPolicy.EP_NAME,
+                                                          ClsCustomNavigationPolicy.class);
+        return applicationEnvironment;
+    }
+
+    @NotNull
+    public static JavaCoreApplicationEnvironment getShared() {
+        JavaCoreApplicationEnvironment result = shared;
+        if (result != null) {
+            return result;
+        }
+        synchronized (LOCK) {
+            if (shared == null) {
+                Disposable disposable = CompileEnvironmentUtil.createMockDisposable();
+                JavaCoreApplicationEnvironment applicationEnvironment = create(disposable);
+
+                // Built-ins are resolved in a project of their own, unless an earlier environment has initialized them
+                JavaCoreProjectEnvironment builtInsEnvironment = new JavaCoreProjectEnvironment(disposable, applicationEnvironment);
+                KotlinBuiltIns.initialize(builtInsEnvironment.getProject());
+
+                sharedDisposable = disposable;
+                shared = applicationEnvironment;
+            }
+            return shared;
+        }
+    }
+
+    // Environments created with the shared application must be disposed before
+    public static void disposeShared() {
+        synchronized (LOCK) {
+            if (shared != null) {
+                Disposer.dispose(sharedDisposable);
+                sharedDisposable = null;
+                shared = null;
+            }
+        }
+    }
+
+}
@@ -17,22 +17,20 @@
 package org.jetbrains.jet.cli.jvm.compiler;
 
 import com.intellij.codeInsight.ExternalAnnotationsManager;
-import com.intellij.core.CoreApplicationEnvironment;
 import com.intellij.core.CoreJavaFileManager;
 import com.intellij.core.JavaCoreApplicationEnvironment;
 import com.intellij.core.JavaCoreProjectEnvironment;
-import com.intellij.lang.java.JavaParserDefinition;
 import com.intellij.mock.MockApplication;
 import com.intellij.mock.MockProject;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.extensions.Extensions;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElementFinder;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
-import com.intellij.psi.impl.compiled.ClsCustomNavigationPolicy;
 import com.intellij.psi.impl.file.impl.JavaFileManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.asJava.JavaElementFinder;
@@ -41,10 +39,10 @@ import org.jetbrains.jet.cli.common.CLIConfigurationKeys;
 import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
 import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
 import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.cli.common.messages.PhaseTiming;
 import org.jetbrains.jet.cli.jvm.JVMConfigurationKeys;
 import org.jetbrains.jet.config.CommonConfigurationKeys;
 import org.jetbrains.jet.config.CompilerConfiguration;
-import org.jetbrains.jet.lang.parsing.JetParserDefinition;
 import org.jetbrains.jet.lang.parsing.JetScriptDefinitionProvider;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.java.JetFilesProvider;
@@ -54,6 +52,7 @@ import org.jetbrains.jet.utils.PathUtil;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class JetCoreEnvironment {
@@ -69,19 +68,41 @@ public class JetCoreEnvironment {
     private boolean initialized = false;
 
     public JetCoreEnvironment(Disposable parentDisposable, @NotNull CompilerConfiguration configuration) {
+        this(parentDisposable, JetCoreApplicationEnvironment.create(parentDisposable), configuration);
+    }
+
+    /**
+     * Creates an environment in the application shared by all the environments created this way, see {@link JetCoreApplicationEnvironment}.
+     * Such environments can be created and used in parallel threads, disposing of the parent disposable releases the project only.
+     */
+    @NotNull
+    public static JetCoreEnvironment createWithSharedApplication(@NotNull Disposable parentDisposable,
+            @NotNull CompilerConfiguration configuration) {
+        return new JetCoreEnvironment(parentDisposable, JetCoreApplicationEnvironment.getShared(), configuration);
+    }
+
+    private JetCoreEnvironment(@NotNull Disposable parentDisposable,
+            @NotNull JavaCoreApplicationEnvironment applicationEnvironment,
+            @NotNull CompilerConfiguration configuration) {
         this.configuration = configuration.copy();
         this.configuration.setReadOnly(true);
 
-        this.applicationEnvironment = new JavaCoreApplicationEnvironment(parentDisposable);
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "kt");
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "kts");
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "ktm");
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, JetParserDefinition.KTSCRIPT_FILE_SUFFIX); // should be renamed to kts
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "jet");
-        applicationEnvironment.registerParserDefinition(new JavaParserDefinition());
-        applicationEnvironment.registerParserDefinition(new JetParserDefinition());
+        this.applicationEnvironment = applicationEnvironment;
 
-        projectEnvironment = new JavaCoreProjectEnvironment(parentDisposable, applicationEnvironment);
+        // Extension areas of projects are registered globally, so projects of a shared application are created
+        // and disposed one at a time
+        final Disposable projectDisposable = CompileEnvironmentUtil.createMockDisposable();
+        Disposer.register(parentDisposable, new Disposable() {
+            @Override
+            public void dispose() {
+                synchronized (JetCoreEnvironment.this.applicationEnvironment) {
+                    Disposer.dispose(projectDisposable);
+                }
+            }
+        });
+        synchronized (applicationEnvironment) {
+            projectEnvironment = new JavaCoreProjectEnvironment(projectDisposable, applicationEnvironment);
+        }
 
         MockProject project = projectEnvironment.getProject();
         project.registerService(JetScriptDefinitionProvider.class, new JetScriptDefinitionProvider());
@@ -96,10 +117,6 @@ public class JetCoreEnvironment {
                 .getExtensionPoint(PsiElementFinder.EP_NAME)
                 .registerExtension(new JavaElementFinder(project, cliLightClassGenerationSupport));
 
-        // This extension point should be registered in JavaCoreApplicationEnvironment
-        CoreApplicationEnvironment.registerExtensionPoint(Extensions.getRootArea(), ClsCustomNavigationPolicy.EP_NAME,
-                                                          ClsCustomNavigationPolicy.class);
-
         annotationsManager = new CoreExternalAnnotationsManager(project.getComponent(PsiManager.class));
         project.registerService(ExternalAnnotationsManager.class, annotationsManager);
 
@@ -113,6 +130,12 @@ public class JetCoreEnvironment {
             addSources(path);
         }
 
+        if (configuration.get(JVMConfigurationKeys.PARSE_SOURCES_IN_PARALLEL, false)) {
+            long start = System.nanoTime();
+            ParallelSourceParser.parse(sourceFiles);
+            PhaseTiming.report(configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY), "parse", start);
+        }
+
         JetScriptDefinitionProvider.getInstance(project).addScriptDefinitions(configuration.getList(CommonConfigurationKeys.SCRIPT_DEFINITIONS_KEY));
 
         KotlinBuiltIns.initialize(project);
@@ -141,6 +164,8 @@ public class JetCoreEnvironment {
         if (file.isDirectory()) {
             File[] files = file.listFiles();
             if (files != null) {
+                // Files are listed in an unspecified order, sort them to report diagnostics in the same order on every run
+                Arrays.sort(files);
                 for (File child : files) {
                     addSources(child);
                 }
@@ -180,12 +205,15 @@ public class JetCoreEnvironment {
             throw new IllegalStateException("Cannot add class path when JetCoreEnvironment is already initialized");
         }
         if (path.isFile()) {
-            VirtualFile jarFile = applicationEnvironment.getJarFileSystem().findFileByPath(path + "!/");
-            if (jarFile == null) {
-                reportError("Classpath entry points to a file that is not a JAR archive: " + path);
-                return;
+            // The jar file system caches opened archives and may be shared by environments in parallel threads
+            synchronized (applicationEnvironment) {
+                VirtualFile jarFile = applicationEnvironment.getJarFileSystem().findFileByPath(path + "!/");
+                if (jarFile == null) {
+                    reportError("Classpath entry points to a file that is not a JAR archive: " + path);
+                    return;
+                }
+                projectEnvironment.addJarToClassPath(path);
             }
-            projectEnvironment.addJarToClassPath(path);
         }
         else {
             final VirtualFile root = applicationEnvironment.getLocalFileSystem().findFileByPath(path.getAbsolutePath());
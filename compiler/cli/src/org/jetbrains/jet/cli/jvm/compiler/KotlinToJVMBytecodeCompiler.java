@@ -34,6 +34,7 @@ import org.jetbrains.jet.cli.common.CompilerPluginContext;
 import org.jetbrains.jet.cli.common.messages.*;
 import org.jetbrains.jet.cli.jvm.JVMConfigurationKeys;
 import org.jetbrains.jet.codegen.*;
+import org.jetbrains.jet.codegen.optimization.OptimizationClassBuilderFactory;
 import org.jetbrains.jet.codegen.state.GenerationState;
 import org.jetbrains.jet.codegen.state.Progress;
 import org.jetbrains.jet.codegen.state.StandardGenerationStrategy;
@@ -46,6 +47,7 @@ import org.jetbrains.jet.lang.psi.JetPsiUtil;
 import org.jetbrains.jet.lang.resolve.AnalyzerScriptParameter;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
 import org.jetbrains.jet.lang.resolve.ScriptNameUtil;
+import org.jetbrains.jet.lang.resolve.calls.CallResolutionStatistics;
 import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
 import org.jetbrains.jet.lang.resolve.java.PackageClassUtils;
 import org.jetbrains.jet.lang.resolve.name.FqName;
@@ -186,6 +188,7 @@ public class KotlinToJVMBytecodeCompiler {
             return false;
         }
 
+        long start = System.nanoTime();
         try {
             ClassFileFactory factory = generationState.getFactory();
             if (jar != null) {
@@ -211,6 +214,7 @@ public class KotlinToJVMBytecodeCompiler {
             else {
                 throw new CompileEnvironmentException("Output directory or jar file is not specified - no files will be saved to the disk");
             }
+            PhaseTiming.report(environment.getConfiguration().get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY), "write", start);
             return true;
         }
         finally {
@@ -287,7 +291,11 @@ public class KotlinToJVMBytecodeCompiler {
             boolean stubs,
             List<AnalyzerScriptParameter> scriptParameters
     ) {
+        MessageCollector messageCollector = environment.getConfiguration().get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY);
+
+        long start = System.nanoTime();
         AnalyzeExhaust exhaust = analyze(environment, scriptParameters, stubs);
+        PhaseTiming.report(messageCollector, "analyze", start);
 
         if (exhaust == null) {
             return null;
@@ -295,7 +303,10 @@ public class KotlinToJVMBytecodeCompiler {
 
         exhaust.throwIfError();
 
-        return generate(environment, exhaust, stubs);
+        start = System.nanoTime();
+        GenerationState generationState = generate(environment, exhaust, stubs);
+        PhaseTiming.report(messageCollector, "generate", start);
+        return generationState;
     }
 
     @Nullable
@@ -307,12 +318,25 @@ public class KotlinToJVMBytecodeCompiler {
                 environment.getConfiguration().get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY));
         final Predicate<PsiFile> filesToAnalyzeCompletely =
                 stubs ? Predicates.<PsiFile>alwaysFalse() : Predicates.<PsiFile>alwaysTrue();
+        final boolean lazy = environment.getConfiguration().get(JVMConfigurationKeys.LAZY_ANALYSIS, false) &&
+                             !stubs && scriptParameters.isEmpty() && !containsScripts(environment.getSourceFiles());
+        final BindingTrace sharedTrace = CliLightClassGenerationSupport.getInstanceForCli(environment.getProject()).getTrace();
+        CallResolutionStatistics statistics = environment.getConfiguration().get(JVMConfigurationKeys.CALL_RESOLUTION_STATISTICS, false)
+                                              ? CallResolutionStatistics.enable(sharedTrace)
+                                              : null;
         analyzerWithCompilerReport.analyzeAndReport(
                 new Function0<AnalyzeExhaust>() {
                     @NotNull
                     @Override
                     public AnalyzeExhaust invoke() {
-                        BindingTrace sharedTrace = CliLightClassGenerationSupport.getInstanceForCli(environment.getProject()).getTrace();
+                        if (lazy) {
+                            return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationLazily(
+                                    environment.getProject(),
+                                    environment.getSourceFiles(),
+                                    sharedTrace,
+                                    filesToAnalyzeCompletely
+                            );
+                        }
                         return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
                                 environment.getProject(),
                                 environment.getSourceFiles(),
@@ -325,9 +349,25 @@ public class KotlinToJVMBytecodeCompiler {
                 }, environment.getSourceFiles()
         );
 
+        MessageCollector messageCollector = environment.getConfiguration().get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY);
+        if (messageCollector != null && statistics != null) {
+            messageCollector.report(
+                    CompilerMessageSeverity.LOGGING,
+                    "Call resolution: " + statistics,
+                    CompilerMessageLocation.NO_LOCATION);
+        }
+
         return analyzerWithCompilerReport.hasErrors() ? null : analyzerWithCompilerReport.getAnalyzeExhaust();
     }
 
+    // Scripts are supported by eager analysis only
+    private static boolean containsScripts(@NotNull List<JetFile> files) {
+        for (JetFile file : files) {
+            if (file.isScript()) return true;
+        }
+        return false;
+    }
+
     @NotNull
     private static GenerationState generate(
             final JetCoreEnvironment environment,
@@ -349,8 +389,12 @@ public class KotlinToJVMBytecodeCompiler {
                         CompilerMessageLocation.NO_LOCATION);
             }
         };
+        ClassBuilderFactory builderFactory = ClassBuilderFactories.binaries(stubs);
+        if (configuration.get(JVMConfigurationKeys.OPTIMIZE_BYTECODE, false)) {
+            builderFactory = new OptimizationClassBuilderFactory(builderFactory);
+        }
         GenerationState generationState = new GenerationState(
-                project, ClassBuilderFactories.binaries(stubs), backendProgress, exhaust.getBindingContext(), environment.getSourceFiles(),
+                project, builderFactory, backendProgress, exhaust.getBindingContext(), environment.getSourceFiles(),
                 configuration.get(JVMConfigurationKeys.BUILTIN_TO_JAVA_TYPES_MAPPING_KEY, BuiltinToJavaTypesMapping.ENABLED),
                 configuration.get(JVMConfigurationKeys.GENERATE_NOT_NULL_ASSERTIONS, false),
                 configuration.get(JVMConfigurationKeys.GENERATE_NOT_NULL_PARAMETER_ASSERTIONS, false),
@@ -358,6 +402,14 @@ public class KotlinToJVMBytecodeCompiler {
         );
         KotlinCodegenFacade.compileCorrectFiles(generationState, StandardGenerationStrategy.INSTANCE, CompilationErrorHandler.THROW_EXCEPTION);
 
+        MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY);
+        if (messageCollector != null) {
+            messageCollector.report(
+                    CompilerMessageSeverity.LOGGING,
+                    "Type mapper cache " + generationState.getTypeMapper().getCacheStatistics(),
+                    CompilerMessageLocation.NO_LOCATION);
+        }
+
         CompilerPluginContext context = new CompilerPluginContext(project, exhaust.getBindingContext(), environment.getSourceFiles());
         for (CompilerPlugin plugin : configuration.getList(CLIConfigurationKeys.COMPILER_PLUGINS)) {
             plugin.processFiles(context);
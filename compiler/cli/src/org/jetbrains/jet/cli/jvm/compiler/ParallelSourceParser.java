@@ -0,0 +1,119 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import com.intellij.lang.ASTNode;
+import com.intellij.openapi.application.ApplicationManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.utils.ExceptionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds syntax trees of source files up front on a pool of threads instead of lazily on the first access during analysis.
+ *
+ * Only the trees are built here, the files stay in the order they were found in, so syntax errors are reported in the same order
+ * as with lazy parsing. Every file is parsed under a read action, like any other access to PSI from a thread of its own.
+ *
+ * The pool is created on the first use and shared by all compilations in the JVM, its threads are daemons and don't keep the JVM alive.
+ */
+/*package*/ class ParallelSourceParser {
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static ExecutorService executor = null;
+
+    private ParallelSourceParser() {
+    }
+
+    public static void parse(@NotNull Collection<JetFile> files) {
+        if (THREADS <= 1 || files.size() <= 1) {
+            for (JetFile file : files) {
+                parse(file);
+            }
+            return;
+        }
+
+        ExecutorService executor = getExecutor();
+        List<Future<?>> futures = new ArrayList<Future<?>>(files.size());
+        try {
+            for (final JetFile file : files) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        ApplicationManager.getApplication().runReadAction(new Runnable() {
+                            @Override
+                            public void run() {
+                                parse(file);
+                            }
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw ExceptionUtils.rethrow(e);
+        }
+        catch (ExecutionException e) {
+            cancel(futures);
+            throw ExceptionUtils.rethrow(e.getCause());
+        }
+    }
+
+    @NotNull
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+                @Override
+                public Thread newThread(@NotNull Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Kotlin source parser " + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    private static void cancel(@NotNull List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private static void parse(@NotNull JetFile file) {
+        // Loads the text of the file and parses it, lazily parseable nodes are parsed when their children are requested
+        List<ASTNode> stack = new ArrayList<ASTNode>();
+        stack.add(file.getNode());
+        while (!stack.isEmpty()) {
+            ASTNode node = stack.remove(stack.size() - 1);
+            for (ASTNode child = node.getFirstChildNode(); child != null; child = child.getTreeNext()) {
+                stack.add(child);
+            }
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.jetbrains.jet.lang.psi.JetImportDirective;
 import org.jetbrains.jet.lang.psi.JetPsiFactory;
 import org.jetbrains.jet.lang.resolve.*;
 import org.jetbrains.jet.lang.resolve.lazy.FileBasedDeclarationProviderFactory;
+import org.jetbrains.jet.lang.resolve.lazy.LazyTopDownAnalyzer;
 import org.jetbrains.jet.lang.resolve.lazy.ResolveSession;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.Name;
@@ -81,10 +82,18 @@ public enum AnalyzerFacadeForJVM implements AnalyzerFacade {
 
     @NotNull
     @Override
-    public ResolveSession getLazyResolveSession(@NotNull final Project fileProject, @NotNull Collection<JetFile> files) {
+    public ResolveSession getLazyResolveSession(@NotNull Project fileProject, @NotNull Collection<JetFile> files) {
+        return createLazyResolveSession(fileProject, files, new BindingTraceContext());
+    }
+
+    @NotNull
+    private static ResolveSession createLazyResolveSession(
+            @NotNull final Project fileProject,
+            @NotNull Collection<JetFile> files,
+            @NotNull BindingTrace javaResolverTrace
+    ) {
         ModuleDescriptor javaModule = new ModuleDescriptor(Name.special("<java module>"));
 
-        BindingTraceContext javaResolverTrace = new BindingTraceContext();
         InjectorForJavaDescriptorResolver injector = new InjectorForJavaDescriptorResolver(fileProject, javaResolverTrace, javaModule);
 
         final PsiClassFinder psiClassFinder = injector.getPsiClassFinder();
@@ -220,6 +229,23 @@ public enum AnalyzerFacadeForJVM implements AnalyzerFacade {
         }
     }
 
+    /**
+     * Analyzes files with lazily resolved descriptors (see {@link LazyTopDownAnalyzer}). All the files form the source set,
+     * but only declarations of the files to analyze completely are resolved along with their bodies, the rest is resolved on demand.
+     *
+     * Scripts are not supported.
+     */
+    public static AnalyzeExhaust analyzeFilesWithJavaIntegrationLazily(
+            Project project,
+            Collection<JetFile> files,
+            BindingTrace trace,
+            Predicate<PsiFile> filesToAnalyzeCompletely
+    ) {
+        ResolveSession resolveSession = createLazyResolveSession(project, files, trace);
+        new LazyTopDownAnalyzer(resolveSession, filesToAnalyzeCompletely).analyzeFiles(files);
+        return AnalyzeExhaust.success(trace.getBindingContext(), resolveSession.getModuleConfiguration());
+    }
+
     public static AnalyzeExhaust shallowAnalyzeFiles(Collection<JetFile> files) {
         assert files.size() > 0;
 
@@ -87,9 +87,8 @@ public class PsiClassFinderImpl implements PsiClassFinder {
 
         if (original != null) {
             String classQualifiedName = original.getQualifiedName();
-            FqName actualQualifiedName = classQualifiedName != null ? new FqName(classQualifiedName) : null;
-            if (!qualifiedName.equals(actualQualifiedName)) {
-                throw new IllegalStateException("requested " + qualifiedName + ", got " + actualQualifiedName);
+            if (classQualifiedName == null || !qualifiedName.equalsTo(classQualifiedName)) {
+                throw new IllegalStateException("requested " + qualifiedName + ", got " + classQualifiedName);
             }
         }
 
@@ -18,6 +18,10 @@
 package org.jetbrains.jet.di;
 
 import org.jetbrains.jet.lang.resolve.BodyResolver;
+import org.jetbrains.jet.lang.resolve.ControlFlowAnalyzer;
+import org.jetbrains.jet.lang.resolve.DeclarationsChecker;
+import org.jetbrains.jet.lang.resolve.OverrideResolver;
+import org.jetbrains.jet.lang.resolve.OverloadResolver;
 import com.intellij.openapi.project.Project;
 import org.jetbrains.jet.lang.resolve.TopDownAnalysisParameters;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
@@ -31,8 +35,6 @@ import org.jetbrains.jet.lang.resolve.AnnotationResolver;
 import org.jetbrains.jet.lang.resolve.TypeResolver;
 import org.jetbrains.jet.lang.resolve.QualifiedExpressionResolver;
 import org.jetbrains.jet.lang.resolve.calls.CandidateResolver;
-import org.jetbrains.jet.lang.resolve.ControlFlowAnalyzer;
-import org.jetbrains.jet.lang.resolve.DeclarationsChecker;
 import org.jetbrains.jet.lang.resolve.ScriptBodyResolver;
 import org.jetbrains.jet.lang.resolve.TopDownAnalysisContext;
 import org.jetbrains.annotations.NotNull;
@@ -42,6 +44,10 @@ import javax.annotation.PreDestroy;
 public class InjectorForBodyResolve {
 
     private BodyResolver bodyResolver;
+    private ControlFlowAnalyzer controlFlowAnalyzer;
+    private DeclarationsChecker declarationsChecker;
+    private OverrideResolver overrideResolver;
+    private OverloadResolver overloadResolver;
     private final Project project;
     private final TopDownAnalysisParameters topDownAnalysisParameters;
     private final BindingTrace bindingTrace;
@@ -55,8 +61,6 @@ public class InjectorForBodyResolve {
     private TypeResolver typeResolver;
     private QualifiedExpressionResolver qualifiedExpressionResolver;
     private CandidateResolver candidateResolver;
-    private ControlFlowAnalyzer controlFlowAnalyzer;
-    private DeclarationsChecker declarationsChecker;
     private ScriptBodyResolver scriptBodyResolver;
     private TopDownAnalysisContext topDownAnalysisContext;
 
@@ -68,6 +72,10 @@ public class InjectorForBodyResolve {
         @NotNull ModuleConfiguration moduleConfiguration
     ) {
         this.bodyResolver = new BodyResolver();
+        this.controlFlowAnalyzer = new ControlFlowAnalyzer();
+        this.declarationsChecker = new DeclarationsChecker();
+        this.overrideResolver = new OverrideResolver();
+        this.overloadResolver = new OverloadResolver();
         this.project = project;
         this.topDownAnalysisParameters = topDownAnalysisParameters;
         this.bindingTrace = bindingTrace;
@@ -81,8 +89,6 @@ public class InjectorForBodyResolve {
         this.typeResolver = new TypeResolver();
         this.qualifiedExpressionResolver = new QualifiedExpressionResolver();
         this.candidateResolver = new CandidateResolver();
-        this.controlFlowAnalyzer = new ControlFlowAnalyzer();
-        this.declarationsChecker = new DeclarationsChecker();
         this.scriptBodyResolver = new ScriptBodyResolver();
         this.topDownAnalysisContext = new TopDownAnalysisContext();
 
@@ -96,6 +102,18 @@ public class InjectorForBodyResolve {
         this.bodyResolver.setTopDownAnalysisParameters(topDownAnalysisParameters);
         this.bodyResolver.setTrace(bindingTrace);
 
+        this.controlFlowAnalyzer.setTopDownAnalysisParameters(topDownAnalysisParameters);
+        this.controlFlowAnalyzer.setTrace(bindingTrace);
+
+        this.declarationsChecker.setTrace(bindingTrace);
+
+        this.overrideResolver.setContext(topDownAnalysisContext);
+        this.overrideResolver.setTopDownAnalysisParameters(topDownAnalysisParameters);
+        this.overrideResolver.setTrace(bindingTrace);
+
+        this.overloadResolver.setContext(topDownAnalysisContext);
+        this.overloadResolver.setTrace(bindingTrace);
+
         callResolver.setArgumentTypeResolver(argumentTypeResolver);
         callResolver.setCandidateResolver(candidateResolver);
         callResolver.setExpressionTypingServices(expressionTypingServices);
@@ -123,11 +141,6 @@ public class InjectorForBodyResolve {
 
         candidateResolver.setArgumentTypeResolver(argumentTypeResolver);
 
-        controlFlowAnalyzer.setTopDownAnalysisParameters(topDownAnalysisParameters);
-        controlFlowAnalyzer.setTrace(bindingTrace);
-
-        declarationsChecker.setTrace(bindingTrace);
-
         scriptBodyResolver.setContext(topDownAnalysisContext);
         scriptBodyResolver.setExpressionTypingServices(expressionTypingServices);
         scriptBodyResolver.setTrace(bindingTrace);
@@ -144,6 +157,22 @@ public class InjectorForBodyResolve {
         return this.bodyResolver;
     }
 
+    public ControlFlowAnalyzer getControlFlowAnalyzer() {
+        return this.controlFlowAnalyzer;
+    }
+
+    public DeclarationsChecker getDeclarationsChecker() {
+        return this.declarationsChecker;
+    }
+
+    public OverrideResolver getOverrideResolver() {
+        return this.overrideResolver;
+    }
+
+    public OverloadResolver getOverloadResolver() {
+        return this.overloadResolver;
+    }
+
     public Project getProject() {
         return this.project;
     }
@@ -0,0 +1,293 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.cfg;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.cfg.PseudocodeTraverser.Edges;
+import org.jetbrains.jet.lang.cfg.PseudocodeTraverser.LookInsideStrategy;
+import org.jetbrains.jet.lang.cfg.PseudocodeTraverser.TraversalOrder;
+import org.jetbrains.jet.lang.cfg.pseudocode.Instruction;
+import org.jetbrains.jet.lang.cfg.pseudocode.LocalDeclarationInstruction;
+import org.jetbrains.jet.lang.cfg.pseudocode.Pseudocode;
+
+import java.util.*;
+
+/**
+ * Solves a dataflow problem over pseudocode, which facts are described by several bit vectors indexed by variable numbers.
+ *
+ * Each vector is merged either by union or by intersection. Instructions are processed by a worklist in reverse postorder,
+ * so that for a graph without loops every instruction is processed once.
+ * Instructions not reachable from the start get the facts obtained from their own (unreachable) predecessors,
+ * instructions without predecessors get the identity of the merge.
+ */
+public class BitVectorDataFlow {
+
+    public interface Analysis {
+        /**
+         * Vectors merged by intersection contain all the bits up to this size in the identity of the merge
+         */
+        int getVariableCount();
+
+        int getVectorCount();
+
+        boolean isMergedByIntersection(int vector);
+
+        /**
+         * @return the same array if the instruction doesn't change the facts at its enter, or a changed copy of it
+         */
+        @NotNull
+        BitSet[] transfer(@NotNull Instruction instruction, @NotNull BitSet[] enterFacts);
+    }
+
+    private final List<Instruction> instructions = Lists.newArrayList();
+    private final Map<Instruction, Integer> indices = Maps.newHashMap();
+    private final List<List<Instruction>> incomingInstructions = Lists.newArrayList();
+    // Local declarations analysed inside the enclosing pseudocode share the facts of the last instruction of their body
+    private final Map<Instruction, Instruction> aliases = Maps.newHashMap();
+
+    private final TraversalOrder traversalOrder;
+    private final LookInsideStrategy lookInside;
+
+    private BitVectorDataFlow(@NotNull TraversalOrder traversalOrder, @NotNull LookInsideStrategy lookInside) {
+        this.traversalOrder = traversalOrder;
+        this.lookInside = lookInside;
+    }
+
+    @NotNull
+    public static Map<Instruction, Edges<BitSet[]>> analyze(
+            @NotNull Pseudocode pseudocode,
+            @NotNull TraversalOrder traversalOrder,
+            @NotNull LookInsideStrategy lookInside,
+            @NotNull BitSet[] startFacts,
+            @NotNull Analysis analysis
+    ) {
+        BitVectorDataFlow dataFlow = new BitVectorDataFlow(traversalOrder, lookInside);
+        dataFlow.collectInstructions(pseudocode);
+        dataFlow.collectIncomingInstructions(pseudocode, Collections.<Instruction>emptyList());
+        return dataFlow.solve(PseudocodeTraverser.getStartInstruction(pseudocode, traversalOrder), startFacts, analysis);
+    }
+
+    private void collectInstructions(@NotNull Pseudocode pseudocode) {
+        for (Instruction instruction : pseudocode.getInstructions()) {
+            if (PseudocodeTraverser.shouldLookInside(instruction, lookInside)) {
+                Pseudocode body = ((LocalDeclarationInstruction) instruction).getBody();
+                aliases.put(instruction, PseudocodeTraverser.getLastInstruction(body, traversalOrder));
+                collectInstructions(body);
+                continue;
+            }
+            indices.put(instruction, instructions.size());
+            instructions.add(instruction);
+            incomingInstructions.add(null);
+        }
+    }
+
+    private void collectIncomingInstructions(@NotNull Pseudocode pseudocode, @NotNull Collection<Instruction> previousSubGraphInstructions) {
+        Instruction startInstruction = PseudocodeTraverser.getStartInstruction(pseudocode, traversalOrder);
+        for (Instruction instruction : pseudocode.getInstructions()) {
+            Collection<Instruction> previousInstructions = PseudocodeTraverser.getPreviousInstruction(instruction, traversalOrder);
+            if (aliases.containsKey(instruction)) {
+                collectIncomingInstructions(((LocalDeclarationInstruction) instruction).getBody(), previousInstructions);
+                continue;
+            }
+
+            List<Instruction> incoming = Lists.newArrayList();
+            addIncoming(previousInstructions, incoming);
+            if (instruction == startInstruction) {
+                addIncoming(previousSubGraphInstructions, incoming);
+            }
+            incomingInstructions.set(indices.get(instruction), incoming);
+        }
+    }
+
+    private void addIncoming(@NotNull Collection<Instruction> previousInstructions, @NotNull List<Instruction> incoming) {
+        for (Instruction previousInstruction : previousInstructions) {
+            Instruction alias = aliases.get(previousInstruction);
+            Instruction source = alias != null ? alias : previousInstruction;
+            if (indices.containsKey(source) && !incoming.contains(source)) {
+                incoming.add(source);
+            }
+        }
+    }
+
+    @NotNull
+    private Map<Instruction, Edges<BitSet[]>> solve(@NotNull Instruction start, @NotNull BitSet[] startFacts, @NotNull Analysis analysis) {
+        int size = instructions.size();
+        int[][] successors = computeSuccessors();
+        int[] order = computeReversePostorder(indices.get(start), successors);
+        int[] positions = new int[size];
+        for (int position = 0; position < size; position++) {
+            positions[order[position]] = position;
+        }
+
+        BitSet[] identity = createMergeIdentity(analysis);
+        BitSet[][] enterFacts = new BitSet[size][];
+        BitSet[][] exitFacts = new BitSet[size][];
+        Arrays.fill(enterFacts, identity);
+        Arrays.fill(exitFacts, identity);
+
+        int startIndex = indices.get(start);
+        enterFacts[startIndex] = startFacts;
+        exitFacts[startIndex] = startFacts;
+
+        // Positions in reverse postorder of instructions which facts should be recomputed
+        BitSet worklist = new BitSet(size);
+        worklist.set(0, size);
+        worklist.clear(positions[startIndex]);
+
+        for (int position = worklist.nextSetBit(0); position >= 0; position = worklist.nextSetBit(0)) {
+            worklist.clear(position);
+            int index = order[position];
+
+            BitSet[] enter = merge(incomingInstructions.get(index), exitFacts, identity, analysis);
+            BitSet[] exit = analysis.transfer(instructions.get(index), enter);
+            enterFacts[index] = enter;
+            if (Arrays.equals(exit, exitFacts[index])) continue;
+
+            exitFacts[index] = exit;
+            for (int successor : successors[index]) {
+                if (successor != startIndex) {
+                    worklist.set(positions[successor]);
+                }
+            }
+        }
+
+        Map<Instruction, Edges<BitSet[]>> result = Maps.newHashMap();
+        for (int index = 0; index < size; index++) {
+            result.put(instructions.get(index), Edges.create(enterFacts[index], exitFacts[index]));
+        }
+        for (Map.Entry<Instruction, Instruction> entry : aliases.entrySet()) {
+            result.put(entry.getKey(), result.get(entry.getValue()));
+        }
+        return result;
+    }
+
+    @NotNull
+    private BitSet[] merge(
+            @NotNull List<Instruction> incoming,
+            @NotNull BitSet[][] exitFacts,
+            @NotNull BitSet[] identity,
+            @NotNull Analysis analysis
+    ) {
+        if (incoming.isEmpty()) return identity;
+        if (incoming.size() == 1) return exitFacts[indices.get(incoming.get(0))];
+
+        int vectorCount = analysis.getVectorCount();
+        BitSet[] result = copy(exitFacts[indices.get(incoming.get(0))]);
+        for (int i = 1; i < incoming.size(); i++) {
+            BitSet[] facts = exitFacts[indices.get(incoming.get(i))];
+            for (int vector = 0; vector < vectorCount; vector++) {
+                if (analysis.isMergedByIntersection(vector)) {
+                    result[vector].and(facts[vector]);
+                }
+                else {
+                    result[vector].or(facts[vector]);
+                }
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    public static BitSet[] copy(@NotNull BitSet[] facts) {
+        BitSet[] result = new BitSet[facts.length];
+        for (int vector = 0; vector < facts.length; vector++) {
+            result[vector] = (BitSet) facts[vector].clone();
+        }
+        return result;
+    }
+
+    @NotNull
+    private static BitSet[] createMergeIdentity(@NotNull Analysis analysis) {
+        BitSet[] identity = new BitSet[analysis.getVectorCount()];
+        for (int vector = 0; vector < identity.length; vector++) {
+            identity[vector] = new BitSet(analysis.getVariableCount());
+            if (analysis.isMergedByIntersection(vector)) {
+                identity[vector].set(0, analysis.getVariableCount());
+            }
+        }
+        return identity;
+    }
+
+    @NotNull
+    private int[][] computeSuccessors() {
+        int size = instructions.size();
+        List<List<Integer>> successors = Lists.newArrayList();
+        for (int index = 0; index < size; index++) {
+            successors.add(Lists.<Integer>newArrayList());
+        }
+        for (int index = 0; index < size; index++) {
+            for (Instruction previousInstruction : incomingInstructions.get(index)) {
+                successors.get(indices.get(previousInstruction)).add(index);
+            }
+        }
+
+        int[][] result = new int[size][];
+        for (int index = 0; index < size; index++) {
+            List<Integer> list = successors.get(index);
+            result[index] = new int[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                result[index][i] = list.get(i);
+            }
+        }
+        return result;
+    }
+
+    // Instructions unreachable from the start follow the reachable ones in the order of the pseudocode.
+    // The depth-first search is iterative, generated functions can be too long for the recursive one
+    @NotNull
+    private static int[] computeReversePostorder(int start, @NotNull int[][] successors) {
+        int size = successors.length;
+        int[] postorder = new int[size];
+        int postorderSize = 0;
+
+        boolean[] visited = new boolean[size];
+        int[] stack = new int[size];
+        int[] nextSuccessor = new int[size];
+        int stackSize = 0;
+
+        visited[start] = true;
+        stack[stackSize++] = start;
+        while (stackSize > 0) {
+            int current = stack[stackSize - 1];
+            if (nextSuccessor[current] < successors[current].length) {
+                int successor = successors[current][nextSuccessor[current]++];
+                if (!visited[successor]) {
+                    visited[successor] = true;
+                    stack[stackSize++] = successor;
+                }
+            }
+            else {
+                stackSize--;
+                postorder[postorderSize++] = current;
+            }
+        }
+
+        int[] order = new int[size];
+        int orderSize = 0;
+        for (int i = postorderSize - 1; i >= 0; i--) {
+            order[orderSize++] = postorder[i];
+        }
+        for (int index = 0; index < size; index++) {
+            if (!visited[index]) {
+                order[orderSize++] = index;
+            }
+        }
+        return order;
+    }
+}
@@ -27,7 +27,9 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.cfg.pseudocode.*;
 import org.jetbrains.jet.lang.cfg.PseudocodeTraverser.*;
 import org.jetbrains.jet.lang.cfg.PseudocodeVariablesData.VariableInitState;
+import org.jetbrains.jet.lang.cfg.PseudocodeVariablesData.VariableInitStates;
 import org.jetbrains.jet.lang.cfg.PseudocodeVariablesData.VariableUseState;
+import org.jetbrains.jet.lang.cfg.PseudocodeVariablesData.VariableUseStates;
 import org.jetbrains.jet.lang.descriptors.*;
 import org.jetbrains.jet.lang.diagnostics.AbstractDiagnosticFactory;
 import org.jetbrains.jet.lang.diagnostics.Diagnostic;
@@ -190,16 +192,16 @@ public class JetFlowInformationProvider {
         final Collection<VariableDescriptor> varWithValReassignErrorGenerated = Sets.newHashSet();
         final boolean processClassOrObject = subroutine instanceof JetClassOrObject;
 
-        Map<Instruction, Edges<Map<VariableDescriptor,VariableInitState>>> initializers = pseudocodeVariablesData.getVariableInitializers();
+        Map<Instruction, Edges<VariableInitStates>> initializers = pseudocodeVariablesData.getVariableInitializers();
         final Set<VariableDescriptor> declaredVariables = pseudocodeVariablesData.getDeclaredVariables(pseudocode, true);
 
         final Map<Instruction, AbstractDiagnosticFactory> reportedDiagnosticMap = Maps.newHashMap();
 
-        PseudocodeTraverser.traverse(pseudocode, FORWARD, initializers, new InstructionDataAnalyzeStrategy<Map<VariableDescriptor, PseudocodeVariablesData.VariableInitState>>() {
+        PseudocodeTraverser.traverse(pseudocode, FORWARD, initializers, new InstructionDataAnalyzeStrategy<VariableInitStates>() {
             @Override
             public void execute(@NotNull Instruction instruction,
-                    @Nullable Map<VariableDescriptor, VariableInitState> in,
-                    @Nullable Map<VariableDescriptor, VariableInitState> out) {
+                    @Nullable VariableInitStates in,
+                    @Nullable VariableInitStates out) {
                 assert in != null && out != null;
                 VariableInitContext ctxt = new VariableInitContext(instruction, reportedDiagnosticMap, in, out);
                 if (ctxt.variableDescriptor == null) return;
@@ -230,7 +232,7 @@ public class JetFlowInformationProvider {
 
     public void recordInitializedVariables() {
         Pseudocode pseudocode = pseudocodeVariablesData.getPseudocode();
-        Map<Instruction, Edges<Map<VariableDescriptor,VariableInitState>>> initializers = pseudocodeVariablesData.getVariableInitializers();
+        Map<Instruction, Edges<VariableInitStates>> initializers = pseudocodeVariablesData.getVariableInitializers();
         recordInitializedVariables(pseudocode, initializers);
         for (LocalDeclarationInstruction instruction : pseudocode.getLocalDeclarations()) {
             recordInitializedVariables(instruction.getBody(), initializers);
@@ -428,8 +430,8 @@ public class JetFlowInformationProvider {
         return false;
     }
 
-    private void recordInitializedVariables(@NotNull Pseudocode pseudocode, @NotNull Map<Instruction, Edges<Map<VariableDescriptor,PseudocodeVariablesData.VariableInitState>>> initializersMap) {
-        Edges<Map<VariableDescriptor, VariableInitState>> initializers = initializersMap.get(pseudocode.getExitInstruction());
+    private void recordInitializedVariables(@NotNull Pseudocode pseudocode, @NotNull Map<Instruction, Edges<VariableInitStates>> initializersMap) {
+        Edges<VariableInitStates> initializers = initializersMap.get(pseudocode.getExitInstruction());
         Set<VariableDescriptor> declaredVariables = pseudocodeVariablesData.getDeclaredVariables(pseudocode, false);
         for (VariableDescriptor variable : declaredVariables) {
             if (variable instanceof PropertyDescriptor) {
@@ -444,14 +446,14 @@ public class JetFlowInformationProvider {
 //  "Unused variable" & "unused value" analyses
 
     public void markUnusedVariables() {
-        Map<Instruction, Edges<Map<VariableDescriptor, VariableUseState>>> variableStatusData = pseudocodeVariablesData.getVariableUseStatusData();
+        Map<Instruction, Edges<VariableUseStates>> variableStatusData = pseudocodeVariablesData.getVariableUseStatusData();
         final Map<Instruction, AbstractDiagnosticFactory> reportedDiagnosticMap = Maps.newHashMap();
-        InstructionDataAnalyzeStrategy<Map<VariableDescriptor, VariableUseState>> variableStatusAnalyzeStrategy =
-                new InstructionDataAnalyzeStrategy<Map<VariableDescriptor, PseudocodeVariablesData.VariableUseState>>() {
+        InstructionDataAnalyzeStrategy<VariableUseStates> variableStatusAnalyzeStrategy =
+                new InstructionDataAnalyzeStrategy<VariableUseStates>() {
             @Override
             public void execute(@NotNull Instruction instruction,
-                    @Nullable Map<VariableDescriptor, VariableUseState> in,
-                    @Nullable Map<VariableDescriptor, VariableUseState> out) {
+                    @Nullable VariableUseStates in,
+                    @Nullable VariableUseStates out) {
 
                 assert in != null && out != null;
                 VariableContext ctxt = new VariableUseContext(instruction, reportedDiagnosticMap, in, out);
@@ -633,8 +635,8 @@ public class JetFlowInformationProvider {
         private VariableInitContext(
                 @NotNull Instruction instruction,
                 @NotNull Map<Instruction, AbstractDiagnosticFactory> map,
-                @NotNull Map<VariableDescriptor, VariableInitState> in,
-                @NotNull Map<VariableDescriptor, VariableInitState> out
+                @NotNull VariableInitStates in,
+                @NotNull VariableInitStates out
         ) {
             super(instruction, map);
             enterInitState = variableDescriptor != null ? in.get(variableDescriptor) : null;
@@ -650,8 +652,8 @@ public class JetFlowInformationProvider {
         private VariableUseContext(
                 @NotNull Instruction instruction,
                 @NotNull Map<Instruction, AbstractDiagnosticFactory> map,
-                @NotNull Map<VariableDescriptor, VariableUseState> in,
-                @NotNull Map<VariableDescriptor, VariableUseState> out
+                @NotNull VariableUseStates in,
+                @NotNull VariableUseStates out
         ) {
             super(instruction, map);
             enterUseState = variableDescriptor != null ? in.get(variableDescriptor) : null;
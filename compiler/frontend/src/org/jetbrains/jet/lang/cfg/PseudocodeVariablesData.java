@@ -16,6 +16,7 @@
 
 package org.jetbrains.jet.lang.cfg;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.jetbrains.annotations.NotNull;
@@ -28,10 +29,7 @@ import org.jetbrains.jet.lang.psi.JetDeclaration;
 import org.jetbrains.jet.lang.psi.JetProperty;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 import static org.jetbrains.jet.lang.cfg.PseudocodeTraverser.LookInsideStrategy.ANALYSE_LOCAL_DECLARATIONS;
 import static org.jetbrains.jet.lang.cfg.PseudocodeTraverser.LookInsideStrategy.SKIP_LOCAL_DECLARATIONS;
@@ -120,176 +118,231 @@ public class PseudocodeVariablesData {
     // variable initializers
 
     @NotNull
-    public Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> getVariableInitializers() {
-        return getVariableInitializers(pseudocode);
+    public Map<Instruction, Edges<VariableInitStates>> getVariableInitializers() {
+        Map<Instruction, Edges<VariableInitStates>> variableInitializersMap = getVariableInitializers(pseudocode);
+        // Local declarations are analysed separately, variables declared outside of them are considered initialized
+        for (LocalDeclarationInstruction localDeclarationInstruction : pseudocode.getLocalDeclarations()) {
+            variableInitializersMap.putAll(getVariableInitializers(localDeclarationInstruction.getBody()));
+        }
+        return variableInitializersMap;
     }
 
     @NotNull
-    private Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> getVariableInitializers(@NotNull Pseudocode pseudocode) {
-
-        Set<VariableDescriptor> usedVariables = getUsedVariables(pseudocode);
+    private Map<Instruction, Edges<VariableInitStates>> getVariableInitializers(@NotNull Pseudocode pseudocode) {
+        final VariableIndex index = new VariableIndex(getUsedVariables(pseudocode));
         Set<VariableDescriptor> declaredVariables = getDeclaredVariables(pseudocode, false);
-        Map<VariableDescriptor, VariableInitState> initialMap = Collections.emptyMap();
-        final Map<VariableDescriptor, VariableInitState> initialMapForStartInstruction = prepareInitializersMapForStartInstruction(
-                usedVariables, declaredVariables);
 
-        Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> variableInitializersMap = PseudocodeTraverser.collectData(
-                pseudocode, FORWARD, SKIP_LOCAL_DECLARATIONS,
-                initialMap, initialMapForStartInstruction, new PseudocodeTraverser.InstructionDataMergeStrategy<Map<VariableDescriptor, VariableInitState>>() {
-            @Override
-            public Edges<Map<VariableDescriptor, VariableInitState>> execute(
-                    @NotNull Instruction instruction, @NotNull Collection<Map<VariableDescriptor, VariableInitState>> incomingEdgesData) {
+        // Variables absent in the facts are initialized and declared, so that the merge ignores them
+        BitSet[] startFacts = new BitSet[] { new BitSet(), new BitSet(), new BitSet() };
+        startFacts[VariableInitStates.PRESENT].set(0, index.size());
+        for (int i = 0; i < index.size(); i++) {
+            if (!declaredVariables.contains(index.get(i))) {
+                startFacts[VariableInitStates.INITIALIZED].set(i);
+            }
+        }
 
-                Map<VariableDescriptor, VariableInitState> enterInstructionData = mergeIncomingEdgesDataForInitializers(incomingEdgesData);
-                Map<VariableDescriptor, VariableInitState> exitInstructionData =
-                        addVariableInitStateFromCurrentInstructionIfAny(instruction, enterInstructionData);
-                return Edges.create(enterInstructionData, exitInstructionData);
+        Map<Instruction, Edges<BitSet[]>> facts = BitVectorDataFlow.analyze(
+                pseudocode, FORWARD, SKIP_LOCAL_DECLARATIONS, startFacts, new BitVectorDataFlow.Analysis() {
+            @Override
+            public int getVariableCount() {
+                return index.size();
             }
-        });
 
+            @Override
+            public int getVectorCount() {
+                return 3;
+            }
 
-        for (LocalDeclarationInstruction localDeclarationInstruction : pseudocode.getLocalDeclarations()) {
-            Pseudocode localPseudocode = localDeclarationInstruction.getBody();
-            Map<Instruction, Edges<Map<VariableDescriptor, VariableInitState>>> initializersForLocalDeclaration = getVariableInitializers(localPseudocode);
+            @Override
+            public boolean isMergedByIntersection(int vector) {
+                return vector != VariableInitStates.PRESENT;
+            }
 
-            for (Instruction instruction : initializersForLocalDeclaration.keySet()) {
-                //todo
-                if (!variableInitializersMap.containsKey(instruction)) {
-                    variableInitializersMap.put(instruction, initializersForLocalDeclaration.get(instruction));
-                }
+            @NotNull
+            @Override
+            public BitSet[] transfer(@NotNull Instruction instruction, @NotNull BitSet[] enterFacts) {
+                return addVariableInitStateFromCurrentInstructionIfAny(instruction, enterFacts, index);
             }
-            variableInitializersMap.putAll(initializersForLocalDeclaration);
+        });
+
+        Map<Instruction, Edges<VariableInitStates>> variableInitializersMap = Maps.newHashMap();
+        for (Map.Entry<Instruction, Edges<BitSet[]>> entry : facts.entrySet()) {
+            Edges<BitSet[]> edges = entry.getValue();
+            VariableInitStates in = new VariableInitStates(index, edges.in);
+            VariableInitStates out = edges.out == edges.in ? in : new VariableInitStates(index, edges.out);
+            variableInitializersMap.put(entry.getKey(), Edges.create(in, out));
         }
         return variableInitializersMap;
     }
 
     @NotNull
-    private Map<VariableDescriptor, VariableInitState> prepareInitializersMapForStartInstruction(
-            @NotNull Collection<VariableDescriptor> usedVariables,
-            @NotNull Collection<VariableDescriptor> declaredVariables) {
+    private BitSet[] addVariableInitStateFromCurrentInstructionIfAny(
+            @NotNull Instruction instruction, @NotNull BitSet[] enterInstructionData, @NotNull VariableIndex index) {
 
-        Map<VariableDescriptor, VariableInitState> initialMapForStartInstruction = Maps.newHashMap();
-        VariableInitState initializedForExternalVariable = VariableInitState.create(true);
-        VariableInitState notInitializedForDeclaredVariable = VariableInitState.create(false);
+        if (!(instruction instanceof WriteValueInstruction) && !(instruction instanceof VariableDeclarationInstruction)) {
+            return enterInstructionData;
+        }
+        VariableDescriptor variable = PseudocodeUtil.extractVariableDescriptorIfAny(instruction, false, bindingContext);
+        int i = variable != null ? index.indexOf(variable) : -1;
+        if (i < 0) {
+            return enterInstructionData;
+        }
 
-        for (VariableDescriptor variable : usedVariables) {
-            if (declaredVariables.contains(variable)) {
-                initialMapForStartInstruction.put(variable, notInitializedForDeclaredVariable);
-            }
-            else {
-                initialMapForStartInstruction.put(variable, initializedForExternalVariable);
-            }
+        boolean wasPresent = enterInstructionData[VariableInitStates.PRESENT].get(i);
+        BitSet[] exitInstructionData = BitVectorDataFlow.copy(enterInstructionData);
+        exitInstructionData[VariableInitStates.PRESENT].set(i);
+        if (instruction instanceof WriteValueInstruction) {
+            boolean isDeclaredHere = ((WriteValueInstruction) instruction).getElement() instanceof JetProperty;
+            exitInstructionData[VariableInitStates.INITIALIZED].set(i);
+            exitInstructionData[VariableInitStates.DECLARED].set(i, isDeclaredHere || (wasPresent && enterInstructionData[VariableInitStates.DECLARED].get(i)));
+        }
+        else { // instruction instanceof VariableDeclarationInstruction
+            exitInstructionData[VariableInitStates.INITIALIZED].set(i, wasPresent && enterInstructionData[VariableInitStates.INITIALIZED].get(i));
+            exitInstructionData[VariableInitStates.DECLARED].set(i);
         }
-        return initialMapForStartInstruction;
+        return exitInstructionData;
     }
 
+// variable use
+
     @NotNull
-    private Map<VariableDescriptor, VariableInitState> mergeIncomingEdgesDataForInitializers(
-            @NotNull Collection<Map<VariableDescriptor, VariableInitState>> incomingEdgesData) {
+    public Map<Instruction, Edges<VariableUseStates>> getVariableUseStatusData() {
+        final VariableIndex index = new VariableIndex(getUsedVariables(pseudocode));
 
-        Set<VariableDescriptor> variablesInScope = Sets.newHashSet();
-        for (Map<VariableDescriptor, VariableInitState> edgeData : incomingEdgesData) {
-            variablesInScope.addAll(edgeData.keySet());
-        }
+        BitSet[] sinkInstructionData = new BitSet[] { new BitSet(), new BitSet(), new BitSet(), new BitSet() };
+        sinkInstructionData[VariableUseStates.PRESENT].set(0, index.size());
+
+        Map<Instruction, Edges<BitSet[]>> facts = BitVectorDataFlow.analyze(
+                pseudocode, BACKWARD, ANALYSE_LOCAL_DECLARATIONS, sinkInstructionData, new BitVectorDataFlow.Analysis() {
+            @Override
+            public int getVariableCount() {
+                return index.size();
+            }
 
-        Map<VariableDescriptor, VariableInitState> enterInstructionData = Maps.newHashMap();
-        for (VariableDescriptor variable : variablesInScope) {
-            Set<VariableInitState> edgesDataForVariable = Sets.newHashSet();
-            for (Map<VariableDescriptor, VariableInitState> edgeData : incomingEdgesData) {
-                VariableInitState initState = edgeData.get(variable);
-                if (initState != null) {
-                    edgesDataForVariable.add(initState);
+            @Override
+            public int getVectorCount() {
+                return 4;
+            }
+
+            @Override
+            public boolean isMergedByIntersection(int vector) {
+                return false;
+            }
+
+            @NotNull
+            @Override
+            public BitSet[] transfer(@NotNull Instruction instruction, @NotNull BitSet[] enterFacts) {
+                if (!(instruction instanceof ReadValueInstruction) && !(instruction instanceof WriteValueInstruction)) {
+                    return enterFacts;
+                }
+                VariableDescriptor variableDescriptor = PseudocodeUtil.extractVariableDescriptorIfAny(instruction, true, bindingContext);
+                int i = variableDescriptor != null ? index.indexOf(variableDescriptor) : -1;
+                if (i < 0) {
+                    return enterFacts;
+                }
+
+                BitSet[] exitFacts = BitVectorDataFlow.copy(enterFacts);
+                exitFacts[VariableUseStates.PRESENT].set(i);
+                exitFacts[VariableUseStates.AT_LEAST_ONLY_WRITTEN].set(i);
+                if (instruction instanceof ReadValueInstruction) {
+                    exitFacts[VariableUseStates.AT_LEAST_LAST_WRITTEN].set(i);
+                    exitFacts[VariableUseStates.LAST_READ].set(i);
+                }
+                else { //instruction instanceof WriteValueInstruction
+                    // a variable read after this write is LAST_WRITTEN, otherwise ONLY_WRITTEN_NEVER_READ
+                    exitFacts[VariableUseStates.LAST_READ].clear(i);
                 }
+                return exitFacts;
             }
-            enterInstructionData.put(variable, VariableInitState.create(edgesDataForVariable));
+        });
+
+        Map<Instruction, Edges<VariableUseStates>> variableUseStatusData = Maps.newHashMap();
+        for (Map.Entry<Instruction, Edges<BitSet[]>> entry : facts.entrySet()) {
+            Edges<BitSet[]> edges = entry.getValue();
+            VariableUseStates in = new VariableUseStates(index, edges.in);
+            VariableUseStates out = edges.out == edges.in ? in : new VariableUseStates(index, edges.out);
+            variableUseStatusData.put(entry.getKey(), Edges.create(in, out));
         }
-        return enterInstructionData;
+        return variableUseStatusData;
     }
 
-    @NotNull
-    private Map<VariableDescriptor, VariableInitState> addVariableInitStateFromCurrentInstructionIfAny(
-            @NotNull Instruction instruction, @NotNull Map<VariableDescriptor, VariableInitState> enterInstructionData) {
+    private static final class VariableIndex {
+        private final List<VariableDescriptor> variables;
+        private final Map<VariableDescriptor, Integer> indices = Maps.newHashMap();
 
-        if (!(instruction instanceof WriteValueInstruction) && !(instruction instanceof VariableDeclarationInstruction)) {
-            return enterInstructionData;
+        private VariableIndex(@NotNull Collection<VariableDescriptor> variables) {
+            this.variables = Lists.newArrayList(variables);
+            for (int i = 0; i < this.variables.size(); i++) {
+                indices.put(this.variables.get(i), i);
+            }
         }
-        VariableDescriptor variable = PseudocodeUtil.extractVariableDescriptorIfAny(instruction, false, bindingContext);
-        if (variable == null) {
-            return enterInstructionData;
+
+        private int size() {
+            return variables.size();
         }
-        Map<VariableDescriptor, VariableInitState> exitInstructionData = Maps.newHashMap(enterInstructionData);
-        if (instruction instanceof WriteValueInstruction) {
-            VariableInitState enterInitState = enterInstructionData.get(variable);
-            VariableInitState initializationAtThisElement =
-                    VariableInitState.create(((WriteValueInstruction) instruction).getElement() instanceof JetProperty, enterInitState);
-            exitInstructionData.put(variable, initializationAtThisElement);
+
+        @NotNull
+        private VariableDescriptor get(int index) {
+            return variables.get(index);
         }
-        else { // instruction instanceof VariableDeclarationInstruction
-            VariableInitState enterInitState = enterInstructionData.get(variable);
-            if (enterInitState == null || !enterInitState.isInitialized || !enterInitState.isDeclared) {
-                boolean isInitialized = enterInitState != null && enterInitState.isInitialized;
-                VariableInitState variableDeclarationInfo = VariableInitState.create(isInitialized, true);
-                exitInstructionData.put(variable, variableDeclarationInfo);
-            }
+
+        private int indexOf(@NotNull VariableDescriptor variable) {
+            Integer index = indices.get(variable);
+            return index != null ? index : -1;
         }
-        return exitInstructionData;
     }
 
-// variable use
+    /**
+     * Initialization states of variables at some point of pseudocode.
+     * A variable is present if there is a path from the start to this point (or from an unreachable instruction with no predecessors)
+     */
+    public static final class VariableInitStates {
+        private static final int PRESENT = 0;
+        private static final int INITIALIZED = 1;
+        private static final int DECLARED = 2;
+
+        private final VariableIndex index;
+        private final BitSet[] facts;
+
+        private VariableInitStates(@NotNull VariableIndex index, @NotNull BitSet[] facts) {
+            this.index = index;
+            this.facts = facts;
+        }
 
-    @NotNull
-    public Map<Instruction, Edges<Map<VariableDescriptor, VariableUseState>>> getVariableUseStatusData() {
-        Map<VariableDescriptor, VariableUseState> sinkInstructionData = Maps.newHashMap();
-        for (VariableDescriptor usedVariable : getUsedVariables(pseudocode)) {
-            sinkInstructionData.put(usedVariable, VariableUseState.UNUSED);
+        @Nullable
+        public VariableInitState get(@NotNull VariableDescriptor variable) {
+            int i = index.indexOf(variable);
+            if (i < 0 || !facts[PRESENT].get(i)) return null;
+            return VariableInitState.create(facts[INITIALIZED].get(i), facts[DECLARED].get(i));
+        }
+    }
+
+    /**
+     * Use states of variables at some point of pseudocode, states are encoded by the bits of all the states not more important than it
+     */
+    public static final class VariableUseStates {
+        private static final int PRESENT = 0;
+        private static final int AT_LEAST_ONLY_WRITTEN = 1;
+        private static final int AT_LEAST_LAST_WRITTEN = 2;
+        private static final int LAST_READ = 3;
+
+        private final VariableIndex index;
+        private final BitSet[] facts;
+
+        private VariableUseStates(@NotNull VariableIndex index, @NotNull BitSet[] facts) {
+            this.index = index;
+            this.facts = facts;
+        }
+
+        @Nullable
+        public VariableUseState get(@NotNull VariableDescriptor variable) {
+            int i = index.indexOf(variable);
+            if (i < 0 || !facts[PRESENT].get(i)) return null;
+            if (facts[LAST_READ].get(i)) return VariableUseState.LAST_READ;
+            if (facts[AT_LEAST_LAST_WRITTEN].get(i)) return VariableUseState.LAST_WRITTEN;
+            if (facts[AT_LEAST_ONLY_WRITTEN].get(i)) return VariableUseState.ONLY_WRITTEN_NEVER_READ;
+            return VariableUseState.UNUSED;
         }
-        InstructionDataMergeStrategy<Map<VariableDescriptor, VariableUseState>> collectVariableUseStatusStrategy =
-                new InstructionDataMergeStrategy<Map<VariableDescriptor, VariableUseState>>() {
-                    @Override
-                    public Edges<Map<VariableDescriptor, VariableUseState>> execute(
-                            @NotNull Instruction instruction,
-                            @NotNull Collection<Map<VariableDescriptor, VariableUseState>> incomingEdgesData
-                    ) {
-
-                        Map<VariableDescriptor, VariableUseState> enterResult = Maps.newHashMap();
-                        for (Map<VariableDescriptor, VariableUseState> edgeData : incomingEdgesData) {
-                            for (Map.Entry<VariableDescriptor, VariableUseState> entry : edgeData.entrySet()) {
-                                VariableDescriptor variableDescriptor = entry.getKey();
-                                VariableUseState variableUseState = entry.getValue();
-                                enterResult.put(variableDescriptor, variableUseState.merge(enterResult.get(variableDescriptor)));
-                            }
-                        }
-                        VariableDescriptor variableDescriptor = PseudocodeUtil.extractVariableDescriptorIfAny(instruction, true,
-                                                                                                              bindingContext);
-                        if (variableDescriptor == null ||
-                            (!(instruction instanceof ReadValueInstruction) && !(instruction instanceof WriteValueInstruction))) {
-                            return Edges.create(enterResult, enterResult);
-                        }
-                        Map<VariableDescriptor, VariableUseState> exitResult = Maps.newHashMap(enterResult);
-                        if (instruction instanceof ReadValueInstruction) {
-                            exitResult.put(variableDescriptor, VariableUseState.LAST_READ);
-                        }
-                        else { //instruction instanceof WriteValueInstruction
-                            VariableUseState variableUseState = enterResult.get(variableDescriptor);
-                            if (variableUseState == null) {
-                                variableUseState = VariableUseState.UNUSED;
-                            }
-                            switch (variableUseState) {
-                                case UNUSED:
-                                case ONLY_WRITTEN_NEVER_READ:
-                                    exitResult.put(variableDescriptor, VariableUseState.ONLY_WRITTEN_NEVER_READ);
-                                    break;
-                                case LAST_WRITTEN:
-                                case LAST_READ:
-                                    exitResult.put(variableDescriptor, VariableUseState.LAST_WRITTEN);
-                            }
-                        }
-                        return Edges.create(enterResult, exitResult);
-                    }
-                };
-        return PseudocodeTraverser.collectData(pseudocode, BACKWARD, ANALYSE_LOCAL_DECLARATIONS,
-                                               Collections.<VariableDescriptor, VariableUseState>emptyMap(),
-                                               sinkInstructionData, collectVariableUseStatusStrategy);
     }
 
     public static class VariableInitState {
@@ -315,28 +368,6 @@ public class PseudocodeVariablesData {
             if (isDeclared) return VS_FT;
             return VS_FF;
         }
-
-        private static VariableInitState create(boolean isInitialized) {
-            return create(isInitialized, false);
-        }
-
-        private static VariableInitState create(boolean isDeclaredHere, @Nullable VariableInitState mergedEdgesData) {
-            return create(true, isDeclaredHere || (mergedEdgesData != null && mergedEdgesData.isDeclared));
-        }
-
-        private static VariableInitState create(@NotNull Set<VariableInitState> edgesData) {
-            boolean isInitialized = true;
-            boolean isDeclared = true;
-            for (VariableInitState edgeData : edgesData) {
-                if (!edgeData.isInitialized) {
-                    isInitialized = false;
-                }
-                if (!edgeData.isDeclared) {
-                    isDeclared = false;
-                }
-            }
-            return create(isInitialized, isDeclared);
-        }
     }
 
     public static enum VariableUseState {
@@ -351,11 +382,6 @@ public class PseudocodeVariablesData {
             this.importance = importance;
         }
 
-        private VariableUseState merge(@Nullable VariableUseState variableUseState) {
-            if (variableUseState == null || importance > variableUseState.importance) return this;
-            return variableUseState;
-        }
-
         public static boolean isUsed(@Nullable VariableUseState variableUseState) {
             return variableUseState != null && variableUseState != UNUSED;
         }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.descriptors;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * A class of the analyzed sources, eagerly or lazily resolved, whose members are checked by the declaration checkers
+ */
+public interface ClassDescriptorWithCallableMembers extends ClassDescriptor {
+    /**
+     * Functions and properties declared, delegated or synthesized in the class
+     */
+    @NotNull
+    Collection<CallableMemberDescriptor> getDeclaredCallableMembers();
+
+    /**
+     * Declared members together with the fake overrides of the inherited ones
+     */
+    @NotNull
+    Collection<CallableMemberDescriptor> getAllCallableMembers();
+}
@@ -33,7 +33,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
-public class MutableClassDescriptor extends MutableClassDescriptorLite {
+public class MutableClassDescriptor extends MutableClassDescriptorLite implements ClassDescriptorWithCallableMembers {
     private final Set<ConstructorDescriptor> constructors = Sets.newLinkedHashSet();
     private ConstructorDescriptor primaryConstructor;
 
@@ -119,11 +119,13 @@ public class MutableClassDescriptor extends MutableClassDescriptorLite {
         return properties;
     }
 
+    @Override
     @NotNull
     public Set<CallableMemberDescriptor> getDeclaredCallableMembers() {
         return declaredCallableMembers;
     }
 
+    @Override
     @NotNull
     public Set<CallableMemberDescriptor> getAllCallableMembers() {
         return allCallableMembers;
@@ -37,6 +37,10 @@ public class CallKey {
         return new CallKey(CallType.DEFAULT, element);
     }
 
+    public JetExpression getElement() {
+        return element;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -37,6 +37,13 @@ public interface PsiJetFunctionStub extends NamedStub<JetNamedFunction> {
      */
     boolean isExtension();
 
+    /**
+     * Short name of the receiver type of an extension function, or null if it can't be found without resolve,
+     * e.g. for a type parameter without bounds.
+     */
+    @Nullable
+    String getReceiverTypeShortName();
+
     @NotNull
     String[] getAnnotations();
 }
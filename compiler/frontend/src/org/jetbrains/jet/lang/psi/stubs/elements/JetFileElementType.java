@@ -35,7 +35,7 @@ import org.jetbrains.jet.plugin.JetLanguage;
 import java.io.IOException;
 
 public class JetFileElementType extends IStubFileElementType<PsiJetFileStub> {
-    public static final int STUB_VERSION = 20;
+    public static final int STUB_VERSION = 22;
 
     public JetFileElementType() {
         super("jet.FILE", JetLanguage.INSTANCE);
@@ -25,8 +25,8 @@ import com.intellij.psi.stubs.StubOutputStream;
 import com.intellij.util.io.StringRef;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.jet.lang.psi.JetFile;
-import org.jetbrains.jet.lang.psi.JetNamedFunction;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.jet.lang.psi.stubs.PsiJetFunctionStub;
 import org.jetbrains.jet.lang.psi.stubs.impl.PsiJetFunctionStubImpl;
 import org.jetbrains.jet.lang.resolve.name.FqName;
@@ -69,7 +69,92 @@ public class JetFunctionElementType extends JetStubElementType<PsiJetFunctionStu
 
         FqName qualifiedName = psi.getQualifiedName();
 
-        return new PsiJetFunctionStubImpl(JetStubElementTypes.FUNCTION, parentStub, psi.getName(), isTopLevel, qualifiedName, isExtension);
+        return new PsiJetFunctionStubImpl(JetStubElementTypes.FUNCTION, parentStub, psi.getName(), isTopLevel, qualifiedName, isExtension,
+                                          getReceiverTypeShortName(psi));
+    }
+
+    @Nullable
+    private static String getReceiverTypeShortName(@NotNull JetNamedFunction function) {
+        JetTypeReference receiverTypeRef = function.getReceiverTypeRef();
+        if (receiverTypeRef == null) return null;
+
+        JetTypeElement typeElement = receiverTypeRef.getTypeElement();
+        if (typeElement instanceof JetNullableType) {
+            typeElement = ((JetNullableType) typeElement).getInnerType();
+        }
+
+        if (typeElement instanceof JetFunctionType) {
+            JetFunctionType functionType = (JetFunctionType) typeElement;
+            String prefix = functionType.getReceiverTypeRef() != null ? "ExtensionFunction" : "Function";
+            return prefix + functionType.getParameters().size();
+        }
+        if (!(typeElement instanceof JetUserType)) return null;
+
+        JetUserType userType = (JetUserType) typeElement;
+        String referencedName = userType.getReferencedName();
+        if (referencedName == null || userType.getQualifier() != null) return referencedName;
+
+        // Extensions on a type parameter are indexed by its bound: every suitable receiver type is a subtype of any of the bounds
+        if (isTypeParameter(function, referencedName)) {
+            JetTypeReference bound = findExtendsBound(function, referencedName);
+            if (bound == null) {
+                bound = findConstraintBound(function, referencedName);
+            }
+            return bound != null ? getShortName(function, bound) : null;
+        }
+        return getUnaliasedName(function, referencedName);
+    }
+
+    private static boolean isTypeParameter(@NotNull JetNamedFunction function, @NotNull String name) {
+        for (JetTypeParameter typeParameter : function.getTypeParameters()) {
+            if (name.equals(typeParameter.getName())) return true;
+        }
+        return false;
+    }
+
+    @Nullable
+    private static JetTypeReference findExtendsBound(@NotNull JetNamedFunction function, @NotNull String typeParameterName) {
+        for (JetTypeParameter typeParameter : function.getTypeParameters()) {
+            if (typeParameterName.equals(typeParameter.getName())) {
+                return typeParameter.getExtendsBound();
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static JetTypeReference findConstraintBound(@NotNull JetNamedFunction function, @NotNull String typeParameterName) {
+        for (JetTypeConstraint constraint : function.getTypeConstraints()) {
+            JetSimpleNameExpression subject = constraint.getSubjectTypeParameterName();
+            if (!constraint.isClassObjectContraint() && subject != null && typeParameterName.equals(subject.getReferencedName())) {
+                return constraint.getBoundTypeReference();
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static String getShortName(@NotNull JetNamedFunction function, @NotNull JetTypeReference typeReference) {
+        JetTypeElement typeElement = typeReference.getTypeElement();
+        if (typeElement instanceof JetNullableType) {
+            typeElement = ((JetNullableType) typeElement).getInnerType();
+        }
+        if (!(typeElement instanceof JetUserType)) return null;
+
+        JetUserType userType = (JetUserType) typeElement;
+        String referencedName = userType.getReferencedName();
+        if (referencedName == null || userType.getQualifier() != null) return referencedName;
+
+        // Bounds referring to other type parameters are not followed
+        if (isTypeParameter(function, referencedName)) return null;
+        return getUnaliasedName(function, referencedName);
+    }
+
+    @Nullable
+    private static String getUnaliasedName(@NotNull JetNamedFunction function, @NotNull String name) {
+        // An alias is known in its file only, the name of the type itself is not known without resolve
+        JetFile file = (JetFile) function.getContainingFile();
+        return file.findImportByAlias(name) == null ? name : null;
     }
 
     @Override
@@ -81,6 +166,7 @@ public class JetFunctionElementType extends JetStubElementType<PsiJetFunctionStu
         dataStream.writeName(topFQName != null ? topFQName.toString() : null);
 
         dataStream.writeBoolean(stub.isExtension());
+        dataStream.writeName(stub.getReceiverTypeShortName());
     }
 
     @Override
@@ -92,8 +178,10 @@ public class JetFunctionElementType extends JetStubElementType<PsiJetFunctionStu
         FqName fqName = topFQNameStr != null ? new FqName(topFQNameStr.toString()) : null;
 
         boolean isExtension = dataStream.readBoolean();
+        StringRef receiverTypeShortName = dataStream.readName();
 
-        return new PsiJetFunctionStubImpl(JetStubElementTypes.FUNCTION, parentStub, name, isTopLevel, fqName, isExtension);
+        return new PsiJetFunctionStubImpl(JetStubElementTypes.FUNCTION, parentStub, name, isTopLevel, fqName, isExtension,
+                                          receiverTypeShortName);
     }
 
     @Override
@@ -366,17 +366,25 @@ public class BodyResolver {
             MutableClassDescriptor classDescriptor = entry.getValue();
             ConstructorDescriptor unsubstitutedPrimaryConstructor = classDescriptor.getUnsubstitutedPrimaryConstructor();
             if (unsubstitutedPrimaryConstructor != null) {
-                WritableScope parameterScope = new WritableScopeImpl(classDescriptor.getScopeForSupertypeResolution(), unsubstitutedPrimaryConstructor,
-                                                                     RedeclarationHandler.DO_NOTHING, "Scope with value parameters of a constructor");
-                for (ValueParameterDescriptor valueParameterDescriptor : unsubstitutedPrimaryConstructor.getValueParameters()) {
-                    parameterScope.addVariableDescriptor(valueParameterDescriptor);
-                }
-                parameterScope.changeLockLevel(WritableScope.LockLevel.READING);
-                checkDefaultParameterValues(klass.getPrimaryConstructorParameters(), unsubstitutedPrimaryConstructor.getValueParameters(), parameterScope);
+                resolvePrimaryConstructorParameters(klass, unsubstitutedPrimaryConstructor, classDescriptor.getScopeForSupertypeResolution());
             }
         }
     }
 
+    public void resolvePrimaryConstructorParameters(
+            @NotNull JetClass klass,
+            @NotNull ConstructorDescriptor primaryConstructor,
+            @NotNull JetScope scopeForSupertypeResolution
+    ) {
+        WritableScope parameterScope = new WritableScopeImpl(scopeForSupertypeResolution, primaryConstructor,
+                                                             RedeclarationHandler.DO_NOTHING, "Scope with value parameters of a constructor");
+        for (ValueParameterDescriptor valueParameterDescriptor : primaryConstructor.getValueParameters()) {
+            parameterScope.addVariableDescriptor(valueParameterDescriptor);
+        }
+        parameterScope.changeLockLevel(WritableScope.LockLevel.READING);
+        checkDefaultParameterValues(klass.getPrimaryConstructorParameters(), primaryConstructor.getValueParameters(), parameterScope);
+    }
+
     private void resolvePropertyDeclarationBodies() {
 
         // Member properties
@@ -73,7 +73,7 @@ public class ControlFlowAnalyzer {
         }
     }
 
-    private void checkDeclarationContainer(JetDeclarationContainer declarationContainer) {
+    public void checkDeclarationContainer(@NotNull JetDeclarationContainer declarationContainer) {
         // A pseudocode of class/object initialization corresponds to a class/object
         // or initialization of properties corresponds to a package declared in a file
         JetFlowInformationProvider flowInformationProvider = new JetFlowInformationProvider((JetElement) declarationContainer, trace);
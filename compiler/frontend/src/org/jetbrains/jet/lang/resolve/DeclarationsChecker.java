@@ -50,21 +50,17 @@ public class DeclarationsChecker {
         Map<JetClass, MutableClassDescriptor> classes = bodiesResolveContext.getClasses();
         for (Map.Entry<JetClass, MutableClassDescriptor> entry : classes.entrySet()) {
             JetClass aClass = entry.getKey();
-            MutableClassDescriptor classDescriptor = entry.getValue();
             if (!bodiesResolveContext.completeAnalysisNeeded(aClass)) continue;
 
-            checkClass(aClass, classDescriptor);
-            modifiersChecker.checkModifiersForDeclaration(aClass, classDescriptor);
+            checkClassOrObject(aClass, entry.getValue());
         }
 
         Map<JetObjectDeclaration, MutableClassDescriptor> objects = bodiesResolveContext.getObjects();
         for (Map.Entry<JetObjectDeclaration, MutableClassDescriptor> entry : objects.entrySet()) {
             JetObjectDeclaration objectDeclaration = entry.getKey();
-            MutableClassDescriptor objectDescriptor = entry.getValue();
-
             if (!bodiesResolveContext.completeAnalysisNeeded(objectDeclaration)) continue;
-            checkObject(objectDeclaration);
-            modifiersChecker.checkModifiersForDeclaration(objectDeclaration, objectDescriptor);
+
+            checkClassOrObject(objectDeclaration, entry.getValue());
         }
 
         Map<JetNamedFunction, SimpleFunctionDescriptor> functions = bodiesResolveContext.getFunctions();
@@ -89,6 +85,16 @@ public class DeclarationsChecker {
 
     }
 
+    public void checkClassOrObject(@NotNull JetClassOrObject classOrObject, @NotNull ClassDescriptorWithCallableMembers classDescriptor) {
+        if (classOrObject instanceof JetClass) {
+            checkClass((JetClass) classOrObject, classDescriptor);
+        }
+        else if (classOrObject instanceof JetObjectDeclaration) {
+            checkObject((JetObjectDeclaration) classOrObject);
+        }
+        modifiersChecker.checkModifiersForDeclaration(classOrObject, classDescriptor);
+    }
+
     private void reportErrorIfHasEnumModifier(JetModifierListOwner declaration) {
         if (declaration.hasModifier(JetTokens.ENUM_KEYWORD)) {
             trace.report(ILLEGAL_ENUM_ANNOTATION.on(declaration));
@@ -99,7 +105,7 @@ public class DeclarationsChecker {
         reportErrorIfHasEnumModifier(declaration);
     }
 
-    private void checkClass(JetClass aClass, MutableClassDescriptor classDescriptor) {
+    private void checkClass(JetClass aClass, ClassDescriptorWithCallableMembers classDescriptor) {
         checkOpenMembers(classDescriptor);
         if (aClass.isTrait()) {
             checkTraitModifiers(aClass);
@@ -128,7 +134,7 @@ public class DeclarationsChecker {
     }
 
 
-    private void checkOpenMembers(MutableClassDescriptor classDescriptor) {
+    private void checkOpenMembers(ClassDescriptorWithCallableMembers classDescriptor) {
         for (CallableMemberDescriptor memberDescriptor : classDescriptor.getDeclaredCallableMembers()) {
             if (memberDescriptor.getKind() != CallableMemberDescriptor.Kind.DECLARATION) continue;
             JetNamedDeclaration member = (JetNamedDeclaration) BindingContextUtils.descriptorToDeclaration(trace.getBindingContext(), memberDescriptor);
@@ -16,6 +16,8 @@
 
 package org.jetbrains.jet.lang.resolve;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import org.jetbrains.annotations.NotNull;
@@ -127,6 +129,10 @@ public class DelegatingBindingTrace implements BindingTrace {
     }
 
     public void addAllMyDataTo(@NotNull BindingTrace trace, @Nullable TraceEntryFilter filter, boolean commitDiagnostics) {
+        addAllMyDataTo(trace, filter, commitDiagnostics ? Predicates.<Diagnostic>alwaysTrue() : Predicates.<Diagnostic>alwaysFalse());
+    }
+
+    public void addAllMyDataTo(@NotNull BindingTrace trace, @Nullable TraceEntryFilter filter, @NotNull Predicate<Diagnostic> diagnosticFilter) {
         for (Map.Entry<SlicedMapKey<?, ?>, ?> entry : map) {
             SlicedMapKey slicedMapKey = entry.getKey();
 
@@ -140,10 +146,10 @@ public class DelegatingBindingTrace implements BindingTrace {
             }
         }
 
-        if (!commitDiagnostics) return;
-
         for (Diagnostic diagnostic : diagnostics) {
-            trace.report(diagnostic);
+            if (diagnosticFilter.apply(diagnostic)) {
+                trace.report(diagnostic);
+            }
         }
     }
 
@@ -51,21 +51,29 @@ public class OverloadResolver {
 
 
     public void process() {
-        checkOverloads();
+        checkOverloads(context.getClasses(), context.getObjects(), context.getFunctions().values(), context.getProperties().values());
     }
 
-    private void checkOverloads() {
-        Pair<MultiMap<ClassDescriptor, ConstructorDescriptor>, MultiMap<Key, ConstructorDescriptor>> pair = constructorsGrouped();
+    /**
+     * Checks the given declarations which are not necessarily a part of the analysis context, e.g. resolved lazily
+     */
+    public void checkOverloads(
+            @NotNull Map<? extends JetClass, ? extends ClassDescriptorWithCallableMembers> classes,
+            @NotNull Map<? extends JetObjectDeclaration, ? extends ClassDescriptorWithCallableMembers> objects,
+            @NotNull Collection<? extends SimpleFunctionDescriptor> functions,
+            @NotNull Collection<? extends PropertyDescriptor> properties
+    ) {
+        Pair<MultiMap<ClassDescriptor, ConstructorDescriptor>, MultiMap<Key, ConstructorDescriptor>> pair = constructorsGrouped(classes);
         MultiMap<ClassDescriptor, ConstructorDescriptor> inClasses = pair.first;
         MultiMap<Key, ConstructorDescriptor> inNamespaces = pair.second;
 
-        for (Map.Entry<JetClass, MutableClassDescriptor> entry : context.getClasses().entrySet()) {
+        for (Map.Entry<? extends JetClass, ? extends ClassDescriptorWithCallableMembers> entry : classes.entrySet()) {
             checkOverloadsInAClass(entry.getValue(), entry.getKey(), inClasses.get(entry.getValue()));
         }
-        for (Map.Entry<JetObjectDeclaration, MutableClassDescriptor> entry : context.getObjects().entrySet()) {
+        for (Map.Entry<? extends JetObjectDeclaration, ? extends ClassDescriptorWithCallableMembers> entry : objects.entrySet()) {
             checkOverloadsInAClass(entry.getValue(), entry.getKey(), inClasses.get(entry.getValue()));
         }
-        checkOverloadsInANamespace(inNamespaces);
+        checkOverloadsInANamespace(inNamespaces, functions, properties);
     }
 
     private static class Key extends Pair<String, Name> {
@@ -87,14 +95,13 @@ public class OverloadResolver {
     }
 
     
-    private Pair<MultiMap<ClassDescriptor, ConstructorDescriptor>, MultiMap<Key, ConstructorDescriptor>>
-            constructorsGrouped()
+    private static Pair<MultiMap<ClassDescriptor, ConstructorDescriptor>, MultiMap<Key, ConstructorDescriptor>>
+            constructorsGrouped(@NotNull Map<? extends JetClass, ? extends ClassDescriptorWithCallableMembers> classes)
     {
         MultiMap<ClassDescriptor, ConstructorDescriptor> inClasses = MultiMap.create();
         MultiMap<Key, ConstructorDescriptor> inNamespaces = MultiMap.create();
 
-        for (Map.Entry<JetClass, MutableClassDescriptor> entry : context.getClasses().entrySet()) {
-            MutableClassDescriptor klass = entry.getValue();
+        for (ClassDescriptorWithCallableMembers klass : classes.values()) {
             DeclarationDescriptor containingDeclaration = klass.getContainingDeclaration();
             if (containingDeclaration instanceof NamespaceDescriptor) {
                 NamespaceDescriptor namespaceDescriptor = (NamespaceDescriptor) containingDeclaration;
@@ -112,11 +119,15 @@ public class OverloadResolver {
         return Pair.create(inClasses, inNamespaces);
     }
 
-    private void checkOverloadsInANamespace(MultiMap<Key, ConstructorDescriptor> inNamespaces) {
+    private void checkOverloadsInANamespace(
+            MultiMap<Key, ConstructorDescriptor> inNamespaces,
+            Collection<? extends SimpleFunctionDescriptor> functions,
+            Collection<? extends PropertyDescriptor> properties
+    ) {
 
         MultiMap<Key, CallableMemberDescriptor> functionsByName = MultiMap.create();
 
-        for (SimpleFunctionDescriptor function : context.getFunctions().values()) {
+        for (SimpleFunctionDescriptor function : functions) {
             DeclarationDescriptor containingDeclaration = function.getContainingDeclaration();
             if (containingDeclaration instanceof NamespaceDescriptor) {
                 NamespaceDescriptor namespaceDescriptor = (NamespaceDescriptor) containingDeclaration;
@@ -124,7 +135,7 @@ public class OverloadResolver {
             }
         }
         
-        for (PropertyDescriptor property : context.getProperties().values()) {
+        for (PropertyDescriptor property : properties) {
             DeclarationDescriptor containingDeclaration = property.getContainingDeclaration();
             if (containingDeclaration instanceof NamespaceDescriptor) {
                 NamespaceDescriptor namespaceDescriptor = (NamespaceDescriptor) containingDeclaration;
@@ -156,13 +167,13 @@ public class OverloadResolver {
     }
 
     private void checkOverloadsInAClass(
-            MutableClassDescriptor classDescriptor, JetClassOrObject klass,
+            ClassDescriptorWithCallableMembers classDescriptor, JetClassOrObject klass,
             Collection<ConstructorDescriptor> nestedClassConstructors
     ) {
         MultiMap<Name, CallableMemberDescriptor> functionsByName = MultiMap.create();
         
         if (classDescriptor.getKind() == ClassKind.ENUM_CLASS) {
-            MutableClassDescriptor classObjectDescriptor = (MutableClassDescriptor) classDescriptor.getClassObjectDescriptor();
+            ClassDescriptorWithCallableMembers classObjectDescriptor = (ClassDescriptorWithCallableMembers) classDescriptor.getClassObjectDescriptor();
             assert classObjectDescriptor != null;
             for (CallableMemberDescriptor memberDescriptor : classObjectDescriptor.getDeclaredCallableMembers()) {
                 functionsByName.putValue(memberDescriptor.getName(), memberDescriptor);
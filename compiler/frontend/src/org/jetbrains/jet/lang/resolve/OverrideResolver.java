@@ -360,6 +360,28 @@ public class OverrideResolver {
         return r;
     }
 
+    /**
+     * Checks classes which are not a part of the analysis context, e.g. resolved lazily.
+     * Their fake overrides must be already generated
+     */
+    public void checkClasses(@NotNull Map<? extends JetClassOrObject, ? extends ClassDescriptorWithCallableMembers> classes) {
+        for (ClassDescriptorWithCallableMembers classDescriptor : classes.values()) {
+            for (CallableMemberDescriptor member : classDescriptor.getDeclaredCallableMembers()) {
+                if (member.getKind() != CallableMemberDescriptor.Kind.DECLARATION) continue;
+                PsiElement declaration = BindingContextUtils.descriptorToDeclaration(trace.getBindingContext(), member);
+                if (declaration instanceof JetDeclaration) {
+                    checkVisibilityForMember((JetDeclaration) declaration, member);
+                }
+            }
+        }
+        for (Map.Entry<? extends JetClassOrObject, ? extends ClassDescriptorWithCallableMembers> entry : classes.entrySet()) {
+            checkOverridesInAClass(entry.getValue(), entry.getKey());
+        }
+        for (ClassDescriptorWithCallableMembers classDescriptor : classes.values()) {
+            checkParameterOverridesInAClass(classDescriptor);
+        }
+    }
+
     private void checkOverrides() {
         for (Map.Entry<JetClass, MutableClassDescriptor> entry : context.getClasses().entrySet()) {
             checkOverridesInAClass(entry.getValue(), entry.getKey());
@@ -369,7 +391,7 @@ public class OverrideResolver {
         }
     }
 
-    protected void checkOverridesInAClass(@NotNull MutableClassDescriptor classDescriptor, @NotNull JetClassOrObject klass) {
+    protected void checkOverridesInAClass(@NotNull ClassDescriptorWithCallableMembers classDescriptor, @NotNull JetClassOrObject klass) {
         if (topDownAnalysisParameters.isAnalyzingBootstrapLibrary()) return;
 
         // Check overrides for internal consistency
@@ -411,7 +433,7 @@ public class OverrideResolver {
         }
     }
 
-    public static void collectMissingImplementations(MutableClassDescriptor classDescriptor, Set<CallableMemberDescriptor> abstractNoImpl, Set<CallableMemberDescriptor> manyImpl) {
+    public static void collectMissingImplementations(ClassDescriptorWithCallableMembers classDescriptor, Set<CallableMemberDescriptor> abstractNoImpl, Set<CallableMemberDescriptor> manyImpl) {
         for (CallableMemberDescriptor descriptor : classDescriptor.getAllCallableMembers()) {
             collectMissingImplementations(descriptor, abstractNoImpl, manyImpl);
         }
@@ -775,10 +797,13 @@ public class OverrideResolver {
         List<MutableClassDescriptor> allClasses = Lists.newArrayList(context.getClasses().values());
         allClasses.addAll(context.getObjects().values());
         for (MutableClassDescriptor classDescriptor : allClasses) {
-            Collection<CallableMemberDescriptor> members = classDescriptor.getAllCallableMembers();
-            for (CallableMemberDescriptor member : members) {
-                checkOverridesForParameters(member);
-            }
+            checkParameterOverridesInAClass(classDescriptor);
+        }
+    }
+
+    private void checkParameterOverridesInAClass(@NotNull ClassDescriptorWithCallableMembers classDescriptor) {
+        for (CallableMemberDescriptor member : classDescriptor.getAllCallableMembers()) {
+            checkOverridesForParameters(member);
         }
     }
 
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.psi.*;
+import org.jetbrains.jet.lang.resolve.scopes.JetScope;
+import org.jetbrains.jet.lang.resolve.scopes.WritableScope;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A view of {@link BodiesResolveContext} that exposes only the given declarations, so that bodies resolve visits nothing else.
+ * Used to re-resolve bodies of the changed declarations when headers of a file are not affected by a modification.
+ *
+ * Files and scripts are never exposed: file-level control flow and script bodies should be resolved with the full context.
+ */
+public class PartialBodiesResolveContext implements BodiesResolveContext {
+    private final BodiesResolveContext context;
+
+    private final Map<JetClass, MutableClassDescriptor> classes;
+    private final Map<JetObjectDeclaration, MutableClassDescriptor> objects;
+    private final Map<JetProperty, PropertyDescriptor> properties;
+    private final Map<JetNamedFunction, SimpleFunctionDescriptor> functions;
+
+    public PartialBodiesResolveContext(@NotNull BodiesResolveContext context, @NotNull Set<? extends JetDeclaration> declarations) {
+        this.context = context;
+        classes = filter(context.getClasses(), declarations);
+        objects = filter(context.getObjects(), declarations);
+        properties = filter(context.getProperties(), declarations);
+        functions = filter(context.getFunctions(), declarations);
+    }
+
+    @NotNull
+    private static <K extends JetDeclaration, V> Map<K, V> filter(@NotNull Map<K, V> map, @NotNull Set<? extends JetDeclaration> declarations) {
+        // Keep the order of the original context, diagnostics are reported in it
+        Map<K, V> result = Maps.newLinkedHashMap();
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            if (declarations.contains(entry.getKey())) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public Collection<JetFile> getFiles() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Map<JetClass, MutableClassDescriptor> getClasses() {
+        return classes;
+    }
+
+    @Override
+    public Map<JetObjectDeclaration, MutableClassDescriptor> getObjects() {
+        return objects;
+    }
+
+    @Override
+    public Map<JetProperty, PropertyDescriptor> getProperties() {
+        return properties;
+    }
+
+    @Override
+    public Map<JetNamedFunction, SimpleFunctionDescriptor> getFunctions() {
+        return functions;
+    }
+
+    @Override
+    public Function<JetDeclaration, JetScope> getDeclaringScopes() {
+        return context.getDeclaringScopes();
+    }
+
+    @Override
+    public Map<JetScript, ScriptDescriptor> getScripts() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public Map<JetScript, WritableScope> getScriptScopes() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public void setTopDownAnalysisParameters(TopDownAnalysisParameters parameters) {
+        context.setTopDownAnalysisParameters(parameters);
+    }
+
+    @Override
+    public boolean completeAnalysisNeeded(@NotNull PsiElement element) {
+        return context.completeAnalysisNeeded(element);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.calls;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.resolve.BindingTrace;
+import org.jetbrains.jet.lang.resolve.calls.results.ResolutionDebugInfo;
+import org.jetbrains.jet.util.slicedmap.Slices;
+import org.jetbrains.jet.util.slicedmap.WritableSlice;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the work done by {@link CallResolver} in one resolve session. They are collected only when {@link #enable(BindingTrace)}
+ * was called for the trace of the session, other sessions don't count anything.
+ */
+public class CallResolutionStatistics {
+    private static final WritableSlice<ResolutionDebugInfo.One, CallResolutionStatistics> STATISTICS = Slices.createSimpleSlice();
+
+    private static final CallResolutionStatistics NO_STATISTICS = new CallResolutionStatistics(false);
+
+    private final boolean enabled;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong cachedCalls = new AtomicLong();
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong traces = new AtomicLong();
+    private final AtomicLong skippedTasks = new AtomicLong();
+    private final AtomicLong fastPathCalls = new AtomicLong();
+    private final AtomicLong fastPathFallbacks = new AtomicLong();
+
+    private CallResolutionStatistics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the statistics of the session the trace belongs to, collected from now on
+     */
+    @NotNull
+    public static CallResolutionStatistics enable(@NotNull BindingTrace trace) {
+        CallResolutionStatistics statistics = trace.get(STATISTICS, ResolutionDebugInfo.One.KEY);
+        if (statistics == null) {
+            statistics = new CallResolutionStatistics(true);
+            trace.record(STATISTICS, ResolutionDebugInfo.One.KEY, statistics);
+        }
+        return statistics;
+    }
+
+    // Temporary traces of the call resolution see the statistics recorded in the trace of the session
+    @NotNull
+    /*package*/ static CallResolutionStatistics get(@NotNull BindingTrace trace) {
+        CallResolutionStatistics statistics = trace.get(STATISTICS, ResolutionDebugInfo.One.KEY);
+        return statistics != null ? statistics : NO_STATISTICS;
+    }
+
+    /*package*/ void callResolved() {
+        if (enabled) calls.incrementAndGet();
+    }
+
+    /*package*/ void cachedCallUsed() {
+        if (enabled) cachedCalls.incrementAndGet();
+    }
+
+    /*package*/ void candidateTried() {
+        if (enabled) candidates.incrementAndGet();
+    }
+
+    /*package*/ void traceCreated() {
+        if (enabled) traces.incrementAndGet();
+    }
+
+    /*package*/ void emptyTaskSkipped() {
+        if (enabled) skippedTasks.incrementAndGet();
+    }
+
+    /*package*/ void fastPathSucceeded() {
+        if (enabled) fastPathCalls.incrementAndGet();
+    }
+
+    /*package*/ void fastPathFellBack() {
+        if (enabled) fastPathFallbacks.incrementAndGet();
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getCachedCalls() {
+        return cachedCalls.get();
+    }
+
+    public long getCandidates() {
+        return candidates.get();
+    }
+
+    public long getTraces() {
+        return traces.get();
+    }
+
+    public long getSkippedTasks() {
+        return skippedTasks.get();
+    }
+
+    public long getFastPathCalls() {
+        return fastPathCalls.get();
+    }
+
+    public long getFastPathFallbacks() {
+        return fastPathFallbacks.get();
+    }
+
+    @Override
+    public String toString() {
+        return calls + " calls (" + cachedCalls + " from cache), " + candidates + " candidates tried, " + traces + " traces created, " +
+               skippedTasks + " empty tasks skipped, single candidate fast path: " + fastPathCalls + " resolved, " +
+               fastPathFallbacks + " fell back";
+    }
+}
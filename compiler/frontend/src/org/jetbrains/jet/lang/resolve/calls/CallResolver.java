@@ -21,6 +21,7 @@ import com.google.common.collect.Sets;
 import com.intellij.openapi.progress.ProgressIndicatorProvider;
 import com.intellij.psi.PsiElement;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.descriptors.*;
 import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.jet.lang.resolve.*;
@@ -55,6 +56,7 @@ import static org.jetbrains.jet.lang.resolve.scopes.receivers.ReceiverValue.NO_R
 import static org.jetbrains.jet.lang.types.TypeUtils.NO_EXPECTED_TYPE;
 
 public class CallResolver {
+
     @NotNull
     private ExpressionTypingServices expressionTypingServices;
     @NotNull
@@ -262,7 +264,9 @@ public class CallResolver {
             @NotNull final JetReferenceExpression reference) {
         PsiElement element = context.call.getCallElement();
         OverloadResolutionResults<F> results = null;
+        CallResolutionStatistics statistics = CallResolutionStatistics.get(context.trace);
         TemporaryBindingTrace traceToResolveCall = TemporaryBindingTrace.create(context.trace, "trace to resolve call", context.call);
+        statistics.traceCreated();
         if (element instanceof JetExpression) {
             CallKey key = CallKey.create(context.call.getCallType(), (JetExpression) element);
             OverloadResolutionResults<F> cachedResults = context.trace.get(resolutionResultsSlice, key);
@@ -271,9 +275,11 @@ public class CallResolver {
                 assert deltasTraceForResolve != null;
                 deltasTraceForResolve.addAllMyDataTo(traceToResolveCall);
                 results = cachedResults;
+                statistics.cachedCallUsed();
             }
         }
         if (results == null) {
+            statistics.callResolved();
             results = doResolveCall(context.replaceTrace(traceToResolveCall), prioritizedTasks, callTransformer, reference);
             if (results instanceof OverloadResolutionResultsImpl) {
                 DelegatingBindingTrace deltasTraceForTypeInference = ((OverloadResolutionResultsImpl) results).getTrace();
@@ -388,8 +394,25 @@ public class CallResolver {
 
         TemporaryBindingTrace traceForFirstNonemptyCandidateSet = null;
         OverloadResolutionResultsImpl<F> resultsForFirstNonemptyCandidateSet = null;
+        boolean firstNonemptyTask = true;
         for (ResolutionTask<D, F> task : prioritizedTasks) {
+            // A task without candidates resolves to nothing, what it would record is dropped anyway
+            if (task.getCandidates().isEmpty()) {
+                CallResolutionStatistics.get(context.trace).emptyTaskSkipped();
+                continue;
+            }
+            if (firstNonemptyTask) {
+                firstNonemptyTask = false;
+                OverloadResolutionResultsImpl<F> results = resolveSingleCandidate(context, task, callTransformer);
+                if (results != null) {
+                    debugInfo.set(ResolutionDebugInfo.RESULT, results.getResultingCall());
+                    resolveFunctionArguments(context, results);
+                    return results;
+                }
+            }
+
             TemporaryBindingTrace taskTrace = TemporaryBindingTrace.create(context.trace, "trace to resolve a task for", task.reference);
+            CallResolutionStatistics.get(context.trace).traceCreated();
             OverloadResolutionResultsImpl<F> results = performResolutionGuardedForExtraFunctionLiteralArguments(task.withTrace(taskTrace),
                                                                                                                 callTransformer, context.trace);
             if (results.isSuccess() || results.isAmbiguity()) {
@@ -442,6 +465,52 @@ public class CallResolver {
         return results;
     }
 
+    /**
+     * The first task with candidates often has a single non-generic one with as many parameters as there are arguments.
+     * It is resolved right in the trace of the call, without a trace for the task. If it turns out to be inapplicable,
+     * null is returned and the call is resolved in full
+     */
+    @Nullable
+    private <D extends CallableDescriptor, F extends D> OverloadResolutionResultsImpl<F> resolveSingleCandidate(
+            @NotNull BasicResolutionContext context,
+            @NotNull ResolutionTask<D, F> task,
+            @NotNull CallTransformer<D, F> callTransformer
+    ) {
+        if (task.getCandidates().size() != 1) return null;
+        ResolutionCandidate<D> candidate = task.getCandidates().iterator().next();
+        // A variable called as a function is resolved together with its 'invoke'
+        if (callTransformer == CallTransformer.FUNCTION_CALL_TRANSFORMER && !(candidate.getDescriptor() instanceof FunctionDescriptor)) {
+            return null;
+        }
+        if (!isSimpleCandidate(candidate.getDescriptor(), task.call)) return null;
+
+        ResolutionTask<D, F> taskInCallTrace = task.withTrace(context.trace);
+        resolveCandidate(candidate, taskInCallTrace, callTransformer, context.trace);
+
+        Set<ResolvedCallWithTrace<F>> calls = taskInCallTrace.getResolvedCalls();
+        if (calls.size() != 1 || !calls.iterator().next().getStatus().isSuccess()) {
+            CallResolutionStatistics.get(context.trace).fastPathFellBack();
+            return null;
+        }
+        CallResolutionStatistics.get(context.trace).fastPathSucceeded();
+        return ResolutionResultsHandler.INSTANCE.computeResultAndReportErrors(context.trace, taskInCallTrace.tracing, calls);
+    }
+
+    private static boolean isSimpleCandidate(@NotNull CallableDescriptor descriptor, @NotNull Call call) {
+        if (!descriptor.getTypeParameters().isEmpty() || !call.getTypeArguments().isEmpty()) return false;
+
+        List<ValueParameterDescriptor> parameters = descriptor.getValueParameters();
+        List<? extends ValueArgument> arguments = call.getValueArguments();
+        if (parameters.size() != arguments.size() + call.getFunctionLiteralArguments().size()) return false;
+        for (ValueParameterDescriptor parameter : parameters) {
+            if (parameter.getVarargElementType() != null) return false;
+        }
+        for (ValueArgument argument : arguments) {
+            if (argument.isNamed() || argument.getSpreadElement() != null) return false;
+        }
+        return true;
+    }
+
 //////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
     @NotNull
@@ -472,6 +541,7 @@ public class CallResolver {
             // We have some candidates that failed for some reason
             // And we have a suspect: the function literal argument
             // Now, we try to remove this argument and see if it helps
+            CallResolutionStatistics.get(task.trace).traceCreated();
             ResolutionTask<D, F> newTask = new ResolutionTask<D, F>(task.getCandidates(), task.reference,
                         TemporaryBindingTrace.create(task.trace, "trace for resolution guarded for extra function literal arguments"),
                         task.scope, new DelegatingCall(task.call) {
@@ -497,33 +567,7 @@ public class CallResolver {
             @NotNull BindingTrace traceForResolutionCache) {
 
         for (ResolutionCandidate<D> resolutionCandidate : task.getCandidates()) {
-            TemporaryBindingTrace candidateTrace = TemporaryBindingTrace.create(
-                    task.trace, "trace to resolve candidate");
-            Collection<CallResolutionContext<D, F>> contexts = callTransformer.createCallContexts(resolutionCandidate, task, candidateTrace);
-            for (CallResolutionContext<D, F> context : contexts) {
-
-                candidateResolver.performResolutionForCandidateCall(context, task);
-
-                /* important for 'variable as function case': temporary bind reference to descriptor (will be rewritten)
-                to have a binding to variable while 'invoke' call resolve */
-                task.tracing.bindReference(context.candidateCall.getTrace(), context.candidateCall);
-
-                Collection<ResolvedCallWithTrace<F>> calls = callTransformer.transformCall(context, this, task);
-
-                for (ResolvedCallWithTrace<F> call : calls) {
-                    task.tracing.bindReference(call.getTrace(), call);
-                    task.tracing.bindResolvedCall(call.getTrace(), call);
-                    task.getResolvedCalls().add(call);
-                }
-
-                context.candidateCall.getTrace().addAllMyDataTo(traceForResolutionCache, new TraceEntryFilter() {
-                    @Override
-                    public boolean accept(@NotNull WritableSlice<?, ?> slice, Object key) {
-                        return slice == BindingContext.RESOLUTION_RESULTS_FOR_FUNCTION || slice == BindingContext.RESOLUTION_RESULTS_FOR_PROPERTY ||
-                               slice == BindingContext.TRACE_DELTAS_CACHE;
-                    }
-                }, false);
-            }
+            resolveCandidate(resolutionCandidate, task, callTransformer, traceForResolutionCache);
         }
 
         OverloadResolutionResultsImpl<F> results = ResolutionResultsHandler.INSTANCE.computeResultAndReportErrors(
@@ -533,4 +577,41 @@ public class CallResolver {
         }
         return results;
     }
+
+    private <D extends CallableDescriptor, F extends D> void resolveCandidate(
+            @NotNull ResolutionCandidate<D> resolutionCandidate,
+            @NotNull ResolutionTask<D, F> task,
+            @NotNull CallTransformer<D, F> callTransformer,
+            @NotNull BindingTrace traceForResolutionCache) {
+        CallResolutionStatistics statistics = CallResolutionStatistics.get(task.trace);
+        statistics.candidateTried();
+        statistics.traceCreated();
+        TemporaryBindingTrace candidateTrace = TemporaryBindingTrace.create(
+                task.trace, "trace to resolve candidate");
+        Collection<CallResolutionContext<D, F>> contexts = callTransformer.createCallContexts(resolutionCandidate, task, candidateTrace);
+        for (CallResolutionContext<D, F> context : contexts) {
+
+            candidateResolver.performResolutionForCandidateCall(context, task);
+
+            /* important for 'variable as function case': temporary bind reference to descriptor (will be rewritten)
+            to have a binding to variable while 'invoke' call resolve */
+            task.tracing.bindReference(context.candidateCall.getTrace(), context.candidateCall);
+
+            Collection<ResolvedCallWithTrace<F>> calls = callTransformer.transformCall(context, this, task);
+
+            for (ResolvedCallWithTrace<F> call : calls) {
+                task.tracing.bindReference(call.getTrace(), call);
+                task.tracing.bindResolvedCall(call.getTrace(), call);
+                task.getResolvedCalls().add(call);
+            }
+
+            context.candidateCall.getTrace().addAllMyDataTo(traceForResolutionCache, new TraceEntryFilter() {
+                @Override
+                public boolean accept(@NotNull WritableSlice<?, ?> slice, Object key) {
+                    return slice == BindingContext.RESOLUTION_RESULTS_FOR_FUNCTION || slice == BindingContext.RESOLUTION_RESULTS_FOR_PROPERTY ||
+                           slice == BindingContext.TRACE_DELTAS_CACHE;
+                }
+            }, false);
+        }
+    }
 }
@@ -42,7 +42,7 @@ import java.util.*;
 import static org.jetbrains.jet.lang.resolve.DescriptorUtils.getClassObjectName;
 import static org.jetbrains.jet.lang.resolve.ModifiersChecker.*;
 
-public class LazyClassDescriptor extends ClassDescriptorBase implements LazyDescriptor, ClassDescriptor {
+public class LazyClassDescriptor extends ClassDescriptorBase implements LazyDescriptor, ClassDescriptorWithCallableMembers {
 
     private static final Predicate<Object> ONLY_ENUM_ENTRIES = Predicates.instanceOf(JetEnumEntry.class);
     private static final Predicate<JetType> VALID_SUPERTYPE = new Predicate<JetType>() {
@@ -183,6 +183,30 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements LazyDesc
         return unsubstitutedMemberScope.getPrimaryConstructor();
     }
 
+    @NotNull
+    @Override
+    public Collection<CallableMemberDescriptor> getDeclaredCallableMembers() {
+        List<CallableMemberDescriptor> result = Lists.newArrayList();
+        for (CallableMemberDescriptor member : getAllCallableMembers()) {
+            if (member.getKind().isReal()) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Collection<CallableMemberDescriptor> getAllCallableMembers() {
+        List<CallableMemberDescriptor> result = Lists.newArrayList();
+        for (DeclarationDescriptor descriptor : unsubstitutedMemberScope.getAllDescriptors()) {
+            if (descriptor instanceof CallableMemberDescriptor && descriptor.getContainingDeclaration() == this) {
+                result.add((CallableMemberDescriptor) descriptor);
+            }
+        }
+        return result;
+    }
+
     @NotNull
     @Override
     public DeclarationDescriptor getOriginal() {
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.lazy;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.di.InjectorForBodyResolve;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.psi.*;
+import org.jetbrains.jet.lang.resolve.*;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.scopes.JetScope;
+import org.jetbrains.jet.lang.resolve.scopes.WritableScope;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analyzes files on top of {@link ResolveSession}: unlike {@link TopDownAnalyzer} it does not create descriptors for all declarations
+ * up front, headers are resolved only when analyzed files (their bodies, or the code generator reading the binding context) need them.
+ *
+ * Declarations of the files to analyze completely are forced and their bodies are resolved, the rest of the source set given to
+ * the session is only resolved on demand. Scripts are not supported.
+ */
+public class LazyTopDownAnalyzer {
+    private final ResolveSession resolveSession;
+    private final BindingTrace trace;
+    private final Predicate<PsiFile> filesToAnalyzeCompletely;
+
+    private final Map<JetClassOrObject, ClassDescriptorWithCallableMembers> classes = Maps.newLinkedHashMap();
+    private final Map<JetNamedFunction, SimpleFunctionDescriptor> functions = Maps.newLinkedHashMap();
+    private final Map<JetProperty, PropertyDescriptor> properties = Maps.newLinkedHashMap();
+
+    public LazyTopDownAnalyzer(@NotNull ResolveSession resolveSession, @NotNull Predicate<PsiFile> filesToAnalyzeCompletely) {
+        this.resolveSession = resolveSession;
+        this.trace = resolveSession.getTrace();
+        this.filesToAnalyzeCompletely = filesToAnalyzeCompletely;
+    }
+
+    public void analyzeFiles(@NotNull Collection<JetFile> files) {
+        List<JetFile> filesToAnalyze = Lists.newArrayList();
+        for (JetFile file : files) {
+            if (file.isScript()) {
+                throw new IllegalArgumentException("Scripts are not supported by lazy analysis: " + file.getName());
+            }
+            recordNamespace(file);
+            if (filesToAnalyzeCompletely.apply(file)) {
+                filesToAnalyze.add(file);
+            }
+        }
+
+        // Java code may refer to any Kotlin class of the source set, so classes are registered by their names beforehand.
+        // Creating a lazy class descriptor doesn't resolve its header
+        for (JetFile file : files) {
+            registerClasses(file);
+        }
+
+        for (JetFile file : filesToAnalyze) {
+            resolveDeclarations(file);
+        }
+
+        resolveBodies(filesToAnalyze);
+    }
+
+    private void recordNamespace(@NotNull JetFile file) {
+        FqName fqName = JetPsiUtil.getFQName(file);
+        NamespaceDescriptor namespaceDescriptor = resolveSession.getPackageDescriptorByFqName(fqName);
+        assert namespaceDescriptor != null : "No namespace descriptor for " + fqName + " in " + file.getName();
+
+        trace.record(BindingContext.FILE_TO_NAMESPACE, file, namespaceDescriptor);
+
+        Collection<JetFile> files = trace.get(BindingContext.NAMESPACE_TO_FILES, namespaceDescriptor);
+        if (files == null) {
+            files = Sets.newIdentityHashSet();
+        }
+        files.add(file);
+        trace.record(BindingContext.NAMESPACE_TO_FILES, namespaceDescriptor, files);
+
+        for (FqName current = fqName; !current.isRoot(); current = current.parent()) {
+            if (trace.get(BindingContext.FQNAME_TO_NAMESPACE_DESCRIPTOR, current) != null) break;
+            trace.record(BindingContext.FQNAME_TO_NAMESPACE_DESCRIPTOR, current, resolveSession.getPackageDescriptorByFqName(current));
+        }
+    }
+
+    private void registerClasses(@NotNull JetDeclarationContainer container) {
+        for (JetDeclaration declaration : container.getDeclarations()) {
+            JetClassOrObject classOrObject = getClassOrObject(declaration);
+            if (classOrObject == null) continue;
+
+            ClassDescriptor classDescriptor = resolveSession.getClassDescriptor(classOrObject);
+            if (!(classOrObject instanceof JetEnumEntry) && !(declaration instanceof JetClassObject)) {
+                FqName fqName = JetPsiUtil.getFQName(classOrObject);
+                if (fqName != null) {
+                    trace.record(BindingContext.FQNAME_TO_CLASS_DESCRIPTOR, fqName, classDescriptor);
+                }
+            }
+            registerClasses(classOrObject);
+        }
+    }
+
+    private void resolveDeclarations(@NotNull JetDeclarationContainer container) {
+        for (JetDeclaration declaration : container.getDeclarations()) {
+            JetClassOrObject classOrObject = getClassOrObject(declaration);
+            if (classOrObject != null) {
+                LazyClassDescriptor classDescriptor = (LazyClassDescriptor) resolveSession.getClassDescriptor(classOrObject);
+                ForceResolveUtil.forceResolveAllContents(classDescriptor);
+                classes.put(classOrObject, classDescriptor);
+                resolveDeclarations(classOrObject);
+            }
+            else if (declaration instanceof JetNamedFunction) {
+                JetNamedFunction function = (JetNamedFunction) declaration;
+                functions.put(function, (SimpleFunctionDescriptor) resolveSession.resolveToDescriptor(function));
+            }
+            else if (declaration instanceof JetProperty) {
+                JetProperty property = (JetProperty) declaration;
+                properties.put(property, (PropertyDescriptor) resolveSession.resolveToDescriptor(property));
+            }
+        }
+    }
+
+    private void resolveBodies(@NotNull List<JetFile> files) {
+        if (files.isEmpty()) return;
+
+        TopDownAnalysisParameters parameters = new TopDownAnalysisParameters(
+                filesToAnalyzeCompletely, false, false, Collections.<AnalyzerScriptParameter>emptyList());
+        LazyBodiesResolveContext context = new LazyBodiesResolveContext(files);
+        InjectorForBodyResolve injector = new InjectorForBodyResolve(
+                files.get(0).getProject(), parameters, trace, context, resolveSession.getModuleConfiguration());
+        BodyResolver bodyResolver = injector.getBodyResolver();
+
+        // Classes are not exposed by the context, it is bound to eagerly created descriptors
+        for (Map.Entry<JetClassOrObject, ClassDescriptorWithCallableMembers> entry : classes.entrySet()) {
+            JetClassOrObject classOrObject = entry.getKey();
+            LazyClassDescriptor descriptor = (LazyClassDescriptor) entry.getValue();
+            ConstructorDescriptor primaryConstructor = descriptor.getUnsubstitutedPrimaryConstructor();
+
+            bodyResolver.resolveDelegationSpecifierList(classOrObject, descriptor, primaryConstructor,
+                                                        descriptor.getScopeForClassHeaderResolution(),
+                                                        descriptor.getScopeForMemberDeclarationResolution());
+            bodyResolver.resolveAnonymousInitializers(classOrObject, primaryConstructor,
+                                                      descriptor.getScopeForPropertyInitializerResolution());
+            if (classOrObject instanceof JetClass && primaryConstructor != null) {
+                bodyResolver.resolvePrimaryConstructorParameters((JetClass) classOrObject, primaryConstructor,
+                                                                 descriptor.getScopeForClassHeaderResolution());
+            }
+        }
+
+        checkClasses(injector);
+
+        bodyResolver.resolveBodies();
+
+        ControlFlowAnalyzer controlFlowAnalyzer = injector.getControlFlowAnalyzer();
+        for (JetClassOrObject classOrObject : classes.keySet()) {
+            controlFlowAnalyzer.checkDeclarationContainer(classOrObject);
+        }
+    }
+
+    // Fake overrides of lazy classes are generated by their member scopes, so only the checks of the eager analysis are performed here
+    private void checkClasses(@NotNull InjectorForBodyResolve injector) {
+        DeclarationsChecker declarationsChecker = injector.getDeclarationsChecker();
+        for (Map.Entry<JetClassOrObject, ClassDescriptorWithCallableMembers> entry : classes.entrySet()) {
+            declarationsChecker.checkClassOrObject(entry.getKey(), entry.getValue());
+        }
+
+        injector.getOverrideResolver().checkClasses(classes);
+
+        Map<JetClass, ClassDescriptorWithCallableMembers> classesOnly = Maps.newLinkedHashMap();
+        Map<JetObjectDeclaration, ClassDescriptorWithCallableMembers> objectsOnly = Maps.newLinkedHashMap();
+        for (Map.Entry<JetClassOrObject, ClassDescriptorWithCallableMembers> entry : classes.entrySet()) {
+            if (entry.getKey() instanceof JetClass) {
+                classesOnly.put((JetClass) entry.getKey(), entry.getValue());
+            }
+            else if (entry.getKey() instanceof JetObjectDeclaration) {
+                objectsOnly.put((JetObjectDeclaration) entry.getKey(), entry.getValue());
+            }
+        }
+        injector.getOverloadResolver().checkOverloads(classesOnly, objectsOnly, functions.values(), properties.values());
+    }
+
+    private static JetClassOrObject getClassOrObject(@NotNull JetDeclaration declaration) {
+        if (declaration instanceof JetClassObject) {
+            return ((JetClassObject) declaration).getObjectDeclaration();
+        }
+        if (declaration instanceof JetClassOrObject) {
+            return (JetClassOrObject) declaration;
+        }
+        return null;
+    }
+
+    private class LazyBodiesResolveContext implements BodiesResolveContext {
+        private final Collection<JetFile> files;
+        private final Function<JetDeclaration, JetScope> declaringScopes = new Function<JetDeclaration, JetScope>() {
+            @Override
+            public JetScope apply(JetDeclaration declaration) {
+                // Accessors are resolved in the scope of their property
+                JetDeclaration owner = declaration instanceof JetPropertyAccessor ? (JetDeclaration) declaration.getParent() : declaration;
+                return resolveSession.getInjector().getScopeProvider().getResolutionScopeForDeclaration(owner);
+            }
+        };
+
+        private LazyBodiesResolveContext(@NotNull Collection<JetFile> files) {
+            this.files = files;
+        }
+
+        @Override
+        public Collection<JetFile> getFiles() {
+            return files;
+        }
+
+        @Override
+        public Map<JetClass, MutableClassDescriptor> getClasses() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<JetObjectDeclaration, MutableClassDescriptor> getObjects() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<JetProperty, PropertyDescriptor> getProperties() {
+            return properties;
+        }
+
+        @Override
+        public Map<JetNamedFunction, SimpleFunctionDescriptor> getFunctions() {
+            return functions;
+        }
+
+        @Override
+        public Function<JetDeclaration, JetScope> getDeclaringScopes() {
+            return declaringScopes;
+        }
+
+        @Override
+        public Map<JetScript, ScriptDescriptor> getScripts() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<JetScript, WritableScope> getScriptScopes() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void setTopDownAnalysisParameters(TopDownAnalysisParameters parameters) {
+        }
+
+        @Override
+        public boolean completeAnalysisNeeded(@NotNull PsiElement element) {
+            PsiFile containingFile = element.getContainingFile();
+            return containingFile != null && filesToAnalyzeCompletely.apply(containingFile);
+        }
+    }
+}
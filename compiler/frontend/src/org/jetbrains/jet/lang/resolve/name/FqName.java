@@ -45,13 +45,6 @@ public class FqName extends FqNameBase {
         validateFqName();
     }
 
-    private FqName(@NotNull FqNameUnsafe fqName, FqName parent) {
-        this.fqName = fqName;
-        this.parent = parent;
-
-        validateFqName();
-    }
-
 
     private void validateFqName() {
         if (!isValidAfterUnsafeCheck(fqName.getFqName())) {
@@ -95,14 +88,14 @@ public class FqName extends FqNameBase {
             throw new IllegalStateException("root");
         }
 
-        parent = new FqName(fqName.parent());
+        parent = fqName.parent().toSafe();
 
         return parent;
     }
 
     @NotNull
     public FqName child(@NotNull Name name) {
-        return new FqName(fqName.child(name), this);
+        return fqName.child(name).toSafe();
     }
 
     @NotNull
@@ -122,8 +115,7 @@ public class FqName extends FqNameBase {
         fqName.walk(new FqNameUnsafe.WalkCallback() {
             @Override
             public void segment(@NotNull Name shortName, @NotNull FqNameUnsafe fqName) {
-                // TODO: do not validate
-                path.add(new FqName(fqName));
+                path.add(fqName.toSafe());
             }
         });
         return path;
@@ -145,7 +137,7 @@ public class FqName extends FqNameBase {
 
     @NotNull
     public static FqName topLevel(@NotNull Name shortName) {
-        return new FqName(FqNameUnsafe.topLevel(shortName));
+        return FqNameUnsafe.topLevel(shortName).toSafe();
     }
 
 
@@ -162,6 +154,8 @@ public class FqName extends FqNameBase {
 
         FqName that = (FqName) o;
 
+        // Derived names share interned unsafe names
+        if (fqName == that.fqName) return true;
         if (fqName != null ? !fqName.equals(that.fqName) : that.fqName != null) return false;
 
         return true;
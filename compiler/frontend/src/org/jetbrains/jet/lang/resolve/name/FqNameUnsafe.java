@@ -17,37 +17,51 @@
 package org.jetbrains.jet.lang.resolve.name;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Like {@link FqName} but allows '<' and '>' characters in name.
+ *
+ * Names derived from others (parents, children, path segments) are interned like {@link Name}s,
+ * names created by constructors share the string and the cached segments of an interned equal name.
+ * Only completely constructed instances get into the table, and the cached segments are volatile, so a name
+ * taken from the table by another thread is never seen half-built.
  */
 public class FqNameUnsafe extends FqNameBase {
 
     public static final Name ROOT_NAME = Name.special("<root>");
 
+    private static final ConcurrentMap<String, FqNameUnsafe> FQ_NAMES = new MapMaker().weakValues().makeMap();
+
     @NotNull
     private final String fqName;
 
     // cache
-    private transient FqName safe;
-    private transient FqNameUnsafe parent;
-    private transient Name shortName;
+    private transient volatile FqName safe;
+    private transient volatile FqNameUnsafe parent;
+    private transient volatile Name shortName;
 
     FqNameUnsafe(@NotNull String fqName, @NotNull FqName safe) {
-        this.fqName = fqName;
+        this(fqName);
         this.safe = safe;
-
-        validateFqName();
     }
 
     public FqNameUnsafe(@NotNull String fqName) {
-        this.fqName = fqName;
-
-        validateFqName();
+        FqNameUnsafe existing = FQ_NAMES.get(fqName);
+        if (existing != null) {
+            this.fqName = existing.fqName;
+            this.parent = existing.parent;
+            this.shortName = existing.shortName;
+        }
+        else {
+            this.fqName = fqName;
+            validateFqName();
+        }
     }
 
     private FqNameUnsafe(@NotNull String fqName, FqNameUnsafe parent, Name shortName) {
@@ -59,6 +73,26 @@ public class FqNameUnsafe extends FqNameBase {
     }
 
 
+    @NotNull
+    private static FqNameUnsafe intern(@NotNull String fqName, @NotNull FqNameUnsafe parent, @NotNull Name shortName) {
+        FqNameUnsafe existing = FQ_NAMES.get(fqName);
+        if (existing != null) return existing;
+
+        FqNameUnsafe newFqName = new FqNameUnsafe(fqName, parent, shortName);
+        existing = FQ_NAMES.putIfAbsent(fqName, newFqName);
+        return existing != null ? existing : newFqName;
+    }
+
+    @NotNull
+    private static FqNameUnsafe canonical(@NotNull String fqName) {
+        FqNameUnsafe existing = FQ_NAMES.get(fqName);
+        if (existing != null) return existing;
+
+        FqNameUnsafe newFqName = new FqNameUnsafe(fqName, null, null);
+        existing = FQ_NAMES.putIfAbsent(fqName, newFqName);
+        return existing != null ? existing : newFqName;
+    }
+
     private void validateFqName() {
         if (!isValid(fqName)) {
             throw new IllegalArgumentException("incorrect fq name: " + fqName);
@@ -74,7 +108,7 @@ public class FqNameUnsafe extends FqNameBase {
         int lastDot = fqName.lastIndexOf('.');
         if (lastDot >= 0) {
             shortName = Name.guess(fqName.substring(lastDot + 1));
-            parent = new FqNameUnsafe(fqName.substring(0, lastDot));
+            parent = canonical(fqName.substring(0, lastDot));
         }
         else {
             shortName = Name.guess(fqName);
@@ -133,7 +167,7 @@ public class FqNameUnsafe extends FqNameBase {
         else {
             childFqName = fqName + "." + name.getName();
         }
-        return new FqNameUnsafe(childFqName, this, name);
+        return intern(childFqName, this, name);
     }
 
     @NotNull
@@ -210,7 +244,7 @@ public class FqNameUnsafe extends FqNameBase {
         }
 
         Name firstSegment = Name.guess(fqName.substring(0, pos));
-        FqNameUnsafe last = new FqNameUnsafe(firstSegment.getName(), FqName.ROOT.toUnsafe(), firstSegment);
+        FqNameUnsafe last = intern(firstSegment.getName(), FqName.ROOT.toUnsafe(), firstSegment);
         callback.segment(firstSegment, last);
 
         while (true) {
@@ -228,7 +262,7 @@ public class FqNameUnsafe extends FqNameBase {
             }
 
             Name shortName = Name.guess(fqName.substring(pos + 1, next));
-            last = new FqNameUnsafe(fqName.substring(0, next), last, shortName);
+            last = intern(fqName.substring(0, next), last, shortName);
             callback.segment(shortName, last);
 
             pos = next;
@@ -254,7 +288,7 @@ public class FqNameUnsafe extends FqNameBase {
 
     @NotNull
     public static FqNameUnsafe topLevel(@NotNull Name shortName) {
-        return new FqNameUnsafe(shortName.getName(), FqName.ROOT.toUnsafe(), shortName);
+        return intern(shortName.getName(), FqName.ROOT.toUnsafe(), shortName);
     }
 
 
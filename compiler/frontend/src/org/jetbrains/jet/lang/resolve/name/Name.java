@@ -16,16 +16,36 @@
 
 package org.jetbrains.jet.lang.resolve.name;
 
+import com.google.common.collect.MapMaker;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Names are interned: while a name is referenced, requesting an equal one returns the same instance
+ * (except for invalid identifiers created without validation).
+ */
 public class Name implements Comparable<Name> {
+    // Weak values let unused names go away, keys are the strings held by the names themselves
+    private static final ConcurrentMap<String, Name> IDENTIFIERS = new MapMaker().weakValues().makeMap();
+    private static final ConcurrentMap<String, Name> SPECIAL_NAMES = new MapMaker().weakValues().makeMap();
+
     @NotNull
     private final String name;
     private final boolean special;
+    private final int hashCode;
 
     private Name(@NotNull String name, boolean special) {
         this.name = name;
         this.special = special;
+        this.hashCode = 31 * name.hashCode() + (special ? 1 : 0);
+    }
+
+    @NotNull
+    private static Name intern(@NotNull ConcurrentMap<String, Name> table, @NotNull String name, boolean special) {
+        Name newName = new Name(name, special);
+        Name existing = table.putIfAbsent(name, newName);
+        return existing != null ? existing : newName;
     }
 
     @NotNull
@@ -53,13 +73,21 @@ public class Name implements Comparable<Name> {
     @NotNull
     public static Name identifier(@NotNull String name) {
         NameUtils.requireIdentifier(name);
-        return new Name(name, false);
+        Name existing = IDENTIFIERS.get(name);
+        return existing != null ? existing : intern(IDENTIFIERS, name, false);
     }
 
     /** Must be validated by caller */
     @NotNull
     public static Name identifierNoValidate(@NotNull String name) {
-        return new Name(name, false);
+        Name existing = IDENTIFIERS.get(name);
+        if (existing != null) return existing;
+
+        // Names of erroneous code are not shared, so that the table contains valid identifiers only
+        if (!NameUtils.isValidIdentified(name)) {
+            return new Name(name, false);
+        }
+        return intern(IDENTIFIERS, name, false);
     }
 
     @NotNull
@@ -67,7 +95,8 @@ public class Name implements Comparable<Name> {
         if (!name.startsWith("<")) {
             throw new IllegalArgumentException("special name must start with '<': " + name);
         }
-        return new Name(name, true);
+        Name existing = SPECIAL_NAMES.get(name);
+        return existing != null ? existing : intern(SPECIAL_NAMES, name, true);
     }
 
     // TODO: wrong
@@ -88,11 +117,13 @@ public class Name implements Comparable<Name> {
 
     @Override
     public boolean equals(Object o) {
+        // Equal names are the same instance, comparing contents is only a fallback for distinct ones
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
         Name name1 = (Name) o;
 
+        if (hashCode != name1.hashCode) return false;
         if (special != name1.special) return false;
         if (!name.equals(name1.name)) return false;
 
@@ -101,8 +132,6 @@ public class Name implements Comparable<Name> {
 
     @Override
     public int hashCode() {
-        int result = name.hashCode();
-        result = 31 * result + (special ? 1 : 0);
-        return result;
+        return hashCode;
     }
 }
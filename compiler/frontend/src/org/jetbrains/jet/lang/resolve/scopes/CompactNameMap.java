@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.scopes;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.name.Name;
+
+import java.util.*;
+
+/**
+ * A map from names for the tables of {@link WritableScopeImpl}: most of the scopes (blocks, functions, lambdas) declare a few names,
+ * they are kept in arrays and looked up linearly, names are interned so that the comparison is usually by identity.
+ * Past {@link #ARRAY_THRESHOLD} entries the map switches to hashing.
+ *
+ * Values are iterated in the order of insertion while the map is small. Null values are not supported.
+ */
+class CompactNameMap<V> {
+    static final int ARRAY_THRESHOLD = 8;
+
+    private Name[] keys = new Name[2];
+    private Object[] values = new Object[2];
+    private int size = 0;
+
+    @Nullable
+    private Map<Name, V> hashMap = null;
+
+    @Nullable
+    public V get(@NotNull Name name) {
+        if (hashMap != null) {
+            return hashMap.get(name);
+        }
+        int index = indexOf(name);
+        //noinspection unchecked
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    /**
+     * @return the previous value for the name
+     */
+    @Nullable
+    public V put(@NotNull Name name, @NotNull V value) {
+        if (hashMap != null) {
+            return hashMap.put(name, value);
+        }
+
+        int index = indexOf(name);
+        if (index >= 0) {
+            //noinspection unchecked
+            V oldValue = (V) values[index];
+            values[index] = value;
+            return oldValue;
+        }
+
+        if (size == ARRAY_THRESHOLD) {
+            hashMap = Maps.newLinkedHashMap();
+            for (int i = 0; i < size; i++) {
+                //noinspection unchecked
+                hashMap.put(keys[i], (V) values[i]);
+            }
+            keys = null;
+            values = null;
+            return hashMap.put(name, value);
+        }
+
+        if (size == keys.length) {
+            int newLength = Math.min(size * 2, ARRAY_THRESHOLD);
+            keys = Arrays.copyOf(keys, newLength);
+            values = Arrays.copyOf(values, newLength);
+        }
+        keys[size] = name;
+        values[size] = value;
+        size++;
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int size() {
+        return hashMap != null ? hashMap.size() : size;
+    }
+
+    @NotNull
+    public Collection<V> values() {
+        if (hashMap != null) {
+            return Collections.unmodifiableCollection(hashMap.values());
+        }
+        //noinspection unchecked
+        return Collections.unmodifiableList((List<V>) Arrays.asList(values).subList(0, size));
+    }
+
+    private int indexOf(@NotNull Name name) {
+        // Name.equals() compares identities and cached hash codes before the strings
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(name)) return i;
+        }
+        return -1;
+    }
+}
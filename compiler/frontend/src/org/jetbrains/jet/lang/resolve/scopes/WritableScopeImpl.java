@@ -20,17 +20,27 @@ import com.google.common.collect.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.resolve.lazy.AbstractLazyMemberScope;
 import org.jetbrains.jet.lang.resolve.name.LabelName;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.types.checker.JetTypeChecker;
-import org.jetbrains.jet.util.CommonSuppliers;
 
 import java.util.*;
 
+/**
+ * Tables of the scope are created on the first write and kept in {@link CompactNameMap}s, most of the scopes are blocks and functions
+ * declaring a few names or none at all.
+ *
+ * Lookups of functions and properties merge the declared descriptors with the ones of the worker scope and of the imports.
+ * Merged results are cached once nothing visible through the scope can change: the scope is locked for reading, and so are its worker
+ * scope and its imports, recursively. Scopes other writable scopes may be written through, such as {@link WriteThroughScope}s
+ * and adapters, keep the scope uncached. The cache may be shared by the threads reading the scope.
+ */
 public class WritableScopeImpl extends WritableScopeWithImports {
 
     private final Collection<DeclarationDescriptor> allDescriptors = Lists.newArrayList();
-    private final Multimap<Name, DeclarationDescriptor> declaredDescriptorsAccessibleBySimpleName = HashMultimap.create();
+    @Nullable
+    private Multimap<Name, DeclarationDescriptor> declaredDescriptorsAccessibleBySimpleName;
     private boolean allDescriptorsDone = false;
 
     @NotNull
@@ -38,25 +48,31 @@ public class WritableScopeImpl extends WritableScopeWithImports {
 
     // FieldNames include "$"
     @Nullable
-    private Map<Name, PropertyDescriptor> propertyDescriptorsByFieldNames;
+    private CompactNameMap<PropertyDescriptor> propertyDescriptorsByFieldNames;
 
     @Nullable
-    private SetMultimap<Name, FunctionDescriptor> functionGroups;
+    private CompactNameMap<Set<FunctionDescriptor>> functionGroups;
 
     @Nullable
-    private Map<Name, DeclarationDescriptor> variableClassOrNamespaceDescriptors;
+    private CompactNameMap<DeclarationDescriptor> variableClassOrNamespaceDescriptors;
     
     @Nullable
-    private SetMultimap<Name, VariableDescriptor> propertyGroups;
+    private CompactNameMap<Set<VariableDescriptor>> propertyGroups;
 
     @Nullable
-    private Map<Name, NamespaceDescriptor> namespaceAliases;
+    private CompactNameMap<NamespaceDescriptor> namespaceAliases;
 
     @Nullable
     private Map<LabelName, List<DeclarationDescriptor>> labelsToDescriptors;
     
     @Nullable
-    private Map<Name, ClassDescriptor> objectDescriptors;
+    private CompactNameMap<ClassDescriptor> objectDescriptors;
+
+    private volatile boolean frozen = false;
+    private volatile boolean neverFrozen = false;
+
+    @Nullable
+    private volatile LookupCache lookupCache;
 
     @Nullable
     private ReceiverParameterDescriptor implicitReceiver;
@@ -147,9 +163,9 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     }
 
     @NotNull
-    private Map<Name, ClassDescriptor> getObjectDescriptorsMap() {
+    private CompactNameMap<ClassDescriptor> getObjectDescriptorsMap() {
         if (objectDescriptors == null) {
-            objectDescriptors = Maps.newHashMap();
+            objectDescriptors = new CompactNameMap<ClassDescriptor>();
         }
         return objectDescriptors;
     }
@@ -160,7 +176,9 @@ public class WritableScopeImpl extends WritableScopeWithImports {
         checkMayRead();
 
         Collection<DeclarationDescriptor> superResult = super.getDeclarationsByLabel(labelName);
-        Map<LabelName, List<DeclarationDescriptor>> labelsToDescriptors = getLabelsToDescriptors();
+        if (labelsToDescriptors == null) {
+            return superResult;
+        }
         List<DeclarationDescriptor> declarationDescriptors = labelsToDescriptors.get(labelName);
         if (declarationDescriptors == null) {
             return superResult;
@@ -186,17 +204,22 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     }
 
     @NotNull
-    private Map<Name, DeclarationDescriptor> getVariableClassOrNamespaceDescriptors() {
+    private CompactNameMap<DeclarationDescriptor> getVariableClassOrNamespaceDescriptors() {
         if (variableClassOrNamespaceDescriptors == null) {
-            variableClassOrNamespaceDescriptors = Maps.newHashMap();
+            variableClassOrNamespaceDescriptors = new CompactNameMap<DeclarationDescriptor>();
         }
         return variableClassOrNamespaceDescriptors;
     }
 
+    @Nullable
+    private DeclarationDescriptor getDeclaredVariableClassOrNamespace(@NotNull Name name) {
+        return variableClassOrNamespaceDescriptors != null ? variableClassOrNamespaceDescriptors.get(name) : null;
+    }
+
     @NotNull
-    private Map<Name, NamespaceDescriptor> getNamespaceAliases() {
+    private CompactNameMap<NamespaceDescriptor> getNamespaceAliases() {
         if (namespaceAliases == null) {
-            namespaceAliases = Maps.newHashMap();
+            namespaceAliases = new CompactNameMap<NamespaceDescriptor>();
         }
         return namespaceAliases;
     }
@@ -217,7 +240,7 @@ public class WritableScopeImpl extends WritableScopeWithImports {
         Name name = variableDescriptor.getName();
         if (isProperty) {
             checkForPropertyRedeclaration(name, variableDescriptor);
-            getPropertyGroups().put(name, variableDescriptor);
+            addToGroup(getPropertyGroups(), name, variableDescriptor);
         }
         if (variableDescriptor.getReceiverParameter() == null) {
             checkForRedeclaration(name, variableDescriptor);
@@ -233,22 +256,38 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     public Set<VariableDescriptor> getProperties(@NotNull Name name) {
         checkMayRead();
 
-        Set<VariableDescriptor> result = Sets.newLinkedHashSet(getPropertyGroups().get(name));
+        LookupCache cache = getLookupCache();
+        if (cache == null) {
+            return computeProperties(name);
+        }
+        Set<VariableDescriptor> result = cache.getProperties(name);
+        if (result == null) {
+            result = computeProperties(name);
+            cache.putProperties(name, result);
+        }
+        return result;
+    }
 
+    @NotNull
+    private Set<VariableDescriptor> computeProperties(@NotNull Name name) {
+        Set<VariableDescriptor> result = Sets.newLinkedHashSet();
+        if (propertyGroups != null) {
+            Set<VariableDescriptor> declared = propertyGroups.get(name);
+            if (declared != null) {
+                result.addAll(declared);
+            }
+        }
         result.addAll(getWorkerScope().getProperties(name));
-
         result.addAll(super.getProperties(name));
-        
-        return result;
+        return Collections.unmodifiableSet(result);
     }
 
     @Override
     public VariableDescriptor getLocalVariable(@NotNull Name name) {
         checkMayRead();
 
-        Map<Name, DeclarationDescriptor> variableClassOrNamespaceDescriptors = getVariableClassOrNamespaceDescriptors();
-        DeclarationDescriptor descriptor = variableClassOrNamespaceDescriptors.get(name);
-        if (descriptor instanceof VariableDescriptor && !getPropertyGroups().get(name).contains(descriptor)) {
+        DeclarationDescriptor descriptor = getDeclaredVariableClassOrNamespace(name);
+        if (descriptor instanceof VariableDescriptor && !isDeclaredProperty(name, (VariableDescriptor) descriptor)) {
             return (VariableDescriptor) descriptor;
         }
 
@@ -259,27 +298,42 @@ public class WritableScopeImpl extends WritableScopeWithImports {
         return super.getLocalVariable(name);
     }
 
+    private boolean isDeclaredProperty(@NotNull Name name, @NotNull VariableDescriptor descriptor) {
+        if (propertyGroups == null) return false;
+        Set<VariableDescriptor> properties = propertyGroups.get(name);
+        return properties != null && properties.contains(descriptor);
+    }
+
     @NotNull
-    private SetMultimap<Name, VariableDescriptor> getPropertyGroups() {
+    private CompactNameMap<Set<VariableDescriptor>> getPropertyGroups() {
         if (propertyGroups == null) {
-            propertyGroups = CommonSuppliers.newLinkedHashSetHashSetMultimap();
+            propertyGroups = new CompactNameMap<Set<VariableDescriptor>>();
         }
         return propertyGroups;
     }
     
     @NotNull
-    private SetMultimap<Name, FunctionDescriptor> getFunctionGroups() {
+    private CompactNameMap<Set<FunctionDescriptor>> getFunctionGroups() {
         if (functionGroups == null) {
-            functionGroups = CommonSuppliers.newLinkedHashSetHashSetMultimap();
+            functionGroups = new CompactNameMap<Set<FunctionDescriptor>>();
         }
         return functionGroups;
     }
 
+    private static <D> void addToGroup(@NotNull CompactNameMap<Set<D>> groups, @NotNull Name name, @NotNull D descriptor) {
+        Set<D> group = groups.get(name);
+        if (group == null) {
+            group = Sets.newLinkedHashSet();
+            groups.put(name, group);
+        }
+        group.add(descriptor);
+    }
+
     @Override
     public void addFunctionDescriptor(@NotNull FunctionDescriptor functionDescriptor) {
         checkMayWrite();
 
-        getFunctionGroups().put(functionDescriptor.getName(), functionDescriptor);
+        addToGroup(getFunctionGroups(), functionDescriptor.getName(), functionDescriptor);
         allDescriptors.add(functionDescriptor);
     }
 
@@ -288,13 +342,78 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     public Collection<FunctionDescriptor> getFunctions(@NotNull Name name) {
         checkMayRead();
 
-        Set<FunctionDescriptor> result = Sets.newLinkedHashSet(getFunctionGroups().get(name));
+        LookupCache cache = getLookupCache();
+        if (cache == null) {
+            return computeFunctions(name);
+        }
+        Collection<FunctionDescriptor> result = cache.getFunctions(name);
+        if (result == null) {
+            result = computeFunctions(name);
+            cache.putFunctions(name, result);
+        }
+        return result;
+    }
 
+    @NotNull
+    private Collection<FunctionDescriptor> computeFunctions(@NotNull Name name) {
+        Set<FunctionDescriptor> result = Sets.newLinkedHashSet();
+        if (functionGroups != null) {
+            Set<FunctionDescriptor> declared = functionGroups.get(name);
+            if (declared != null) {
+                result.addAll(declared);
+            }
+        }
         result.addAll(getWorkerScope().getFunctions(name));
-
         result.addAll(super.getFunctions(name));
+        return Collections.unmodifiableSet(result);
+    }
 
-        return result;
+    @Nullable
+    private LookupCache getLookupCache() {
+        LookupCache cache = lookupCache;
+        if (cache == null) {
+            if (!isFrozen()) return null;
+            cache = new LookupCache();
+            lookupCache = cache;
+        }
+        return cache;
+    }
+
+    /**
+     * Lock level READING can't be changed, so once this scope and all the scopes it reads from are locked for reading, the result of
+     * any lookup stays the same and the answer is remembered
+     */
+    private boolean isFrozen() {
+        if (frozen) return true;
+        if (neverFrozen || getLockLevel() != LockLevel.READING) return false;
+
+        if (!isFrozen(getWorkerScope())) return false;
+        for (JetScope imported : getImports()) {
+            if (!isFrozen(imported)) return false;
+        }
+        frozen = true;
+        return true;
+    }
+
+    private boolean isFrozen(@NotNull JetScope scope) {
+        if (scope instanceof WritableScopeImpl) {
+            return ((WritableScopeImpl) scope).isFrozen();
+        }
+        if (scope instanceof WritableScope) {
+            // may be written through, its lock level doesn't protect the scopes it writes to
+            neverFrozen = true;
+            return false;
+        }
+        if (scope instanceof JetScopeAdapter) {
+            return isFrozen(((JetScopeAdapter) scope).getWorkerScope());
+        }
+        if (scope instanceof JetScopeImpl || scope instanceof AbstractLazyMemberScope) {
+            // lazy and Java scopes compute their contents on demand, but never change them
+            return true;
+        }
+        // other wrappers may read from writable scopes we can't see
+        neverFrozen = true;
+        return false;
     }
 
     @Override
@@ -352,7 +471,7 @@ public class WritableScopeImpl extends WritableScopeWithImports {
         checkMayWrite();
         
         checkForRedeclaration(name, functionDescriptor);
-        getFunctionGroups().put(name, functionDescriptor);
+        addToGroup(getFunctionGroups(), name, functionDescriptor);
         allDescriptors.add(functionDescriptor);
     }
 
@@ -367,7 +486,8 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     }
     
     private void checkForPropertyRedeclaration(@NotNull Name name, VariableDescriptor variableDescriptor) {
-        Set<VariableDescriptor> properties = getPropertyGroups().get(name);
+        Set<VariableDescriptor> properties = propertyGroups != null ? propertyGroups.get(name) : null;
+        if (properties == null) return;
         ReceiverParameterDescriptor receiverParameter = variableDescriptor.getReceiverParameter();
         for (VariableDescriptor oldProperty : properties) {
             ReceiverParameterDescriptor receiverParameterForOldVariable = oldProperty.getReceiverParameter();
@@ -379,7 +499,7 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     }
 
     private void checkForRedeclaration(@NotNull Name name, DeclarationDescriptor classifierDescriptor) {
-        DeclarationDescriptor originalDescriptor = getVariableClassOrNamespaceDescriptors().get(name);
+        DeclarationDescriptor originalDescriptor = getDeclaredVariableClassOrNamespace(name);
         if (originalDescriptor != null) {
             redeclarationHandler.handleRedeclaration(originalDescriptor, classifierDescriptor);
         }
@@ -389,8 +509,7 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     public ClassifierDescriptor getClassifier(@NotNull Name name) {
         checkMayRead();
 
-        Map<Name, DeclarationDescriptor> variableClassOrNamespaceDescriptors = getVariableClassOrNamespaceDescriptors();
-        DeclarationDescriptor descriptor = variableClassOrNamespaceDescriptors.get(name);
+        DeclarationDescriptor descriptor = getDeclaredVariableClassOrNamespace(name);
         if (descriptor instanceof ClassifierDescriptor) return (ClassifierDescriptor) descriptor;
 
         ClassifierDescriptor classifierDescriptor = getWorkerScope().getClassifier(name);
@@ -401,21 +520,21 @@ public class WritableScopeImpl extends WritableScopeWithImports {
 
     @Override
     public ClassDescriptor getObjectDescriptor(@NotNull Name name) {
-        return getObjectDescriptorsMap().get(name);
+        return objectDescriptors != null ? objectDescriptors.get(name) : null;
     }
 
     @NotNull
     @Override
     public Set<ClassDescriptor> getObjectDescriptors() {
-        return Sets.newHashSet(getObjectDescriptorsMap().values());
+        if (objectDescriptors == null) return Collections.emptySet();
+        return Sets.newHashSet(objectDescriptors.values());
     }
 
     @Override
     public void addNamespace(@NotNull NamespaceDescriptor namespaceDescriptor) {
         checkMayWrite();
 
-        Map<Name, DeclarationDescriptor> variableClassOrNamespaceDescriptors = getVariableClassOrNamespaceDescriptors();
-        DeclarationDescriptor oldValue = variableClassOrNamespaceDescriptors.put(namespaceDescriptor.getName(), namespaceDescriptor);
+        DeclarationDescriptor oldValue = getVariableClassOrNamespaceDescriptors().put(namespaceDescriptor.getName(), namespaceDescriptor);
         if (oldValue != null) {
             redeclarationHandler.handleRedeclaration(oldValue, namespaceDescriptor);
         }
@@ -427,8 +546,7 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     public NamespaceDescriptor getDeclaredNamespace(@NotNull Name name) {
         checkMayRead();
 
-        Map<Name, DeclarationDescriptor> variableClassOrNamespaceDescriptors = getVariableClassOrNamespaceDescriptors();
-        DeclarationDescriptor namespaceDescriptor = variableClassOrNamespaceDescriptors.get(name);
+        DeclarationDescriptor namespaceDescriptor = getDeclaredVariableClassOrNamespace(name);
         if (namespaceDescriptor instanceof NamespaceDescriptor) return (NamespaceDescriptor) namespaceDescriptor;
         return null;
     }
@@ -440,7 +558,7 @@ public class WritableScopeImpl extends WritableScopeWithImports {
         NamespaceDescriptor declaredNamespace = getDeclaredNamespace(name);
         if (declaredNamespace != null) return declaredNamespace;
 
-        NamespaceDescriptor aliased = getNamespaceAliases().get(name);
+        NamespaceDescriptor aliased = namespaceAliases != null ? namespaceAliases.get(name) : null;
         if (aliased != null) return aliased;
 
         NamespaceDescriptor namespace = getWorkerScope().getNamespace(name);
@@ -468,15 +586,6 @@ public class WritableScopeImpl extends WritableScopeWithImports {
         return implicitReceiverHierarchy;
     }
 
-//    @SuppressWarnings({"NullableProblems"})
-    @NotNull
-    private Map<Name, PropertyDescriptor> getPropertyDescriptorsByFieldNames() {
-        if (propertyDescriptorsByFieldNames == null) {
-            propertyDescriptorsByFieldNames = new HashMap<Name, PropertyDescriptor>();
-        }
-        return propertyDescriptorsByFieldNames;
-    }
-
     @Override
     public PropertyDescriptor getPropertyByFieldReference(@NotNull Name fieldName) {
         checkMayRead();
@@ -485,7 +594,7 @@ public class WritableScopeImpl extends WritableScopeWithImports {
             throw new IllegalStateException();
         }
 
-        PropertyDescriptor descriptor = getPropertyDescriptorsByFieldNames().get(fieldName);
+        PropertyDescriptor descriptor = propertyDescriptorsByFieldNames != null ? propertyDescriptorsByFieldNames.get(fieldName) : null;
         if (descriptor != null) return descriptor;
         return super.getPropertyByFieldReference(fieldName);
     }
@@ -494,7 +603,8 @@ public class WritableScopeImpl extends WritableScopeWithImports {
         checkMayRead();
 
         List<VariableDescriptor> result = Lists.newArrayList();
-        for (DeclarationDescriptor descriptor : getVariableClassOrNamespaceDescriptors().values()) {
+        if (variableClassOrNamespaceDescriptors == null) return result;
+        for (DeclarationDescriptor descriptor : variableClassOrNamespaceDescriptors.values()) {
             if (descriptor instanceof VariableDescriptor) {
                 VariableDescriptor variableDescriptor = (VariableDescriptor) descriptor;
                 result.add(variableDescriptor);
@@ -508,18 +618,27 @@ public class WritableScopeImpl extends WritableScopeWithImports {
     }
 
     private void addToDeclared(DeclarationDescriptor descriptor) {
+        if (declaredDescriptorsAccessibleBySimpleName == null) {
+            declaredDescriptorsAccessibleBySimpleName = HashMultimap.create();
+        }
         declaredDescriptorsAccessibleBySimpleName.put(descriptor.getName(), descriptor);
     }
 
     @NotNull
     @Override
     public Multimap<Name, DeclarationDescriptor> getDeclaredDescriptorsAccessibleBySimpleName() {
+        if (declaredDescriptorsAccessibleBySimpleName == null) {
+            return ImmutableMultimap.of();
+        }
         return declaredDescriptorsAccessibleBySimpleName;
     }
 
     @NotNull
     @Override
     public Collection<DeclarationDescriptor> getOwnDeclaredDescriptors() {
+        if (declaredDescriptorsAccessibleBySimpleName == null) {
+            return Collections.emptyList();
+        }
         return declaredDescriptorsAccessibleBySimpleName.values();
     }
 
@@ -535,4 +654,36 @@ public class WritableScopeImpl extends WritableScopeWithImports {
             throw new IllegalStateException("unknown classifier: " + classifier);
         }
     }
+
+    private static class LookupCache {
+        @Nullable
+        private CompactNameMap<Collection<FunctionDescriptor>> functions;
+
+        @Nullable
+        private CompactNameMap<Set<VariableDescriptor>> properties;
+
+        @Nullable
+        public synchronized Collection<FunctionDescriptor> getFunctions(@NotNull Name name) {
+            return functions != null ? functions.get(name) : null;
+        }
+
+        public synchronized void putFunctions(@NotNull Name name, @NotNull Collection<FunctionDescriptor> result) {
+            if (functions == null) {
+                functions = new CompactNameMap<Collection<FunctionDescriptor>>();
+            }
+            functions.put(name, result);
+        }
+
+        @Nullable
+        public synchronized Set<VariableDescriptor> getProperties(@NotNull Name name) {
+            return properties != null ? properties.get(name) : null;
+        }
+
+        public synchronized void putProperties(@NotNull Name name, @NotNull Set<VariableDescriptor> result) {
+            if (properties == null) {
+                properties = new CompactNameMap<Set<VariableDescriptor>>();
+            }
+            properties.put(name, result);
+        }
+    }
 }
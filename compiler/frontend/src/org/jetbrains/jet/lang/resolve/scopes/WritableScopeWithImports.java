@@ -52,9 +52,17 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
             throw new IllegalStateException("cannot lower lock level from " + this.lockLevel + " to " + lockLevel + " at " + toString());
         }
         this.lockLevel = lockLevel;
+        if (lockLevel == LockLevel.READING) {
+            freezeCurrentIndividualImportScope();
+        }
         return this;
     }
 
+    @NotNull
+    protected LockLevel getLockLevel() {
+        return lockLevel;
+    }
+
     protected void checkMayRead() {
         if (lockLevel != LockLevel.READING && lockLevel != LockLevel.BOTH) {
             throw new IllegalStateException("cannot read with lock level " + lockLevel + " at " + toString());
@@ -93,7 +101,15 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
         checkMayWrite();
 
         getImports().add(0, imported);
-        currentIndividualImportScope = null;
+        freezeCurrentIndividualImportScope();
+    }
+
+    // Individual import scopes are written only through their owner, the one being replaced won't be written any more
+    private void freezeCurrentIndividualImportScope() {
+        if (currentIndividualImportScope != null) {
+            currentIndividualImportScope.changeLockLevel(LockLevel.READING);
+            currentIndividualImportScope = null;
+        }
     }
 
     @NotNull
@@ -92,12 +92,23 @@ public class KotlinBuiltIns {
 
     private static volatile KotlinBuiltIns instance = null;
 
+    // Built-ins being initialized, visible only to the initializing thread which holds the lock
+    private static KotlinBuiltIns initializingInstance = null;
     private static volatile boolean initializing;
     private static Throwable initializationFailed;
 
     // This method must be called at least once per application run, on any project
     // before any type checking is run
-    public static synchronized void initialize(@NotNull Project project) {
+    public static void initialize(@NotNull Project project) {
+        // Built-ins are fully resolved when published and never change after that,
+        // so concurrent compilations in one JVM do not take the lock once they are ready
+        if (instance != null) {
+            return;
+        }
+        initializeSynchronized(project);
+    }
+
+    private static synchronized void initializeSynchronized(@NotNull Project project) {
         if (instance == null) {
             if (initializationFailed != null) {
                 throw new RuntimeException(
@@ -108,14 +119,16 @@ public class KotlinBuiltIns {
             }
             initializing = true;
             try {
-                instance = new KotlinBuiltIns(project);
-                instance.initialize();
+                initializingInstance = new KotlinBuiltIns(project);
+                initializingInstance.initialize();
+                instance = initializingInstance;
             }
             catch (Throwable e) {
                 initializationFailed = e;
                 throw new RuntimeException("builtin library initialization failed: " + e, e);
             }
             finally {
+                initializingInstance = null;
                 initializing = false;
             }
         }
@@ -125,8 +138,9 @@ public class KotlinBuiltIns {
     public static KotlinBuiltIns getInstance() {
         if (initializing) {
             synchronized (KotlinBuiltIns.class) {
-                assert instance != null : "Built-ins are not initialized (note: We are under the same lock as initializing and instance)";
-                return instance;
+                KotlinBuiltIns builtIns = instance != null ? instance : initializingInstance;
+                assert builtIns != null : "Built-ins are not initialized (note: We are under the same lock as initializing and instance)";
+                return builtIns;
             }
         }
         if (instance == null) {
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.asJava;
+
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiWhiteSpace;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.*;
+
+import java.util.Collection;
+
+/**
+ * Computes a hash of everything in Kotlin files that may influence the Java API (light classes) generated for them.
+ *
+ * Bodies of functions and accessors, initializers of properties with explicit types, anonymous initializers and
+ * arguments of super constructor calls do not affect signatures and are skipped. Whitespace and comments are skipped as well.
+ * Bodies of declarations with inferred types are hashed, because their text determines the signature.
+ */
+/*package*/ final class DeclarationAbiHasher {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long hash = FNV_OFFSET_BASIS;
+
+    private DeclarationAbiHasher() {
+    }
+
+    public static long computeAbiHash(@NotNull Collection<JetFile> files) {
+        DeclarationAbiHasher hasher = new DeclarationAbiHasher();
+        for (JetFile file : files) {
+            hasher.update(file.getName());
+            hasher.visit(file);
+        }
+        return hasher.hash;
+    }
+
+    private void visit(@NotNull PsiElement element) {
+        if (element instanceof PsiWhiteSpace || element instanceof PsiComment) return;
+        if (isAbiIrrelevant(element)) {
+            // Still account for the presence of a body, but not for its contents
+            update("{}");
+            return;
+        }
+
+        PsiElement child = element.getFirstChild();
+        if (child == null) {
+            update(element.getText());
+            return;
+        }
+        while (child != null) {
+            visit(child);
+            child = child.getNextSibling();
+        }
+    }
+
+    private static boolean isAbiIrrelevant(@NotNull PsiElement element) {
+        if (element instanceof JetClassInitializer) return true;
+        if (element instanceof JetValueArgumentList && element.getParent() instanceof JetDelegatorToSuperCall) return true;
+
+        PsiElement parent = element.getParent();
+        if (!(element instanceof JetExpression)) return false;
+
+        if (parent instanceof JetNamedFunction) {
+            JetNamedFunction function = (JetNamedFunction) parent;
+            return element == function.getBodyExpression() && (function.hasBlockBody() || function.getReturnTypeRef() != null);
+        }
+        if (parent instanceof JetPropertyAccessor) {
+            JetPropertyAccessor accessor = (JetPropertyAccessor) parent;
+            return element == accessor.getBodyExpression() && (accessor.hasBlockBody() || accessor.getReturnTypeReference() != null);
+        }
+        if (parent instanceof JetProperty) {
+            JetProperty property = (JetProperty) parent;
+            return element == property.getInitializer() && property.getTypeRef() != null;
+        }
+        return false;
+    }
+
+    private void update(@NotNull String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+        // separator, so that adjacent tokens can not be glued together
+        hash = (hash ^ 0xffff) * FNV_PRIME;
+    }
+}
@@ -17,18 +17,33 @@
 package org.jetbrains.jet.asJava;
 
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.UserDataHolderEx;
 import com.intellij.psi.*;
 import com.intellij.psi.impl.PsiModificationTrackerImpl;
 import com.intellij.psi.impl.PsiTreeChangeEventImpl;
 import com.intellij.psi.impl.PsiTreeChangePreprocessor;
 import com.intellij.psi.util.PsiModificationTracker;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.lang.psi.JetBlockExpression;
 import org.jetbrains.jet.lang.psi.JetClass;
 import org.jetbrains.jet.lang.psi.JetFile;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
 public class JetCodeBlockModificationListener implements PsiTreeChangePreprocessor {
     private static final Logger LOG = Logger.getInstance("#org.jetbrains.jet.asJava.JetCodeBlockModificationListener");
-    
+
+    private static final Key<AbiModifications> ABI_MODIFICATIONS = Key.create("ABI_MODIFICATIONS");
+    // ABI hash of the file as of the last check
+    private static final Key<Long> FILE_ABI_HASH = Key.create("FILE_ABI_HASH");
+    // Number of ABI changes found in the file
+    private static final Key<Long> FILE_ABI_MODIFICATION_COUNT = Key.create("FILE_ABI_MODIFICATION_COUNT");
+
     private final PsiModificationTrackerImpl myModificationTracker;
 
     public JetCodeBlockModificationListener(final PsiModificationTracker modificationTracker) {
@@ -45,24 +60,25 @@ public class JetCodeBlockModificationListener implements PsiTreeChangePreprocess
             case BEFORE_CHILD_REPLACEMENT:
             case BEFORE_CHILD_ADDITION:
             case BEFORE_CHILD_REMOVAL:
+                rememberAbiHash(event.getFile());
                 break;
 
             case CHILD_ADDED:
             case CHILD_REMOVED:
             case CHILD_REPLACED:
-                processChange(event.getParent(), event.getOldChild(), event.getChild());
+                processChange(event.getFile(), event.getParent(), event.getOldChild(), event.getChild());
                 break;
 
             case CHILDREN_CHANGED:
                 // general childrenChanged() event after each change
                 if (!event.isGenericChildrenChange()) {
-                    processChange(event.getParent(), event.getParent(), null);
+                    processChange(event.getFile(), event.getParent(), event.getParent(), null);
                 }
                 break;
 
             case CHILD_MOVED:
             case PROPERTY_CHANGED:
-                myModificationTracker.incCounter();
+                incCounter(event.getFile());
                 break;
 
             default:
@@ -71,11 +87,11 @@ public class JetCodeBlockModificationListener implements PsiTreeChangePreprocess
         }
     }
 
-    private void processChange(final PsiElement parent, final PsiElement child1, final PsiElement child2) {
+    private void processChange(final PsiFile file, final PsiElement parent, final PsiElement child1, final PsiElement child2) {
         try {
             if (!isInsideCodeBlock(parent)) {
                 if (parent != null && parent.getContainingFile() instanceof JetFile) {
-                    myModificationTracker.incCounter();
+                    incCounter(file);
                 }
                 else {
                     myModificationTracker.incOutOfCodeBlockModificationCounter();
@@ -84,13 +100,90 @@ public class JetCodeBlockModificationListener implements PsiTreeChangePreprocess
             }
 
             if (containsClassesInside(child1) || child2 != child1 && containsClassesInside(child2)) {
-                myModificationTracker.incCounter();
+                incCounter(file);
             }
         } catch (PsiInvalidElementAccessException e) {
             myModificationTracker.incCounter(); // Shall not happen actually, just a pre-release paranoia
         }
     }
 
+    private void incCounter(@NotNull PsiFile file) {
+        myModificationTracker.incCounter();
+        PsiFile originalFile = file.getOriginalFile();
+        getAbiModifications(originalFile.getProject()).fileChanged(originalFile);
+    }
+
+    private static void rememberAbiHash(@NotNull PsiFile file) {
+        // The hash before the first change, later changes are compared against it
+        PsiFile originalFile = file.getOriginalFile();
+        if (originalFile instanceof JetFile && originalFile.getUserData(FILE_ABI_HASH) == null) {
+            originalFile.putUserData(FILE_ABI_HASH, computeAbiHash((JetFile) originalFile));
+        }
+    }
+
+    // Out of code block modifications made outside of Kotlin files: Java code, libraries, etc.
+    public static long getNonKotlinModificationCount(@NotNull Project project) {
+        long count = PsiManager.getInstance(project).getModificationTracker().getOutOfCodeBlockModificationCount();
+        return count - getAbiModifications(project).getKotlinModificationCount();
+    }
+
+    // Number of changes in ABI of Kotlin files other than the given ones
+    public static long getAbiModificationCountOutside(@NotNull Project project, @NotNull Collection<JetFile> files) {
+        long count = getAbiModifications(project).updateAbiModificationCount();
+        for (JetFile file : files) {
+            Long fileCount = file.getOriginalFile().getUserData(FILE_ABI_MODIFICATION_COUNT);
+            count -= fileCount == null ? 0 : fileCount;
+        }
+        return count;
+    }
+
+    @NotNull
+    private static AbiModifications getAbiModifications(@NotNull Project project) {
+        AbiModifications modifications = project.getUserData(ABI_MODIFICATIONS);
+        if (modifications != null) return modifications;
+        return ((UserDataHolderEx) project).putUserDataIfAbsent(ABI_MODIFICATIONS, new AbiModifications());
+    }
+
+    private static long computeAbiHash(@NotNull JetFile file) {
+        return DeclarationAbiHasher.computeAbiHash(Collections.singletonList(file));
+    }
+
+    private static class AbiModifications {
+        // Kotlin files with out of code block changes which were not yet checked for ABI changes
+        private final Set<PsiFile> changedFiles = Collections.newSetFromMap(new WeakHashMap<PsiFile, Boolean>());
+        private long kotlinModificationCount = 0;
+        private long abiModificationCount = 0;
+
+        public synchronized void fileChanged(@NotNull PsiFile file) {
+            kotlinModificationCount++;
+            changedFiles.add(file);
+        }
+
+        public synchronized long getKotlinModificationCount() {
+            return kotlinModificationCount;
+        }
+
+        public synchronized long updateAbiModificationCount() {
+            for (PsiFile file : changedFiles) {
+                if (!(file instanceof JetFile) || !file.isValid()) {
+                    abiModificationCount++;
+                    continue;
+                }
+
+                long hash = computeAbiHash((JetFile) file);
+                Long oldHash = file.getUserData(FILE_ABI_HASH);
+                if (oldHash == null || oldHash != hash) {
+                    abiModificationCount++;
+                    Long fileCount = file.getUserData(FILE_ABI_MODIFICATION_COUNT);
+                    file.putUserData(FILE_ABI_MODIFICATION_COUNT, fileCount == null ? 1 : fileCount + 1);
+                }
+                file.putUserData(FILE_ABI_HASH, hash);
+            }
+            changedFiles.clear();
+            return abiModificationCount;
+        }
+    }
+
     private static boolean containsClassesInside(final PsiElement element) {
         if (element == null) return false;
         if (element instanceof PsiClass) return true;
@@ -23,12 +23,14 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.SystemInfo;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.ClassFileViewProvider;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.impl.PsiManagerImpl;
 import com.intellij.psi.impl.compiled.ClsFileImpl;
 import com.intellij.psi.impl.java.stubs.PsiJavaFileStub;
 import com.intellij.psi.impl.java.stubs.impl.PsiJavaFileStubImpl;
 import com.intellij.psi.stubs.PsiClassHolderFileStub;
+import com.intellij.psi.stubs.StubBase;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.PsiModificationTracker;
@@ -100,6 +102,10 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
     private final Project project;
     private final StubGenerationStrategy stubGenerationStrategy;
 
+    // Stub generated for the last computed ABI of the files: it is reused as long as declaration signatures do not change,
+    // the ABI of other Kotlin files stays the same and no Java code or libraries were modified
+    private volatile AbiStub lastAbiStub = null;
+
     private KotlinJavaFileStubProvider(
             @NotNull Project project,
             @NotNull FqName packageFqName,
@@ -117,6 +123,12 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
     public Result<PsiJavaFileStub> compute() {
         checkForBuiltIns(packageFqName, files);
 
+        StubKey key = computeStubKey(project, files);
+        AbiStub cached = lastAbiStub;
+        if (cached != null && cached.key.equals(key) && isValid(cached.javaFileStub)) {
+            return Result.create(cached.javaFileStub, PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
+        }
+
         LightClassConstructionContext context = LightClassGenerationSupport.getInstance(project).analyzeRelevantCode(files);
 
         Throwable error = context.getError();
@@ -156,6 +168,7 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
             throw e;
         }
 
+        lastAbiStub = new AbiStub(key, javaFileStub);
         return Result.create(javaFileStub, PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
     }
 
@@ -213,6 +226,73 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
                 cause);
     }
 
+    private boolean isValid(@NotNull PsiJavaFileStub javaFileStub) {
+        for (JetFile file : files) {
+            if (!file.isValid()) return false;
+        }
+        return javaFileStub.getPsi().isValid() && areOriginsValid(javaFileStub);
+    }
+
+    // Declarations may be reparsed without changing the ABI, then the stub would navigate to stale PSI
+    private static boolean areOriginsValid(@NotNull StubElement<?> stub) {
+        PsiElement origin = ((StubBase<?>) stub).getUserData(ClsWrapperStubPsiFactory.ORIGIN_ELEMENT);
+        if (origin != null && !origin.isValid()) return false;
+        for (StubElement child : stub.getChildrenStubs()) {
+            if (!areOriginsValid(child)) return false;
+        }
+        return true;
+    }
+
+    @NotNull
+    /*package*/ static StubKey computeStubKey(@NotNull Project project, @NotNull Collection<JetFile> files) {
+        return new StubKey(
+                DeclarationAbiHasher.computeAbiHash(files),
+                JetCodeBlockModificationListener.getAbiModificationCountOutside(project, files),
+                JetCodeBlockModificationListener.getNonKotlinModificationCount(project));
+    }
+
+    /*package*/ static final class StubKey {
+        private final long abiHash;
+        // Changes in ABI of other Kotlin files
+        private final long dependenciesAbiModificationCount;
+        // Out of code block modifications in Java code and libraries, which have no ABI hash
+        private final long nonKotlinModificationCount;
+
+        private StubKey(long abiHash, long dependenciesAbiModificationCount, long nonKotlinModificationCount) {
+            this.abiHash = abiHash;
+            this.dependenciesAbiModificationCount = dependenciesAbiModificationCount;
+            this.nonKotlinModificationCount = nonKotlinModificationCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StubKey)) return false;
+            StubKey other = (StubKey) o;
+            return abiHash == other.abiHash &&
+                   dependenciesAbiModificationCount == other.dependenciesAbiModificationCount &&
+                   nonKotlinModificationCount == other.nonKotlinModificationCount;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (abiHash ^ (abiHash >>> 32));
+            result = 31 * result + (int) (dependenciesAbiModificationCount ^ (dependenciesAbiModificationCount >>> 32));
+            result = 31 * result + (int) (nonKotlinModificationCount ^ (nonKotlinModificationCount >>> 32));
+            return result;
+        }
+    }
+
+    private static class AbiStub {
+        private final StubKey key;
+        private final PsiJavaFileStub javaFileStub;
+
+        private AbiStub(@NotNull StubKey key, @NotNull PsiJavaFileStub javaFileStub) {
+            this.key = key;
+            this.javaFileStub = javaFileStub;
+        }
+    }
+
     private interface StubGenerationStrategy {
         boolean generateDeclaredClasses();
         void generate(GenerationState state);
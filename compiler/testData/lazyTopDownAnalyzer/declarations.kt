@@ -0,0 +1,14 @@
+package declarations
+
+class Final {
+    open fun foo() {}
+}
+
+final trait FinalTrait
+
+enum object EnumObject
+
+enum class WithParameter(val x: Int) {
+    A : WithParameter(1)
+    B
+}
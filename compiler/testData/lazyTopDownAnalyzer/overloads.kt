@@ -0,0 +1,22 @@
+package overloads
+
+fun f(x: Int) {}
+fun f(y: Int) {}
+
+val p = 1
+val p = 2
+
+class A {
+    fun g() = 1
+    fun g() = 2
+
+    class object {
+        fun h() {}
+        fun h() {}
+    }
+}
+
+object O {
+    val q = 1
+    val q = ""
+}
@@ -0,0 +1,29 @@
+package overrides
+
+trait Shape {
+    fun area(): Int
+    val name: String
+}
+
+class Square : Shape {
+    override val name: String = "square"
+}
+
+open class Base {
+    fun fixed() {}
+    open fun open(x: Int = 1) {}
+    public open fun visible() {}
+    open fun typed(): Int = 1
+}
+
+class Derived : Base() {
+    override fun fixed() {}
+    override fun open(x: Int = 2) {}
+    override fun nothing() {}
+    private override fun visible() {}
+    override fun typed(): String = ""
+}
+
+class Hiding : Base() {
+    fun open(x: Int) {}
+}
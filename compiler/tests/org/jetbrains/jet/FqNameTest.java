@@ -100,4 +100,40 @@ public class FqNameTest {
         FqNameUnsafe fqName = new FqNameUnsafe("ru.yandex");
         Assert.assertSame(fqName, fqName.toSafe().toUnsafe());
     }
+
+    @Test
+    public void namesAreInterned() {
+        Assert.assertSame(Name.identifier("foo"), Name.identifier("foo"));
+        Assert.assertSame(Name.identifier("foo"), Name.identifierNoValidate("foo"));
+        Assert.assertSame(Name.special("<foo>"), Name.guess("<foo>"));
+        Assert.assertFalse(Name.identifier("foo").equals(Name.identifier("bar")));
+    }
+
+    @Test
+    public void derivedNamesAreInterned() {
+        FqName fqName = new FqName("org.jetbrains.jet");
+        Assert.assertSame(fqName.parent(), new FqName("org").child(Name.identifier("jetbrains")));
+        Assert.assertSame(fqName.parent().parent(), fqName.path().get(1));
+        Assert.assertSame(fqName.shortName(), Name.identifier("jet"));
+    }
+
+    @Test
+    public void constructedNamesShareContents() {
+        FqName interned = new FqName("org.jetbrains").child(Name.identifier("kotlin"));
+        FqName first = new FqName("org.jetbrains.kotlin");
+        FqName second = new FqName("org.jetbrains.kotlin");
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(first, second);
+        Assert.assertSame(interned.getFqName(), first.getFqName());
+        Assert.assertSame(first.getFqName(), second.getFqName());
+        Assert.assertSame(first.parent(), second.parent());
+    }
+
+    @Test
+    public void constructedNamesAreNotInterned() {
+        FqNameUnsafe constructed = new FqNameUnsafe("org.jetbrains.notInterned");
+        FqNameUnsafe derived = new FqNameUnsafe("org.jetbrains").child(Name.identifier("notInterned"));
+        Assert.assertNotSame(constructed, derived);
+        Assert.assertSame(derived, new FqNameUnsafe("org").child(Name.identifier("jetbrains")).child(Name.identifier("notInterned")));
+    }
 }
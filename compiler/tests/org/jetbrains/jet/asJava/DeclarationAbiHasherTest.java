@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.asJava;
+
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+
+import java.util.Collections;
+
+public class DeclarationAbiHasherTest extends KotlinTestWithEnvironment {
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testBlockBodyChange() {
+        assertSameAbi("fun foo(): Int { return 1 }", "fun foo(): Int { val x = 2; return x }");
+    }
+
+    public void testExpressionBodyWithDeclaredType() {
+        assertSameAbi("fun foo(): Int = 1", "fun foo(): Int = 1 + 2");
+    }
+
+    public void testExpressionBodyWithInferredType() {
+        assertDifferentAbi("fun foo() = 1", "fun foo() = \"\"");
+    }
+
+    public void testPropertyInitializer() {
+        assertSameAbi("val x: Int = 1", "val x: Int = 2");
+        assertDifferentAbi("val x = 1", "val x = 1L");
+    }
+
+    public void testAccessorBody() {
+        assertSameAbi("val x: Int get() { return 1 }", "val x: Int get() { return 2 }");
+    }
+
+    public void testWhitespaceAndComments() {
+        assertSameAbi("class A { fun foo() {} }", "class A {\n    // comment\n    fun foo() {\n    }\n}");
+    }
+
+    public void testSignatureChange() {
+        assertDifferentAbi("fun foo(a: Int) {}", "fun foo(a: Long) {}");
+        assertDifferentAbi("class A { fun foo() {} }", "class A { private fun foo() {} }");
+        assertDifferentAbi("class A", "class A : Runnable");
+    }
+
+    public void testAnonymousInitializer() {
+        assertSameAbi("class A { { println(1) } }", "class A { { println(2) } }");
+    }
+
+    private void assertSameAbi(String before, String after) {
+        assertEquals(computeAbiHash(before), computeAbiHash(after));
+    }
+
+    private void assertDifferentAbi(String before, String after) {
+        assertFalse(computeAbiHash(before) == computeAbiHash(after));
+    }
+
+    private long computeAbiHash(String text) {
+        JetFile file = JetTestUtils.createFile("test.kt", text, getProject());
+        return DeclarationAbiHasher.computeAbiHash(Collections.singletonList(file));
+    }
+}
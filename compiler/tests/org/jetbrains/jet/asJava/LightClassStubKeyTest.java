@@ -0,0 +1,101 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.asJava;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.PsiTreeChangeEventImpl;
+import com.intellij.psi.impl.source.tree.LeafElement;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.psi.JetClass;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetNamedFunction;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+
+import java.util.Collections;
+
+/**
+ * A stub of light classes is reused only while neither the ABI of its files nor the ABI of other files changes
+ */
+public class LightClassStubKeyTest extends KotlinTestWithEnvironment {
+    private JetFile fileA;
+    private JetFile fileB;
+    private JetCodeBlockModificationListener listener;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        fileA = JetTestUtils.createFile("a.kt", "class A : B() { fun foo(): Int { return 1 } }", getProject());
+        fileB = JetTestUtils.createFile("b.kt", "open class B { fun bar(): Int { return 2 } }", getProject());
+        listener = new JetCodeBlockModificationListener(PsiManager.getInstance(getProject()).getModificationTracker());
+    }
+
+    public void testDependencyDeclarationChange() {
+        KotlinJavaFileStubProvider.StubKey before = computeKeyForA();
+        JetNamedFunction bar = (JetNamedFunction) ((JetClass) fileB.getDeclarations().get(0)).getDeclarations().get(0);
+        PsiElement name = bar.getNameIdentifier();
+        assertNotNull(name);
+        fireEvent(PsiTreeChangeEventImpl.PsiEventType.BEFORE_CHILD_REPLACEMENT, fileB, bar, name);
+        LeafElement newName = ((LeafElement) name.getNode()).rawReplaceWithText("baz");
+        fireEvent(PsiTreeChangeEventImpl.PsiEventType.CHILD_REPLACED, fileB, bar, newName.getPsi());
+        assertFalse(before.equals(computeKeyForA()));
+    }
+
+    public void testDependencyDeclarationChangeKeepingAbi() {
+        KotlinJavaFileStubProvider.StubKey before = computeKeyForA();
+        JetClass classB = (JetClass) fileB.getDeclarations().get(0);
+        fireEvent(PsiTreeChangeEventImpl.PsiEventType.BEFORE_CHILD_ADDITION, fileB, classB.getBody(), null);
+        fireEvent(PsiTreeChangeEventImpl.PsiEventType.CHILD_ADDED, fileB, classB.getBody(), classB.getDeclarations().get(0));
+        assertEquals(before, computeKeyForA());
+    }
+
+    public void testDependencyBodyChange() {
+        KotlinJavaFileStubProvider.StubKey before = computeKeyForA();
+        JetNamedFunction bar = (JetNamedFunction) ((JetClass) fileB.getDeclarations().get(0)).getDeclarations().get(0);
+        PsiElement body = bar.getBodyExpression();
+        assertNotNull(body);
+        fireEvent(PsiTreeChangeEventImpl.PsiEventType.CHILD_ADDED, fileB, body, body.getFirstChild());
+        assertEquals(before, computeKeyForA());
+    }
+
+    public void testOwnDeclarationChangeIsLeftToAbiHash() {
+        KotlinJavaFileStubProvider.StubKey before = computeKeyForA();
+        JetClass classA = (JetClass) fileA.getDeclarations().get(0);
+        fireEvent(PsiTreeChangeEventImpl.PsiEventType.CHILD_ADDED, fileA, classA.getBody(), classA.getDeclarations().get(0));
+        assertEquals(before, computeKeyForA());
+    }
+
+    private KotlinJavaFileStubProvider.StubKey computeKeyForA() {
+        return KotlinJavaFileStubProvider.computeStubKey(getProject(), Collections.singletonList(fileA));
+    }
+
+    private void fireEvent(PsiTreeChangeEventImpl.PsiEventType code, JetFile file, PsiElement parent, PsiElement child) {
+        PsiTreeChangeEventImpl event = new PsiTreeChangeEventImpl(PsiManager.getInstance(getProject()));
+        event.setCode(code);
+        event.setFile(file);
+        event.setParent(parent);
+        event.setChild(child);
+        listener.treeChanged(event);
+    }
+}
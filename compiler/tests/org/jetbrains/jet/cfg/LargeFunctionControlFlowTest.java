@@ -0,0 +1,80 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cfg;
+
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.diagnostics.AbstractDiagnosticFactory;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.Errors;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+
+/**
+ * Control flow analysis of a generated state machine with many local variables.
+ * The time of the analysis is measured by the large-function workloads of {@link org.jetbrains.jet.perf.CompilerBenchmark}
+ */
+public class LargeFunctionControlFlowTest extends KotlinTestWithEnvironment {
+    private static final int VARIABLE_COUNT = 1000;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testStateMachine() {
+        StringBuilder text = new StringBuilder();
+        text.append("fun stateMachine(initial: Int): Int {\n");
+        text.append("    var state = initial\n");
+        text.append("    var result = 0\n");
+        for (int i = 0; i < VARIABLE_COUNT; i++) {
+            text.append("    val v").append(i).append(" = ").append(i).append("\n");
+        }
+        text.append("    var unassigned: Int\n");
+        text.append("    while (state >= 0) {\n");
+        text.append("        when (state) {\n");
+        for (int i = 0; i < VARIABLE_COUNT; i++) {
+            text.append("            ").append(i).append(" -> { result += v").append(i).append("; state = ").append(i + 1).append(" }\n");
+        }
+        text.append("            else -> state = -1\n");
+        text.append("        }\n");
+        text.append("    }\n");
+        text.append("    val unused = result\n");
+        text.append("    return result + unassigned\n");
+        text.append("}\n");
+
+        JetFile file = JetTestUtils.createFile("stateMachine.kt", text.toString(), getProject());
+
+        BindingContext bindingContext = JetTestUtils.analyzeFile(file).getBindingContext();
+
+        assertEquals(1, countDiagnostics(bindingContext, Errors.UNUSED_VARIABLE));
+        assertEquals(1, countDiagnostics(bindingContext, Errors.UNINITIALIZED_VARIABLE));
+        assertEquals(0, countDiagnostics(bindingContext, Errors.UNUSED_VALUE));
+    }
+
+    private static int countDiagnostics(BindingContext bindingContext, AbstractDiagnosticFactory factory) {
+        int count = 0;
+        for (Diagnostic diagnostic : bindingContext.getDiagnostics()) {
+            if (diagnostic.getFactory() == factory) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
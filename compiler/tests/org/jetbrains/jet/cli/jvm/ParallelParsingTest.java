@@ -0,0 +1,109 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.impl.DebugUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.cli.common.CLIConfigurationKeys;
+import org.jetbrains.jet.cli.common.messages.AnalyzerWithCompilerReport;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.config.CommonConfigurationKeys;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelParsingTest extends TestCaseWithTmpdir {
+    private static final int FILE_COUNT = 300;
+
+    public void testSameTreesAndErrorsAsSequentialParsing() throws IOException {
+        for (int i = 0; i < FILE_COUNT; i++) {
+            StringBuilder text = new StringBuilder();
+            text.append("package p").append(i % 10).append("\n\n");
+            text.append("class C").append(i).append("(val x: Int) {\n");
+            text.append("    fun f(y: Int) = if (x > y) listOf(x, y).map { it * 2 } else null\n");
+            if (i % 50 == 0) {
+                text.append("    fun broken( = \n");
+            }
+            text.append("}\n");
+            FileUtil.writeToFile(new File(tmpdir, "p" + (i % 10) + "/C" + i + ".kt"), text.toString());
+        }
+
+        List<String> sequentialErrors = new ArrayList<String>();
+        List<JetFile> sequential = createEnvironment(false, sequentialErrors).getSourceFiles();
+        List<String> sequentialTrees = parseAndReportErrors(sequential, sequentialErrors);
+
+        List<String> parallelErrors = new ArrayList<String>();
+        List<JetFile> parallel = createEnvironment(true, parallelErrors).getSourceFiles();
+        List<String> parallelTrees = parseAndReportErrors(parallel, parallelErrors);
+
+        assertEquals(FILE_COUNT, parallel.size());
+        assertEquals(sequentialTrees, parallelTrees);
+        assertEquals(sequentialErrors, parallelErrors);
+        assertFalse(parallelErrors.isEmpty());
+    }
+
+    @NotNull
+    private JetCoreEnvironment createEnvironment(boolean parallel, @NotNull final List<String> errors) {
+        CompilerConfiguration configuration = JetTestUtils.compilerConfigurationForTests(ConfigurationKind.JDK_ONLY, TestJdkKind.MOCK_JDK);
+        configuration.add(CommonConfigurationKeys.SOURCE_ROOTS_KEY, tmpdir.getPath());
+        configuration.put(JVMConfigurationKeys.PARSE_SOURCES_IN_PARALLEL, parallel);
+        configuration.put(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, new MessageCollector() {
+            @Override
+            public void report(
+                    @NotNull CompilerMessageSeverity severity,
+                    @NotNull String message,
+                    @NotNull CompilerMessageLocation location
+            ) {
+                if (severity != CompilerMessageSeverity.LOGGING) {
+                    errors.add(location.getPath() + ":" + location.getLine() + ":" + location.getColumn() + ": " + message);
+                }
+            }
+        });
+        return new JetCoreEnvironment(getTestRootDisposable(), configuration);
+    }
+
+    @NotNull
+    private static List<String> parseAndReportErrors(@NotNull List<JetFile> files, @NotNull final List<String> errors) {
+        List<String> trees = new ArrayList<String>();
+        for (JetFile file : files) {
+            trees.add(file.getName() + "\n" + DebugUtil.psiToString(file, false));
+            AnalyzerWithCompilerReport.reportSyntaxErrors(file, new MessageCollector() {
+                @Override
+                public void report(
+                        @NotNull CompilerMessageSeverity severity,
+                        @NotNull String message,
+                        @NotNull CompilerMessageLocation location
+                ) {
+                    errors.add(location.getPath() + ":" + location.getLine() + ":" + location.getColumn() + ": " + message);
+                }
+            });
+        }
+        return trees;
+    }
+}
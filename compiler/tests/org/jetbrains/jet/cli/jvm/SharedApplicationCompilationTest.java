@@ -0,0 +1,219 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.asm4.ClassReader;
+import org.jetbrains.asm4.util.TraceClassVisitor;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.cli.common.CLIConfigurationKeys;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageLocation;
+import org.jetbrains.jet.cli.common.messages.CompilerMessageSeverity;
+import org.jetbrains.jet.cli.common.messages.MessageCollector;
+import org.jetbrains.jet.cli.jvm.compiler.CompileEnvironmentUtil;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreApplicationEnvironment;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.cli.jvm.compiler.KotlinToJVMBytecodeCompiler;
+import org.jetbrains.jet.codegen.ClassFileFactory;
+import org.jetbrains.jet.codegen.state.GenerationState;
+import org.jetbrains.jet.config.CommonConfigurationKeys;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Compiles several modules in parallel threads with environments of the shared application,
+ * each compilation must produce the same class files as when it runs alone
+ */
+public class SharedApplicationCompilationTest extends TestCaseWithTmpdir {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 3;
+
+    @Override
+    protected void tearDown() throws Exception {
+        JetCoreApplicationEnvironment.disposeShared();
+        super.tearDown();
+    }
+
+    public void testParallelCompilations() throws Exception {
+        final List<File> modules = new ArrayList<File>();
+        for (int i = 0; i < THREADS; i++) {
+            modules.add(generateModule(i));
+        }
+
+        final List<Map<String, String>> expected = new ArrayList<Map<String, String>>();
+        for (File module : modules) {
+            expected.add(compile(module));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < THREADS; i++) {
+                final int index = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int round = 0; round < ROUNDS; round++) {
+                            // start the compilations together to make them overlap as much as possible
+                            barrier.await(1, TimeUnit.MINUTES);
+                            int module = (index + round) % THREADS;
+                            assertEquals("module" + module, expected.get(module), compile(modules.get(module)));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testCompilationAfterDisposeShared() throws Exception {
+        File module = generateModule(0);
+        Map<String, String> expected = compile(module);
+
+        JetCoreApplicationEnvironment.disposeShared();
+        assertEquals(expected, compile(module));
+    }
+
+    // The backend caches descriptors of built-in classes in static fields, they must still be the built-ins in use
+    public void testBuiltInsCachedByBackendAfterDisposeShared() throws Exception {
+        File module = new File(tmpdir, "builtIns");
+        FileUtil.writeToFile(new File(module, "builtIns.kt"),
+                             "package builtIns\n\n" +
+                             "fun increments(): Long {\n" +
+                             "    var i = 0\n" +
+                             "    var l = 0.toLong()\n" +
+                             "    var c = 'a'\n" +
+                             "    i++\n" +
+                             "    ++l\n" +
+                             "    c++\n" +
+                             "    return i + l + c.toLong()\n" +
+                             "}\n\n" +
+                             "fun nullChecks(s: String?, i: Int?): Int {\n" +
+                             "    if (s == null || i == null) return 0\n" +
+                             "    return s.length + i\n" +
+                             "}\n\n" +
+                             "fun ranges(xs: IntArray, c: Char, l: Long): Int {\n" +
+                             "    var sum = 0\n" +
+                             "    for (i in 0..xs.size - 1) sum += xs[i]\n" +
+                             "    if (c in 'a'..'z') sum++\n" +
+                             "    if (l in 1.toLong()..10.toLong()) sum++\n" +
+                             "    if (sum in 100..1000) sum++\n" +
+                             "    return sum\n" +
+                             "}\n");
+        Map<String, String> expected = compile(module);
+
+        JetCoreApplicationEnvironment.disposeShared();
+        Map<String, String> actual = compile(module);
+        assertEquals(expected, actual);
+
+        String text = actual.get("builtIns/BuiltInsPackage.class");
+        assertNotNull(actual.keySet().toString(), text);
+        // increments of primitives and range literals of primitives compile to plain arithmetic
+        assertTrue(text, text.contains("IINC"));
+        assertFalse(text, text.contains("jet/IntRange"));
+        assertFalse(text, text.contains("jet/CharRange"));
+        assertFalse(text, text.contains("jet/LongRange"));
+    }
+
+    @NotNull
+    private File generateModule(int index) throws IOException {
+        File module = new File(tmpdir, "module" + index);
+        for (int i = 0; i < 5; i++) {
+            String name = "C" + index + "_" + i;
+            FileUtil.writeToFile(new File(module, name + ".kt"),
+                                 "package module" + index + "\n\n" +
+                                 "trait Named" + i + " { val name: String }\n\n" +
+                                 "open class " + name + "<T>(val value: T, override val name: String) : Named" + i + " {\n" +
+                                 "    fun <R> map(f: (T) -> R): " + name + "<R> = " + name + "(f(value), name)\n" +
+                                 "    fun sum(xs: IntArray): Int {\n" +
+                                 "        var s = 0\n" +
+                                 "        for (x in xs) s += x * " + i + "\n" +
+                                 "        return s\n" +
+                                 "    }\n" +
+                                 "    fun describe() = \"$name: $value\"\n" +
+                                 "}\n\n" +
+                                 "fun use" + i + "(): String = " + name + "(" + index + ", \"c\").map { it + 1 }.describe()\n");
+        }
+        return module;
+    }
+
+    @NotNull
+    private static String toText(@NotNull byte[] classFile) {
+        StringWriter writer = new StringWriter();
+        new ClassReader(classFile).accept(new TraceClassVisitor(new PrintWriter(writer)), 0);
+        return writer.toString();
+    }
+
+    // class file names mapped to the text of the class files
+    @NotNull
+    private static Map<String, String> compile(@NotNull File module) {
+        final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+        CompilerConfiguration configuration = JetTestUtils.compilerConfigurationForTests(ConfigurationKind.ALL, TestJdkKind.MOCK_JDK);
+        configuration.add(CommonConfigurationKeys.SOURCE_ROOTS_KEY, module.getPath());
+        configuration.put(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, new MessageCollector() {
+            @Override
+            public void report(
+                    @NotNull CompilerMessageSeverity severity,
+                    @NotNull String message,
+                    @NotNull CompilerMessageLocation location
+            ) {
+                if (CompilerMessageSeverity.ERRORS.contains(severity)) {
+                    errors.add(location.getPath() + ":" + location.getLine() + ":" + location.getColumn() + ": " + message);
+                }
+            }
+        });
+
+        Disposable disposable = CompileEnvironmentUtil.createMockDisposable();
+        try {
+            JetCoreEnvironment environment = JetCoreEnvironment.createWithSharedApplication(disposable, configuration);
+            GenerationState state = KotlinToJVMBytecodeCompiler.analyzeAndGenerate(environment);
+            assertNotNull(module.getName() + ": " + errors, state);
+            assertTrue(errors.toString(), errors.isEmpty());
+
+            ClassFileFactory factory = state.getFactory();
+            Map<String, String> classes = new TreeMap<String, String>();
+            for (String file : factory.files()) {
+                classes.put(file, toText(factory.asBytes(file)));
+            }
+            assertFalse(classes.isEmpty());
+            return classes;
+        }
+        finally {
+            // disposes the project under the lock of the shared application, as other threads may be creating theirs
+            Disposer.dispose(disposable);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import org.jetbrains.jet.ConfigurationKind;
+
+import java.lang.reflect.Method;
+
+public class ConstantFoldingTest extends CodegenTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testIntArithmetic() throws Exception {
+        loadText("fun foo() = 2 * 3 + (10 - 4) / 2 % 4");
+        String text = generateToText();
+        assertFalse(text.contains("IMUL"));
+        assertFalse(text.contains("IADD"));
+        Method foo = generateFunction();
+        assertEquals(9, foo.invoke(null));
+    }
+
+    public void testMixedNumberTypes() throws Exception {
+        loadText("fun foo() = 1 + 2.toLong() * 3");
+        String text = generateToText();
+        assertFalse(text.contains("LMUL"));
+        Method foo = generateFunction();
+        assertEquals(7L, foo.invoke(null));
+    }
+
+    public void testDoubleArithmetic() throws Exception {
+        loadText("fun foo() = 1.0 / 4 - 0.5");
+        Method foo = generateFunction();
+        assertEquals(-0.25, foo.invoke(null));
+    }
+
+    public void testIntOverflow() throws Exception {
+        loadText("fun foo() = 2147483647 + 1");
+        Method foo = generateFunction();
+        assertEquals(Integer.MIN_VALUE, foo.invoke(null));
+    }
+
+    public void testDivisionByZeroIsNotFolded() throws Exception {
+        loadText("fun foo() = 1 / 0");
+        String text = generateToText();
+        assertTrue(text.contains("IDIV"));
+        Method foo = generateFunction();
+        assertThrows(foo, ArithmeticException.class, null);
+    }
+
+    public void testComparisonsAndBooleanLogic() throws Exception {
+        loadText("fun foo() = 1 < 2 && !(3.toLong() >= 4) && (5 == 5 || 1 > 0)");
+        String text = generateToText();
+        assertFalse(text.contains("IF_ICMP"));
+        assertFalse(text.contains("LCMP"));
+        Method foo = generateFunction();
+        assertEquals(true, foo.invoke(null));
+    }
+
+    public void testConstantTemplate() throws Exception {
+        loadText("fun foo() = \"a${1 + 2}b${'c'}${true}\"");
+        String text = generateToText();
+        assertTrue(text.contains("LDC \"a3bctrue\""));
+        assertFalse(text.contains("java/lang/StringBuilder"));
+        Method foo = generateFunction();
+        assertEquals("a3bctrue", foo.invoke(null));
+    }
+
+    public void testTemplateWithConstantParts() throws Exception {
+        loadText("fun foo(x: Int) = \"x=${x}, limit=${2 * 50}%\"");
+        String text = generateToText();
+        assertTrue(text.contains("LDC \", limit=100%\""));
+        Method foo = generateFunction();
+        assertEquals("x=42, limit=100%", foo.invoke(null, 42));
+    }
+
+    public void testStringConcatenation() throws Exception {
+        loadText("fun foo() = \"size: \" + 3 * 4");
+        String text = generateToText();
+        assertTrue(text.contains("LDC \"size: 12\""));
+        Method foo = generateFunction();
+        assertEquals("size: 12", foo.invoke(null));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import jet.DoubleRange;
+import jet.FloatRange;
+import jet.runtime.Ranges;
+import org.jetbrains.jet.ConfigurationKind;
+
+import java.lang.reflect.Method;
+
+public class InRangeTest extends CodegenTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testIntLiteral() throws Exception {
+        loadText("fun foo(x: Int) = x in 1..10");
+        assertNoRangeCreated();
+        Method foo = generateFunction();
+        assertEquals(false, foo.invoke(null, 0));
+        assertEquals(true, foo.invoke(null, 1));
+        assertEquals(true, foo.invoke(null, 10));
+        assertEquals(false, foo.invoke(null, 11));
+    }
+
+    public void testNotIn() throws Exception {
+        loadText("fun foo(x: Int) = x !in (1..10)");
+        assertNoRangeCreated();
+        Method foo = generateFunction();
+        assertEquals(true, foo.invoke(null, 0));
+        assertEquals(false, foo.invoke(null, 5));
+    }
+
+    public void testEmptyLiteral() throws Exception {
+        loadText("fun foo(x: Int) = x in 10..1");
+        Method foo = generateFunction();
+        assertEquals(false, foo.invoke(null, 5));
+        assertEquals(false, foo.invoke(null, 10));
+    }
+
+    public void testCharLiteral() throws Exception {
+        loadText("fun foo(c: Char) = c in 'a'..'z'");
+        assertNoRangeCreated();
+        Method foo = generateFunction();
+        assertEquals(true, foo.invoke(null, 'a'));
+        assertEquals(true, foo.invoke(null, 'q'));
+        assertEquals(false, foo.invoke(null, 'A'));
+    }
+
+    public void testLongLiteral() throws Exception {
+        loadText("fun foo(l: Long, max: Long) = l in 0.toLong()..max");
+        assertNoRangeCreated();
+        Method foo = generateFunction();
+        assertEquals(true, foo.invoke(null, 5000000000L, 6000000000L));
+        assertEquals(false, foo.invoke(null, 7000000000L, 6000000000L));
+        assertEquals(false, foo.invoke(null, -1L, 6000000000L));
+    }
+
+    public void testLongLiteralInWhen() throws Exception {
+        loadText("fun foo(l: Long) = when (l) { in 0.toLong()..10.toLong() -> \"small\"; else -> \"big\" }");
+        assertNoRangeCreated();
+        Method foo = generateFunction();
+        assertEquals("small", foo.invoke(null, 10L));
+        assertEquals("big", foo.invoke(null, 4294967297L));
+    }
+
+    public void testDoubleLiteralBehavesAsDoubleRange() throws Exception {
+        loadText("fun foo(d: Double, start: Double, end: Double) = d in start..end");
+        assertNoRangeCreated();
+        Method foo = generateFunction();
+        double[] bounds = {0.0, 1.0, -2.5};
+        double[] values = {0.0, 0.5, 1.0, -1.0, -2.5, 1.5, Double.NaN, Double.POSITIVE_INFINITY};
+        for (double start : bounds) {
+            for (double end : bounds) {
+                DoubleRange range = Ranges.rangeTo(start, end);
+                for (double value : values) {
+                    assertEquals(value + " in " + start + ".." + end, range.contains(value), foo.invoke(null, value, start, end));
+                }
+            }
+        }
+    }
+
+    public void testFloatLiteralBehavesAsFloatRange() throws Exception {
+        loadText("fun foo(f: Float, start: Float, end: Float) = f in start..end");
+        assertNoRangeCreated();
+        Method foo = generateFunction();
+        float[] bounds = {0.0f, 1.0f, -2.5f};
+        float[] values = {0.0f, 0.5f, 1.0f, -1.0f, -2.5f, 1.5f, Float.NaN};
+        for (float start : bounds) {
+            for (float end : bounds) {
+                FloatRange range = Ranges.rangeTo(start, end);
+                for (float value : values) {
+                    assertEquals(value + " in " + start + ".." + end, range.contains(value), foo.invoke(null, value, start, end));
+                }
+            }
+        }
+    }
+
+    public void testEvaluationOrder() throws Exception {
+        loadText("var log = \"\"\n" +
+                 "fun v(x: Int): Int { log = log + x; return x }\n" +
+                 "fun foo(): String { val r = v(5) in v(1)..v(3); return log + r }");
+        Method foo = generateFunction("foo");
+        assertEquals("135false", foo.invoke(null));
+    }
+
+    public void testEvaluationOrderIsSameAsOfContains() throws Exception {
+        loadText("var log = \"\"\n" +
+                 "fun v(x: Double): Double { log = log + x; return x }\n" +
+                 "fun range(start: Double, end: Double) = start..end\n" +
+                 "fun literal(): String { log = \"\"; val r = v(2.0) !in v(1.0)..v(3.0); return log + r }\n" +
+                 "fun call(): String { log = \"\"; val r = v(2.0) !in range(v(1.0), v(3.0)); return log + r }");
+        assertEquals(generateFunction("call").invoke(null), generateFunction("literal").invoke(null));
+        assertEquals("1.03.02.0false", generateFunction("literal").invoke(null));
+    }
+
+    public void testUserDefinedRangeToIsCalled() throws Exception {
+        loadText("class R(val a: Int) { fun rangeTo(b: R): IntRange = IntRange(b.a, 1) }\n" +
+                 "fun foo() = 10 in R(1)..R(10)");
+        Method foo = generateFunction("foo");
+        assertEquals(true, foo.invoke(null));
+    }
+
+    public void testFinalRangeInstanceContainsIsPrimitive() throws Exception {
+        loadText("fun foo(r: DoubleRange, d: Double) = d in r");
+        assertTrue(generateToText().contains("jet/DoubleRange.contains (D)Z"));
+        Method foo = generateFunction();
+        assertEquals(true, foo.invoke(null, new DoubleRange(0.0, 1.0), 0.5));
+        assertEquals(false, foo.invoke(null, new DoubleRange(0.0, 1.0), 2.0));
+    }
+
+    private void assertNoRangeCreated() {
+        String text = generateToText();
+        assertFalse(text, text.contains("jet/runtime/Ranges"));
+        assertFalse(text, text.contains("Range.contains"));
+    }
+}
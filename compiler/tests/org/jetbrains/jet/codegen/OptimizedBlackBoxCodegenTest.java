@@ -0,0 +1,113 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.codegen.optimization.OptimizationClassBuilderFactory;
+import org.jetbrains.jet.lang.psi.JetPsiUtil;
+import org.jetbrains.jet.parsing.JetParsingTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the box() function of every file in compiler/testData/codegen with its bytecode optimized by PeepholeMethodOptimizer.
+ * Files which don't pass without the optimization in the environment created here, e.g. those compiled together with Java sources,
+ * are skipped, all others must return "OK" with it too.
+ */
+public class OptimizedBlackBoxCodegenTest extends CodegenTestCase {
+    public void testBoxFilesWithOptimization() throws Exception {
+        List<File> files = Lists.newArrayList();
+        collectBoxFiles(new File(JetParsingTest.getTestDataDir(), "codegen"), files);
+
+        int checked = 0;
+        List<String> failures = Lists.newArrayList();
+        for (File file : files) {
+            if (!"OK".equals(box(file, ClassBuilderFactories.TEST))) continue;
+            checked++;
+
+            String actual = box(file, new OptimizationClassBuilderFactory(ClassBuilderFactories.TEST));
+            if (!"OK".equals(actual)) {
+                failures.add(file.getPath() + ": " + actual);
+            }
+        }
+
+        assertTrue("No box tests passed without the optimization", checked > 0);
+        assertTrue(failures.size() + " of " + checked + " box tests fail with the optimization:\n" + failures, failures.isEmpty());
+    }
+
+    /**
+     * @return the result of box(), the exception if it was thrown after the compilation, or null if the file can't be compiled
+     */
+    @Nullable
+    private String box(@NotNull File file, @NotNull ClassBuilderFactory classBuilderFactory) throws IOException {
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            myEnvironment = JetTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(disposable, ConfigurationKind.ALL);
+            myFiles = CodegenTestFiles.create(file.getName(), FileUtil.loadFile(file, true), myEnvironment.getProject());
+
+            ClassFileFactory factory;
+            try {
+                factory = generateCommon(classBuilderFactory, myEnvironment, myFiles).getFactory();
+            }
+            catch (Throwable e) {
+                return null;
+            }
+
+            GeneratedClassLoader loader = createClassLoader(factory);
+            try {
+                String fqName = NamespaceCodegen.getJVMClassNameForKotlinNs(JetPsiUtil.getFQName(myFiles.getPsiFile())).getFqName().getFqName();
+                return String.valueOf(loader.loadClass(fqName).getMethod("box").invoke(null));
+            }
+            catch (Throwable e) {
+                return e.toString();
+            }
+            finally {
+                loader.dispose();
+            }
+        }
+        finally {
+            myEnvironment = null;
+            myFiles = null;
+            Disposer.dispose(disposable);
+        }
+    }
+
+    private static void collectBoxFiles(@NotNull File dir, @NotNull List<File> result) throws IOException {
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectBoxFiles(child, result);
+            }
+            else if ((child.getName().endsWith(".kt") || child.getName().endsWith(".jet")) &&
+                     FileUtil.loadFile(child, true).contains("fun box()")) {
+                result.add(child);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.asm4.ClassReader;
+import org.jetbrains.asm4.Label;
+import org.jetbrains.asm4.Opcodes;
+import org.jetbrains.asm4.Type;
+import org.jetbrains.asm4.commons.InstructionAdapter;
+import org.jetbrains.asm4.tree.*;
+import org.jetbrains.asm4.util.Printer;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.codegen.optimization.OptimizationClassBuilderFactory;
+import org.jetbrains.jet.codegen.optimization.PeepholeMethodOptimizer;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PeepholeOptimizationTest extends CodegenTestCase {
+    private static final Type NUMBER_TYPE = Type.getObjectType("java/lang/Number");
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        createEnvironmentWithMockJdkAndIdeaAnnotations(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testBoxingUnboxingAndTemporary() {
+        MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "f", "(I)I", null, null);
+        InstructionAdapter v = new InstructionAdapter(method);
+        v.load(0, Type.INT_TYPE);
+        v.invokestatic("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+        v.checkcast(NUMBER_TYPE);
+        v.invokevirtual("java/lang/Number", "intValue", "()I");
+        v.store(1, Type.INT_TYPE);
+        v.load(1, Type.INT_TYPE);
+        v.areturn(Type.INT_TYPE);
+
+        PeepholeMethodOptimizer.optimize(method);
+        assertEquals("[ILOAD, IRETURN]", opcodes(method).toString());
+    }
+
+    public void testBoxingOfOtherTypeIsKept() {
+        MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "f", "(I)J", null, null);
+        InstructionAdapter v = new InstructionAdapter(method);
+        v.load(0, Type.INT_TYPE);
+        v.invokestatic("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;");
+        v.invokevirtual("java/lang/Number", "longValue", "()J");
+        v.areturn(Type.LONG_TYPE);
+
+        PeepholeMethodOptimizer.optimize(method);
+        assertEquals("[ILOAD, INVOKESTATIC, INVOKEVIRTUAL, LRETURN]", opcodes(method).toString());
+    }
+
+    public void testRedundantCheckcastAndDeadStore() {
+        MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "f", "()Ljava/lang/String;", null, null);
+        InstructionAdapter v = new InstructionAdapter(method);
+        v.aconst("a");
+        v.checkcast(Type.getObjectType("java/lang/String"));
+        v.checkcast(Type.getObjectType("java/lang/Object"));
+        v.dup();
+        v.store(0, Type.getObjectType("java/lang/String"));
+        v.areturn(Type.getObjectType("java/lang/String"));
+
+        PeepholeMethodOptimizer.optimize(method);
+        assertEquals("[LDC a, ARETURN]", instructions(method).toString());
+    }
+
+    public void testJumpThreading() {
+        MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "f", "(Z)I", null, null);
+        InstructionAdapter v = new InstructionAdapter(method);
+        Label second = new Label();
+        Label loop = new Label();
+        Label exit = new Label();
+        v.load(0, Type.BOOLEAN_TYPE);
+        v.ifeq(second);
+        v.mark(loop);
+        v.iconst(1);
+        v.pop();
+        v.goTo(exit);
+        v.mark(second);
+        v.goTo(loop);
+        v.mark(exit);
+        v.iconst(0);
+        v.areturn(Type.INT_TYPE);
+
+        PeepholeMethodOptimizer.optimize(method);
+        JumpInsnNode conditional = (JumpInsnNode) method.instructions.get(1);
+        assertSame(loop, conditional.label.getLabel());
+        // Nothing jumps to the second GOTO any more, unreachable code is left to the class writer
+        assertEquals("[ILOAD, IFEQ, ICONST_1, POP, GOTO, GOTO, ICONST_0, IRETURN]", opcodes(method).toString());
+    }
+
+    public void testGotoReturn() {
+        MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "f", "(Z)V", null, null);
+        InstructionAdapter v = new InstructionAdapter(method);
+        Label end = new Label();
+        v.load(0, Type.BOOLEAN_TYPE);
+        v.ifeq(end);
+        v.iconst(1);
+        v.pop();
+        v.goTo(end);
+        v.iconst(2);
+        v.pop();
+        v.mark(end);
+        v.areturn(Type.VOID_TYPE);
+
+        PeepholeMethodOptimizer.optimize(method);
+        assertEquals("[ILOAD, IFEQ, ICONST_1, POP, RETURN, ICONST_2, POP, RETURN]", opcodes(method).toString());
+    }
+
+    public void testGeneratedBoxingCasts() throws Exception {
+        loadText("fun f(x: Int): Int = (x as Any) as Int");
+
+        MethodNode plain = getMethod(generateCommon(ClassBuilderFactories.TEST, myEnvironment, myFiles).getFactory(), "f");
+        assertEquals("[ILOAD 0, INVOKESTATIC java/lang/Integer.valueOf(I)Ljava/lang/Integer;, CHECKCAST java/lang/Object, " +
+                     "CHECKCAST java/lang/Integer, CHECKCAST java/lang/Number, INVOKEVIRTUAL java/lang/Number.intValue()I, IRETURN]",
+                     instructions(plain).toString());
+
+        JetTestUtils.newTrace(myEnvironment);
+        ClassFileFactory optimized = generateCommon(
+                new OptimizationClassBuilderFactory(ClassBuilderFactories.TEST), myEnvironment, myFiles).getFactory();
+        assertEquals("[ILOAD 0, IRETURN]", instructions(getMethod(optimized, "f")).toString());
+        assertEquals(42, loadRootNamespaceClass(optimized).getMethod("f", int.class).invoke(null, 42));
+    }
+
+    @NotNull
+    private static MethodNode getMethod(@NotNull ClassFileFactory factory, @NotNull String name) {
+        String internalName = NamespaceCodegen.getJVMClassNameForKotlinNs(FqName.ROOT).getInternalName();
+        ClassNode classNode = new ClassNode();
+        new ClassReader(factory.asBytes(internalName + ".class")).accept(classNode, 0);
+        for (MethodNode method : classNode.methods) {
+            if (method.name.equals(name)) {
+                return method;
+            }
+        }
+        throw new AssertionError("No method " + name + " in " + internalName);
+    }
+
+    /**
+     * @return the instructions of the method with their operands, labels, line numbers and frames are skipped
+     */
+    private static List<String> instructions(MethodNode method) {
+        List<String> result = new ArrayList<String>();
+        for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() < 0) continue;
+            String text = Printer.OPCODES[insn.getOpcode()];
+            if (insn instanceof VarInsnNode) {
+                text += " " + ((VarInsnNode) insn).var;
+            }
+            else if (insn instanceof TypeInsnNode) {
+                text += " " + ((TypeInsnNode) insn).desc;
+            }
+            else if (insn instanceof MethodInsnNode) {
+                MethodInsnNode call = (MethodInsnNode) insn;
+                text += " " + call.owner + "." + call.name + call.desc;
+            }
+            else if (insn instanceof LdcInsnNode) {
+                text += " " + ((LdcInsnNode) insn).cst;
+            }
+            result.add(text);
+        }
+        return result;
+    }
+
+    private static List<String> opcodes(MethodNode method) {
+        List<String> result = new ArrayList<String>();
+        for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+            if (insn.getOpcode() >= 0) {
+                result.add(Printer.OPCODES[insn.getOpcode()]);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestCaseBuilder;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.codegen.state.GenerationState;
+import org.jetbrains.jet.codegen.state.StandardGenerationStrategy;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.Severity;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.AnalyzerScriptParameter;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Caches of mapped types and signatures in {@link org.jetbrains.jet.codegen.state.JetTypeMapper} must not change the generated code
+ */
+public class TypeMapperCacheTest extends KotlinTestWithEnvironment {
+    private static final String[] DIRECTORIES = {"classes", "bridges", "functions", "properties", "innerNested", "extensionFunctions"};
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.ALL);
+    }
+
+    public void testSameClassFilesWithAndWithoutCaches() throws IOException {
+        int compared = 0;
+        for (String directory : DIRECTORIES) {
+            File[] files = new File(JetTestCaseBuilder.getTestDataPathBase(), "codegen/" + directory).listFiles();
+            assertNotNull(directory, files);
+            Arrays.sort(files);
+            for (File file : files) {
+                if (!file.isFile() || !JetTestCaseBuilder.kotlinFilter.accept(file.getParentFile(), file.getName())) continue;
+                String text = FileUtil.loadFile(file, true);
+                String withCaches = generateText(file.getName(), text, true);
+                if (withCaches == null) continue;
+                assertEquals(file.getPath(), generateText(file.getName(), text, false), withCaches);
+                compared++;
+            }
+        }
+        assertTrue("Too few files compared: " + compared, compared > 30);
+    }
+
+    // the text of all the class files, or null if the file does not compile on its own
+    private String generateText(@NotNull String name, @NotNull String text, boolean cachesEnabled) {
+        JetFile file = JetTestUtils.createFile(name, text, getProject());
+        AnalyzeExhaust exhaust = AnalyzerFacadeForJVM.analyzeOneFileWithJavaIntegration(
+                file, Collections.<AnalyzerScriptParameter>emptyList());
+        if (exhaust.isError()) return null;
+        for (Diagnostic diagnostic : exhaust.getBindingContext().getDiagnostics()) {
+            if (diagnostic.getSeverity() == Severity.ERROR) return null;
+        }
+
+        GenerationState state = new GenerationState(getProject(), ClassBuilderFactories.TEST, exhaust.getBindingContext(),
+                                                     Collections.singletonList(file));
+        state.getTypeMapper().setCachesEnabled(cachesEnabled);
+        KotlinCodegenFacade.compileCorrectFiles(state, StandardGenerationStrategy.INSTANCE, CompilationErrorHandler.THROW_EXCEPTION);
+
+        ClassFileFactory factory = state.getFactory();
+        StringBuilder result = new StringBuilder(factory.createText());
+        for (String classFile : factory.files()) {
+            result.append(classFile).append(": ").append(Arrays.hashCode(factory.asBytes(classFile))).append('\n');
+        }
+        return result.toString();
+    }
+}
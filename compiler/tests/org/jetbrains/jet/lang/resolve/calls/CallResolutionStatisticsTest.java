@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.calls;
+
+import com.google.common.base.Predicates;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.diagnostics.AbstractDiagnosticFactory;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.Errors;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.AnalyzerScriptParameter;
+import org.jetbrains.jet.lang.resolve.AnalyzingUtils;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.BindingTrace;
+import org.jetbrains.jet.lang.resolve.BindingTraceContext;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+
+import java.util.Collections;
+
+/**
+ * Calls with a single applicable candidate go through the fast path of {@link CallResolver},
+ * inapplicable and overloaded candidates are resolved in full and reported as before.
+ * Statistics are collected per resolve session.
+ */
+public class CallResolutionStatisticsTest extends KotlinTestWithEnvironment {
+    private CallResolutionStatistics statistics;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testSingleCandidates() {
+        BindingContext bindingContext = analyze("fun f(x: Int) = x\n" +
+                                                "fun g() = f(1) + f(2)\n");
+        AnalyzingUtils.throwExceptionOnErrors(bindingContext);
+        assertTrue(statistics.toString(), statistics.getFastPathCalls() >= 2);
+        assertEquals(statistics.toString(), 0, statistics.getFastPathFallbacks());
+    }
+
+    public void testInapplicableCandidate() {
+        BindingContext bindingContext = analyze("fun f(x: Int) = x\n" +
+                                                "fun g() = f(\"\")\n");
+        assertEquals(1, countDiagnostics(bindingContext, Errors.TYPE_MISMATCH));
+        assertEquals(statistics.toString(), 1, statistics.getFastPathFallbacks());
+    }
+
+    public void testOverloadsAndGenerics() {
+        BindingContext bindingContext = analyze("fun f(x: Int) = x\n" +
+                                                "fun f(x: String) = 0\n" +
+                                                "fun <T> id(t: T) = t\n" +
+                                                "fun g(vararg x: Int) = 0\n" +
+                                                "fun h() = f(id(1)) + f(\"\") + g(1, 2)\n");
+        AnalyzingUtils.throwExceptionOnErrors(bindingContext);
+        assertEquals(statistics.toString(), 0, statistics.getFastPathFallbacks());
+        assertTrue(statistics.toString(), statistics.getCandidates() > statistics.getFastPathCalls());
+    }
+
+    public void testSessionsCountSeparately() {
+        analyze("fun f(x: Int) = x\n" +
+                "fun g() = f(1) + f(2)\n");
+        CallResolutionStatistics first = statistics;
+        long calls = first.getCalls();
+        assertTrue(first.toString(), calls > 0);
+
+        analyze("fun f(x: Int) = x\n" +
+                "fun g() = f(1)\n");
+        assertEquals(calls, first.getCalls());
+        assertTrue(statistics.toString(), statistics.getCalls() < calls);
+
+        JetFile file = JetTestUtils.createFile("calls.kt", "fun f(x: Int) = x\nfun g() = f(1)\n", getProject());
+        JetTestUtils.analyzeFile(file);
+        assertEquals(calls, first.getCalls());
+    }
+
+    private BindingContext analyze(String text) {
+        JetFile file = JetTestUtils.createFile("calls.kt", text, getProject());
+        BindingTrace trace = new BindingTraceContext();
+        statistics = CallResolutionStatistics.enable(trace);
+        return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
+                getProject(), Collections.singletonList(file), trace, Collections.<AnalyzerScriptParameter>emptyList(),
+                Predicates.<PsiFile>alwaysTrue(), false).getBindingContext();
+    }
+
+    private static int countDiagnostics(BindingContext bindingContext, AbstractDiagnosticFactory factory) {
+        int count = 0;
+        for (Diagnostic diagnostic : bindingContext.getDiagnostics()) {
+            if (diagnostic.getFactory() == factory) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.lazy;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.jvm.compiler.CliLightClassGenerationSupport;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.codegen.GenerationUtils;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.Severity;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.jetbrains.jet.lang.resolve.AnalyzerScriptParameter;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.BindingTrace;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares analysis on {@link LazyTopDownAnalyzer} with the eager one over the corpus of {@link LazyResolveNamespaceComparingTestGenerated}
+ * and over invalid sources. The time and memory of both are compared by the analyze-* workloads of CompilerBenchmark
+ */
+public class LazyTopDownAnalyzerTest extends KotlinTestWithEnvironment {
+    private static final String CORPUS_PATH = "compiler/testData/loadKotlin";
+    private static final String INVALID_SOURCES_PATH = "compiler/testData/lazyTopDownAnalyzer";
+    private static final int LIBRARY_FILE_COUNT = 200;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_AND_ANNOTATIONS);
+    }
+
+    public void testCorpusGeneratesSameClasses() throws IOException {
+        List<File> testFiles = Lists.newArrayList();
+        collectKotlinFiles(new File(CORPUS_PATH), testFiles);
+        assertFalse(testFiles.isEmpty());
+
+        for (File testFile : testFiles) {
+            List<JetFile> files = createFiles(testFile);
+            AnalyzeExhaust eager = analyze(files, false, Predicates.<PsiFile>alwaysTrue());
+            AnalyzeExhaust lazy = analyze(files, true, Predicates.<PsiFile>alwaysTrue());
+
+            String path = testFile.getPath();
+            assertEquals(path, 0, countErrors(eager.getBindingContext()));
+            assertEquals(path, 0, countErrors(lazy.getBindingContext()));
+
+            List<String> eagerClasses = generate(files, eager);
+            List<String> lazyClasses = generate(files, lazy);
+            assertEquals(path, eagerClasses, lazyClasses);
+        }
+    }
+
+    public void testInvalidSourcesHaveSameErrors() throws IOException {
+        List<File> testFiles = Lists.newArrayList();
+        collectKotlinFiles(new File(INVALID_SOURCES_PATH), testFiles);
+        assertFalse(testFiles.isEmpty());
+
+        for (File testFile : testFiles) {
+            List<JetFile> files = createFiles(testFile);
+            Set<String> eagerErrors = renderErrors(analyze(files, false, Predicates.<PsiFile>alwaysTrue()).getBindingContext());
+            Set<String> lazyErrors = renderErrors(analyze(files, true, Predicates.<PsiFile>alwaysTrue()).getBindingContext());
+
+            String path = testFile.getPath();
+            assertFalse(path, eagerErrors.isEmpty());
+            assertEquals(path, StringUtil.join(eagerErrors, "\n"), StringUtil.join(lazyErrors, "\n"));
+        }
+    }
+
+    public void testSingleFileAgainstLargeSourceSet() {
+        List<JetFile> files = Lists.newArrayList();
+        for (int i = 0; i < LIBRARY_FILE_COUNT; i++) {
+            files.add(JetPsiFactory.createFile(getProject(), "lib" + i + ".kt",
+                      "package lib\n" +
+                      "open class C" + i + "(val x: Int) {\n" +
+                      "    fun plus(other: C" + i + "): C" + i + " = C" + i + "(x + other.x)\n" +
+                      "    fun twice() = plus(this)\n" +
+                      "}\n" +
+                      "fun c" + i + "() = C" + i + "(" + i + ").twice()\n"));
+        }
+        final JetFile main = JetPsiFactory.createFile(getProject(), "main.kt",
+                                                      "package app\n" +
+                                                      "fun main(args: Array<String>) = println(lib.c0().x)\n");
+        files.add(main);
+
+        Predicate<PsiFile> onlyMain = new Predicate<PsiFile>() {
+            @Override
+            public boolean apply(PsiFile file) {
+                return file == main;
+            }
+        };
+
+        AnalyzeExhaust eager = analyze(files, false, onlyMain);
+        int eagerFunctions = eager.getBindingContext().getKeys(BindingContext.FUNCTION).size();
+
+        AnalyzeExhaust lazy = analyze(files, true, onlyMain);
+        int lazyFunctions = lazy.getBindingContext().getKeys(BindingContext.FUNCTION).size();
+
+        assertEquals(0, countErrors(lazy.getBindingContext()));
+        assertTrue("Lazy analysis resolved " + lazyFunctions + " functions", lazyFunctions * 10 < eagerFunctions);
+        assertFalse(generate(Collections.singletonList(main), lazy).isEmpty());
+    }
+
+    private AnalyzeExhaust analyze(List<JetFile> files, boolean lazy, Predicate<PsiFile> filesToAnalyzeCompletely) {
+        JetTestUtils.newTrace(getEnvironment());
+        BindingTrace sharedTrace = CliLightClassGenerationSupport.getInstanceForCli(getProject()).getTrace();
+        if (lazy) {
+            return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationLazily(getProject(), files, sharedTrace, filesToAnalyzeCompletely);
+        }
+        return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
+                getProject(), files, sharedTrace, Collections.<AnalyzerScriptParameter>emptyList(), filesToAnalyzeCompletely, false);
+    }
+
+    private List<String> generate(List<JetFile> files, AnalyzeExhaust exhaust) {
+        List<String> classFiles = Lists.newArrayList(
+                GenerationUtils.compileFilesGetGenerationState(getProject(), exhaust, files).getFactory().files());
+        Collections.sort(classFiles);
+        return classFiles;
+    }
+
+    private List<JetFile> createFiles(File testFile) throws IOException {
+        return JetTestUtils.createTestFiles(testFile.getName(), FileUtil.loadFile(testFile, true),
+                                            new JetTestUtils.TestFileFactory<JetFile>() {
+                                                @Override
+                                                public JetFile create(String fileName, String text) {
+                                                    return JetPsiFactory.createFile(getProject(), fileName, text);
+                                                }
+                                            });
+    }
+
+    private static void collectKotlinFiles(File dir, List<File> result) {
+        File[] children = dir.listFiles();
+        assertNotNull(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectKotlinFiles(child, result);
+            }
+            else if (child.getName().endsWith(".kt")) {
+                result.add(child);
+            }
+        }
+    }
+
+    private static Set<String> renderErrors(BindingContext bindingContext) {
+        Set<String> errors = Sets.newTreeSet();
+        for (Diagnostic diagnostic : bindingContext.getDiagnostics()) {
+            if (diagnostic.getSeverity() == Severity.ERROR) {
+                PsiElement element = diagnostic.getPsiElement();
+                errors.add(element.getContainingFile().getName() + " " + diagnostic.getTextRanges() + " " + diagnostic.getFactory().getName());
+            }
+        }
+        return errors;
+    }
+
+    private static int countErrors(BindingContext bindingContext) {
+        int count = 0;
+        for (Diagnostic diagnostic : bindingContext.getDiagnostics()) {
+            if (diagnostic.getSeverity() == Severity.ERROR) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.name;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.KotlinTestWithEnvironmentManagement;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.jetbrains.jet.lang.resolve.DescriptorUtils;
+import org.jetbrains.jet.lang.resolve.lazy.LazyResolveTestUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Collects names of all the declarations of the standard library and checks that equal names are the same instance.
+ * The numbers of names and instances, and the heap of the resolve, are reported by the name-interning workload of CompilerBenchmark
+ */
+public class NameInterningHeapTest extends KotlinTestWithEnvironmentManagement {
+    private static final File STD_LIB_SRC = new File("libraries/stdlib/src");
+
+    public void testStdLib() throws IOException {
+        JetCoreEnvironment environment = createEnvironmentWithJdk(ConfigurationKind.JDK_AND_ANNOTATIONS, TestJdkKind.FULL_JDK);
+        List<JetFile> files = Lists.newArrayList();
+        List<File> sources = Lists.newArrayList();
+        FileUtil.collectMatchedFiles(STD_LIB_SRC, Pattern.compile(".*?.kt"), sources);
+        for (File file : sources) {
+            files.add(JetPsiFactory.createFile(environment.getProject(), file.getName(), FileUtil.loadFile(file, true)));
+        }
+        ModuleDescriptor module = LazyResolveTestUtil.resolveEagerly(files, environment);
+
+        List<Name> names = Lists.newArrayList();
+        List<FqNameUnsafe> fqNames = Lists.newArrayList();
+        for (Name packageName : LazyResolveTestUtil.getTopLevelPackagesFromFileList(files)) {
+            NamespaceDescriptor namespace = module.getRootNamespace().getMemberScope().getNamespace(packageName);
+            assertNotNull(namespace);
+            collectNames(namespace, names, fqNames);
+        }
+
+        Set<Name> instances = Collections.newSetFromMap(new IdentityHashMap<Name, Boolean>());
+        instances.addAll(names);
+        Set<FqNameUnsafe> fqNameInstances = Collections.newSetFromMap(new IdentityHashMap<FqNameUnsafe, Boolean>());
+        for (FqNameUnsafe fqName : fqNames) {
+            fqNameInstances.add(fqName.parent());
+        }
+
+        assertEquals(Sets.newHashSet(names).size(), instances.size());
+        assertEquals(Sets.newHashSet(fqNameInstances).size(), fqNameInstances.size());
+    }
+
+    public static void collectNames(DeclarationDescriptor descriptor, List<Name> names, List<FqNameUnsafe> fqNames) {
+        names.add(descriptor.getName());
+        if (descriptor instanceof NamespaceDescriptorImpl || descriptor instanceof MutableClassDescriptorLite) {
+            FqNameUnsafe fqName = DescriptorUtils.getFQName(descriptor);
+            if (!fqName.isRoot()) {
+                fqNames.add(fqName);
+            }
+        }
+        if (descriptor instanceof CallableDescriptor) {
+            for (ValueParameterDescriptor parameter : ((CallableDescriptor) descriptor).getValueParameters()) {
+                names.add(parameter.getName());
+            }
+        }
+
+        // Only declarations from sources are visited, Java packages and classes may be imported into the same scopes
+        if (descriptor instanceof NamespaceDescriptorImpl) {
+            for (DeclarationDescriptor member : ((NamespaceDescriptor) descriptor).getMemberScope().getAllDescriptors()) {
+                collectNames(member, names, fqNames);
+            }
+        }
+        else if (descriptor instanceof MutableClassDescriptorLite) {
+            for (DeclarationDescriptor member : ((ClassDescriptor) descriptor).getDefaultType().getMemberScope().getAllDescriptors()) {
+                if (member.getContainingDeclaration() == descriptor) {
+                    collectNames(member, names, fqNames);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.scopes;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptor;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.Severity;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lookups in scopes past the size of array storage, caching of lookups in locked scopes, including concurrent ones,
+ * and body resolution of a generated file with many blocks and lambdas
+ */
+public class WritableScopeImplTest extends KotlinTestWithEnvironment {
+    private static final int NAME_COUNT = CompactNameMap.ARRAY_THRESHOLD * 3;
+    private static final int FUNCTION_COUNT = 300;
+    private static final int THREAD_COUNT = 8;
+
+    private final ModuleDescriptor module = new ModuleDescriptor(Name.special("<test module>"));
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testLookupsPastArrayThreshold() {
+        WritableScopeImpl scope = createScope(JetScope.EMPTY);
+        for (int i = 0; i < NAME_COUNT; i++) {
+            scope.addFunctionDescriptor(createFunction("f" + i));
+            scope.addVariableDescriptor(createVariable("v" + i));
+        }
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+
+        for (int i = 0; i < NAME_COUNT; i++) {
+            Collection<FunctionDescriptor> functions = scope.getFunctions(Name.identifier("f" + i));
+            assertEquals(1, functions.size());
+            assertEquals("f" + i, functions.iterator().next().getName().getName());
+
+            VariableDescriptor variable = scope.getLocalVariable(Name.identifier("v" + i));
+            assertNotNull(variable);
+            assertEquals("v" + i, variable.getName().getName());
+        }
+        assertTrue(scope.getFunctions(Name.identifier("v0")).isEmpty());
+        assertNull(scope.getLocalVariable(Name.identifier("f0")));
+        assertEquals(NAME_COUNT, scope.getDeclaredVariables().size());
+    }
+
+    public void testCachedLookupsSeeWritesToWorkerScope() {
+        WritableScopeImpl outer = createScope(JetScope.EMPTY);
+        outer.changeLockLevel(WritableScope.LockLevel.BOTH);
+        WritableScopeImpl inner = createScope(outer);
+        SimpleFunctionDescriptorImpl declared = createFunction("f");
+        inner.addFunctionDescriptor(declared);
+        inner.changeLockLevel(WritableScope.LockLevel.READING);
+
+        Name name = Name.identifier("f");
+        Collection<FunctionDescriptor> functions = inner.getFunctions(name);
+        assertEquals(Collections.singleton(declared), functions);
+        assertSame(functions, inner.getFunctions(name));
+
+        SimpleFunctionDescriptorImpl fromOuter = createFunction("f");
+        outer.addFunctionDescriptor(fromOuter);
+        functions = inner.getFunctions(name);
+        assertEquals(2, functions.size());
+        assertTrue(functions.contains(declared));
+        assertTrue(functions.contains(fromOuter));
+
+        outer.changeLockLevel(WritableScope.LockLevel.READING);
+        functions = inner.getFunctions(name);
+        assertEquals(2, functions.size());
+        assertSame(functions, inner.getFunctions(name));
+    }
+
+    public void testLookupsSeeWritesThroughWriteThroughScope() {
+        WritableScopeImpl target = createScope(JetScope.EMPTY);
+        target.changeLockLevel(WritableScope.LockLevel.BOTH);
+        WriteThroughScope through = new WriteThroughScope(JetScope.EMPTY, target, RedeclarationHandler.DO_NOTHING, "WritableScopeImplTest");
+        through.changeLockLevel(WritableScope.LockLevel.READING);
+        WritableScopeImpl scope = createScope(through);
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+
+        Name name = Name.identifier("f");
+        assertTrue(scope.getFunctions(name).isEmpty());
+
+        SimpleFunctionDescriptorImpl function = createFunction("f");
+        target.addFunctionDescriptor(function);
+        assertEquals(Collections.singleton(function), scope.getFunctions(name));
+    }
+
+    public void testLookupsSeeWritesThroughAdapters() {
+        WritableScopeImpl imported = createScope(JetScope.EMPTY);
+        imported.changeLockLevel(WritableScope.LockLevel.BOTH);
+        WritableScopeImpl scope = createScope(JetScope.EMPTY);
+        scope.importScope(new JetScopeAdapter(imported));
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+
+        Name name = Name.identifier("f");
+        assertTrue(scope.getFunctions(name).isEmpty());
+
+        SimpleFunctionDescriptorImpl function = createFunction("f");
+        imported.addFunctionDescriptor(function);
+        assertEquals(Collections.singleton(function), scope.getFunctions(name));
+    }
+
+    public void testLookupsOfImportedAliasesAreCached() {
+        WritableScopeImpl scope = createScope(JetScope.EMPTY);
+        SimpleFunctionDescriptorImpl function = createFunction("f");
+        scope.importFunctionAlias(Name.identifier("g"), function);
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+
+        Name name = Name.identifier("g");
+        Collection<FunctionDescriptor> functions = scope.getFunctions(name);
+        assertTrue(functions.contains(function));
+        assertSame(functions, scope.getFunctions(name));
+    }
+
+    public void testCachedLookupsSeeWritesToImportedScope() {
+        WritableScopeImpl imported = createScope(JetScope.EMPTY);
+        imported.changeLockLevel(WritableScope.LockLevel.BOTH);
+        WritableScopeImpl scope = createScope(JetScope.EMPTY);
+        scope.importScope(imported);
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+
+        Name name = Name.identifier("v");
+        assertTrue(scope.getProperties(name).isEmpty());
+
+        PropertyDescriptor property = createProperty("v");
+        imported.addPropertyDescriptor(property);
+        assertEquals(Collections.singleton(property), scope.getProperties(name));
+    }
+
+    public void testCachedLookupsSurviveWritesToUnrelatedScopes() {
+        WritableScopeImpl scope = createScope(JetScope.EMPTY);
+        scope.addFunctionDescriptor(createFunction("f"));
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+
+        Name name = Name.identifier("f");
+        Collection<FunctionDescriptor> functions = scope.getFunctions(name);
+
+        WritableScopeImpl unrelated = createScope(JetScope.EMPTY);
+        unrelated.changeLockLevel(WritableScope.LockLevel.BOTH);
+        unrelated.addFunctionDescriptor(createFunction("f"));
+        assertSame(functions, scope.getFunctions(name));
+    }
+
+    public void testConcurrentLookups() throws Exception {
+        WritableScopeImpl outer = createScope(JetScope.EMPTY);
+        final WritableScopeImpl scope = createScope(outer);
+        for (int i = 0; i < NAME_COUNT; i++) {
+            outer.addFunctionDescriptor(createFunction("f" + i));
+            scope.addFunctionDescriptor(createFunction("f" + i));
+        }
+        outer.changeLockLevel(WritableScope.LockLevel.READING);
+        scope.changeLockLevel(WritableScope.LockLevel.READING);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<Boolean>> results = Lists.newArrayList();
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < NAME_COUNT; i++) {
+                            if (scope.getFunctions(Name.identifier("f" + i)).size() != 2) return false;
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testBodyResolutionOfManyBlocks() {
+        StringBuilder text = new StringBuilder();
+        text.append("fun apply(x: Int, f: (Int) -> Int): Int = f(x)\n");
+        for (int i = 0; i < FUNCTION_COUNT; i++) {
+            text.append("fun f").append(i).append("(p: Int): Int {\n");
+            text.append("    val a = p + ").append(i).append("\n");
+            text.append("    var b = apply(a) { it * 2 }\n");
+            text.append("    if (b > a) { val c = b - a; b = apply(c) { x -> x + a } }\n");
+            text.append("    for (j in 0..a) { b += j }\n");
+            text.append("    return b\n");
+            text.append("}\n");
+        }
+        JetFile file = JetTestUtils.createFile("blocks.kt", text.toString(), getProject());
+
+        BindingContext bindingContext = JetTestUtils.analyzeFile(file).getBindingContext();
+        for (Diagnostic diagnostic : bindingContext.getDiagnostics()) {
+            assertFalse(diagnostic.toString(), diagnostic.getSeverity() == Severity.ERROR);
+        }
+    }
+
+    private WritableScopeImpl createScope(JetScope parent) {
+        return new WritableScopeImpl(parent, module, RedeclarationHandler.DO_NOTHING, "WritableScopeImplTest");
+    }
+
+    private SimpleFunctionDescriptorImpl createFunction(String name) {
+        return new SimpleFunctionDescriptorImpl(module, Collections.<AnnotationDescriptor>emptyList(), Name.identifier(name),
+                                                CallableMemberDescriptor.Kind.DECLARATION);
+    }
+
+    private PropertyDescriptor createProperty(String name) {
+        return new PropertyDescriptor(module, Collections.<AnnotationDescriptor>emptyList(), Modality.FINAL, Visibilities.PUBLIC, false,
+                                      null, ReceiverParameterDescriptor.NO_RECEIVER_PARAMETER, Name.identifier(name),
+                                      KotlinBuiltIns.getInstance().getIntType(), CallableMemberDescriptor.Kind.DECLARATION);
+    }
+
+    private LocalVariableDescriptor createVariable(String name) {
+        return new LocalVariableDescriptor(module, Collections.<AnnotationDescriptor>emptyList(), Name.identifier(name),
+                                           KotlinBuiltIns.getInstance().getIntType(), false);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.perf;
+
+import com.google.common.base.Predicates;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.lang.psi.JetDeclaration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.AnalyzerScriptParameter;
+import org.jetbrains.jet.lang.resolve.BodiesResolveContext;
+import org.jetbrains.jet.lang.resolve.DelegatingBindingTrace;
+import org.jetbrains.jet.lang.resolve.PartialBodiesResolveContext;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.jetbrains.jet.lang.resolve.java.JetFilesProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Resolves the bodies of one file after its headers were analyzed: all of them, as after any change outside of bodies,
+ * and only the body of one function, as the IDE does after an edit inside that body (see {@link PartialBodiesResolveContext}).
+ * Reports the time of both as "allBodies" and "changedBody", in milliseconds.
+ */
+class BodiesResolveWorkload extends CompilerBenchmark.Workload {
+    @NotNull
+    private final File source;
+
+    private double allBodiesMillis;
+    private double changedBodyMillis;
+
+    BodiesResolveWorkload(@NotNull String name, @NotNull File source) {
+        super(name);
+        this.source = source;
+    }
+
+    @Override
+    int compile(@NotNull PrintStream messages) {
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            Project project = JetTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(disposable).getProject();
+            JetFile file = JetTestUtils.createFile(source.getName(), FileUtil.loadFile(source, true), project);
+
+            AnalyzeExhaust headers = AnalyzerFacadeForJVM.INSTANCE.analyzeFiles(
+                    project, Collections.singletonList(file), Collections.<AnalyzerScriptParameter>emptyList(),
+                    Predicates.<PsiFile>alwaysFalse());
+            BodiesResolveContext context = headers.getBodiesResolveContext();
+            assert context != null : "No bodies resolve context after headers analysis";
+
+            long start = System.nanoTime();
+            AnalyzeExhaust allBodies = resolveBodies(project, file, headers, context);
+            allBodiesMillis = (System.nanoTime() - start) / 1e6;
+
+            JetDeclaration changed = file.getDeclarations().get(0);
+            start = System.nanoTime();
+            AnalyzeExhaust changedBody = resolveBodies(project, file, headers,
+                                                       new PartialBodiesResolveContext(context, Collections.singleton(changed)));
+            changedBodyMillis = (System.nanoTime() - start) / 1e6;
+
+            return (allBodies.isError() ? 1 : 0) + (changedBody.isError() ? 1 : 0);
+        }
+        catch (IOException e) {
+            messages.println(e);
+            return 1;
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    @NotNull
+    private static AnalyzeExhaust resolveBodies(
+            @NotNull Project project,
+            @NotNull JetFile file,
+            @NotNull AnalyzeExhaust headers,
+            @NotNull BodiesResolveContext context
+    ) {
+        DelegatingBindingTrace trace = new DelegatingBindingTrace(headers.getBindingContext(), "trace to resolve bodies in file", file.getName());
+        return AnalyzerFacadeForJVM.INSTANCE.analyzeBodiesInFiles(
+                project, Collections.<AnalyzerScriptParameter>emptyList(), new JetFilesProvider.SameJetFilePredicate(file),
+                trace, context, headers.getModuleConfiguration());
+    }
+
+    @Override
+    void addValues(@NotNull Map<String, Double> values) {
+        values.put("allBodies", allBodiesMillis);
+        values.put("changedBody", changedBodyMillis);
+    }
+}
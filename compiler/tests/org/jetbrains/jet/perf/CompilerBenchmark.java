@@ -0,0 +1,644 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.perf;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.ArrayUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.cli.common.ExitCode;
+import org.jetbrains.jet.cli.common.messages.PhaseTiming;
+import org.jetbrains.jet.cli.js.K2JSCompiler;
+import org.jetbrains.jet.cli.js.K2JSCompilerArguments;
+import org.jetbrains.jet.cli.jvm.K2JVMCompiler;
+import org.jetbrains.jet.codegen.forTestCompile.ForTestCompileRuntime;
+import org.jetbrains.k2js.config.Config;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+/**
+ * Measures the throughput of K2JVMCompiler and K2JSCompiler, run in-process over fixed workloads: the standard library,
+ * the files of compiler/testData/codegen compiled one by one, and generated projects with thousands of classes,
+ * deep generics, heavy overloads and a function with a thousand local variables (see {@link SyntheticSources}).
+ * Other workloads measure parts of the analysis on their own: eager against lazy top-down analysis, the js library analyzed
+ * from its sources or from its declaration headers, resolving the bodies of a single file as the IDE does, or building the stubs
+ * its indices are made of. The js test cases translated with and without -minify, and run in Rhino, show the effect on
+ * the generated code.
+ *
+ * For every workload the cold figures come from a single compilation in a fresh JVM started with the same classpath and options,
+ * the warm figures are the means over the measured runs after the warmup in this JVM.
+ * Reported are the time of every compiler phase, the total time, the bytes allocated by all threads and the peak heap usage,
+ * as well as the values some workloads measure on their own, such as the size of the output.
+ *
+ * Must be run from the project root, like the tests. Usage:
+ *   CompilerBenchmark [-workloads name,...] [-warmup N] [-iterations N] [-report report.json] [-budget budget.properties]
+ *
+ * The budget file maps "workload.metric" to the maximal warm value, e.g. "jvm-stdlib.total=20000" or "js-overloads.analyze=3000"
+ * (milliseconds), "jvm-classes.allocated=4000000000" or "jvm-classes.peakHeap=800000000" (bytes).
+ * The benchmark fails if any of them is exceeded.
+ */
+public class CompilerBenchmark {
+    private static final String TOTAL = "total";
+    private static final String ALLOCATED = "allocated";
+    private static final String PEAK_HEAP = "peakHeap";
+    private static final String FAILURES = "failures";
+
+    // The forked JVM measures the workload given after this argument once and prints the values of the run,
+    // the sources generated by the parent JVM are passed with the work directory argument
+    private static final String COLD_RUN_ARGUMENT = "-coldRun";
+    private static final String WORK_DIR_ARGUMENT = "-workDir";
+
+    private static final String BROWSER_EXAMPLE = "libraries/examples/browser-example/src/main/kotlin/sample/Hello.kt";
+    static final String JS_TEST_FILES = "js/js.translator/testFiles/";
+    private static final String COLD_RUN_PREFIX = "[cold run] ";
+
+    public static void main(String[] args) throws Exception {
+        Set<String> selected = null;
+        int warmup = 2;
+        int iterations = 5;
+        String reportPath = null;
+        String budgetPath = null;
+        String coldRun = null;
+        File workDir = null;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("No value for " + arg);
+            }
+            String value = args[++i];
+            if (COLD_RUN_ARGUMENT.equals(arg)) {
+                coldRun = value;
+            }
+            else if (WORK_DIR_ARGUMENT.equals(arg)) {
+                workDir = new File(value);
+            }
+            else if ("-workloads".equals(arg)) {
+                selected = new HashSet<String>(Arrays.asList(value.split(",")));
+            }
+            else if ("-warmup".equals(arg)) {
+                warmup = Integer.parseInt(value);
+            }
+            else if ("-iterations".equals(arg)) {
+                iterations = Integer.parseInt(value);
+            }
+            else if ("-report".equals(arg)) {
+                reportPath = value;
+            }
+            else if ("-budget".equals(arg)) {
+                budgetPath = value;
+            }
+            else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+
+        if (coldRun != null) {
+            if (workDir == null) {
+                throw new IllegalArgumentException(COLD_RUN_ARGUMENT + " requires " + WORK_DIR_ARGUMENT);
+            }
+            printColdRun(createWorkloads(workDir), coldRun);
+            return;
+        }
+
+        workDir = JetTestUtils.tmpDir("compilerBenchmark");
+        generateSources(workDir);
+
+        List<Result> results = Lists.newArrayList();
+        for (Workload workload : createWorkloads(workDir)) {
+            if (selected != null && !selected.contains(workload.name)) {
+                continue;
+            }
+            System.out.println("Running " + workload.name);
+            Result result = run(workload, workDir, warmup, iterations);
+            System.out.println(result);
+            results.add(result);
+        }
+
+        String report = toJson(results);
+        if (reportPath != null) {
+            FileUtil.writeToFile(new File(reportPath), report);
+        }
+        System.out.println(report);
+
+        if (budgetPath != null) {
+            List<String> violations = checkBudget(results, budgetPath);
+            for (String violation : violations) {
+                System.err.println(violation);
+            }
+            if (!violations.isEmpty()) {
+                System.exit(1);
+            }
+        }
+    }
+
+    // Sources of the synthetic workloads are generated once, the forked JVMs of the cold runs reuse them
+    static void generateSources(@NotNull File workDir) throws IOException {
+        SyntheticSources.generateClasses(new File(workDir, "classes"), 40, 50);
+        SyntheticSources.generateGenerics(new File(workDir, "generics"), 20, 50, 30);
+        SyntheticSources.generateOverloads(new File(workDir, "overloads"), 50, 40);
+        SyntheticSources.generateLargeFunction(new File(workDir, "large-function"), 1000);
+        SyntheticSources.generateLibraryUsage(new File(workDir, "library-usage"), 200);
+        SyntheticSources.generateExtensions(new File(workDir, "extensions"), 100, 10000);
+        SyntheticSources.generateBodies(new File(workDir, "bodies"), 200);
+    }
+
+    @NotNull
+    static List<Workload> createWorkloads(@NotNull File workDir) {
+        List<Workload> workloads = Lists.newArrayList();
+
+        String runtime = ForTestCompileRuntime.runtimeJarForTests().getPath();
+        workloads.add(new JvmWorkload("jvm-stdlib", Collections.singletonList(new File("libraries/stdlib/src")),
+                                      "out/production/runtime", new File(workDir, "jvm-stdlib")));
+        // Sources parsed up front on a pool of threads, compare the sum of the phases with jvm-stdlib
+        workloads.add(new JvmWorkload("jvm-stdlib-parallel-parsing", Collections.singletonList(new File("libraries/stdlib/src")),
+                                      "out/production/runtime", new File(workDir, "jvm-stdlib-parallel-parsing"),
+                                      Collections.singletonList("-parallelParsing")));
+
+        List<File> codegenFiles = Lists.newArrayList();
+        collectKotlinFiles(new File("compiler/testData/codegen"), codegenFiles);
+        workloads.add(new JvmWorkload("jvm-codegen", codegenFiles, runtime, new File(workDir, "jvm-codegen")));
+        // Bytecode of the same files run through the peephole optimizer, compare classBytes with jvm-codegen
+        workloads.add(new JvmWorkload("jvm-codegen-optimized", codegenFiles, runtime, new File(workDir, "jvm-codegen-optimized"),
+                                      Collections.singletonList("-optimize")));
+
+        for (String name : Arrays.asList("classes", "generics", "overloads", "large-function")) {
+            File sources = new File(workDir, name);
+            workloads.add(new JvmWorkload("jvm-" + name, Collections.singletonList(sources), runtime, new File(workDir, "jvm-" + name)));
+            workloads.add(new JsWorkload("js-" + name, Collections.singletonList(sources.getPath()), new File(workDir, "js-" + name + ".js")));
+        }
+        workloads.add(new JvmWorkload("jvm-classes-parallel-parsing", Collections.singletonList(new File(workDir, "classes")), runtime,
+                                      new File(workDir, "jvm-classes-parallel-parsing"), Collections.singletonList("-parallelParsing")));
+
+        List<String> jsStdlib = Lists.newArrayList();
+        for (String file : Config.LIB_FILE_NAMES_DEPENDENT_ON_STDLIB) {
+            jsStdlib.add(Config.LIBRARIES_LOCATION + file);
+        }
+        for (String file : Config.STDLIB_FILE_NAMES) {
+            jsStdlib.add(Config.STDLIB_LOCATION + file);
+        }
+        workloads.add(new JsWorkload("js-stdlib", jsStdlib, new File(workDir, "js-stdlib.js")));
+        // The browser example with and without dead code elimination, compare outputBytes
+        List<String> browserExample = Collections.singletonList(BROWSER_EXAMPLE);
+        workloads.add(new JsWorkload("js-browser-example", browserExample, new File(workDir, "js-browser-example.js")));
+        workloads.add(new JsWorkload("js-browser-example-dce", browserExample, new File(workDir, "js-browser-example-dce.js"),
+                                     Collections.singletonList("sample.myApp")));
+        // The example and closure cases of the js tests translated one by one, compare outputBytes and rhinoParse
+        List<File> jsCases = Lists.newArrayList();
+        collectKotlinFiles(new File(JS_TEST_FILES + "examples/cases"), jsCases);
+        collectKotlinFiles(new File(JS_TEST_FILES + "closure/cases"), jsCases);
+        workloads.add(new JsCorpusWorkload("js-cases", jsCases, new File(workDir, "js-cases"), false));
+        workloads.add(new JsCorpusWorkload("js-cases-minified", jsCases, new File(workDir, "js-cases-minified"), true));
+        // Translated code run in Rhino: type checks and object creation
+        workloads.add(new RhinoWorkload("js-type-checks", new File(JS_TEST_FILES + "benchmarks/typeChecks.kt"),
+                                        new File(workDir, "js-type-checks.js"), "foo",
+                                        Collections.<String, Object>singletonMap("box", "OK")));
+        // The same strings built with explicit toString() calls and with templates
+        Map<String, Object> templates = Maps.newLinkedHashMap();
+        templates.put("viaConcatenation", true);
+        templates.put("viaTemplates", true);
+        workloads.add(new RhinoWorkload("js-string-templates", new File(JS_TEST_FILES + "benchmarks/stringTemplates.kt"),
+                                        new File(workDir, "js-string-templates.js"), "foo", templates));
+        // The same loops written with iterators and with for, which is translated to counted loops
+        Map<String, Object> loops = Maps.newLinkedHashMap();
+        loops.put("viaIterators", true);
+        loops.put("viaForLoops", true);
+        workloads.add(new RhinoWorkload("js-for-loops", new File(JS_TEST_FILES + "benchmarks/forLoops.kt"),
+                                        new File(workDir, "js-for-loops.js"), "foo", loops));
+        // The js library analyzed from its sources and lazily from its declaration headers
+        workloads.add(new JsLibraryAnalysisWorkload("js-library-sources", null));
+        workloads.add(new JsLibraryAnalysisWorkload("js-library-headers", new File(workDir, "js-library-headers.zip")));
+
+        // The corpus of LazyResolveNamespaceComparingTestGenerated and one file using a large source set, analyzed eagerly and lazily
+        List<File> loadKotlinFiles = Lists.newArrayList();
+        collectKotlinFiles(new File("compiler/testData/loadKotlin"), loadKotlinFiles);
+        List<File> libraryUsage = Collections.singletonList(new File(workDir, "library-usage/library-usage.kt"));
+        workloads.add(new TopDownAnalysisWorkload("analyze-load-kotlin", loadKotlinFiles, null, false));
+        workloads.add(new TopDownAnalysisWorkload("analyze-load-kotlin-lazy", loadKotlinFiles, null, true));
+        workloads.add(new TopDownAnalysisWorkload("analyze-library-usage", libraryUsage, "main.kt", false));
+        workloads.add(new TopDownAnalysisWorkload("analyze-library-usage-lazy", libraryUsage, "main.kt", true));
+
+        workloads.add(new NameInterningWorkload("name-interning", new File("libraries/stdlib/src")));
+        workloads.add(new BodiesResolveWorkload("bodies-resolve", new File(workDir, "bodies/bodies.kt")));
+        workloads.add(new ExtensionStubsWorkload("extension-stubs", new File(workDir, "extensions/extensions.kt")));
+
+        return workloads;
+    }
+
+    private static void collectKotlinFiles(@NotNull File dir, @NotNull List<File> result) {
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectKotlinFiles(child, result);
+            }
+            else if (child.getName().endsWith(".kt") || child.getName().endsWith(".jet")) {
+                result.add(child);
+            }
+        }
+    }
+
+    @NotNull
+    static Result run(@NotNull Workload workload, @NotNull File workDir, int warmup, int iterations)
+            throws IOException, InterruptedException {
+        Result result = new Result(workload.name);
+        result.cold = measureInFreshJvm(workload, workDir);
+        for (int i = 0; i < warmup; i++) {
+            measure(workload);
+        }
+        for (int i = 0; i < iterations; i++) {
+            result.warm.add(measure(workload));
+        }
+        return result;
+    }
+
+    @NotNull
+    static Run measure(@NotNull Workload workload) throws IOException {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = Lists.newArrayList();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        Map<Long, Long> allocatedBefore = getAllocatedBytes(threadMXBean);
+        long start = System.nanoTime();
+        int failures = workload.compile(new PrintStream(messages));
+        long time = System.nanoTime() - start;
+        Map<Long, Long> allocatedAfter = getAllocatedBytes(threadMXBean);
+
+        Run run = new Run();
+        run.values.put(TOTAL, time / 1e6);
+        if (allocatedBefore != null && allocatedAfter != null) {
+            long allocated = 0;
+            for (Map.Entry<Long, Long> entry : allocatedAfter.entrySet()) {
+                Long before = allocatedBefore.get(entry.getKey());
+                allocated += entry.getValue() - (before == null ? 0 : before);
+            }
+            run.values.put(ALLOCATED, (double) allocated);
+        }
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        run.values.put(PEAK_HEAP, (double) peakHeap);
+        run.failures = failures;
+        for (String line : messages.toString().split("\n")) {
+            Pair<String, Double> phase = PhaseTiming.parse(line.trim());
+            if (phase != null) {
+                Double sum = run.values.get(phase.first);
+                run.values.put(phase.first, sum == null ? phase.second : sum + phase.second);
+            }
+        }
+        workload.addValues(run.values);
+        return run;
+    }
+
+    @NotNull
+    private static Run measureInFreshJvm(@NotNull Workload workload, @NotNull File workDir) throws IOException, InterruptedException {
+        List<String> command = Lists.newArrayList();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(CompilerBenchmark.class.getName());
+        command.add(WORK_DIR_ARGUMENT);
+        command.add(workDir.getPath());
+        command.add(COLD_RUN_ARGUMENT);
+        command.add(workload.name);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        StringBuilder output = new StringBuilder();
+        Run run = new Run();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append(line).append("\n");
+                if (!line.startsWith(COLD_RUN_PREFIX)) continue;
+
+                String[] keyAndValue = line.substring(COLD_RUN_PREFIX.length()).split("=", 2);
+                if (FAILURES.equals(keyAndValue[0])) {
+                    run.failures = Integer.parseInt(keyAndValue[1]);
+                }
+                else {
+                    run.values.put(keyAndValue[0], Double.parseDouble(keyAndValue[1]));
+                }
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || run.values.isEmpty()) {
+            throw new IllegalStateException("Cold run of " + workload.name + " failed with exit code " + exitCode + ":\n" + output);
+        }
+        return run;
+    }
+
+    private static void printColdRun(@NotNull List<Workload> workloads, @NotNull String workloadName) throws IOException {
+        for (Workload workload : workloads) {
+            if (workload.name.equals(workloadName)) {
+                Run run = measure(workload);
+                for (Map.Entry<String, Double> entry : run.values.entrySet()) {
+                    System.out.println(COLD_RUN_PREFIX + entry.getKey() + "=" + entry.getValue());
+                }
+                System.out.println(COLD_RUN_PREFIX + FAILURES + "=" + run.failures);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unknown workload " + workloadName);
+    }
+
+    /**
+     * @return the bytes allocated so far by each live thread, by thread id, or null if the JVM doesn't count them.
+     * Threads which end during a compilation are not counted, the worker threads of the compiler are kept alive between compilations.
+     */
+    @Nullable
+    private static Map<Long, Long> getAllocatedBytes(@NotNull ThreadMXBean threadMXBean) {
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        long[] ids = threadMXBean.getAllThreadIds();
+        long[] allocated = ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(ids);
+        Map<Long, Long> result = Maps.newHashMap();
+        for (int i = 0; i < ids.length; i++) {
+            // -1 for threads which ended after their ids were taken
+            if (allocated[i] >= 0) {
+                result.put(ids[i], allocated[i]);
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private static List<String> checkBudget(@NotNull List<Result> results, @NotNull String budgetPath) throws IOException {
+        Properties budget = new Properties();
+        InputStream stream = new FileInputStream(budgetPath);
+        try {
+            budget.load(stream);
+        }
+        finally {
+            stream.close();
+        }
+
+        List<String> violations = Lists.newArrayList();
+        for (Result result : results) {
+            Map<String, Double> warm = result.warmMeans();
+            for (Map.Entry<String, Double> entry : warm.entrySet()) {
+                String key = result.workload + "." + entry.getKey();
+                String limit = budget.getProperty(key);
+                if (limit != null && entry.getValue() > Double.parseDouble(limit)) {
+                    violations.add("Budget exceeded: " + key + " = " + format(entry.getValue()) + ", limit " + limit);
+                }
+            }
+        }
+        return violations;
+    }
+
+    @NotNull
+    private static String toJson(@NotNull List<Result> results) {
+        StringBuilder sb = new StringBuilder("{\n  \"workloads\": [");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"name\": \"").append(result.workload).append("\", ");
+            sb.append("\"failedCompilations\": ").append(result.cold.failures).append(", ");
+            sb.append("\"cold\": ").append(toJson(result.cold.values)).append(", ");
+            sb.append("\"warm\": ").append(toJson(result.warmMeans())).append(", ");
+            sb.append("\"warmRuns\": ").append(result.warm.size()).append("}");
+        }
+        return sb.append("\n  ]\n}\n").toString();
+    }
+
+    @NotNull
+    private static String toJson(@NotNull Map<String, Double> values) {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append("\"").append(entry.getKey()).append("\": ").append(format(entry.getValue()));
+        }
+        return sb.append("}").toString();
+    }
+
+    @NotNull
+    private static String format(double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+
+    static abstract class Workload {
+        @NotNull
+        final String name;
+
+        Workload(@NotNull String name) {
+            this.name = name;
+        }
+
+        /**
+         * Runs all compilations of the workload with their messages printed to the given stream
+         *
+         * @return the number of compilations which failed
+         */
+        abstract int compile(@NotNull PrintStream messages);
+
+        /**
+         * Puts the values the workload measures on its own after the compilation, such as the size of the output
+         */
+        void addValues(@NotNull Map<String, Double> values) throws IOException {
+        }
+    }
+
+    static class JvmWorkload extends Workload {
+        @NotNull
+        private final List<File> sources;
+        @NotNull
+        private final String classpath;
+        @NotNull
+        private final File outputDir;
+        @NotNull
+        private final List<String> extraArguments;
+
+        /**
+         * @param sources each of them is compiled separately
+         */
+        JvmWorkload(@NotNull String name, @NotNull List<File> sources, @NotNull String classpath, @NotNull File outputDir) {
+            this(name, sources, classpath, outputDir, Collections.<String>emptyList());
+        }
+
+        /**
+         * @param extraArguments passed to the compiler in addition to the ones every workload uses, e.g. to enable an optimization
+         */
+        JvmWorkload(
+                @NotNull String name,
+                @NotNull List<File> sources,
+                @NotNull String classpath,
+                @NotNull File outputDir,
+                @NotNull List<String> extraArguments
+        ) {
+            super(name);
+            this.sources = sources;
+            this.classpath = classpath;
+            this.outputDir = outputDir;
+            this.extraArguments = extraArguments;
+        }
+
+        @Override
+        int compile(@NotNull PrintStream messages) {
+            int failures = 0;
+            for (File source : sources) {
+                List<String> arguments = Lists.newArrayList(
+                        "-src", source.getPath(),
+                        "-output", outputDir.getPath(),
+                        "-noStdlib",
+                        "-noJdkAnnotations",
+                        "-annotations", "./jdk-annotations",
+                        "-classpath", classpath,
+                        "-verbose");
+                arguments.addAll(extraArguments);
+                ExitCode exitCode = new K2JVMCompiler().exec(messages, ArrayUtil.toStringArray(arguments));
+                if (exitCode != ExitCode.OK) {
+                    failures++;
+                }
+            }
+            return failures;
+        }
+
+        @Override
+        void addValues(@NotNull Map<String, Double> values) {
+            values.put("classBytes", (double) classBytes(outputDir));
+        }
+
+        private static long classBytes(@NotNull File dir) {
+            long size = 0;
+            File[] children = dir.listFiles();
+            if (children == null) return 0;
+            for (File child : children) {
+                size += child.isDirectory() ? classBytes(child) : child.getName().endsWith(".class") ? child.length() : 0;
+            }
+            return size;
+        }
+    }
+
+    static class JsWorkload extends Workload {
+        @NotNull
+        private final List<String> sources;
+        @NotNull
+        private final File outputFile;
+        @Nullable
+        private final List<String> exportedNames;
+
+        JsWorkload(@NotNull String name, @NotNull List<String> sources, @NotNull File outputFile) {
+            this(name, sources, outputFile, null);
+        }
+
+        /**
+         * @param exportedNames if not null, dead code is eliminated keeping these declarations
+         */
+        JsWorkload(@NotNull String name, @NotNull List<String> sources, @NotNull File outputFile, @Nullable List<String> exportedNames) {
+            super(name);
+            this.sources = sources;
+            this.outputFile = outputFile;
+            this.exportedNames = exportedNames;
+        }
+
+        @Override
+        int compile(@NotNull PrintStream messages) {
+            List<String> libraryFiles = Lists.newArrayList();
+            for (String file : Config.LIB_FILE_NAMES) {
+                libraryFiles.add(Config.LIBRARIES_LOCATION + file);
+            }
+
+            K2JSCompilerArguments arguments = new K2JSCompilerArguments();
+            arguments.sourceFiles = ArrayUtil.toStringArray(sources);
+            arguments.libraryFiles = ArrayUtil.toStringArray(libraryFiles);
+            arguments.outputFile = outputFile.getPath();
+            arguments.main = "noCall";
+            arguments.verbose = true;
+            if (exportedNames != null) {
+                arguments.eliminateDeadCode = true;
+                arguments.exports = ArrayUtil.toStringArray(exportedNames);
+            }
+            return new K2JSCompiler().exec(messages, arguments) == ExitCode.OK ? 0 : 1;
+        }
+
+        @Override
+        void addValues(@NotNull Map<String, Double> values) {
+            values.put("outputBytes", (double) outputFile.length());
+        }
+    }
+
+    static class Run {
+        // phase, total time in milliseconds, allocated and peak heap bytes
+        final Map<String, Double> values = Maps.newLinkedHashMap();
+        int failures;
+    }
+
+    static class Result {
+        @NotNull
+        final String workload;
+        Run cold;
+        final List<Run> warm = Lists.newArrayList();
+
+        Result(@NotNull String workload) {
+            this.workload = workload;
+        }
+
+        @NotNull
+        Map<String, Double> warmMeans() {
+            Map<String, Double> means = Maps.newLinkedHashMap();
+            for (Run run : warm) {
+                for (Map.Entry<String, Double> entry : run.values.entrySet()) {
+                    Double sum = means.get(entry.getKey());
+                    means.put(entry.getKey(), (sum == null ? 0 : sum) + entry.getValue() / warm.size());
+                }
+            }
+            return means;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "  %-12s %15s %15s%n", "", "cold", "warm"));
+            Map<String, Double> warmMeans = warmMeans();
+            for (Map.Entry<String, Double> entry : cold.values.entrySet()) {
+                Double warmValue = warmMeans.get(entry.getKey());
+                sb.append(String.format(Locale.US, "  %-12s %15.1f %15s%n", entry.getKey(), entry.getValue(),
+                                        warmValue == null ? "-" : String.format(Locale.US, "%.1f", warmValue)));
+            }
+            if (cold.failures > 0) {
+                sb.append("  ").append(cold.failures).append(" compilations failed\n");
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.perf;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.codegen.forTestCompile.ForTestCompileRuntime;
+import org.jetbrains.jet.test.TestCaseWithTmpdir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+public class CompilerBenchmarkTest extends TestCaseWithTmpdir {
+    private File sources;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        sources = new File(tmpdir, "src");
+        SyntheticSources.generateClasses(new File(sources, "classes"), 3, 4);
+        SyntheticSources.generateGenerics(new File(sources, "generics"), 2, 3, 5);
+        SyntheticSources.generateOverloads(new File(sources, "overloads"), 2, 3);
+    }
+
+    public void testSyntheticSourcesCompileToJvm() throws IOException {
+        CompilerBenchmark.Workload workload = new CompilerBenchmark.JvmWorkload(
+                "jvm", Collections.singletonList(sources), ForTestCompileRuntime.runtimeJarForTests().getPath(), new File(tmpdir, "out"));
+        checkRun(CompilerBenchmark.measure(workload), "setup", "analyze", "generate", "write");
+    }
+
+    public void testSyntheticSourcesCompileToJs() throws IOException {
+        CompilerBenchmark.Workload workload = new CompilerBenchmark.JsWorkload(
+                "js", Collections.singletonList(sources.getPath()), new File(tmpdir, "out.js"));
+        checkRun(CompilerBenchmark.measure(workload), "setup", "analyze", "translate", "write");
+    }
+
+    private static void checkRun(@NotNull CompilerBenchmark.Run run, @NotNull String... phases) {
+        assertEquals(0, run.failures);
+        for (String phase : phases) {
+            assertTrue("No timing for " + phase + " in " + run.values, run.values.containsKey(phase));
+        }
+        assertTrue(run.values.containsKey("total"));
+        assertTrue(run.values.containsKey("peakHeap"));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.perf;
+
+import com.google.common.collect.Sets;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.stubs.StubElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.stubs.PsiJetFunctionStub;
+import org.jetbrains.jet.lang.psi.stubs.elements.JetFileStubBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the stubs of a file with thousands of extension functions, as the IDE does to index their receiver types, and counts
+ * the extensions completion has to check for a value of the Target class: those indexed under the names of Target and
+ * its supertypes, and those indexed under the wildcard key. Reports them as "extensions" and "candidates".
+ */
+class ExtensionStubsWorkload extends CompilerBenchmark.Workload {
+    // Short names of the Target class and its supertypes
+    private static final Set<String> TARGET_RECEIVER_NAMES = Sets.newHashSet("Target", "Receiver0", "Any");
+
+    @NotNull
+    private final File source;
+
+    private int extensions;
+    private int candidates;
+
+    ExtensionStubsWorkload(@NotNull String name, @NotNull File source) {
+        super(name);
+        this.source = source;
+    }
+
+    @Override
+    int compile(@NotNull PrintStream messages) {
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            Project project = JetTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(disposable).getProject();
+            JetFile file = JetTestUtils.createFile(source.getName(), FileUtil.loadFile(source, true), project);
+
+            extensions = 0;
+            candidates = 0;
+            countExtensions(new JetFileStubBuilder().buildStubTree(file));
+            return 0;
+        }
+        catch (IOException e) {
+            messages.println(e);
+            return 1;
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    private void countExtensions(@NotNull StubElement<?> stub) {
+        if (stub instanceof PsiJetFunctionStub && ((PsiJetFunctionStub) stub).isExtension()) {
+            extensions++;
+            String receiverTypeShortName = ((PsiJetFunctionStub) stub).getReceiverTypeShortName();
+            if (receiverTypeShortName == null || TARGET_RECEIVER_NAMES.contains(receiverTypeShortName)) {
+                candidates++;
+            }
+        }
+        for (StubElement child : stub.getChildrenStubs()) {
+            countExtensions(child);
+        }
+    }
+
+    @Override
+    void addValues(@NotNull Map<String, Double> values) {
+        values.put("extensions", (double) extensions);
+        values.put("candidates", (double) candidates);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jet.perf;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.ArrayUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.cli.common.ExitCode;
+import org.jetbrains.jet.cli.js.K2JSCompiler;
+import org.jetbrains.jet.cli.js.K2JSCompilerArguments;
+import org.jetbrains.k2js.config.Config;
+import org.mozilla.javascript.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates every source on its own with K2JSCompiler, with or without -minify. Reports the total size of the output as "outputBytes"
+ * and the time Rhino takes to parse all of it as "rhinoParse" (milliseconds).
+ */
+class JsCorpusWorkload extends CompilerBenchmark.Workload {
+    @NotNull
+    private final List<File> sources;
+    @NotNull
+    private final File outputDir;
+    private final boolean minify;
+
+    JsCorpusWorkload(@NotNull String name, @NotNull List<File> sources, @NotNull File outputDir, boolean minify) {
+        super(name);
+        this.sources = sources;
+        this.outputDir = outputDir;
+        this.minify = minify;
+    }
+
+    @Override
+    int compile(@NotNull PrintStream messages) {
+        List<String> libraryFiles = Lists.newArrayList();
+        for (String file : Config.LIB_FILE_NAMES) {
+            libraryFiles.add(Config.LIBRARIES_LOCATION + file);
+        }
+
+        int failures = 0;
+        for (File source : sources) {
+            K2JSCompilerArguments arguments = new K2JSCompilerArguments();
+            arguments.sourceFiles = new String[] {source.getPath()};
+            arguments.libraryFiles = ArrayUtil.toStringArray(libraryFiles);
+            arguments.outputFile = getOutputFile(source).getPath();
+            arguments.main = "noCall";
+            arguments.minify = minify;
+            arguments.verbose = true;
+            if (new K2JSCompiler().exec(messages, arguments) != ExitCode.OK) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    @NotNull
+    private File getOutputFile(@NotNull File source) {
+        return new File(outputDir, FileUtil.getNameWithoutExtension(source) + ".js");
+    }
+
+    @Override
+    void addValues(@NotNull Map<String, Double> values) throws IOException {
+        long outputBytes = 0;
+        long parseTime = 0;
+        Context context = Context.enter();
+        try {
+            context.setOptimizationLevel(-1);
+            for (File source : sources) {
+                File output = getOutputFile(source);
+                if (!output.exists()) continue;
+
+                outputBytes += output.length();
+                String code = FileUtil.loadFile(output);
+                long start = System.nanoTime();
+                context.compileString(code, output.getName(), 1, null);
+                parseTime += System.nanoTime() - start;
+            }
+        }
+        finally {
+            Context.exit();
+        }
+        values.put("outputBytes", (double) outputBytes);
+        values.put("rhinoParse", parseTime / 1e6);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jet.perf;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.Severity;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
+import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.config.LibraryHeaders;
+import org.jetbrains.k2js.config.LibrarySourcesConfig;
+import org.jetbrains.k2js.utils.JetFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analyzes a small file against the js library, either eagerly against its sources or lazily against the archive of its declaration
+ * headers (see {@link LibraryHeaders}), written on the first run. Reports the size of the library text analyzed as "libraryChars"
+ * and the number of resolved functions as "functions".
+ */
+class JsLibraryAnalysisWorkload extends CompilerBenchmark.Workload {
+    private static final String MAIN =
+            "package app\n" +
+            "fun main(args: Array<String>) {\n" +
+            "    val pair = Pair(1, \"one\")\n" +
+            "    println(pair.component2())\n" +
+            "    println(Math.max(pair.first, 2))\n" +
+            "}\n";
+
+    @Nullable
+    private final File headersArchive;
+
+    private int libraryChars;
+    private int functions;
+
+    /**
+     * @param headersArchive the archive to analyze the headers from, or null to analyze the library sources
+     */
+    JsLibraryAnalysisWorkload(@NotNull String name, @Nullable File headersArchive) {
+        super(name);
+        this.headersArchive = headersArchive;
+    }
+
+    @Override
+    int compile(@NotNull PrintStream messages) {
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            JetCoreEnvironment environment = new JetCoreEnvironment(disposable, new CompilerConfiguration());
+            Project project = environment.getProject();
+            List<JetFile> sources = Collections.singletonList(JetFileUtils.createPsiFile("main.kt", MAIN, project));
+
+            final List<JetFile> libraryFiles = loadLibraryFiles(project);
+            Config config;
+            AnalyzeExhaust exhaust;
+            if (headersArchive == null) {
+                config = new Config(project, "main", EcmaVersion.defaultVersion()) {
+                    @NotNull
+                    @Override
+                    protected List<JetFile> generateLibFiles() {
+                        return libraryFiles;
+                    }
+                };
+                exhaust = AnalyzerFacadeForJS.analyzeFiles(sources, Predicates.<PsiFile>alwaysTrue(), config);
+            }
+            else {
+                if (!headersArchive.exists()) {
+                    LibraryHeaders.writeHeaders(libraryFiles, headersArchive);
+                }
+                config = new LibrarySourcesConfig(project, "main", Collections.singletonList(headersArchive.getPath()),
+                                                  EcmaVersion.defaultVersion());
+                exhaust = AnalyzerFacadeForJS.analyzeFilesLazily(sources, Predicates.<PsiFile>alwaysTrue(), config);
+            }
+
+            libraryChars = 0;
+            for (JetFile file : config.getLibFiles()) {
+                libraryChars += file.getTextLength();
+            }
+            functions = exhaust.getBindingContext().getKeys(BindingContext.FUNCTION).size();
+            for (Diagnostic diagnostic : exhaust.getBindingContext().getDiagnostics()) {
+                if (diagnostic.getSeverity() == Severity.ERROR) {
+                    messages.println("Errors in analysis against the js library: " + diagnostic);
+                    return 1;
+                }
+            }
+            return 0;
+        }
+        catch (IOException e) {
+            messages.println(e);
+            return 1;
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    @NotNull
+    private static List<JetFile> loadLibraryFiles(@NotNull Project project) throws IOException {
+        List<JetFile> files = Lists.newArrayList();
+        for (String fileName : Config.LIB_FILE_NAMES) {
+            String text = FileUtil.loadFile(new File(Config.LIBRARIES_LOCATION + fileName), true);
+            files.add(JetFileUtils.createPsiFile(fileName.substring(fileName.lastIndexOf('/') + 1), text, project));
+        }
+        return files;
+    }
+
+    @Override
+    void addValues(@NotNull Map<String, Double> values) {
+        values.put("libraryChars", (double) libraryChars);
+        values.put("functions", (double) functions);
+    }
+}
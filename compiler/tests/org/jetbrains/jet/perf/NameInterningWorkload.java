@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.perf;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.descriptors.ModuleDescriptor;
+import org.jetbrains.jet.lang.descriptors.NamespaceDescriptor;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.jetbrains.jet.lang.resolve.lazy.LazyResolveTestUtil;
+import org.jetbrains.jet.lang.resolve.name.FqNameUnsafe;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.resolve.name.NameInterningHeapTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the declarations of the standard library and counts the names of all of them and the distinct name instances,
+ * as well as their qualified names and the distinct instances of the parents of those. Reports them as "names",
+ * "nameInstances", "fqNames" and "fqNameParents"; the allocated bytes and the peak heap show what the instances cost.
+ */
+class NameInterningWorkload extends CompilerBenchmark.Workload {
+    @NotNull
+    private final File sources;
+
+    private int names;
+    private int nameInstances;
+    private int fqNames;
+    private int fqNameParents;
+
+    NameInterningWorkload(@NotNull String name, @NotNull File sources) {
+        super(name);
+        this.sources = sources;
+    }
+
+    @Override
+    int compile(@NotNull PrintStream messages) {
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            JetCoreEnvironment environment = JetTestUtils.createEnvironmentWithJdkAndNullabilityAnnotationsFromIdea(
+                    disposable, ConfigurationKind.JDK_AND_ANNOTATIONS, TestJdkKind.FULL_JDK);
+            List<File> sourceFiles = Lists.newArrayList();
+            FileUtil.collectMatchedFiles(sources, Pattern.compile(".*?.kt"), sourceFiles);
+            List<JetFile> files = Lists.newArrayList();
+            for (File file : sourceFiles) {
+                files.add(JetPsiFactory.createFile(environment.getProject(), file.getName(), FileUtil.loadFile(file, true)));
+            }
+            ModuleDescriptor module = LazyResolveTestUtil.resolveEagerly(files, environment);
+
+            List<Name> allNames = Lists.newArrayList();
+            List<FqNameUnsafe> allFqNames = Lists.newArrayList();
+            for (Name packageName : LazyResolveTestUtil.getTopLevelPackagesFromFileList(files)) {
+                NamespaceDescriptor namespace = module.getRootNamespace().getMemberScope().getNamespace(packageName);
+                if (namespace == null) {
+                    messages.println("No namespace " + packageName);
+                    return 1;
+                }
+                NameInterningHeapTest.collectNames(namespace, allNames, allFqNames);
+            }
+
+            Set<Object> instances = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            instances.addAll(allNames);
+            names = allNames.size();
+            nameInstances = instances.size();
+
+            instances.clear();
+            for (FqNameUnsafe fqName : allFqNames) {
+                instances.add(fqName.parent());
+            }
+            fqNames = allFqNames.size();
+            fqNameParents = instances.size();
+            return 0;
+        }
+        catch (IOException e) {
+            messages.println(e);
+            return 1;
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    @Override
+    void addValues(@NotNull Map<String, Double> values) {
+        values.put("names", (double) names);
+        values.put("nameInstances", (double) nameInstances);
+        values.put("fqNames", (double) fqNames);
+        values.put("fqNameParents", (double) fqNameParents);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.jet.perf;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.ArrayUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.cli.common.ExitCode;
+import org.jetbrains.jet.cli.js.K2JSCompiler;
+import org.jetbrains.jet.cli.js.K2JSCompilerArguments;
+import org.jetbrains.k2js.config.Config;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptableObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates a single source with K2JSCompiler and runs the given functions of the output in Rhino, on top of the same
+ * js runtime the js tests use. Reports the time every function takes as "run.&lt;function&gt;" (milliseconds)
+ * and fails if a function does not return what is expected.
+ */
+class RhinoWorkload extends CompilerBenchmark.Workload {
+    private static final String[] JS_RUNTIME = {"kotlin_lib_ecma3.js", "kotlin_lib.js", "maps.js"};
+
+    @NotNull
+    private final File source;
+    @NotNull
+    private final File outputFile;
+    @NotNull
+    private final String namespace;
+    @NotNull
+    private final Map<String, Object> expectedResults;
+
+    RhinoWorkload(@NotNull String name, @NotNull File source, @NotNull File outputFile, @NotNull String namespace,
+            @NotNull Map<String, Object> expectedResults) {
+        super(name);
+        this.source = source;
+        this.outputFile = outputFile;
+        this.namespace = namespace;
+        this.expectedResults = expectedResults;
+    }
+
+    @Override
+    int compile(@NotNull PrintStream messages) {
+        List<String> libraryFiles = Lists.newArrayList();
+        for (String file : Config.LIB_FILE_NAMES) {
+            libraryFiles.add(Config.LIBRARIES_LOCATION + file);
+        }
+
+        K2JSCompilerArguments arguments = new K2JSCompilerArguments();
+        arguments.sourceFiles = new String[] {source.getPath()};
+        arguments.libraryFiles = ArrayUtil.toStringArray(libraryFiles);
+        arguments.outputFile = outputFile.getPath();
+        arguments.main = "noCall";
+        arguments.verbose = true;
+        return new K2JSCompiler().exec(messages, arguments) == ExitCode.OK ? 0 : 1;
+    }
+
+    @Override
+    void addValues(@NotNull Map<String, Double> values) throws IOException {
+        Context context = Context.enter();
+        try {
+            ScriptableObject scope = context.initStandardObjects();
+            for (String file : JS_RUNTIME) {
+                evaluateFile(context, scope, new File(CompilerBenchmark.JS_TEST_FILES + file));
+            }
+            evaluateFile(context, scope, outputFile);
+
+            String moduleId = FileUtil.getNameWithoutExtension(outputFile);
+            for (Map.Entry<String, Object> entry : expectedResults.entrySet()) {
+                String call = "Kotlin.modules['" + moduleId + "']." + namespace + "." + entry.getKey() + "()";
+                long start = System.nanoTime();
+                Object result = context.evaluateString(scope, call, call, 1, null);
+                values.put("run." + entry.getKey(), (System.nanoTime() - start) / 1e6);
+
+                if (!entry.getValue().equals(result)) {
+                    throw new IllegalStateException(call + " returned " + Context.toString(result) + " instead of " + entry.getValue());
+                }
+            }
+        }
+        finally {
+            Context.exit();
+        }
+    }
+
+    private static void evaluateFile(@NotNull Context context, @NotNull ScriptableObject scope, @NotNull File file) throws IOException {
+        context.evaluateString(scope, FileUtil.loadFile(file), file.getPath(), 1, null);
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.perf;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Generates Kotlin sources stressing particular parts of the compiler. The output depends only on the parameters,
+ * so the same workload is compiled on every run and by every version of the compiler.
+ * The sources use no library declarations and can be compiled both to JVM and to JS.
+ */
+public class SyntheticSources {
+    private SyntheticSources() {
+    }
+
+    /**
+     * Many classes with inheritance, overrides, string templates and loops, referencing each other within and across packages
+     */
+    public static void generateClasses(@NotNull File dir, int packages, int classesPerPackage) throws IOException {
+        for (int p = 0; p < packages; p++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("package synthetic.classes.p").append(p).append("\n\n");
+            for (int c = 0; c < classesPerPackage; c++) {
+                String suffix = p + "_" + c;
+                String next = "Impl" + p + "_" + ((c + 1) % classesPerPackage);
+                sb.append("public trait Node").append(suffix).append(" {\n");
+                sb.append("    public fun weight(): Int\n");
+                sb.append("}\n\n");
+
+                sb.append("public open class Base").append(suffix).append("(public val id: Int) : Node").append(suffix).append(" {\n");
+                sb.append("    public var counter: Int = 0\n");
+                sb.append("    override fun weight(): Int = id * 2\n");
+                sb.append("    public open fun describe(): String = \"Base").append(suffix).append("#$id\"\n");
+                sb.append("}\n\n");
+
+                sb.append("public class Impl").append(suffix).append("(id: Int, public val name: String) : Base").append(suffix)
+                        .append("(id) {\n");
+                sb.append("    override fun weight(): Int = super.weight() + name.length\n");
+                sb.append("    override fun describe(): String = \"Impl").append(suffix).append("($name, ${weight()})\"\n");
+                sb.append("    public fun link(): ").append(next).append(" = ").append(next).append("(id + 1, name)\n");
+                if (p > 0) {
+                    String previous = "synthetic.classes.p" + (p - 1) + ".Impl" + (p - 1) + "_" + c;
+                    sb.append("    public fun previous(): ").append(previous).append(" = ").append(previous).append("(id - 1, name)\n");
+                }
+                sb.append("    public fun compute(n: Int): Int {\n");
+                sb.append("        var sum = 0\n");
+                sb.append("        for (i in 0..n) {\n");
+                sb.append("            sum += when (i % 3) {\n");
+                sb.append("                0 -> weight()\n");
+                sb.append("                1 -> link().weight() + i\n");
+                sb.append("                else -> -i\n");
+                sb.append("            }\n");
+                sb.append("        }\n");
+                sb.append("        counter += sum\n");
+                sb.append("        return sum\n");
+                sb.append("    }\n");
+                sb.append("}\n\n");
+            }
+            write(dir, "classes" + p + ".kt", sb);
+        }
+    }
+
+    /**
+     * Deep generic class hierarchies and nested generic calls, so that type inference and subtyping checks dominate
+     */
+    public static void generateGenerics(@NotNull File dir, int files, int functionsPerFile, int depth) throws IOException {
+        for (int f = 0; f < files; f++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("package synthetic.generics.g").append(f).append("\n\n");
+            sb.append("public open class Holder<T>(public val value: T) {\n");
+            sb.append("    public fun <R> map(transform: (T) -> R): Holder<R> = Holder<R>(transform(value))\n");
+            sb.append("}\n\n");
+            sb.append("public class Two<A, B>(public val first: A, public val second: B)\n\n");
+            sb.append("public fun <A, B> two(a: A, b: B): Two<A, B> = Two(a, b)\n\n");
+            sb.append("public open class Level0<T>(value: T) : Holder<T>(value)\n");
+            for (int d = 1; d <= depth; d++) {
+                sb.append("public open class Level").append(d).append("<T>(value: T) : Level").append(d - 1).append("<T>(value)\n");
+            }
+            sb.append("\npublic fun <T> wrap(value: T): Level").append(depth).append("<T> = Level").append(depth).append("(value)\n\n");
+
+            for (int i = 0; i < functionsPerFile; i++) {
+                sb.append("public fun use").append(i).append("(): Int {\n");
+                sb.append("    val p = two(two(wrap(").append(i).append("), Holder(\"a\")), two(wrap(wrap(1)), two(Holder(Holder(2)), wrap(two(3, \"b\")))))\n");
+                sb.append("    val a = p.first.first.map { it + 1 }.value\n");
+                sb.append("    val b = p.second.first.value.value\n");
+                sb.append("    val c = p.second.second.first.value.value\n");
+                sb.append("    val d = p.second.second.second.value.first\n");
+                sb.append("    return a + b + c + d + p.first.second.value.length\n");
+                sb.append("}\n\n");
+            }
+            write(dir, "generics" + f + ".kt", sb);
+        }
+    }
+
+    /**
+     * Calls of heavily overloaded members and extensions, where the most specific candidate has to be chosen among many applicable ones
+     */
+    public static void generateOverloads(@NotNull File dir, int files, int functionsPerFile) throws IOException {
+        for (int f = 0; f < files; f++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("package synthetic.overloads.o").append(f).append("\n\n");
+            sb.append("public trait Shape\n");
+            sb.append("public open class A() : Shape\n");
+            sb.append("public open class B() : A()\n");
+            sb.append("public class C() : B()\n\n");
+
+            sb.append("public class Overloads() {\n");
+            String[] signatures = {
+                    "a: Any", "a: Shape", "a: A", "a: B", "a: Int", "a: Long", "a: String",
+                    "a: A, b: A", "a: B, b: A", "a: A, b: B", "a: B, b: B", "a: Int, b: String", "a: String, b: Int"
+            };
+            for (int s = 0; s < signatures.length; s++) {
+                sb.append("    public fun f(").append(signatures[s]).append("): Int = ").append(s).append("\n");
+            }
+            sb.append("}\n\n");
+
+            sb.append("public fun A.g(x: Int): Int = x\n");
+            sb.append("public fun B.g(x: Int): Int = x + 1\n");
+            sb.append("public fun A.g(x: String): Int = x.length\n\n");
+
+            for (int i = 0; i < functionsPerFile; i++) {
+                sb.append("public fun calls").append(i).append("(o: Overloads): Int {\n");
+                sb.append("    return o.f(C()) + o.f(A()) + o.f(").append(i).append(") + o.f(1.toLong()) + o.f(\"s\") + o.f(1.0) +\n");
+                sb.append("           o.f(A(), C()) + o.f(C(), A()) + o.f(C(), C()) + o.f(1, \"s\") + o.f(\"s\", 1) +\n");
+                sb.append("           o.f(object : Shape {}) + C().g(1) + A().g(\"s\")\n");
+                sb.append("}\n\n");
+            }
+            write(dir, "overloads" + f + ".kt", sb);
+        }
+    }
+
+    /**
+     * A state machine function with many local variables and branches, so that control and data flow analysis of a single
+     * large pseudocode dominates
+     */
+    public static void generateLargeFunction(@NotNull File dir, int variables) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package synthetic.largeFunction\n\n");
+        sb.append("public fun stateMachine(initial: Int): Int {\n");
+        sb.append("    var state = initial\n");
+        sb.append("    var result = 0\n");
+        for (int i = 0; i < variables; i++) {
+            sb.append("    val v").append(i).append(" = ").append(i).append("\n");
+        }
+        sb.append("    while (state >= 0) {\n");
+        sb.append("        when (state) {\n");
+        for (int i = 0; i < variables; i++) {
+            sb.append("            ").append(i).append(" -> { result += v").append(i).append("; state = ").append(i + 1).append(" }\n");
+        }
+        sb.append("            else -> state = -1\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("    return result\n");
+        sb.append("}\n");
+        write(dir, "largeFunction.kt", sb);
+    }
+
+    /**
+     * A test file with many small library files and "main.kt" using just one of them, in "// FILE:" sections
+     */
+    public static void generateLibraryUsage(@NotNull File dir, int libraryFiles) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < libraryFiles; i++) {
+            sb.append("// FILE: lib").append(i).append(".kt\n");
+            sb.append("package lib\n");
+            sb.append("open class C").append(i).append("(val x: Int) {\n");
+            sb.append("    fun plus(other: C").append(i).append("): C").append(i).append(" = C").append(i).append("(x + other.x)\n");
+            sb.append("    fun twice() = plus(this)\n");
+            sb.append("}\n");
+            sb.append("fun c").append(i).append("() = C").append(i).append("(").append(i).append(").twice()\n");
+        }
+        sb.append("// FILE: main.kt\n");
+        sb.append("package app\n");
+        sb.append("fun main(args: Array<String>) = println(lib.c0().x)\n");
+        write(dir, "library-usage.kt", sb);
+    }
+
+    /**
+     * Many extension functions spread over unrelated receiver types, and a few for the Target class and for any type
+     */
+    public static void generateExtensions(@NotNull File dir, int receiverTypes, int extensions) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package synthetic.extensions\n\n");
+        for (int i = 0; i < receiverTypes; i++) {
+            sb.append("public open class Receiver").append(i).append("\n");
+        }
+        for (int i = 0; i < extensions; i++) {
+            sb.append("public fun Receiver").append(i % receiverTypes).append(".extension").append(i).append("(): Int = ").append(i).append("\n");
+        }
+        sb.append("public class Target : Receiver0()\n");
+        sb.append("public fun Target.targetExtension(): Int = 0\n");
+        sb.append("public fun <T> T.anyExtension(): Int = 0\n");
+        write(dir, "extensions.kt", sb);
+    }
+
+    /**
+     * One file with many independent functions, so that resolving all bodies of the file costs much more than resolving one of them
+     */
+    public static void generateBodies(@NotNull File dir, int functions) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("package synthetic.bodies\n\n");
+        for (int i = 0; i < functions; i++) {
+            sb.append("public fun f").append(i).append("(p: Int): Int {\n");
+            sb.append("    val x").append(i).append(" = p * ").append(i).append(" + \"\".length\n");
+            sb.append("    val s: String = \"$p\"\n");
+            sb.append("    return x").append(i).append(" + s.length\n");
+            sb.append("}\n\n");
+        }
+        write(dir, "bodies.kt", sb);
+    }
+
+    private static void write(@NotNull File dir, @NotNull String fileName, @NotNull StringBuilder text) throws IOException {
+        FileUtil.writeToFile(new File(dir, fileName), text.toString());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.perf;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.jvm.compiler.CliLightClassGenerationSupport;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.diagnostics.Severity;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.jetbrains.jet.lang.resolve.AnalyzerScriptParameter;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.BindingTrace;
+import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
+import org.jetbrains.jet.lang.resolve.lazy.LazyTopDownAnalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analyzes test files, split into their "// FILE:" sections, with the eager top-down analyzer or with {@link LazyTopDownAnalyzer}.
+ * Either all files of a test file are analyzed completely, or only the one with the given name, the rest is resolved on demand.
+ * Reports the number of resolved functions as "functions".
+ */
+class TopDownAnalysisWorkload extends CompilerBenchmark.Workload {
+    @NotNull
+    private final List<File> sources;
+    @Nullable
+    private final String fileToAnalyzeCompletely;
+    private final boolean lazy;
+
+    private int functions;
+
+    /**
+     * @param fileToAnalyzeCompletely the name of the only section of every source which bodies are resolved, or null for all of them
+     */
+    TopDownAnalysisWorkload(@NotNull String name, @NotNull List<File> sources, @Nullable String fileToAnalyzeCompletely, boolean lazy) {
+        super(name);
+        this.sources = sources;
+        this.fileToAnalyzeCompletely = fileToAnalyzeCompletely;
+        this.lazy = lazy;
+    }
+
+    @Override
+    int compile(@NotNull PrintStream messages) {
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            JetCoreEnvironment environment =
+                    JetTestUtils.createEnvironmentWithMockJdkAndIdeaAnnotations(disposable, ConfigurationKind.JDK_AND_ANNOTATIONS);
+            final Project project = environment.getProject();
+
+            functions = 0;
+            int failures = 0;
+            for (File source : sources) {
+                List<JetFile> files = JetTestUtils.createTestFiles(
+                        source.getName(), FileUtil.loadFile(source, true), new JetTestUtils.TestFileFactory<JetFile>() {
+                            @Override
+                            public JetFile create(String fileName, String text) {
+                                return JetPsiFactory.createFile(project, fileName, text);
+                            }
+                        });
+
+                AnalyzeExhaust exhaust = analyze(environment, files);
+                functions += exhaust.getBindingContext().getKeys(BindingContext.FUNCTION).size();
+                if (hasErrors(exhaust.getBindingContext())) {
+                    messages.println("Errors in " + source.getPath());
+                    failures++;
+                }
+            }
+            return failures;
+        }
+        catch (IOException e) {
+            messages.println(e);
+            return 1;
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    @NotNull
+    private AnalyzeExhaust analyze(@NotNull JetCoreEnvironment environment, @NotNull List<JetFile> files) {
+        Project project = environment.getProject();
+        Predicate<PsiFile> filesToAnalyzeCompletely = fileToAnalyzeCompletely == null ? Predicates.<PsiFile>alwaysTrue() : new Predicate<PsiFile>() {
+            @Override
+            public boolean apply(PsiFile file) {
+                return file.getName().equals(fileToAnalyzeCompletely);
+            }
+        };
+
+        JetTestUtils.newTrace(environment);
+        BindingTrace trace = CliLightClassGenerationSupport.getInstanceForCli(project).getTrace();
+        if (lazy) {
+            return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegrationLazily(project, files, trace, filesToAnalyzeCompletely);
+        }
+        return AnalyzerFacadeForJVM.analyzeFilesWithJavaIntegration(
+                project, files, trace, Collections.<AnalyzerScriptParameter>emptyList(), filesToAnalyzeCompletely, false);
+    }
+
+    private static boolean hasErrors(@NotNull BindingContext bindingContext) {
+        for (Diagnostic diagnostic : bindingContext.getDiagnostics()) {
+            if (diagnostic.getSeverity() == Severity.ERROR) return true;
+        }
+        return false;
+    }
+
+    @Override
+    void addValues(@NotNull Map<String, Double> values) {
+        values.put("functions", (double) functions);
+    }
+}
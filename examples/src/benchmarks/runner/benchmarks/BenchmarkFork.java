@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Runs the main method of a benchmark in a fresh JVM: first the warmup invocations, then the measured ones. The output of
+ * the benchmark is discarded, the time of each measured invocation is printed as a line starting with {@link #RESULT_PREFIX}.
+ *
+ * Usage: BenchmarkFork <main class> <warmup invocations> <measured invocations> [benchmark arguments]
+ */
+public class BenchmarkFork {
+    public static final String RESULT_PREFIX = "[benchmark result] ";
+
+    public static void main(String[] args) throws Exception {
+        Method main = Class.forName(args[0]).getMethod("main", String[].class);
+        int warmup = Integer.parseInt(args[1]);
+        int iterations = Integer.parseInt(args[2]);
+        String[] benchmarkArgs = Arrays.copyOfRange(args, 3, args.length);
+
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        }));
+        try {
+            for (int i = 0; i < warmup; i++) {
+                invoke(main, benchmarkArgs);
+            }
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                invoke(main, benchmarkArgs);
+                out.println(RESULT_PREFIX + (System.nanoTime() - start));
+            }
+        }
+        finally {
+            System.setOut(out);
+        }
+    }
+
+    private static void invoke(Method main, String[] args) throws Exception {
+        try {
+            main.invoke(null, (Object) args.clone());
+        }
+        catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs every Kotlin/Java pair of the benchmark list in forked JVMs and writes a JSON report with the times of both sides
+ * and their ratio, so a regression of the generated code shows up as a growing ratio.
+ *
+ * Usage: BenchmarkRunner <benchmark list> <report file>
+ *
+ * The classpaths of the compiled Java and Kotlin benchmarks are taken from the "benchmarks.java.classpath" and
+ * "benchmarks.kotlin.classpath" system properties, the defaults for the number of forks, warmup and measured invocations
+ * from "benchmarks.forks", "benchmarks.warmup" and "benchmarks.iterations".
+ * A single benchmark can be selected with "benchmarks.only".
+ *
+ * Each line of the list is "name javaMainClass kotlinMainClass [warmup=N] [iterations=N] [benchmark arguments]",
+ * lines starting with '#' are ignored.
+ */
+public class BenchmarkRunner {
+    private static final String WARMUP = "warmup=";
+    private static final String ITERATIONS = "iterations=";
+
+    private final String javaClasspath = System.getProperty("benchmarks.java.classpath", "");
+    private final String kotlinClasspath = System.getProperty("benchmarks.kotlin.classpath", "");
+    private final int forks = Integer.getInteger("benchmarks.forks", 2);
+    private final int defaultWarmup = Integer.getInteger("benchmarks.warmup", 2);
+    private final int defaultIterations = Integer.getInteger("benchmarks.iterations", 5);
+    private final String only = System.getProperty("benchmarks.only");
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkRunner <benchmark list> <report file>");
+            System.exit(1);
+        }
+
+        List<Benchmark> benchmarks = new BenchmarkRunner().run(readBenchmarks(new File(args[0])));
+
+        String report = toJson(benchmarks);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(args[1]), "UTF-8");
+        try {
+            writer.write(report);
+        }
+        finally {
+            writer.close();
+        }
+        System.out.println(report);
+    }
+
+    private List<Benchmark> run(List<Benchmark> benchmarks) throws Exception {
+        List<Benchmark> result = new ArrayList<Benchmark>();
+        for (Benchmark benchmark : benchmarks) {
+            if (only != null && !only.equals(benchmark.name)) {
+                continue;
+            }
+
+            System.out.println("Running " + benchmark.name);
+            benchmark.javaTimes = measure(benchmark, benchmark.javaMainClass, javaClasspath);
+            benchmark.kotlinTimes = measure(benchmark, benchmark.kotlinMainClass, kotlinClasspath);
+            System.out.println(String.format(Locale.US, "  java: %.2f ms, kotlin: %.2f ms, kotlin/java: %.3f",
+                                             mean(benchmark.javaTimes), mean(benchmark.kotlinTimes), benchmark.ratio()));
+            result.add(benchmark);
+        }
+        return result;
+    }
+
+    private List<Double> measure(Benchmark benchmark, String mainClass, String benchmarkClasspath) throws Exception {
+        String runnerClasspath = System.getProperty("java.class.path");
+        List<String> command = new ArrayList<String>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        command.add("-cp");
+        command.add(benchmarkClasspath + File.pathSeparator + runnerClasspath);
+        command.add(BenchmarkFork.class.getName());
+        command.add(mainClass);
+        command.add(String.valueOf(benchmark.warmup >= 0 ? benchmark.warmup : defaultWarmup));
+        command.add(String.valueOf(benchmark.iterations > 0 ? benchmark.iterations : defaultIterations));
+        command.addAll(benchmark.arguments);
+
+        List<Double> times = new ArrayList<Double>();
+        for (int fork = 0; fork < forks; fork++) {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            StringBuilder output = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(BenchmarkFork.RESULT_PREFIX)) {
+                    times.add(Long.parseLong(line.substring(BenchmarkFork.RESULT_PREFIX.length())) / 1e6);
+                }
+                else {
+                    output.append(line).append('\n');
+                }
+            }
+            if (process.waitFor() != 0) {
+                throw new IllegalStateException("Benchmark " + benchmark.name + " (" + mainClass + ") failed:\n" + output);
+            }
+        }
+        return times;
+    }
+
+    private static List<Benchmark> readBenchmarks(File file) throws IOException {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                List<String> parts = new ArrayList<String>(Arrays.asList(line.split("\\s+")));
+                if (parts.size() < 3) {
+                    throw new IllegalArgumentException("Expected \"name javaMainClass kotlinMainClass\": " + line);
+                }
+                Benchmark benchmark = new Benchmark(parts.get(0), parts.get(1), parts.get(2));
+                for (String part : parts.subList(3, parts.size())) {
+                    if (part.startsWith(WARMUP)) {
+                        benchmark.warmup = Integer.parseInt(part.substring(WARMUP.length()));
+                    }
+                    else if (part.startsWith(ITERATIONS)) {
+                        benchmark.iterations = Integer.parseInt(part.substring(ITERATIONS.length()));
+                    }
+                    else {
+                        benchmark.arguments.add(part);
+                    }
+                }
+                benchmarks.add(benchmark);
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return benchmarks;
+    }
+
+    private static String toJson(List<Benchmark> benchmarks) {
+        StringBuilder sb = new StringBuilder("{\n  \"unit\": \"ms\",\n  \"benchmarks\": [");
+        for (int i = 0; i < benchmarks.size(); i++) {
+            Benchmark benchmark = benchmarks.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"name\": \"").append(benchmark.name).append("\", ");
+            sb.append("\"java\": ").append(timesToJson(benchmark.javaTimes)).append(", ");
+            sb.append("\"kotlin\": ").append(timesToJson(benchmark.kotlinTimes)).append(", ");
+            sb.append("\"ratio\": ").append(format(benchmark.ratio())).append("}");
+        }
+        return sb.append("\n  ]\n}\n").toString();
+    }
+
+    private static String timesToJson(List<Double> times) {
+        return "{\"mean\": " + format(mean(times)) + ", \"min\": " + format(min(times)) + ", \"samples\": " + times.size() + "}";
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+
+    private static double mean(List<Double> times) {
+        double sum = 0;
+        for (double time : times) {
+            sum += time;
+        }
+        return times.isEmpty() ? 0 : sum / times.size();
+    }
+
+    private static double min(List<Double> times) {
+        double min = Double.MAX_VALUE;
+        for (double time : times) {
+            min = Math.min(min, time);
+        }
+        return times.isEmpty() ? 0 : min;
+    }
+
+    private static class Benchmark {
+        final String name;
+        final String javaMainClass;
+        final String kotlinMainClass;
+        final List<String> arguments = new ArrayList<String>();
+        int warmup = -1;
+        int iterations = -1;
+
+        List<Double> javaTimes;
+        List<Double> kotlinTimes;
+
+        Benchmark(String name, String javaMainClass, String kotlinMainClass) {
+            this.name = name;
+            this.javaMainClass = javaMainClass;
+            this.kotlinMainClass = kotlinMainClass;
+        }
+
+        double ratio() {
+            double java = mean(javaTimes);
+            return java == 0 ? 0 : mean(kotlinTimes) / java;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boxing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Boxing {
+    private static final int SIZE = 10000;
+
+    private static final int ROUNDS = 2000;
+
+    static int sum(int n) {
+        List<Integer> list = new ArrayList<Integer>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(i);
+        }
+        int result = 0;
+        for (Integer x : list) {
+            Integer y = x;
+            result += y != null && y % 2 == 0 ? y : 1;
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        long start = System.currentTimeMillis();
+
+        long checksum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            checksum += sum(SIZE + round % 10);
+        }
+
+        long total = System.currentTimeMillis() - start;
+        System.out.println("checksum: " + checksum);
+        System.out.println("[Boxing-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package boxing
+
+import java.util.ArrayList
+
+// Boxed values and nullable locals, compile with -optimize to see what the peephole optimizer saves
+
+val SIZE = 10000
+
+val ROUNDS = 2000
+
+fun sum(n: Int): Int {
+    val list = ArrayList<Int>(n)
+    for (i in 0..n - 1) list.add(i)
+    var result = 0
+    for (x in list) {
+        val y: Int? = x
+        result += if (y != null && y % 2 == 0) y else 1
+    }
+    return result
+}
+
+fun main(args: Array<String>) {
+    val start = System.currentTimeMillis()
+
+    var checksum = 0L
+    for (round in 0..ROUNDS - 1) {
+        checksum += sum(SIZE + round % 10)
+    }
+
+    val total = System.currentTimeMillis() - start
+    System.out?.println("checksum: " + checksum)
+    System.out?.println("[Boxing-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package collections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Collections {
+    private static final int SIZE = 100000;
+
+    private static final int ROUNDS = 100;
+
+    interface Predicate<T> {
+        boolean apply(T value);
+    }
+
+    interface Transform<T, R> {
+        R apply(T value);
+    }
+
+    interface Operation<R, T> {
+        R apply(R accumulator, T value);
+    }
+
+    static <T> List<T> filter(Iterable<T> iterable, Predicate<T> predicate) {
+        List<T> result = new ArrayList<T>();
+        for (T value : iterable) {
+            if (predicate.apply(value)) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    static <T, R> List<R> map(Iterable<T> iterable, Transform<T, R> transform) {
+        List<R> result = new ArrayList<R>();
+        for (T value : iterable) {
+            result.add(transform.apply(value));
+        }
+        return result;
+    }
+
+    static <T, R> R fold(Iterable<T> iterable, R initial, Operation<R, T> operation) {
+        R result = initial;
+        for (T value : iterable) {
+            result = operation.apply(result, value);
+        }
+        return result;
+    }
+
+    static <T> int count(Iterable<T> iterable, Predicate<T> predicate) {
+        int result = 0;
+        for (T value : iterable) {
+            if (predicate.apply(value)) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        long start = System.currentTimeMillis();
+
+        List<Integer> numbers = new ArrayList<Integer>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            numbers.add(i);
+        }
+
+        long checksum = 0;
+        for (int round = 1; round <= ROUNDS; round++) {
+            final int currentRound = round;
+            List<Long> squares = map(filter(numbers, new Predicate<Integer>() {
+                @Override
+                public boolean apply(Integer value) {
+                    return value % 3 == currentRound % 3;
+                }
+            }), new Transform<Integer, Long>() {
+                @Override
+                public Long apply(Integer value) {
+                    return (long) value * value;
+                }
+            });
+            checksum += fold(squares, 0L, new Operation<Long, Long>() {
+                @Override
+                public Long apply(Long sum, Long value) {
+                    return sum + value % 1000;
+                }
+            });
+            checksum += count(numbers, new Predicate<Integer>() {
+                @Override
+                public boolean apply(Integer value) {
+                    return value % currentRound == 0;
+                }
+            });
+            checksum += ("round " + round + " of " + ROUNDS + ": " + squares.size() + " squares").length();
+        }
+
+        long total = System.currentTimeMillis() - start;
+        System.out.println("checksum: " + checksum);
+        System.out.println("[Collections-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package collections
+
+import java.util.ArrayList
+
+// Closures, ranges, string templates and collection extensions of the standard library
+
+val SIZE = 100000
+
+val ROUNDS = 100
+
+fun main(args: Array<String>) {
+    val start = System.currentTimeMillis()
+
+    val numbers = ArrayList<Int>(SIZE)
+    for (i in 0..SIZE - 1) {
+        numbers.add(i)
+    }
+
+    var checksum = 0L
+    for (round in 1..ROUNDS) {
+        val squares = numbers.filter { it % 3 == round % 3 }.map { it.toLong() * it }
+        checksum += squares.fold(0L) { sum, x -> sum + x % 1000 }
+        checksum += numbers.count { it % round == 0 }
+        checksum += "round $round of $ROUNDS: ${squares.size()} squares".length
+    }
+
+    val total = System.currentTimeMillis() - start
+    System.out?.println("checksum: " + checksum)
+    System.out?.println("[Collections-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+}
@@ -92,13 +92,39 @@ abstract public class FList<T> {
         }
     }
 
+    static <T> FList<T> plus2(FList<T> list, T element) {
+        if (list instanceof Empty) {
+            return new OneElementList<T>(element);
+        }
+        else {
+            return new StandardList<T>(element, list);
+        }
+    }
+
+    static <T> FList<T> plus3(FList<T> list, T element) {
+        return list instanceof Empty ? new OneElementList<T>(element) : new StandardList<T>(element, list);
+    }
+
     public static void main(String[] args) {
-        for(int k = 0; k != 10; ++k) {
+        for(int k = 0; k <= 3; ++k) {
+            long start0 = System.currentTimeMillis();
+            FList<Integer> list0 = new Empty<Integer>();
+            for(int i = 0; i <= 5000000; ++i)
+                list0 = list0.plus(i);
+            System.out.println(System.currentTimeMillis() - start0);
+
             long start = System.currentTimeMillis();
-            FList<Integer> list = new Empty();
-            for(int i = 0; i != 5000000; ++i)
-                list = list.plus(i);
-            System.out.println(System.currentTimeMillis()-start);
+            FList<Integer> list = new Empty<Integer>();
+            for(int i = 0; i <= 5000000; ++i)
+                list = plus2(list, i);
+            System.out.println(System.currentTimeMillis() - start);
+
+            long start2 = System.currentTimeMillis();
+            FList<Integer> list2 = new Empty<Integer>();
+            for(int i = 0; i <= 5000000; ++i)
+                list2 = plus3(list2, i);
+            System.out.println(System.currentTimeMillis() - start2);
+            System.out.println();
         }
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jdbc_insert;
+
+import java.sql.*;
+
+// Inserts rows into an in-memory H2 database: a statement per row, one reused statement, or batches.
+// The Kotlin version does the same with the update, withStatementCache and batch functions of kotlin-jdbc
+
+public class JdbcInsert {
+    private static final int ROWS = 10000;
+
+    private static final int FLUSH_SIZE = 100;
+
+    private static final String INSERT = "insert into items (id, name) values (?, ?)";
+
+    public static void main(String[] args) throws SQLException {
+        long start = System.currentTimeMillis();
+
+        // A private database of its own for every invocation
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:");
+        int checksum;
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.executeUpdate("create table items (id int primary key, name varchar(100))");
+            }
+            finally {
+                statement.close();
+            }
+
+            String mode = args[0];
+            if ("single".equals(mode)) {
+                insertWithStatementPerRow(connection);
+            }
+            else if ("cached".equals(mode)) {
+                insertWithOneStatement(connection);
+            }
+            else if ("batch".equals(mode)) {
+                insertInBatches(connection);
+            }
+            else {
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+            }
+            checksum = countRows(connection);
+        }
+        finally {
+            connection.close();
+        }
+
+        long total = System.currentTimeMillis() - start;
+        System.out.println("checksum: " + checksum);
+        System.out.println("[JdbcInsert-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+    }
+
+    private static void insertWithStatementPerRow(Connection connection) throws SQLException {
+        for (int id = 1; id <= ROWS; id++) {
+            PreparedStatement statement = connection.prepareStatement(INSERT);
+            try {
+                bind(statement, id);
+                statement.executeUpdate();
+            }
+            finally {
+                statement.close();
+            }
+        }
+    }
+
+    private static void insertWithOneStatement(Connection connection) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(INSERT);
+        try {
+            for (int id = 1; id <= ROWS; id++) {
+                bind(statement, id);
+                statement.executeUpdate();
+            }
+        }
+        finally {
+            statement.close();
+        }
+    }
+
+    private static void insertInBatches(Connection connection) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(INSERT);
+        try {
+            for (int id = 1; id <= ROWS; id++) {
+                bind(statement, id);
+                statement.addBatch();
+                if (id % FLUSH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+        }
+        finally {
+            statement.close();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, int id) throws SQLException {
+        statement.setInt(1, id);
+        statement.setString(2, "name" + id);
+    }
+
+    private static int countRows(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("select count(*) from items");
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+        finally {
+            statement.close();
+        }
+    }
+}
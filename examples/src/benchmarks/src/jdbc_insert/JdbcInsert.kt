@@ -0,0 +1,66 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jdbc_insert
+
+import java.sql.DriverManager
+import java.util.ArrayList
+import kotlin.jdbc.*
+import kotlin.template.StringTemplate
+
+// Inserts rows into an in-memory H2 database with the update, withStatementCache and batch functions of kotlin-jdbc
+
+val ROWS = 10000
+
+fun insertTemplate(id : Int) : StringTemplate {
+    // Mimicks "insert into items (id, name) values ($id, ${"name" + id})"
+    return StringTemplate(array("insert into items (id, name) values (", id, ", ", "name" + id, ")"))
+}
+
+fun main(args: Array<String>) {
+    val start = System.currentTimeMillis()
+
+    // A private database of its own for every invocation
+    val checksum = DriverManager.getConnection("jdbc:h2:mem:")!!.use { connection ->
+        connection.update("create table items (id int primary key, name varchar(100))")
+
+        when (args[0]) {
+            "single" -> {
+                for (id in 1..ROWS) {
+                    connection.update(insertTemplate(id))
+                }
+            }
+            "cached" -> connection.withStatementCache { cache ->
+                for (id in 1..ROWS) {
+                    cache.update(insertTemplate(id))
+                }
+            }
+            "batch" -> {
+                val templates = ArrayList<StringTemplate>(ROWS)
+                for (id in 1..ROWS) {
+                    templates.add(insertTemplate(id))
+                }
+                connection.batch(templates)
+            }
+            else -> throw IllegalArgumentException("Unknown mode: ${args[0]}")
+        }
+        connection.query("select count(*) from items") { it.singleInt() }
+    }
+
+    val total = System.currentTimeMillis() - start
+    System.out?.println("checksum: " + checksum)
+    System.out?.println("[JdbcInsert-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+}
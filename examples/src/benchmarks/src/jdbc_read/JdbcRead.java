@@ -0,0 +1,103 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jdbc_read;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+
+// Reads all rows of a table in an in-memory H2 database, either into a map per row or with typed getters by column name.
+// The Kotlin version does the same with getValuesAsMap and the row cursor of kotlin-jdbc
+
+public class JdbcRead {
+    private static final int ROWS = 100000;
+
+    // Filled once per JVM, so that only reading is measured
+    private static final Connection connection = createDatabase();
+
+    private static Connection createDatabase() {
+        try {
+            Connection connection = DriverManager.getConnection("jdbc:h2:mem:");
+            Statement statement = connection.createStatement();
+            try {
+                statement.executeUpdate("create table report (id int primary key, amount bigint, ratio double, name varchar(100))");
+            }
+            finally {
+                statement.close();
+            }
+
+            PreparedStatement insert = connection.prepareStatement("insert into report (id, amount, ratio, name) values (?, ?, ?, ?)");
+            try {
+                for (int id = 1; id <= ROWS; id++) {
+                    insert.setInt(1, id);
+                    insert.setLong(2, id * 10L);
+                    insert.setDouble(3, id / 2.0);
+                    insert.setString(4, "name" + id);
+                    insert.addBatch();
+                    if (id % 1000 == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            finally {
+                insert.close();
+            }
+            return connection;
+        }
+        catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws SQLException {
+        long start = System.currentTimeMillis();
+
+        String mode = args[0];
+        long checksum = 0;
+        Statement statement = connection.createStatement();
+        try {
+            statement.setFetchSize(1000);
+            ResultSet resultSet = statement.executeQuery("select * from report");
+            if ("map".equals(mode)) {
+                ResultSetMetaData meta = resultSet.getMetaData();
+                while (resultSet.next()) {
+                    Map<String, Object> row = new HashMap<String, Object>(meta.getColumnCount());
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        row.put(meta.getColumnLabel(i), resultSet.getObject(i));
+                    }
+                    checksum += (Long) row.get("AMOUNT");
+                }
+            }
+            else if ("cursor".equals(mode)) {
+                while (resultSet.next()) {
+                    checksum += resultSet.getLong("amount");
+                }
+            }
+            else {
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+            }
+        }
+        finally {
+            statement.close();
+        }
+
+        long total = System.currentTimeMillis() - start;
+        System.out.println("checksum: " + checksum);
+        System.out.println("[JdbcRead-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jdbc_read
+
+import java.sql.Connection
+import java.sql.DriverManager
+import java.util.ArrayList
+import kotlin.jdbc.*
+import kotlin.template.StringTemplate
+
+// Reads all rows of a table in an in-memory H2 database with getValuesAsMap or with the row cursor of kotlin-jdbc
+
+val ROWS = 100000
+
+// Filled once per JVM, so that only reading is measured
+val connection : Connection = createDatabase()
+
+fun createDatabase() : Connection {
+    val connection = DriverManager.getConnection("jdbc:h2:mem:")!!
+    connection.update("create table report (id int primary key, amount bigint, ratio double, name varchar(100))")
+    val templates = ArrayList<StringTemplate>(ROWS)
+    for (id in 1..ROWS) {
+        templates.add(StringTemplate(array("insert into report (id, amount, ratio, name) values (", id, ", ", id.toLong() * 10, ", ", id / 2.0, ", ", "name" + id, ")")))
+    }
+    connection.batch(templates, 1000)
+    return connection
+}
+
+fun main(args: Array<String>) {
+    val start = System.currentTimeMillis()
+
+    var checksum = 0.toLong()
+    when (args[0]) {
+        "map" -> connection.query("select * from report") {
+            for (row in it) {
+                checksum += row.getValuesAsMap()["AMOUNT"] as Long
+            }
+        }
+        "cursor" -> connection.cursor("select * from report") {
+            for (row in it) {
+                checksum += row.getLong("amount")
+            }
+        }
+        else -> throw IllegalArgumentException("Unknown mode: ${args[0]}")
+    }
+
+    val total = System.currentTimeMillis() - start
+    System.out?.println("checksum: " + checksum)
+    System.out?.println("[JdbcRead-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging;
+
+public class Logging {
+    private static final int ITERATIONS = 10000000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static String logLine(int requestId, long elapsed, int status) {
+        return "[INFO] request #" + requestId + " finished in " + elapsed + "ms with status " + status +
+               " (buffer " + BUFFER_SIZE / 1024 + "K, limit " + 2 * 1000 + "ms)";
+    }
+
+    public static String debugLine(String name, double value) {
+        return "[DEBUG] " + "metric" + "." + name + " = " + value + ", threshold = " + 0.5 * 2 + ", enabled = " + (1 < 2 && true);
+    }
+
+    public static void main(String[] args) {
+        long start = System.currentTimeMillis();
+
+        long checksum = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            checksum += logLine(i, i % 1000, 200).length();
+            checksum += debugLine("latency", i * 0.25).length();
+        }
+
+        long total = System.currentTimeMillis() - start;
+        System.out.println("checksum: " + checksum);
+        System.out.println("[Logging-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+    }
+}
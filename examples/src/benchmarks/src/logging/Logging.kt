@@ -0,0 +1,43 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package logging
+
+// Logging-heavy code: string templates mixing constant parts, compile-time constant expressions and runtime values
+
+val ITERATIONS = 10000000
+
+val BUFFER_SIZE = 64 * 1024
+
+fun logLine(requestId: Int, elapsed: Long, status: Int): String =
+        "[INFO] request #$requestId finished in ${elapsed}ms with status $status (buffer ${BUFFER_SIZE / 1024}K, limit ${2 * 1000}ms)"
+
+fun debugLine(name: String, value: Double): String =
+        "[DEBUG] ${"metric"}.$name = $value, threshold = ${0.5 * 2}, enabled = ${1 < 2 && true}"
+
+fun main(args: Array<String>) {
+    val start = System.currentTimeMillis()
+
+    var checksum = 0L
+    for (i in 0..ITERATIONS - 1) {
+        checksum += logLine(i, (i % 1000).toLong(), 200).length
+        checksum += debugLine("latency", i * 0.25).length
+    }
+
+    val total = System.currentTimeMillis() - start
+    System.out?.println("checksum: " + checksum)
+    System.out?.println("[Logging-" + System.getProperty("project.name")+ " Benchmark Result: " + total + "]");
+}
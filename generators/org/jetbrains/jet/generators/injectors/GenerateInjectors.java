@@ -218,6 +218,10 @@ public class GenerateInjectors {
         DependencyInjectorGenerator generator = new DependencyInjectorGenerator(false);
         // Fields
         generator.addPublicField(BodyResolver.class);
+        generator.addPublicField(ControlFlowAnalyzer.class);
+        generator.addPublicField(DeclarationsChecker.class);
+        generator.addPublicField(OverrideResolver.class);
+        generator.addPublicField(OverloadResolver.class);
 
         // Parameters
         generator.addPublicParameter(Project.class);
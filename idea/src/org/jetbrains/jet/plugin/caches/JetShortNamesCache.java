@@ -46,7 +46,9 @@ import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
 import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.TypeUtils;
 import org.jetbrains.jet.lang.types.expressions.ExpressionTypingUtils;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 import org.jetbrains.jet.plugin.caches.resolve.IDELightClassGenerationSupport;
 import org.jetbrains.jet.plugin.stubindex.*;
 
@@ -309,24 +311,29 @@ public class JetShortNamesCache extends PsiShortNamesCache {
             JetScope scope = context.get(BindingContext.RESOLUTION_SCOPE, receiverExpression);
 
             if (expressionType != null && scope != null) {
-                Collection<String> extensionFunctionsNames = getAllJetExtensionFunctionsNames(searchScope);
-
                 Set<FqName> functionFQNs = new java.util.HashSet<FqName>();
 
-                // Collect all possible extension function qualified names
-                for (String name : extensionFunctionsNames) {
-                    if (acceptedNameCondition.value(name)) {
-                        Collection<PsiElement> extensionFunctions = getJetExtensionFunctionsByName(name, searchScope);
+                // Collect qualified names of source extension functions declared for the receiver type or its supertypes
+                for (String receiverTypeName : getReceiverTypeShortNames(expressionType)) {
+                    Collection<JetNamedFunction> extensionFunctions =
+                            JetExtensionFunctionReceiverTypeIndex.getInstance().get(receiverTypeName, project, searchScope);
 
-                        for (PsiElement extensionFunction : extensionFunctions) {
-                            if (extensionFunction instanceof JetNamedFunction) {
-                                functionFQNs.add(JetPsiUtil.getFQName((JetNamedFunction) extensionFunction));
-                            }
-                            else if (extensionFunction instanceof PsiMethod) {
-                                FqName functionFQN = JetFromJavaDescriptorHelper.getJetTopLevelDeclarationFQN((PsiMethod) extensionFunction);
-                                if (functionFQN != null) {
-                                    functionFQNs.add(functionFQN);
-                                }
+                    for (JetNamedFunction extensionFunction : extensionFunctions) {
+                        String name = extensionFunction.getName();
+                        if (name != null && acceptedNameCondition.value(name)) {
+                            functionFQNs.add(JetPsiUtil.getFQName(extensionFunction));
+                        }
+                    }
+                }
+
+                // Compiled extension functions are only known by name
+                for (String name : JetFromJavaDescriptorHelper.getTopExtensionFunctionNames(project, searchScope)) {
+                    if (acceptedNameCondition.value(name)) {
+                        for (PsiMethod extensionFunction : JetFromJavaDescriptorHelper.getTopExtensionFunctionPrototypesByName(
+                                name, project, searchScope)) {
+                            FqName functionFQN = JetFromJavaDescriptorHelper.getJetTopLevelDeclarationFQN(extensionFunction);
+                            if (functionFQN != null) {
+                                functionFQNs.add(functionFQN);
                             }
                         }
                     }
@@ -346,6 +353,30 @@ public class JetShortNamesCache extends PsiShortNamesCache {
         return resultDescriptors;
     }
 
+    /**
+     * Keys of {@link JetExtensionFunctionReceiverTypeIndex} for extensions which can be called on a receiver of the given type
+     */
+    @NotNull
+    private static Set<String> getReceiverTypeShortNames(@NotNull JetType receiverType) {
+        Set<String> names = new HashSet<String>();
+        names.add(JetExtensionFunctionReceiverTypeIndex.ANY_RECEIVER_TYPE);
+        // Any is not always listed among supertypes, e.g. of interfaces
+        names.add(KotlinBuiltIns.getInstance().getAny().getName().getName());
+
+        addShortName(receiverType, names);
+        for (JetType supertype : TypeUtils.getAllSupertypes(receiverType)) {
+            addShortName(supertype, names);
+        }
+        return names;
+    }
+
+    private static void addShortName(@NotNull JetType type, @NotNull Set<String> names) {
+        ClassifierDescriptor descriptor = type.getConstructor().getDeclarationDescriptor();
+        if (descriptor != null) {
+            names.add(descriptor.getName().getName());
+        }
+    }
+
     public Collection<ClassDescriptor> getJetClassesDescriptors(
             @NotNull Condition<String> acceptedShortNameCondition,
             @NotNull ResolveSession resolveSession
@@ -16,12 +16,16 @@
 
 package org.jetbrains.jet.plugin.project;
 
+import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.Sets;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.Pair;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.impl.PsiModificationTrackerImpl;
@@ -32,18 +36,28 @@ import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.Function;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.analyzer.AnalyzeExhaust;
 import org.jetbrains.jet.lang.ModuleConfiguration;
+import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptor;
+import org.jetbrains.jet.lang.diagnostics.AbstractDiagnosticFactory;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
 import org.jetbrains.jet.lang.diagnostics.DiagnosticUtils;
 import org.jetbrains.jet.lang.diagnostics.Errors;
+import org.jetbrains.jet.lang.psi.CallKey;
+import org.jetbrains.jet.lang.psi.JetDeclaration;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.*;
 import org.jetbrains.jet.lang.resolve.java.JetFilesProvider;
 import org.jetbrains.jet.lang.resolve.lazy.ResolveSession;
 import org.jetbrains.jet.plugin.util.ApplicationUtils;
+import org.jetbrains.jet.util.slicedmap.WritableSlice;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 
 public final class AnalyzerFacadeWithCache {
 
@@ -52,6 +66,10 @@ public final class AnalyzerFacadeWithCache {
     private final static Key<CachedValue<AnalyzeExhaust>> ANALYZE_EXHAUST_HEADERS = Key.create("ANALYZE_EXHAUST_HEADERS");
     private final static Key<CachedValue<AnalyzeExhaust>> ANALYZE_EXHAUST_FULL = Key.create("ANALYZE_EXHAUST_FULL");
 
+    private final static Key<Object> ANALYZE_LOCK = Key.create("ANALYZE_LOCK");
+    private final static Key<BodiesAnalysis> LAST_BODIES_ANALYSIS = Key.create("LAST_BODIES_ANALYSIS");
+
+    // Guards only creation of per-file locks
     private static final Object lock = new Object();
     public static final Function<JetFile, Collection<JetFile>> SINGLE_DECLARATION_PROVIDER = new Function<JetFile, Collection<JetFile>>() {
         @Override
@@ -74,8 +92,9 @@ public final class AnalyzerFacadeWithCache {
     @NotNull
     public static AnalyzeExhaust analyzeFileWithCache(@NotNull final JetFile file,
             @NotNull final Function<JetFile, Collection<JetFile>> declarationProvider) {
-        // Need lock for getValue(), because parallel threads can start evaluation of compute() simultaneously
-        synchronized (lock) {
+        // Need lock for getValue(), because parallel threads can start evaluation of compute() simultaneously.
+        // Analyses of different files don't share any mutable state, so they don't block each other
+        synchronized (getAnalysisLock(file)) {
             CachedValue<AnalyzeExhaust> result = file.getUserData(ANALYZE_EXHAUST_FULL);
             if (result == null) {
                 result =
@@ -93,7 +112,7 @@ public final class AnalyzerFacadeWithCache {
 
                                     AnalyzeExhaust analyzeExhaustHeaders = analyzeHeadersWithCacheOnFile(file, declarationProvider);
 
-                                    AnalyzeExhaust exhaust = analyzeBodies(analyzeExhaustHeaders, file);
+                                    AnalyzeExhaust exhaust = analyzeBodiesIncrementally(analyzeExhaustHeaders, file);
 
                                     return new Result<AnalyzeExhaust>(exhaust, PsiModificationTracker.MODIFICATION_COUNT);
                                 }
@@ -114,6 +133,18 @@ public final class AnalyzerFacadeWithCache {
         }
     }
 
+    @NotNull
+    private static Object getAnalysisLock(@NotNull JetFile file) {
+        synchronized (lock) {
+            Object fileLock = file.getUserData(ANALYZE_LOCK);
+            if (fileLock == null) {
+                fileLock = new Object();
+                file.putUserData(ANALYZE_LOCK, fileLock);
+            }
+            return fileLock;
+        }
+    }
+
     private static AnalyzeExhaust emptyExhaust() {
         return AnalyzeExhaust.success(BindingContext.EMPTY, ModuleConfiguration.EMPTY);
     }
@@ -143,18 +174,125 @@ public final class AnalyzerFacadeWithCache {
         return bindingContextCachedValue.getValue();
     }
 
-    private static AnalyzeExhaust analyzeBodies(AnalyzeExhaust analyzeExhaustHeaders, JetFile file) {
+    /**
+     * Bodies of declarations which text is the same as during the previous analysis of the file are not resolved again if headers
+     * analysis hasn't been invalidated since then: the results for them are copied from the previous bodies trace.
+     */
+    private static AnalyzeExhaust analyzeBodiesIncrementally(@NotNull AnalyzeExhaust analyzeExhaustHeaders, @NotNull JetFile file) {
         BodiesResolveContext context = analyzeExhaustHeaders.getBodiesResolveContext();
-        ModuleConfiguration moduleConfiguration = analyzeExhaustHeaders.getModuleConfiguration();
         assert context != null : "Headers resolver should prepare and stored information for bodies resolve";
 
+        DelegatingBindingTrace trace = new DelegatingBindingTrace(analyzeExhaustHeaders.getBindingContext(),
+                                                                  "trace to resolve bodies in file", file.getName());
+        Map<JetDeclaration, String> fingerprints = BodiesFingerprints.compute(context, file);
+
+        BodiesAnalysis previous = file.getUserData(LAST_BODIES_ANALYSIS);
+        Set<JetDeclaration> changed = null;
+        if (previous != null && previous.headers == analyzeExhaustHeaders && !previous.exhaust.isError()) {
+            changed = BodiesFingerprints.findChangedDeclarations(context, previous.fingerprints, fingerprints);
+        }
+
+        AnalyzeExhaust exhaust;
+        if (changed == null) {
+            exhaust = analyzeBodies(analyzeExhaustHeaders, file, trace, context);
+        }
+        else {
+            copyUnchangedData(previous.trace, trace, changed, fingerprints.keySet());
+            exhaust = analyzeBodies(analyzeExhaustHeaders, file, trace, new PartialBodiesResolveContext(context, changed));
+            copyUnchangedDiagnostics(previous.trace, trace, changed, fingerprints.keySet());
+        }
+
+        file.putUserData(LAST_BODIES_ANALYSIS, new BodiesAnalysis(analyzeExhaustHeaders, trace, exhaust, fingerprints));
+        return exhaust;
+    }
+
+    // Only entries of unchanged declarations are copied, entries which can not be attributed to a declaration
+    // (e.g. deferred types) are either recorded again by the resolve of changed bodies or not needed anymore
+    private static void copyUnchangedData(
+            @NotNull DelegatingBindingTrace from,
+            @NotNull BindingTrace to,
+            @NotNull final Set<JetDeclaration> changed,
+            @NotNull final Set<JetDeclaration> declarations
+    ) {
+        final BindingContext fromContext = from.getBindingContext();
+        from.addAllMyDataTo(to, new TraceEntryFilter() {
+            @Override
+            public boolean accept(@NotNull WritableSlice<?, ?> slice, Object key) {
+                PsiElement element = getKeyElement(fromContext, key);
+                //noinspection SuspiciousMethodCalls
+                return element != null && element.isValid() &&
+                       !changed.contains(BodiesFingerprints.getContainingDeclaration(element, declarations));
+            }
+        }, Predicates.<Diagnostic>alwaysFalse());
+    }
+
+    @Nullable
+    private static PsiElement getKeyElement(@NotNull BindingContext context, Object key) {
+        if (key instanceof PsiElement) {
+            return (PsiElement) key;
+        }
+        if (key instanceof CallKey) {
+            return ((CallKey) key).getElement();
+        }
+        if (key instanceof DeclarationDescriptor) {
+            return BindingContextUtils.descriptorToDeclaration(context, (DeclarationDescriptor) key);
+        }
+        if (key instanceof AnnotationDescriptor) {
+            return context.get(BindingContext.ANNOTATION_DESCRIPTOR_TO_PSI_ELEMENT, (AnnotationDescriptor) key);
+        }
+        return null;
+    }
+
+    // Should be called after bodies resolve: diagnostics reported on a changed declaration itself may come from the checks of
+    // its unchanged containing class, such diagnostics are kept unless the same ones are reported again
+    private static void copyUnchangedDiagnostics(
+            @NotNull DelegatingBindingTrace from,
+            @NotNull BindingTrace to,
+            @NotNull final Set<JetDeclaration> changed,
+            @NotNull final Set<JetDeclaration> declarations
+    ) {
+        final Set<Pair<AbstractDiagnosticFactory, PsiElement>> reported = Sets.newHashSet();
+        for (Diagnostic diagnostic : to.getBindingContext().getDiagnostics()) {
+            reported.add(Pair.create(diagnostic.getFactory(), diagnostic.getPsiElement()));
+        }
+
+        from.addAllMyDataTo(to, new TraceEntryFilter() {
+            @Override
+            public boolean accept(@NotNull WritableSlice<?, ?> slice, Object key) {
+                return false;
+            }
+        }, new Predicate<Diagnostic>() {
+            @Override
+            public boolean apply(Diagnostic diagnostic) {
+                PsiElement element = diagnostic.getPsiElement();
+                if (!element.isValid()) return false;
+
+                JetDeclaration declaration = BodiesFingerprints.getContainingDeclaration(element, declarations);
+                //noinspection SuspiciousMethodCalls
+                if (!changed.contains(declaration)) return true;
+                if (element != declaration) return false;
+
+                JetDeclaration containingDeclaration = BodiesFingerprints.getContainingDeclaration(declaration.getParent(), declarations);
+                return containingDeclaration != null && !changed.contains(containingDeclaration) &&
+                       !reported.contains(Pair.create(diagnostic.getFactory(), element));
+            }
+        });
+    }
+
+    private static AnalyzeExhaust analyzeBodies(
+            @NotNull AnalyzeExhaust analyzeExhaustHeaders,
+            @NotNull JetFile file,
+            @NotNull BindingTrace trace,
+            @NotNull BodiesResolveContext context
+    ) {
+        ModuleConfiguration moduleConfiguration = analyzeExhaustHeaders.getModuleConfiguration();
+
         // Need to resolve bodies in given file and all in the same package
         return AnalyzerFacadeProvider.getAnalyzerFacadeForFile(file).analyzeBodiesInFiles(
                 file.getProject(),
                 Collections.<AnalyzerScriptParameter>emptyList(),
                 new JetFilesProvider.SameJetFilePredicate(file),
-                new DelegatingBindingTrace(analyzeExhaustHeaders.getBindingContext(),
-                                           "trace to resolve bodies in file", file.getName()),
+                trace,
                 context,
                 moduleConfiguration);
     }
@@ -193,4 +331,23 @@ public final class AnalyzerFacadeWithCache {
 
         return AnalyzerFacadeProvider.getAnalyzerFacadeForFile(file).getLazyResolveSession(fileProject, files);
     }
+
+    private static class BodiesAnalysis {
+        private final AnalyzeExhaust headers;
+        private final DelegatingBindingTrace trace;
+        private final AnalyzeExhaust exhaust;
+        private final Map<JetDeclaration, String> fingerprints;
+
+        private BodiesAnalysis(
+                @NotNull AnalyzeExhaust headers,
+                @NotNull DelegatingBindingTrace trace,
+                @NotNull AnalyzeExhaust exhaust,
+                @NotNull Map<JetDeclaration, String> fingerprints
+        ) {
+            this.headers = headers;
+            this.trace = trace;
+            this.exhaust = exhaust;
+            this.fingerprints = fingerprints;
+        }
+    }
 }
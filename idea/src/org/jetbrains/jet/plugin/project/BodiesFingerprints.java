@@ -0,0 +1,146 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.plugin.project;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.psi.*;
+import org.jetbrains.jet.lang.resolve.BodiesResolveContext;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fingerprints of declarations which bodies are resolved in {@link BodiesResolveContext}.
+ *
+ * A fingerprint of a declaration is its own text without whitespaces, comments and nested declarations,
+ * e.g. a class fingerprint covers its delegation specifiers and anonymous initializers, but not member functions.
+ * The text itself is kept rather than a hash of it, so that different bodies are never taken for the same one.
+ */
+/*package*/ final class BodiesFingerprints {
+    private BodiesFingerprints() {
+    }
+
+    @NotNull
+    public static Map<JetDeclaration, String> compute(@NotNull BodiesResolveContext context, @NotNull JetFile file) {
+        Set<JetDeclaration> declarations = Sets.newHashSet();
+        addDeclarationsInFile(context.getClasses().keySet(), file, declarations);
+        addDeclarationsInFile(context.getObjects().keySet(), file, declarations);
+        addDeclarationsInFile(context.getProperties().keySet(), file, declarations);
+        addDeclarationsInFile(context.getFunctions().keySet(), file, declarations);
+
+        Map<JetDeclaration, String> fingerprints = Maps.newHashMap();
+        for (JetDeclaration declaration : declarations) {
+            StringBuilder ownText = new StringBuilder();
+            appendOwnText(declaration, declarations, ownText);
+            fingerprints.put(declaration, ownText.toString());
+        }
+        return fingerprints;
+    }
+
+    /**
+     * @return declarations which bodies should be resolved again, or null if bodies of the whole file should be resolved again
+     */
+    @Nullable
+    public static Set<JetDeclaration> findChangedDeclarations(
+            @NotNull BodiesResolveContext context,
+            @NotNull Map<JetDeclaration, String> previous,
+            @NotNull Map<JetDeclaration, String> current
+    ) {
+        if (!context.getScripts().isEmpty() || !previous.keySet().equals(current.keySet())) return null;
+
+        Set<JetDeclaration> changed = Sets.newHashSet();
+        for (Map.Entry<JetDeclaration, String> entry : current.entrySet()) {
+            JetDeclaration declaration = entry.getKey();
+            if (entry.getValue().equals(previous.get(declaration))) continue;
+
+            if (declaration instanceof JetProperty) {
+                JetClassOrObject containingClass = PsiTreeUtil.getParentOfType(declaration, JetClassOrObject.class, true);
+                // Initialization of top-level properties is checked by the control flow analysis of the whole file
+                if (containingClass == null) return null;
+                // and initialization of member properties by the control flow analysis of the class
+                changed.add((JetDeclaration) containingClass);
+            }
+            changed.add(declaration);
+        }
+
+        // Checks of a class cover all its members, so a changed class is resolved again as a whole
+        for (JetDeclaration declaration : current.keySet()) {
+            JetClassOrObject containingClass = PsiTreeUtil.getParentOfType(declaration, JetClassOrObject.class, true);
+            while (containingClass != null) {
+                //noinspection SuspiciousMethodCalls
+                if (changed.contains(containingClass)) {
+                    changed.add(declaration);
+                    break;
+                }
+                containingClass = PsiTreeUtil.getParentOfType(containingClass, JetClassOrObject.class, true);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the innermost of declarations containing the element, or null if the element belongs to the file itself
+     */
+    @Nullable
+    public static JetDeclaration getContainingDeclaration(@NotNull PsiElement element, @NotNull Set<JetDeclaration> declarations) {
+        for (PsiElement current = element; current != null && !(current instanceof PsiFile); current = current.getParent()) {
+            //noinspection SuspiciousMethodCalls
+            if (declarations.contains(current)) {
+                return (JetDeclaration) current;
+            }
+        }
+        return null;
+    }
+
+    private static void addDeclarationsInFile(
+            @NotNull Collection<? extends JetDeclaration> declarations,
+            @NotNull JetFile file,
+            @NotNull Set<JetDeclaration> result
+    ) {
+        for (JetDeclaration declaration : declarations) {
+            if (declaration.getContainingFile() == file) {
+                result.add(declaration);
+            }
+        }
+    }
+
+    private static void appendOwnText(@NotNull PsiElement element, @NotNull Set<JetDeclaration> declarations, @NotNull StringBuilder result) {
+        for (PsiElement child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof PsiWhiteSpace || child instanceof PsiComment) continue;
+            //noinspection SuspiciousMethodCalls
+            if (declarations.contains(child)) continue;
+
+            if (child.getFirstChild() == null) {
+                // tokens are prefixed with their lengths, so that adjacent tokens can not be glued together
+                String text = child.getText();
+                result.append(text.length()).append(':').append(text);
+            }
+            else {
+                appendOwnText(child, declarations, result);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010-2012 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.plugin.stubindex;
+
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.stubs.StubIndexKey;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.JetNamedFunction;
+
+/**
+ * Top level extension functions by the short name of their receiver type.
+ * Extensions which receiver type can't be found without resolve are stored with {@link #ANY_RECEIVER_TYPE} key.
+ */
+public class JetExtensionFunctionReceiverTypeIndex extends StringStubIndexExtension<JetNamedFunction> {
+    private static final StubIndexKey<String, JetNamedFunction> KEY = KotlinIndexUtil.createIndexKey(JetExtensionFunctionReceiverTypeIndex.class);
+
+    public static final String ANY_RECEIVER_TYPE = "*";
+
+    private static final JetExtensionFunctionReceiverTypeIndex instance = new JetExtensionFunctionReceiverTypeIndex();
+
+    public static JetExtensionFunctionReceiverTypeIndex getInstance() {
+        return instance;
+    }
+
+    private JetExtensionFunctionReceiverTypeIndex() {}
+
+    @NotNull
+    @Override
+    public StubIndexKey<String, JetNamedFunction> getKey() {
+        return KEY;
+    }
+}
@@ -101,6 +101,11 @@ public class StubIndexServiceImpl implements StubIndexService {
                 }
                 else {
                     sink.occurrence(JetExtensionFunctionNameIndex.getInstance().getKey(), name);
+
+                    String receiverTypeShortName = stub.getReceiverTypeShortName();
+                    sink.occurrence(JetExtensionFunctionReceiverTypeIndex.getInstance().getKey(),
+                                    receiverTypeShortName != null ? receiverTypeShortName
+                                                                  : JetExtensionFunctionReceiverTypeIndex.ANY_RECEIVER_TYPE);
                 }
 
                 FqName topFQName = stub.getTopFQName();
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.completion;
+
+import com.intellij.codeInsight.completion.LightCompletionTestCase;
+import com.intellij.codeInsight.lookup.LookupElement;
+import com.intellij.openapi.projectRoots.Sdk;
+import org.jetbrains.jet.plugin.PluginTestCaseBase;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Completion after a dot in a project with many extension functions for other receiver types.
+ * The stubs such extensions are indexed with are measured by the extension-stubs workload of CompilerBenchmark
+ */
+public class ExtensionsCompletionLatencyTest extends LightCompletionTestCase {
+    private static final int EXTENSION_COUNT = 10000;
+    private static final int RECEIVER_TYPE_COUNT = 100;
+
+    public void testManyIrrelevantExtensions() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < RECEIVER_TYPE_COUNT; i++) {
+            text.append("open class Receiver").append(i).append("\n");
+        }
+        for (int i = 0; i < EXTENSION_COUNT; i++) {
+            text.append("fun Receiver").append(i % RECEIVER_TYPE_COUNT).append(".extension").append(i).append("() {}\n");
+        }
+        text.append("class Target : Receiver0()\n");
+        text.append("fun Target.targetExtension() {}\n");
+        text.append("fun <T> T.anyExtension() {}\n");
+        text.append("fun test(t: Target) {\n");
+        text.append("    t.<caret>\n");
+        text.append("}\n");
+        configureFromFileText("Extensions.kt", text.toString());
+
+        complete(1);
+
+        Set<String> lookupStrings = new HashSet<String>();
+        if (myItems != null) {
+            for (LookupElement item : myItems) {
+                lookupStrings.add(item.getLookupString());
+            }
+        }
+        assertTrue(lookupStrings.contains("targetExtension"));
+        assertTrue(lookupStrings.contains("anyExtension"));
+        // Extensions of the supertype are suitable too
+        assertTrue(lookupStrings.contains("extension0"));
+        assertFalse(lookupStrings.contains("extension1"));
+    }
+
+    @Override
+    protected Sdk getProjectJDK() {
+        return PluginTestCaseBase.jdkFromIdeaHome();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.plugin.project;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetNamedFunction;
+import org.jetbrains.jet.lang.psi.JetReturnExpression;
+import org.jetbrains.jet.lang.psi.JetSimpleNameExpression;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.plugin.JetLightProjectDescriptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * After an edit inside a function body only the changed bodies are resolved again,
+ * and the results must be the same as those of the analysis of the whole file
+ */
+public class IncrementalBodiesAnalysisTest extends LightCodeInsightFixtureTestCase {
+    private static final int FUNCTIONS = 200;
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return JetLightProjectDescriptor.INSTANCE;
+    }
+
+    public void testUnchangedBodiesAreReused() {
+        JetFile file = configure("original", FUNCTIONS);
+        AnalyzeExhaust before = analyze(file);
+        JetSimpleNameExpression unchangedReference = getReturnedReference(file, 1);
+        JetSimpleNameExpression changedReference = getReturnedReference(file, 0);
+        Object unchangedCall = before.getBindingContext().get(BindingContext.RESOLVED_CALL, unchangedReference);
+        Object changedCall = before.getBindingContext().get(BindingContext.RESOLVED_CALL, changedReference);
+        assertNotNull(unchangedCall);
+
+        editInBody(file, "return x0", "return x0 + 1");
+        AnalyzeExhaust after = analyze(file);
+
+        assertSame(unchangedCall, after.getBindingContext().get(BindingContext.RESOLVED_CALL, unchangedReference));
+        assertNotSame(changedCall, after.getBindingContext().get(BindingContext.RESOLVED_CALL, getReturnedReference(file, 0)));
+        assertSameDiagnostics(file, after);
+    }
+
+    public void testTokensWithSameHashCodes() {
+        // "Aa" and "BB" have the same String.hashCode()
+        myFixture.configureByText("collision.kt", "package original\n\n" +
+                                                  "val Aa = 1\n" +
+                                                  "val BB = \"\"\n" +
+                                                  "fun f(): Int { return Aa }\n");
+        JetFile file = (JetFile) myFixture.getFile();
+        assertTrue(analyze(file).getBindingContext().getDiagnostics().isEmpty());
+
+        editInBody(file, "return Aa", "return BB");
+        assertFalse(analyze(file).getBindingContext().getDiagnostics().isEmpty());
+        assertSameDiagnostics(file, analyze(file));
+    }
+
+    @NotNull
+    private JetFile configure(@NotNull String packageName, int functions) {
+        myFixture.configureByText("a.kt", generateText(packageName, functions));
+        return (JetFile) myFixture.getFile();
+    }
+
+    @NotNull
+    private static String generateText(@NotNull String packageName, int functions) {
+        StringBuilder text = new StringBuilder("package " + packageName + "\n\n");
+        for (int i = 0; i < functions; i++) {
+            text.append("fun f").append(i).append("(p: Int): Int {\n")
+                .append("    val x").append(i).append(" = p * ").append(i).append(" + \"\".length\n")
+                .append("    val unused: String = p\n")
+                .append("    return x").append(i).append("\n")
+                .append("}\n\n");
+        }
+        return text.toString();
+    }
+
+    @NotNull
+    private static AnalyzeExhaust analyze(@NotNull JetFile file) {
+        return AnalyzerFacadeWithCache.analyzeFileWithCache(file, AnalyzerFacadeWithCache.SINGLE_DECLARATION_PROVIDER);
+    }
+
+    @NotNull
+    private static JetSimpleNameExpression getReturnedReference(@NotNull JetFile file, int function) {
+        JetNamedFunction declaration = (JetNamedFunction) file.getDeclarations().get(function);
+        JetReturnExpression returnExpression = PsiTreeUtil.findChildOfType(declaration, JetReturnExpression.class);
+        assertNotNull(returnExpression);
+        JetSimpleNameExpression reference = PsiTreeUtil.findChildOfType(returnExpression, JetSimpleNameExpression.class);
+        assertNotNull(reference);
+        return reference;
+    }
+
+    private void editInBody(@NotNull JetFile file, @NotNull final String oldText, @NotNull final String newText) {
+        final Document document = PsiDocumentManager.getInstance(getProject()).getDocument(file);
+        assertNotNull(document);
+        final int offset = document.getText().indexOf(oldText);
+        assertTrue(oldText, offset >= 0);
+        ApplicationManager.getApplication().runWriteAction(new Runnable() {
+            @Override
+            public void run() {
+                document.replaceString(offset, offset + oldText.length(), newText);
+            }
+        });
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+    }
+
+    // diagnostics of the incremental analysis must be the same as of the analysis of a copy of the file
+    private void assertSameDiagnostics(@NotNull JetFile file, @NotNull AnalyzeExhaust exhaust) {
+        JetFile copy = (JetFile) myFixture.addFileToProject("copy/" + file.getName(), file.getText());
+        assertEquals(renderDiagnostics(analyze(copy)), renderDiagnostics(exhaust));
+    }
+
+    @NotNull
+    private static List<String> renderDiagnostics(@NotNull AnalyzeExhaust exhaust) {
+        List<String> result = new ArrayList<String>();
+        for (Diagnostic diagnostic : exhaust.getBindingContext().getDiagnostics()) {
+            result.add(diagnostic.getFactory().getName() + " " + diagnostic.getPsiElement().getTextRange() + " " +
+                       diagnostic.getPsiElement().getText());
+        }
+        Collections.sort(result);
+        return result;
+    }
+}
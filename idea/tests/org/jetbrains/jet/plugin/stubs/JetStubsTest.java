@@ -115,7 +115,46 @@ public class JetStubsTest extends LightCodeInsightFixtureTestCase {
     public void testNotStorePropertyFromInitializer() {
         doBuildTest("fun DoubleArray.some() = for (element in this) println(element)",
                     "PsiJetFileStubImpl[package=]\n" +
-                    "  FUN:PsiJetFunctionStubImpl[top topFQName=some ext name=some]\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=some ext receiver=DoubleArray name=some]\n" +
+                    "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n");
+    }
+
+    public void testExtensionReceiverTypeShortNames() {
+        doBuildTest("fun String?.a() {}\n" +
+                    "fun <T : CharSequence> T.b() {}\n" +
+                    "fun <T> T.c() {}\n" +
+                    "fun (Int.(String) -> Unit).d() {}",
+                    "PsiJetFileStubImpl[package=]\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=a ext receiver=String name=a]\n" +
+                    "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=b ext receiver=CharSequence name=b]\n" +
+                    "    TYPE_PARAMETER_LIST:PsiJetTypeParameterListStubImpl\n" +
+                    "      TYPE_PARAMETER:PsiJetTypeParameterStubImpl[name=T extendText=CharSequence]\n" +
+                    "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=c ext name=c]\n" +
+                    "    TYPE_PARAMETER_LIST:PsiJetTypeParameterListStubImpl\n" +
+                    "      TYPE_PARAMETER:PsiJetTypeParameterStubImpl[name=T extendText=null]\n" +
+                    "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=d ext receiver=ExtensionFunction1 name=d]\n" +
+                    "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n");
+    }
+
+    public void testExtensionReceiversIndexedUnderWildcard() {
+        doBuildTest("import a.Bar as Baz\n" +
+                    "fun Baz.e() {}\n" +
+                    "fun <T, S : T> S.f() {}\n" +
+                    "fun <T : Baz> T.g() {}",
+                    "PsiJetFileStubImpl[package=]\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=e ext name=e]\n" +
+                    "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=f ext name=f]\n" +
+                    "    TYPE_PARAMETER_LIST:PsiJetTypeParameterListStubImpl\n" +
+                    "      TYPE_PARAMETER:PsiJetTypeParameterStubImpl[name=T extendText=null]\n" +
+                    "      TYPE_PARAMETER:PsiJetTypeParameterStubImpl[name=S extendText=T]\n" +
+                    "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=g ext name=g]\n" +
+                    "    TYPE_PARAMETER_LIST:PsiJetTypeParameterListStubImpl\n" +
+                    "      TYPE_PARAMETER:PsiJetTypeParameterStubImpl[name=T extendText=Baz]\n" +
                     "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n");
     }
 
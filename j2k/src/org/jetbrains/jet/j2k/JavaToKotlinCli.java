@@ -1,144 +1,293 @@
-//package org.jetbrains.jet.j2k;
-//
-//import com.intellij.psi.PsiFile;
-//import com.intellij.psi.PsiJavaFile;
-//import org.apache.commons.cli.*;
-//import org.jetbrains.annotations.NotNull;
-//import org.jetbrains.annotations.Nullable;
-//
-//import java.io.File;
-//import java.io.FileNotFoundException;
-//import java.io.IOException;
-//import java.util.ArrayList;
-//import java.util.Arrays;
-//import java.util.List;
-//import java.util.logging.Logger;
-//import java.util.regex.Pattern;
-//
-//import static org.apache.commons.io.FileUtils.readFileToString;
-//import static org.apache.commons.io.FileUtils.writeStringToFile;
-//
-//@SuppressWarnings({"CallToPrintStackTrace", "UseOfSystemOutOrSystemErr"})
-//public class JavaToKotlinCli {
-//  private static final Logger myLogger = Logger.getAnonymousLogger();
-//
-//  private JavaToKotlinCli() {
-//  }
-//
-//  public static void main(String[] args) {
-//    CommandLineParser parser = new BasicParser();
-//    Options options = new Options()
-//      .addOption("h", "help", false, "Print usage information")
-//      .addOption("f", "from", true, "Directory with Java sources")
-//      .addOption("t", "to", true, "Directory with Kotlin sources")
-//      .addOption("p", "public-only", false, "Only public and protected members")
-//      .addOption("fqn", "fqn", false, "Full qualified names")
-//      .addOption("d", "declarations-only", false, "Declarations only")
-//      ;
-//
-//    try {
-//      CommandLine commandLine = parser.parse(options, args);
-//
-//      if (commandLine.hasOption("help"))
-//        showHelpAndExit();
-//
-//      if (commandLine.hasOption("from") && commandLine.hasOption("to")) {
-//        String from = commandLine.getOptionValue("from");
-//        String to = commandLine.getOptionValue("to");
-//
-//        for (Option o : commandLine.getOptions()) {
-//          Converter.addFlag(o.getLongOpt());
-//        }
-//
-//        if (!from.isEmpty() && !to.isEmpty())
-//          convertSourceTree(from, to);
-//        else
-//          showHelpAndExit();
-//      } else
-//        showHelpAndExit();
-//    } catch (ParseException e) {
-//      e.printStackTrace();
-//    }
-//  }
-//
-//  @SuppressWarnings("ResultOfMethodCallIgnored")
-//  private static void convertSourceTree(String javaPath, String kotlinPath) {
-//    try {
-//      File javaDir = new File(javaPath);
-//      File kotlinDir = new File(kotlinPath);
-//
-//      if (kotlinDir.exists())
-//        kotlinDir.delete();
-//
-//      if (!kotlinDir.exists() && !kotlinDir.mkdir())
-//        myLogger.warning("Creation failed: " + kotlinDir.getAbsolutePath());
-//
-//      for (File f : getJavaFiles(javaDir.getAbsolutePath())) {
-//        String relative = javaDir.toURI().relativize(f.toURI()).getPath().replace(".java", ".kt");
-//        File file = new File(kotlinPath, relative);
-//
-//        if (file.exists())
-//          file.delete();
-//
-//        if (f.isDirectory())
-//          if (!file.exists() && !file.mkdir())
-//            myLogger.warning("Creation failed: " + file.getAbsolutePath());
-//
-//        if (f.isFile()) {
-//          writeStringToFile(file, fileToKotlin(f));
-//        }
-//      }
-//    } catch (FileNotFoundException e) {
-//      e.printStackTrace();
-//    } catch (IOException e) {
-//      e.printStackTrace();
-//    }
-//  }
-//
-//  @NotNull
-//  private static String fileToKotlin(File f) throws IOException {
-//    final String javaCode = readJavaFileToString(f);
-//    return generateKotlinCode(JavaToKotlinTranslator.createFile(JavaToKotlinTranslator.setUpJavaCoreEnvironment(), javaCode));
-//  }
-//
-//  @NotNull
-//  private static String generateKotlinCode(@Nullable PsiFile file) {
-//    if (file != null && file instanceof PsiJavaFile) {
-//      JavaToKotlinTranslator.setClassIdentifiers(file);
-//      return JavaToKotlinTranslator.prettify(Converter.fileToFile((PsiJavaFile) file).toKotlin());
-//    }
-//    return "";
-//  }
-//
-//  @NotNull
-//  private static String readJavaFileToString(@NotNull File javaFile) throws IOException {
-//    return Pattern.compile("\\s*/\\*.*\\*/", Pattern.DOTALL).matcher(readFileToString(javaFile)).replaceAll("");
-//  }
-//
-//  private static void showHelpAndExit() {
-//    System.err.println("Usage: java -jar java2kotlin.jar -f <from> -t <to>");
-//    System.exit(1);
-//  }
-//
-//  static public List<File> getJavaFiles(String startDirName) throws FileNotFoundException {
-//    return getJavaFiles(new File(startDirName));
-//  }
-//
-//  private static List<File> getJavaFiles(File start) throws FileNotFoundException {
-//    List<File> result = new ArrayList<File>();
-//
-//    if (start.isFile())
-//      return Arrays.asList(start);
-//
-//    for (File file : Arrays.asList(start.listFiles())) {
-//      if ((file.isFile() && file.getName().endsWith(".java")) || file.isDirectory())
-//        result.add(file);
-//
-//      if (file.isDirectory()) {
-//        List<File> deeperList = getJavaFiles(file);
-//        result.addAll(deeperList);
-//      }
-//    }
-//    return result;
-//  }
-//}
\ No newline at end of file
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.j2k;
+
+import com.google.common.collect.Lists;
+import com.intellij.core.JavaCoreProjectEnvironment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Converts a whole tree of Java sources to Kotlin.
+ *
+ * All the files share one Java core environment, in which the source tree is added to the class path, so references between
+ * converted files are resolved. Files are converted in parallel under read actions, each worker thread using its own
+ * {@link Converter}, and every result is written to the output tree as soon as it is ready.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public class JavaToKotlinCli {
+    private static final String USAGE =
+            "Usage: java2kotlin -from <java source dir> -to <kotlin output dir> [options]\n" +
+            "Options:\n" +
+            "  -threads <n>          number of worker threads (default: number of available processors)\n" +
+            "  -public-only          convert only public and protected members\n" +
+            "  -fqn                  use fully qualified type names\n" +
+            "  -declarations-only    skip method bodies\n";
+
+    private final File javaRoot;
+    private final File kotlinRoot;
+    private final int threads;
+    private final Set<J2KConverterFlags> flags;
+    private final PrintStream out;
+
+    public JavaToKotlinCli(
+            @NotNull File javaRoot,
+            @NotNull File kotlinRoot,
+            int threads,
+            @NotNull Set<J2KConverterFlags> flags,
+            @NotNull PrintStream out
+    ) {
+        this.javaRoot = javaRoot;
+        this.kotlinRoot = kotlinRoot;
+        this.threads = threads;
+        this.flags = flags;
+        this.out = out;
+    }
+
+    public static void main(@NotNull String[] args) {
+        String from = null;
+        String to = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Set<J2KConverterFlags> flags = EnumSet.noneOf(J2KConverterFlags.class);
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("-from".equals(arg) && i + 1 < args.length) {
+                from = args[++i];
+            }
+            else if ("-to".equals(arg) && i + 1 < args.length) {
+                to = args[++i];
+            }
+            else if ("-threads".equals(arg) && i + 1 < args.length) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                }
+                catch (NumberFormatException e) {
+                    exitWithUsage("Invalid number of threads: " + args[i]);
+                }
+            }
+            else if ("-public-only".equals(arg)) {
+                flags.add(J2KConverterFlags.SKIP_NON_PUBLIC_MEMBERS);
+            }
+            else if ("-fqn".equals(arg)) {
+                flags.add(J2KConverterFlags.FULLY_QUALIFIED_TYPE_NAMES);
+            }
+            else if ("-declarations-only".equals(arg)) {
+                flags.add(J2KConverterFlags.SKIP_BODIES);
+            }
+            else {
+                exitWithUsage("Unknown argument: " + arg);
+            }
+        }
+
+        if (from == null || to == null) {
+            exitWithUsage(null);
+            return;
+        }
+        if (threads < 1) {
+            exitWithUsage("Number of threads should be positive: " + threads);
+        }
+        File javaRoot = new File(from);
+        if (!javaRoot.isDirectory()) {
+            exitWithUsage("Not a directory: " + from);
+        }
+
+        int failed = new JavaToKotlinCli(javaRoot, new File(to), threads, flags, System.out).convertSourceTree();
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    private static void exitWithUsage(@Nullable String message) {
+        if (message != null) {
+            System.err.println(message);
+        }
+        System.err.print(USAGE);
+        System.exit(1);
+    }
+
+    /**
+     * @return number of files that failed to convert
+     */
+    public int convertSourceTree() {
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            return convertSourceTree(JavaToKotlinTranslator.setUpJavaCoreEnvironment(disposable));
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    private int convertSourceTree(@NotNull JavaCoreProjectEnvironment environment) {
+        long start = System.nanoTime();
+
+        final VirtualFile sourceRoot = environment.getEnvironment().getLocalFileSystem().findFileByPath(javaRoot.getAbsolutePath());
+        if (sourceRoot == null) {
+            throw new SetupJavaCoreEnvironmentException("Source root not found: " + javaRoot);
+        }
+        environment.addSourcesToClasspath(sourceRoot);
+
+        List<VirtualFile> javaFiles = Lists.newArrayList();
+        collectJavaFiles(sourceRoot, javaFiles);
+        out.println("Converting " + javaFiles.size() + " files using " + threads + " threads");
+
+        final PsiManager psiManager = PsiManager.getInstance(environment.getProject());
+        final ThreadLocal<Converter> converters = new ThreadLocal<Converter>() {
+            @Override
+            protected Converter initialValue() {
+                Converter converter = new Converter(psiManager.getProject());
+                for (J2KConverterFlags flag : flags) {
+                    converter.addFlag(flag);
+                }
+                return converter;
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<FileResult>> futures = Lists.newArrayList();
+        try {
+            for (final VirtualFile javaFile : javaFiles) {
+                futures.add(executor.submit(new Callable<FileResult>() {
+                    @Override
+                    public FileResult call() {
+                        return ApplicationManager.getApplication().runReadAction(new Computable<FileResult>() {
+                            @Override
+                            public FileResult compute() {
+                                return convertFile(psiManager, converters.get(), sourceRoot, javaFile);
+                            }
+                        });
+                    }
+                }));
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        int failed = 0;
+        long totalConversionNanos = 0;
+        for (Future<FileResult> future : futures) {
+            FileResult result = getResult(future);
+            totalConversionNanos += result.nanos;
+            if (result.error == null) {
+                out.println(String.format("%8d ms  %s", TimeUnit.NANOSECONDS.toMillis(result.nanos), result.path));
+            }
+            else {
+                failed++;
+                out.println(String.format("  FAILED     %s: %s", result.path, result.error));
+            }
+        }
+
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        out.println(String.format("Converted %d of %d files in %d ms (%d ms of conversion time), %d failed",
+                                  javaFiles.size() - failed, javaFiles.size(), wallMillis,
+                                  TimeUnit.NANOSECONDS.toMillis(totalConversionNanos), failed));
+        return failed;
+    }
+
+    @NotNull
+    private FileResult convertFile(
+            @NotNull PsiManager psiManager,
+            @NotNull Converter converter,
+            @NotNull VirtualFile sourceRoot,
+            @NotNull VirtualFile javaFile
+    ) {
+        String relativePath = VfsUtilCore.getRelativePath(javaFile, sourceRoot, '/');
+        assert relativePath != null : "File is outside of source root: " + javaFile;
+
+        long start = System.nanoTime();
+        try {
+            PsiFile psiFile = psiManager.findFile(javaFile);
+            if (!(psiFile instanceof PsiJavaFile)) {
+                return new FileResult(relativePath, System.nanoTime() - start, "not a Java file");
+            }
+
+            JavaToKotlinTranslator.setClassIdentifiers(converter, psiFile);
+            String kotlinCode = JavaToKotlinTranslator.prettify(converter.fileToFile((PsiJavaFile) psiFile).toKotlin());
+
+            File kotlinFile = new File(kotlinRoot, FileUtil.getNameWithoutExtension(relativePath) + ".kt");
+            FileUtil.writeToFile(kotlinFile, kotlinCode);
+
+            return new FileResult(relativePath, System.nanoTime() - start, null);
+        }
+        catch (IOException e) {
+            return new FileResult(relativePath, System.nanoTime() - start, e.toString());
+        }
+        catch (RuntimeException e) {
+            return new FileResult(relativePath, System.nanoTime() - start, e.toString());
+        }
+    }
+
+    @NotNull
+    private static FileResult getResult(@NotNull Future<FileResult> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void collectJavaFiles(@NotNull VirtualFile dir, @NotNull List<VirtualFile> result) {
+        VirtualFile[] children = dir.getChildren();
+        Arrays.sort(children, new Comparator<VirtualFile>() {
+            @Override
+            public int compare(VirtualFile o1, VirtualFile o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        for (VirtualFile child : children) {
+            if (child.isDirectory()) {
+                collectJavaFiles(child, result);
+            }
+            else if ("java".equals(child.getExtension())) {
+                result.add(child);
+            }
+        }
+    }
+
+    private static class FileResult {
+        private final String path;
+        private final long nanos;
+        @Nullable
+        private final String error;
+
+        private FileResult(@NotNull String path, long nanos, @Nullable String error) {
+            this.path = path;
+            this.nanos = nanos;
+            this.error = error;
+        }
+    }
+}
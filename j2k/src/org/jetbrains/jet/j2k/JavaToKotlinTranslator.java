@@ -63,8 +63,13 @@ public class JavaToKotlinTranslator {
 
     @NotNull
     static JavaCoreProjectEnvironment setUpJavaCoreEnvironment() {
-        JavaCoreApplicationEnvironment applicationEnvironment = new JavaCoreApplicationEnvironment(DISPOSABLE);
-        JavaCoreProjectEnvironment javaCoreEnvironment = new JavaCoreProjectEnvironment(DISPOSABLE, applicationEnvironment);
+        return setUpJavaCoreEnvironment(DISPOSABLE);
+    }
+
+    @NotNull
+    static JavaCoreProjectEnvironment setUpJavaCoreEnvironment(@NotNull Disposable parentDisposable) {
+        JavaCoreApplicationEnvironment applicationEnvironment = new JavaCoreApplicationEnvironment(parentDisposable);
+        JavaCoreProjectEnvironment javaCoreEnvironment = new JavaCoreProjectEnvironment(parentDisposable, applicationEnvironment);
 
         javaCoreEnvironment.addJarToClassPath(PathUtil.findRtJar());
         File annotations = findAnnotations();
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.j2k;
+
+import com.intellij.core.JavaCoreProjectEnvironment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class JavaToKotlinCliTest extends TestCase {
+    private static final File JAVA_ROOT = new File("j2k/tests/testData/cli");
+
+    private File kotlinRoot;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        kotlinRoot = FileUtil.createTempDirectory("java2kotlin", null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtil.delete(kotlinRoot);
+        super.tearDown();
+    }
+
+    public void testParallelConversionMatchesSequential() throws IOException {
+        Map<String, String> expected = convertSequentially();
+        assertEquals(4, expected.size());
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        int failed = new JavaToKotlinCli(JAVA_ROOT, kotlinRoot, 4, EnumSet.noneOf(J2KConverterFlags.class), new PrintStream(log))
+                .convertSourceTree();
+        assertEquals(log.toString(), 0, failed);
+
+        for (Map.Entry<String, String> entry : expected.entrySet()) {
+            File kotlinFile = new File(kotlinRoot, FileUtil.getNameWithoutExtension(entry.getKey()) + ".kt");
+            assertTrue("Not converted: " + entry.getKey(), kotlinFile.isFile());
+            assertEquals(entry.getKey(), entry.getValue(), FileUtil.loadFile(kotlinFile, true));
+        }
+    }
+
+    // Converts the files one by one in the calling thread, sharing the environment in the same way as the command line converter
+    @NotNull
+    private static Map<String, String> convertSequentially() {
+        Disposable disposable = Disposer.newDisposable();
+        try {
+            JavaCoreProjectEnvironment environment = JavaToKotlinTranslator.setUpJavaCoreEnvironment(disposable);
+            VirtualFile sourceRoot = environment.getEnvironment().getLocalFileSystem().findFileByPath(JAVA_ROOT.getAbsolutePath());
+            assertNotNull(sourceRoot);
+            environment.addSourcesToClasspath(sourceRoot);
+
+            Map<String, String> result = new TreeMap<String, String>();
+            Converter converter = new Converter(environment.getProject());
+            convertDirectory(PsiManager.getInstance(environment.getProject()), converter, sourceRoot, sourceRoot, result);
+            return result;
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+
+    private static void convertDirectory(
+            @NotNull PsiManager psiManager,
+            @NotNull Converter converter,
+            @NotNull VirtualFile sourceRoot,
+            @NotNull VirtualFile dir,
+            @NotNull Map<String, String> result
+    ) {
+        for (VirtualFile child : dir.getChildren()) {
+            if (child.isDirectory()) {
+                convertDirectory(psiManager, converter, sourceRoot, child, result);
+                continue;
+            }
+            PsiFile psiFile = psiManager.findFile(child);
+            if (!(psiFile instanceof PsiJavaFile)) continue;
+
+            JavaToKotlinTranslator.setClassIdentifiers(converter, psiFile);
+            String kotlinCode = JavaToKotlinTranslator.prettify(converter.fileToFile((PsiJavaFile) psiFile).toKotlin());
+            result.put(VfsUtilCore.getRelativePath(child, sourceRoot, '/'), kotlinCode);
+        }
+    }
+}
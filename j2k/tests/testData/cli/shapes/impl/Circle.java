@@ -0,0 +1,19 @@
+package shapes.impl;
+
+import shapes.Shape;
+
+public class Circle implements Shape {
+    private final double radius;
+
+    public Circle(double radius) {
+        this.radius = radius;
+    }
+
+    public double area() {
+        return Math.PI * radius * radius;
+    }
+
+    public String getName() {
+        return "circle";
+    }
+}
@@ -0,0 +1,21 @@
+package shapes.impl;
+
+import shapes.Shape;
+
+public class Rectangle implements Shape {
+    private final double width;
+    private final double height;
+
+    public Rectangle(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public double area() {
+        return width * height;
+    }
+
+    public String getName() {
+        return "rectangle";
+    }
+}
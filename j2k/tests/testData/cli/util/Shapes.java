@@ -0,0 +1,28 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import shapes.Shape;
+import shapes.impl.Circle;
+import shapes.impl.Rectangle;
+
+public final class Shapes {
+    private Shapes() {
+    }
+
+    public static List<Shape> createAll() {
+        List<Shape> result = new ArrayList<Shape>();
+        result.add(new Circle(1.0));
+        result.add(new Rectangle(2.0, 3.0));
+        return result;
+    }
+
+    public static double totalArea(List<Shape> shapes) {
+        double total = 0;
+        for (Shape shape : shapes) {
+            total += shape.area();
+        }
+        return total;
+    }
+}
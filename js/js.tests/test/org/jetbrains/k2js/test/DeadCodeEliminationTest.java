@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.test;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
+import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.facade.K2JSTranslator;
+import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.test.config.TestConfig;
+import org.jetbrains.k2js.test.rhino.RhinoFunctionResultChecker;
+import org.jetbrains.k2js.test.utils.TranslationUtils;
+import org.jetbrains.k2js.utils.JetFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.jetbrains.k2js.test.rhino.RhinoUtils.runRhinoTest;
+
+/**
+ * Programs translated with {@link org.jetbrains.k2js.optimize.DeadCodeEliminator}: unreachable declarations are removed and the rest
+ * still works. The js-browser-example* workloads of CompilerBenchmark compare the sizes with and without the elimination.
+ */
+public final class DeadCodeEliminationTest extends KotlinTestWithEnvironment {
+    private static final String BROWSER_EXAMPLE = "libraries/examples/browser-example/src/main/kotlin/sample/Hello.kt";
+
+    // Declarations of the example package myApp doesn't use
+    private static final String BROWSER_EXAMPLE_HELPERS =
+            "package sample\n" +
+            "fun unusedGreeting(name: String) = \"Hello, \" + name\n" +
+            "class UnusedWidget(val title: String) { fun render() = \"<b>\" + title + \"</b>\" }\n";
+
+    private static final String PROGRAM =
+            "package foo\n" +
+            "open class Base { open fun name() = \"base\" }\n" +
+            "class Used : Base() { override fun name() = \"used\" }\n" +
+            "class UnusedClass : Base() { fun unusedMember() = 1 }\n" +
+            "fun unusedFunction() = UnusedClass().unusedMember()\n" +
+            "fun helper(s: String) = \"O\" + s\n" +
+            "fun box(): String = if (Used().name() == \"used\") helper(\"K\") else \"fail\"\n";
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return new JetCoreEnvironment(getTestRootDisposable(), new CompilerConfiguration());
+    }
+
+    public void testUnreachableDeclarationsRemoved() throws Exception {
+        JetFile file = JetFileUtils.createPsiFile("program.kt", PROGRAM, getProject());
+        for (EcmaVersion version : BasicTest.DEFAULT_ECMA_VERSIONS) {
+            String code = translate(file, version, Collections.singletonList("foo.box"));
+            assertTrue(code, code.contains("helper"));
+            assertFalse(code, code.contains("unusedFunction"));
+            assertFalse(code, code.contains("UnusedClass"));
+            assertFalse(code, code.contains("unusedMember"));
+
+            File output = FileUtil.createTempFile("dce", ".js");
+            FileUtil.writeToFile(output, code);
+            runRhinoTest(Collections.singletonList(output.getPath()), new RhinoFunctionResultChecker("foo", "box", "OK"), null, version);
+        }
+    }
+
+    public void testBrowserExample() throws IOException {
+        JetFile file = JetFileUtils.createPsiFile("Hello.kt", FileUtil.loadFile(new File(BROWSER_EXAMPLE), true), getProject());
+        JetFile helpers = JetFileUtils.createPsiFile("Helpers.kt", BROWSER_EXAMPLE_HELPERS, getProject());
+        List<JetFile> files = Arrays.asList(file, helpers);
+        for (EcmaVersion version : BasicTest.DEFAULT_ECMA_VERSIONS) {
+            String fullCode = translate(files, version, null);
+            assertTrue(fullCode, fullCode.contains("unusedGreeting"));
+            assertTrue(fullCode, fullCode.contains("UnusedWidget"));
+
+            String code = translate(files, version, Collections.singletonList("sample.myApp"));
+            assertTrue(code, code.contains("myApp"));
+            assertTrue(code, code.contains("getElementById"));
+            assertTrue(code, code.contains("createTextNode"));
+            assertFalse(code, code.contains("unusedGreeting"));
+            assertFalse(code, code.contains("UnusedWidget"));
+            assertFalse(code, code.contains("render"));
+            assertTrue(code.length() < fullCode.length());
+
+            String nothingExported = translate(files, version, Collections.<String>emptyList());
+            assertFalse(nothingExported, nothingExported.contains("myApp"));
+        }
+    }
+
+    @NotNull
+    private String translate(@NotNull JetFile file, @NotNull EcmaVersion version, @Nullable Collection<String> exportedNames) {
+        return translate(Collections.singletonList(file), version, exportedNames);
+    }
+
+    @NotNull
+    private String translate(@NotNull List<JetFile> files, @NotNull EcmaVersion version, @Nullable Collection<String> exportedNames) {
+        Config config = TranslationUtils.getConfig(getProject(), version, TestConfig.FACTORY);
+        BindingContext bindingContext = AnalyzerFacadeForJS.analyzeFilesAndCheckErrors(files, config);
+        try {
+            return K2JSTranslator.translateAnalyzedFiles(MainCallParameters.noCall(), files, config, bindingContext, exportedNames);
+        }
+        catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.test;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
+import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.config.LibraryHeaders;
+import org.jetbrains.k2js.config.LibrarySourcesConfig;
+import org.jetbrains.k2js.utils.JetFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Analysis of a small project against the js library given by its sources and by the archive of its headers, the headers are
+ * analyzed lazily. The js-library-* workloads of CompilerBenchmark compare their times.
+ */
+public final class LibraryHeadersTest extends KotlinTestWithEnvironment {
+    private static final String MAIN =
+            "package app\n" +
+            "fun main(args: Array<String>) {\n" +
+            "    val pair = Pair(1, \"one\")\n" +
+            "    println(pair.component2())\n" +
+            "    println(Math.max(pair.first, 2))\n" +
+            "}\n";
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return new JetCoreEnvironment(getTestRootDisposable(), new CompilerConfiguration());
+    }
+
+    public void testHeaderOfDeclarations() {
+        JetFile file = JetFileUtils.createPsiFile("test.kt",
+                                                  "package test\n" +
+                                                  "public class A(val x: Int) {\n" +
+                                                  "    { println(x) }\n" +
+                                                  "    public val y: Int = x * 2\n" +
+                                                  "    public val z = x + 1\n" +
+                                                  "    public var w: Int = 0\n" +
+                                                  "        get() { return $w }\n" +
+                                                  "        set(value) { $w = value }\n" +
+                                                  "    public fun f(): Int { return x }\n" +
+                                                  "    public fun g() { println(x) }\n" +
+                                                  "    public fun h() = x\n" +
+                                                  "}\n", getProject());
+        assertEquals("package test\n" +
+                     "public class A(val x: Int) {\n" +
+                     "    \n" +
+                     "    public val y: Int = js.noImpl\n" +
+                     "    public val z = x + 1\n" +
+                     "    public var w: Int = js.noImpl\n" +
+                     "        get() { return js.noImpl }\n" +
+                     "        set(value) {}\n" +
+                     "    public fun f(): Int = js.noImpl\n" +
+                     "    public fun g() {}\n" +
+                     "    public fun h() = x\n" +
+                     "}\n", LibraryHeaders.generateHeader(file));
+    }
+
+    public void testAnalysisAgainstHeaders() throws IOException {
+        final List<JetFile> libraryFiles = loadLibraryFiles();
+        File archive = FileUtil.createTempFile("headers", ".zip");
+        LibraryHeaders.writeHeaders(libraryFiles, archive);
+
+        int sourcesSize = 0;
+        for (JetFile file : libraryFiles) {
+            sourcesSize += file.getTextLength();
+        }
+
+        List<JetFile> sources = Collections.singletonList(JetFileUtils.createPsiFile("main.kt", MAIN, getProject()));
+        Config sourcesConfig = new Config(getProject(), "main", EcmaVersion.defaultVersion()) {
+            @NotNull
+            @Override
+            protected List<JetFile> generateLibFiles() {
+                return libraryFiles;
+            }
+        };
+        Config headersConfig = new LibrarySourcesConfig(getProject(), "main", Collections.singletonList(archive.getPath()),
+                                                        EcmaVersion.defaultVersion());
+
+        AnalyzeExhaust eager = AnalyzerFacadeForJS.analyzeFiles(sources, Predicates.<PsiFile>alwaysTrue(), sourcesConfig);
+
+        List<JetFile> headers = headersConfig.getLibFiles();
+        AnalyzeExhaust lazy = AnalyzerFacadeForJS.analyzeFilesLazily(sources, Predicates.<PsiFile>alwaysTrue(), headersConfig);
+
+        int headersSize = 0;
+        for (JetFile file : headers) {
+            headersSize += file.getTextLength();
+        }
+
+        assertEquals(libraryFiles.size(), headers.size());
+        AnalyzerFacadeForJS.checkForErrors(Config.withJsLibAdded(sources, sourcesConfig), eager.getBindingContext());
+        AnalyzerFacadeForJS.checkForErrors(Config.withJsLibAdded(sources, headersConfig), lazy.getBindingContext());
+        assertTrue(headersSize < sourcesSize);
+        assertTrue(countFunctions(lazy.getBindingContext()) < countFunctions(eager.getBindingContext()));
+    }
+
+    @NotNull
+    private List<JetFile> loadLibraryFiles() throws IOException {
+        List<JetFile> files = Lists.newArrayList();
+        for (String fileName : Config.LIB_FILE_NAMES) {
+            String text = FileUtil.loadFile(new File(Config.LIBRARIES_LOCATION + fileName), true);
+            files.add(JetFileUtils.createPsiFile(fileName.substring(fileName.lastIndexOf('/') + 1), text, getProject()));
+        }
+        return files;
+    }
+
+    private static int countFunctions(@NotNull BindingContext bindingContext) {
+        return bindingContext.getKeys(BindingContext.FUNCTION).size();
+    }
+}
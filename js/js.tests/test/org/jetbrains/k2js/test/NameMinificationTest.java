@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.test;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
+import org.jetbrains.k2js.config.Config;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.facade.K2JSTranslator;
+import org.jetbrains.k2js.facade.MainCallParameters;
+import org.jetbrains.k2js.test.config.TestConfig;
+import org.jetbrains.k2js.test.config.TestConfigFactory;
+import org.jetbrains.k2js.test.rhino.RhinoFunctionResultChecker;
+import org.jetbrains.k2js.test.utils.TranslationUtils;
+import org.jetbrains.k2js.translate.context.Namer;
+import org.jetbrains.k2js.utils.JetFileUtils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.jetbrains.k2js.test.rhino.RhinoUtils.runRhinoTest;
+
+/**
+ * The test cases of the examples and closures translated with minified names still work and get smaller. How much smaller
+ * and how much faster Rhino parses them is measured by the "js-cases" workloads of CompilerBenchmark.
+ */
+public final class NameMinificationTest extends KotlinTestWithEnvironment {
+    private static final TestConfigFactory MINIFYING_FACTORY = new TestConfigFactory() {
+        @Override
+        public TestConfig create(@NotNull Project project,
+                @NotNull EcmaVersion version,
+                @NotNull List<JetFile> files,
+                @NotNull BindingContext context) {
+            return new TestConfig(project, version, files, context, true);
+        }
+    };
+
+    private int fullSize;
+    private int minifiedSize;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return new JetCoreEnvironment(getTestRootDisposable(), new CompilerConfiguration());
+    }
+
+    public void testCorpus() throws Exception {
+        for (EcmaVersion version : BasicTest.DEFAULT_ECMA_VERSIONS) {
+            fullSize = minifiedSize = 0;
+
+            checkDirectory("examples/cases/", Namer.getRootNamespaceName(), "OK", version);
+            checkDirectory("closure/cases/", "foo", true, version);
+            assertTrue(minifiedSize < fullSize);
+        }
+    }
+
+    public void testShortNamesAreNotShadowed() throws Exception {
+        JetFile file = JetFileUtils.createPsiFile("test.kt",
+                                                  "package foo\n" +
+                                                  "fun apply(f: (Int) -> Int, value: Int) = f(value)\n" +
+                                                  "fun box(): Boolean {\n" +
+                                                  "    val first = 1\n" +
+                                                  "    var total = 0\n" +
+                                                  "    for (index in 0..2) {\n" +
+                                                  "        total += apply({ argument -> val local = argument * 2; local + first + index }, index)\n" +
+                                                  "    }\n" +
+                                                  "    return total == 12\n" +
+                                                  "}\n", getProject());
+        for (EcmaVersion version : BasicTest.DEFAULT_ECMA_VERSIONS) {
+            String code = translate(file, version, MINIFYING_FACTORY);
+            assertFalse(code, code.contains("argument"));
+            assertFalse(code, code.contains("total"));
+            runMinified(code, "foo", true, version);
+        }
+    }
+
+    private void checkDirectory(@NotNull String directory, @NotNull String namespace, @NotNull Object expected,
+            @NotNull EcmaVersion version) throws Exception {
+        File[] files = new File(BasicTest.pathToTestFilesRoot() + directory).listFiles();
+        assertNotNull(files);
+        Arrays.sort(files);
+        for (File file : files) {
+            JetFile psiFile = JetFileUtils.createPsiFile(file.getName(), FileUtil.loadFile(file, true), getProject());
+            String full = translate(psiFile, version, TestConfig.FACTORY);
+            String minified = translate(psiFile, version, MINIFYING_FACTORY);
+            fullSize += full.length();
+            minifiedSize += minified.length();
+            runMinified(minified, namespace, expected, version);
+        }
+    }
+
+    @NotNull
+    private String translate(@NotNull JetFile file, @NotNull EcmaVersion version, @NotNull TestConfigFactory factory)
+            throws Exception {
+        List<JetFile> files = Collections.singletonList(file);
+        Config config = TranslationUtils.getConfig(getProject(), version, factory);
+        BindingContext bindingContext = AnalyzerFacadeForJS.analyzeFilesAndCheckErrors(files, config);
+        return K2JSTranslator.translateAnalyzedFiles(MainCallParameters.noCall(), files, config, bindingContext, null);
+    }
+
+    private static void runMinified(@NotNull String code, @NotNull String namespace, @NotNull Object expected,
+            @NotNull EcmaVersion version) throws Exception {
+        File output = FileUtil.createTempFile("minified", ".js");
+        FileUtil.writeToFile(output, code);
+        runRhinoTest(Collections.singletonList(output.getPath()), new RhinoFunctionResultChecker(namespace, "box", expected), version);
+    }
+}
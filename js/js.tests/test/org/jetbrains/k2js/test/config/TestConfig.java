@@ -45,7 +45,12 @@ public class TestConfig extends Config {
 
     public TestConfig(@NotNull Project project, @NotNull EcmaVersion version,
             @NotNull List<JetFile> files, @NotNull BindingContext context) {
-        super(project, REWRITABLE_MODULE_NAME, version);
+        this(project, version, files, context, false);
+    }
+
+    public TestConfig(@NotNull Project project, @NotNull EcmaVersion version,
+            @NotNull List<JetFile> files, @NotNull BindingContext context, boolean minifyNames) {
+        super(project, REWRITABLE_MODULE_NAME, version, minifyNames);
         jsLibFiles = files;
         libraryContext = context;
     }
@@ -16,8 +16,20 @@
 
 package org.jetbrains.k2js.test.semantics;
 
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.k2js.config.EcmaVersion;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static com.intellij.openapi.util.io.FileUtil.loadTextAndClose;
+import static org.jetbrains.k2js.test.utils.LibraryFilePathsUtil.getAdditionalLibraryFiles;
+
 public final class ForeachTest extends AbstractExpressionTest {
 
+    private boolean withStdLib = false;
+
     public ForeachTest() {
         super("for/");
     }
@@ -29,4 +41,44 @@ public final class ForeachTest extends AbstractExpressionTest {
     public void testForOnEmptyArray() throws Exception {
         fooBoxTest();
     }
-}
\ No newline at end of file
+
+    public void testForOverArrayIndices() throws Exception {
+        fooBoxTest();
+        checkHasNoIterators();
+    }
+
+    public void testForOverPrimitiveArray() throws Exception {
+        fooBoxTest();
+        checkHasNoIterators();
+    }
+
+    public void testForOverArrayList() throws Exception {
+        fooBoxTest();
+        checkHasNoIterators();
+    }
+
+    public void testForOverString() throws Exception {
+        withStdLib = true;
+        fooBoxTest(failOnEcma5());
+    }
+
+    public void testForOverCollectionAndIntIndices() throws Exception {
+        withStdLib = true;
+        fooBoxTest(failOnEcma5());
+    }
+
+    @NotNull
+    @Override
+    protected List<String> additionalKotlinFiles() {
+        return withStdLib ? getAdditionalLibraryFiles() : super.additionalKotlinFiles();
+    }
+
+    private void checkHasNoIterators() throws IOException {
+        for (EcmaVersion ecmaVersion : DEFAULT_ECMA_VERSIONS) {
+            String filePath = getOutputFilePath(getTestName(true) + ".kt", ecmaVersion);
+            //noinspection IOResourceOpenedButNotSafelyClosed
+            String text = loadTextAndClose(new FileInputStream(filePath));
+            assertFalse(filePath + " should not create iterators", text.contains("iterator") || text.contains("Indices"));
+        }
+    }
+}
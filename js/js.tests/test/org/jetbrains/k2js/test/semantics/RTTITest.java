@@ -31,4 +31,8 @@ public class RTTITest extends SingleFileTranslationTest {
     public void testNotIsOtherClass() throws Exception {
         fooBoxTest();
     }
+
+    public void testIsSuperclassAndTrait() throws Exception {
+        fooBoxTest();
+    }
 }
@@ -16,6 +16,12 @@
 
 package org.jetbrains.k2js.test.semantics;
 
+import org.jetbrains.k2js.config.EcmaVersion;
+
+import java.io.FileInputStream;
+
+import static com.intellij.openapi.util.io.FileUtil.loadTextAndClose;
+
 public final class StringTemplatesTest extends AbstractExpressionTest {
 
     public StringTemplatesTest() {
@@ -29,4 +35,26 @@ public final class StringTemplatesTest extends AbstractExpressionTest {
     public void testStringValues() throws Exception {
         fooBoxTest();
     }
-}
\ No newline at end of file
+
+    public void testNullableEntries() throws Exception {
+        fooBoxTest();
+    }
+
+    public void testNumbersAndBooleans() throws Exception {
+        fooBoxTest();
+    }
+
+    public void testConstantEntries() throws Exception {
+        fooBoxTest();
+    }
+
+    public void testManyEntries() throws Exception {
+        fooBoxTest();
+        for (EcmaVersion ecmaVersion : DEFAULT_ECMA_VERSIONS) {
+            String filePath = getOutputFilePath(getTestName(true) + ".kt", ecmaVersion);
+            //noinspection IOResourceOpenedButNotSafelyClosed
+            String text = loadTextAndClose(new FileInputStream(filePath));
+            assertTrue(filePath + " should join templates with many entries", text.contains(".join("));
+        }
+    }
+}
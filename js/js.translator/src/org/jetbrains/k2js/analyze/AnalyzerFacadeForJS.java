@@ -30,6 +30,7 @@ import org.jetbrains.jet.lang.descriptors.ModuleDescriptor;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.*;
 import org.jetbrains.jet.lang.resolve.lazy.FileBasedDeclarationProviderFactory;
+import org.jetbrains.jet.lang.resolve.lazy.LazyTopDownAnalyzer;
 import org.jetbrains.jet.lang.resolve.lazy.ResolveSession;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.Name;
@@ -104,6 +105,28 @@ public final class AnalyzerFacadeForJS {
         }
     }
 
+    /**
+     * Analyzes the files on top of {@link ResolveSession}: declarations of the libraries are resolved only when the files refer to them.
+     * The library binding context of the config is not used, the library files are given to the session instead.
+     */
+    @NotNull
+    public static AnalyzeExhaust analyzeFilesLazily(
+            @NotNull Collection<JetFile> files,
+            @NotNull Predicate<PsiFile> filesToAnalyzeCompletely, @NotNull Config config) {
+        Predicate<PsiFile> completely = Predicates.and(notLibFiles(config.getLibFiles()), filesToAnalyzeCompletely);
+
+        Collection<JetFile> allFiles = Config.withJsLibAdded(files, config);
+        BindingTrace trace = new BindingTraceContext();
+        FileBasedDeclarationProviderFactory declarationProviderFactory = new FileBasedDeclarationProviderFactory(
+                allFiles, Predicates.<FqName>alwaysFalse());
+        ModuleDescriptor lazyModule = new ModuleDescriptor(Name.special("<lazy module>"));
+        ResolveSession resolveSession = new ResolveSession(config.getProject(), lazyModule, new JsConfiguration(config.getProject(), null),
+                                                          declarationProviderFactory, trace);
+
+        new LazyTopDownAnalyzer(resolveSession, completely).analyzeFiles(allFiles);
+        return AnalyzeExhaust.success(trace.getBindingContext(), resolveSession.getModuleConfiguration());
+    }
+
     @NotNull
     public static AnalyzeExhaust analyzeBodiesInFiles(
             @NotNull Predicate<PsiFile> filesToAnalyzeCompletely,
@@ -31,7 +31,12 @@ public class ClassPathLibraryDefintionsConfig extends Config {
     public static final String META_INF_SERVICES_FILE = "META-INF/services/org.jetbrains.kotlin.js.libraryDefinitions";
 
     public ClassPathLibraryDefintionsConfig(@NotNull Project project, @NotNull String moduleId, @NotNull EcmaVersion version) {
-        super(project, moduleId, version);
+        this(project, moduleId, version, false);
+    }
+
+    public ClassPathLibraryDefintionsConfig(@NotNull Project project, @NotNull String moduleId, @NotNull EcmaVersion version,
+            boolean minifyNames) {
+        super(project, moduleId, version, minifyNames);
     }
 
     @NotNull
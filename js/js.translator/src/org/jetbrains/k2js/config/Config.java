@@ -147,10 +147,17 @@ public abstract class Config {
     @NotNull
     private final String moduleId;
 
+    private final boolean minifyNames;
+
     public Config(@NotNull Project project, @NotNull String moduleId, @NotNull EcmaVersion ecmaVersion) {
+        this(project, moduleId, ecmaVersion, false);
+    }
+
+    public Config(@NotNull Project project, @NotNull String moduleId, @NotNull EcmaVersion ecmaVersion, boolean minifyNames) {
         this.project = project;
         this.target = ecmaVersion;
         this.moduleId = moduleId;
+        this.minifyNames = minifyNames;
     }
 
     @NotNull
@@ -168,6 +175,13 @@ public abstract class Config {
         return moduleId;
     }
 
+    /**
+     * Whether parameters, local variables and temporaries get short generated names instead of the names from the sources
+     */
+    public boolean isMinifyNames() {
+        return minifyNames;
+    }
+
     @NotNull
     protected abstract List<JetFile> generateLibFiles();
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.config;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.psi.*;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Declaration headers of a compiled library: the sources with bodies and initializers dropped wherever the types of declarations
+ * do not depend on them. The code of a library lives in its compiled js file, headers are enough to resolve calls to it,
+ * they are small to parse and there are no bodies to resolve.
+ *
+ * Headers are stored in the library archive under {@link #HEADERS_DIRECTORY}, see {@link LibrarySourcesConfig}.
+ */
+public final class LibraryHeaders {
+    @NotNull
+    public static final String HEADERS_DIRECTORY = "kotlin-js-headers/";
+
+    @NotNull
+    private static final String NO_IMPL = "js.noImpl";
+
+    private LibraryHeaders() {
+    }
+
+    public static void writeHeaders(@NotNull Collection<JetFile> files, @NotNull File archive) throws IOException {
+        ZipOutputStream output = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(archive)));
+        try {
+            Set<String> entryNames = Sets.newHashSet();
+            for (JetFile file : files) {
+                String entryName = getEntryName(file);
+                for (int i = 1; !entryNames.add(entryName); i++) {
+                    entryName = getEntryName(file).replaceFirst("\\.kt$", i + ".kt");
+                }
+                output.putNextEntry(new ZipEntry(entryName));
+                output.write(generateHeader(file).getBytes("UTF-8"));
+                output.closeEntry();
+            }
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    @NotNull
+    private static String getEntryName(@NotNull JetFile file) {
+        String packageName = file.getPackageName();
+        String directory = packageName == null || packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/";
+        String name = file.getName();
+        return HEADERS_DIRECTORY + directory + (name.endsWith(".kt") ? name : name + ".kt");
+    }
+
+    /**
+     * @return the path of the header file in the library archive, or null if the entry is not a header
+     */
+    @Nullable
+    public static String getHeaderPath(@NotNull String entryName) {
+        return entryName.startsWith(HEADERS_DIRECTORY) ? entryName.substring(HEADERS_DIRECTORY.length()) : null;
+    }
+
+    @NotNull
+    public static String generateHeader(@NotNull JetFile file) {
+        List<Replacement> replacements = Lists.newArrayList();
+        collectReplacements(file, replacements);
+        Collections.sort(replacements, new Comparator<Replacement>() {
+            @Override
+            public int compare(Replacement r1, Replacement r2) {
+                return r1.range.getStartOffset() - r2.range.getStartOffset();
+            }
+        });
+
+        String text = file.getText();
+        StringBuilder result = new StringBuilder(text.length());
+        int offset = 0;
+        for (Replacement replacement : replacements) {
+            result.append(text, offset, replacement.range.getStartOffset());
+            result.append(replacement.text);
+            offset = replacement.range.getEndOffset();
+        }
+        result.append(text, offset, text.length());
+        return result.toString();
+    }
+
+    private static void collectReplacements(@NotNull JetDeclarationContainer container, @NotNull List<Replacement> replacements) {
+        for (JetDeclaration declaration : container.getDeclarations()) {
+            if (declaration instanceof JetNamedFunction) {
+                collectFunctionReplacements((JetNamedFunction) declaration, replacements);
+            }
+            else if (declaration instanceof JetProperty) {
+                collectPropertyReplacements((JetProperty) declaration, replacements);
+            }
+            else if (declaration instanceof JetClassObject) {
+                JetObjectDeclaration objectDeclaration = ((JetClassObject) declaration).getObjectDeclaration();
+                if (objectDeclaration != null) {
+                    collectClassReplacements(objectDeclaration, replacements);
+                }
+            }
+            else if (declaration instanceof JetClassOrObject) {
+                collectClassReplacements((JetClassOrObject) declaration, replacements);
+            }
+        }
+    }
+
+    private static void collectClassReplacements(@NotNull JetClassOrObject classOrObject, @NotNull List<Replacement> replacements) {
+        for (JetClassInitializer initializer : classOrObject.getAnonymousInitializers()) {
+            replacements.add(new Replacement(initializer, ""));
+        }
+        collectReplacements(classOrObject, replacements);
+    }
+
+    private static void collectFunctionReplacements(@NotNull JetNamedFunction function, @NotNull List<Replacement> replacements) {
+        JetExpression body = function.getBodyExpression();
+        if (body == null) return;
+
+        if (function.hasBlockBody()) {
+            if (function.getReturnTypeRef() != null) {
+                replacements.add(new Replacement(body, "= " + NO_IMPL));
+            }
+            else {
+                // Unit is inferred for a block body without a declared return type
+                replacements.add(new Replacement(body, "{}"));
+            }
+        }
+        else if (function.getReturnTypeRef() != null) {
+            replacements.add(new Replacement(body, NO_IMPL));
+        }
+        // otherwise the return type is inferred from the body, it is kept
+    }
+
+    private static void collectPropertyReplacements(@NotNull JetProperty property, @NotNull List<Replacement> replacements) {
+        boolean typeDeclared = property.getTypeRef() != null;
+        JetExpression initializer = property.getInitializer();
+        if (initializer != null && typeDeclared) {
+            replacements.add(new Replacement(initializer, NO_IMPL));
+        }
+
+        for (JetPropertyAccessor accessor : property.getAccessors()) {
+            JetExpression body = accessor.getBodyExpression();
+            if (body == null) continue;
+
+            if (accessor.isSetter()) {
+                replacements.add(new Replacement(body, accessor.hasBlockBody() ? "{}" : NO_IMPL));
+            }
+            else if (typeDeclared || accessor.getReturnTypeReference() != null) {
+                replacements.add(new Replacement(body, accessor.hasBlockBody() ? "{ return " + NO_IMPL + " }" : NO_IMPL));
+            }
+        }
+    }
+
+    private static final class Replacement {
+        @NotNull
+        private final TextRange range;
+        @NotNull
+        private final String text;
+
+        private Replacement(@NotNull PsiElement element, @NotNull String text) {
+            this.range = element.getTextRange();
+            this.text = text;
+        }
+    }
+}
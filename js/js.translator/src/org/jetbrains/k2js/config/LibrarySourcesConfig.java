@@ -51,7 +51,15 @@ public class LibrarySourcesConfig extends Config {
             @NotNull String moduleId,
             @NotNull List<String> files,
             @NotNull EcmaVersion ecmaVersion) {
-        super(project, moduleId, ecmaVersion);
+        this(project, moduleId, files, ecmaVersion, false);
+    }
+
+    public LibrarySourcesConfig(@NotNull Project project,
+            @NotNull String moduleId,
+            @NotNull List<String> files,
+            @NotNull EcmaVersion ecmaVersion,
+            boolean minifyNames) {
+        super(project, moduleId, ecmaVersion, minifyNames);
         this.files = files;
     }
 
@@ -100,20 +108,30 @@ public class LibrarySourcesConfig extends Config {
         }
     }
 
+    /**
+     * Archives written with declaration headers (see {@link LibraryHeaders}) are read from the headers, the sources are skipped
+     */
     @NotNull
     private List<JetFile> traverseArchive(@NotNull ZipFile file) throws IOException {
-        List<JetFile> result = Lists.newArrayList();
+        List<ZipEntry> sources = Lists.newArrayList();
+        List<ZipEntry> headers = Lists.newArrayList();
         Enumeration<? extends ZipEntry> zipEntries = file.entries();
         while (zipEntries.hasMoreElements()) {
             ZipEntry entry = zipEntries.nextElement();
             if (!entry.isDirectory() && entry.getName().endsWith(".kt")) {
-                InputStream stream = file.getInputStream(entry);
-                String text = FileUtil.loadTextAndClose(stream);
-                JetFile jetFile = JetFileUtils.createPsiFile(entry.getName(), text, getProject());
-                jetFile.putUserData(EXTERNAL_MODULE_NAME, UNKNOWN_EXTERNAL_MODULE_NAME);
-                result.add(jetFile);
+                (LibraryHeaders.getHeaderPath(entry.getName()) != null ? headers : sources).add(entry);
             }
         }
-        return result;
+
+        List<JetFile> jetFiles = Lists.newArrayList();
+        for (ZipEntry entry : headers.isEmpty() ? sources : headers) {
+            String headerPath = LibraryHeaders.getHeaderPath(entry.getName());
+            InputStream stream = file.getInputStream(entry);
+            String text = FileUtil.loadTextAndClose(stream);
+            JetFile jetFile = JetFileUtils.createPsiFile(headerPath != null ? headerPath : entry.getName(), text, getProject());
+            jetFile.putUserData(EXTERNAL_MODULE_NAME, UNKNOWN_EXTERNAL_MODULE_NAME);
+            jetFiles.add(jetFile);
+        }
+        return jetFiles;
     }
 }
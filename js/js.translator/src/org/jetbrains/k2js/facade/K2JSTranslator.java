@@ -18,20 +18,24 @@ package org.jetbrains.k2js.facade;
 
 import com.google.dart.compiler.backend.js.ast.JsProgram;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.io.FileUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
 import org.jetbrains.k2js.config.Config;
 import org.jetbrains.k2js.facade.exceptions.TranslationException;
+import org.jetbrains.k2js.optimize.DeadCodeEliminator;
 import org.jetbrains.k2js.translate.general.Translation;
 import org.jetbrains.k2js.utils.JetFileUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 
 import static org.jetbrains.k2js.facade.FacadeUtils.parseString;
@@ -54,6 +58,41 @@ public final class K2JSTranslator {
         FileUtil.writeToFile(new File(outputPath), programCode);
     }
 
+    /**
+     * Translates the files analyzed beforehand, the binding context must be free of errors.
+     *
+     * @param exportedNames if not null, the declarations unreachable from the call to main, tests and the exported names are removed,
+     *                      see {@link DeadCodeEliminator}
+     */
+    @NotNull
+    public static String translateAnalyzedFiles(@NotNull MainCallParameters mainCall,
+            @NotNull List<JetFile> files,
+            @NotNull Config config,
+            @NotNull BindingContext bindingContext,
+            @Nullable Collection<String> exportedNames) throws TranslationException {
+        return translateAnalyzedFiles(mainCall, files, config, bindingContext, exportedNames, null);
+    }
+
+    /**
+     * @param eliminated receives what the dead code elimination removed, if it is done
+     */
+    @NotNull
+    public static String translateAnalyzedFiles(@NotNull MainCallParameters mainCall,
+            @NotNull List<JetFile> files,
+            @NotNull Config config,
+            @NotNull BindingContext bindingContext,
+            @Nullable Collection<String> exportedNames,
+            @Nullable Ref<DeadCodeEliminator.Result> eliminated) throws TranslationException {
+        JsProgram program = Translation.generateAst(bindingContext, files, mainCall, config);
+        if (exportedNames != null) {
+            DeadCodeEliminator.Result result = DeadCodeEliminator.eliminateDeadCode(program, exportedNames);
+            if (eliminated != null) {
+                eliminated.set(result);
+            }
+        }
+        return generateProgramToString(program);
+    }
+
     @NotNull
     private final Config config;
 
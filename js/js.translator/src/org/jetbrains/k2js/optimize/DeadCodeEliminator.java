@@ -0,0 +1,321 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.optimize;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.dart.compiler.backend.js.JsSourceGenerationVisitor;
+import com.google.dart.compiler.backend.js.ast.*;
+import com.google.dart.compiler.util.TextOutputImpl;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static com.google.dart.compiler.backend.js.ast.JsVars.JsVar;
+
+/**
+ * Removes declarations which are not reachable from the code run when the program is loaded (the call to main, tests, package
+ * initializers) and from the exported names.
+ *
+ * Declarations are members of object literals (namespaces, classes, the classes and literal functions objects) and variables,
+ * whose values have no side effects: functions, literals, class and package definitions. The analysis is by names: a declaration
+ * is reachable if its name is referenced anywhere in the reachable code, in a qualified reference, a string literal or a property
+ * label. Names the runtime calls on Kotlin objects are always reachable, see {@link #RUNTIME_NAMES}.
+ */
+public final class DeadCodeEliminator {
+    // Methods of Kotlin objects called by kotlin_lib.js and maps.js
+    private static final Set<String> RUNTIME_NAMES = ImmutableSet.of(
+            "initialize", "toString", "equals", "hashCode", "compareTo", "compare",
+            "iterator", "next", "hasNext", "get_hasNext", "size", "get_size", "isEmpty",
+            "get", "set", "put", "add", "remove", "removeAt", "contains", "containsKey", "containsValue", "indexOf",
+            "addAll", "putAll", "clear", "toArray", "keys", "values", "entries", "clone"
+    );
+
+    private static final Set<String> PROPERTY_DESCRIPTOR_KEYS = ImmutableSet.of(
+            "value", "writable", "enumerable", "configurable", "get", "set");
+
+    // Calls creating definitions without running any code of the program, "Object.create" is used to define namespaces in ECMA 5
+    private static final Set<String> DEFINITION_FUNCTIONS = ImmutableSet.of(
+            "Kotlin.createClass", "Kotlin.createTrait", "Kotlin.definePackage", "Object.create");
+
+    /**
+     * @param exportedNames qualified names of declarations of the module to keep in addition to the reachable ones, e.g. "sample.myApp"
+     * @return the removed declarations
+     */
+    @NotNull
+    public static Result eliminateDeadCode(@NotNull JsProgram program, @NotNull Collection<String> exportedNames) {
+        DeadCodeEliminator eliminator = new DeadCodeEliminator();
+        for (String name : RUNTIME_NAMES) {
+            eliminator.reference(name);
+        }
+        for (String exportedName : exportedNames) {
+            for (String name : exportedName.split("\\.")) {
+                eliminator.reference(name);
+            }
+        }
+        return eliminator.eliminate(program);
+    }
+
+    private final Set<String> referencedNames = Sets.newHashSet();
+    private final Multimap<String, Declaration> declarations = ArrayListMultimap.create();
+    private final Deque<Declaration> reachedDeclarations = new ArrayDeque<Declaration>();
+    private final ReferenceCollector collector = new ReferenceCollector();
+
+    private DeadCodeEliminator() {
+    }
+
+    @NotNull
+    private Result eliminate(@NotNull JsProgram program) {
+        program.traverse(collector, null);
+        while (!reachedDeclarations.isEmpty()) {
+            Declaration declaration = reachedDeclarations.poll();
+            if (!declaration.reachable) {
+                declaration.reachable = true;
+                collector.accept(declaration.getValue());
+            }
+        }
+
+        List<String> removedNames = Lists.newArrayList();
+        List<JsExpression> removedValues = Lists.newArrayList();
+        for (Declaration declaration : declarations.values()) {
+            if (!declaration.reachable) {
+                removedNames.add(declaration.name);
+                removedValues.add(declaration.getValue());
+                declaration.remove();
+            }
+        }
+        return new Result(removedNames, removedValues);
+    }
+
+    private void reference(@NotNull String name) {
+        if (referencedNames.add(name)) {
+            reachedDeclarations.addAll(declarations.get(name));
+        }
+    }
+
+    private void declare(@NotNull Declaration declaration) {
+        declarations.put(declaration.name, declaration);
+        if (referencedNames.contains(declaration.name)) {
+            reachedDeclarations.add(declaration);
+        }
+    }
+
+    private static boolean hasNoSideEffects(@Nullable JsExpression expression) {
+        if (expression == null || expression instanceof JsFunction || expression instanceof JsValueLiteral) {
+            return true;
+        }
+        if (expression instanceof JsNameRef) {
+            return hasNoSideEffects(((JsNameRef) expression).getQualifier());
+        }
+        if (expression instanceof JsObjectLiteral) {
+            for (JsPropertyInitializer initializer : ((JsObjectLiteral) expression).getPropertyInitializers()) {
+                if (!hasNoSideEffects(initializer.getValueExpr())) return false;
+            }
+            return true;
+        }
+        if (expression instanceof JsArrayLiteral) {
+            return hasNoSideEffects(((JsArrayLiteral) expression).getExpressions());
+        }
+        if (expression instanceof JsInvocation) {
+            JsInvocation invocation = (JsInvocation) expression;
+            String callee = getQualifiedName(invocation.getQualifier());
+            return callee != null && DEFINITION_FUNCTIONS.contains(callee) && hasNoSideEffects(invocation.getArguments());
+        }
+        return false;
+    }
+
+    private static boolean hasNoSideEffects(@NotNull List<JsExpression> expressions) {
+        for (JsExpression expression : expressions) {
+            if (!hasNoSideEffects(expression)) return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    private static String getQualifiedName(@NotNull JsExpression expression) {
+        if (!(expression instanceof JsNameRef)) return null;
+        JsNameRef nameRef = (JsNameRef) expression;
+        JsExpression qualifier = nameRef.getQualifier();
+        if (qualifier == null) {
+            return nameRef.getIdent();
+        }
+        String qualifierName = getQualifiedName(qualifier);
+        return qualifierName == null ? null : qualifierName + "." + nameRef.getIdent();
+    }
+
+    @Nullable
+    private static String getLabel(@NotNull JsPropertyInitializer initializer) {
+        JsExpression label = initializer.getLabelExpr();
+        if (label instanceof JsNameRef) {
+            return ((JsNameRef) label).getIdent();
+        }
+        if (label instanceof JsStringLiteral) {
+            return ((JsStringLiteral) label).getValue();
+        }
+        return null;
+    }
+
+    private static boolean isPropertyDescriptor(@NotNull JsObjectLiteral literal) {
+        List<JsPropertyInitializer> initializers = literal.getPropertyInitializers();
+        if (initializers.isEmpty()) return false;
+        for (JsPropertyInitializer initializer : initializers) {
+            if (!PROPERTY_DESCRIPTOR_KEYS.contains(getLabel(initializer))) return false;
+        }
+        return true;
+    }
+
+    private class ReferenceCollector extends JsVisitor {
+        @Override
+        public boolean visit(JsNameRef x, JsContext ctx) {
+            reference(x.getIdent());
+            return true;
+        }
+
+        @Override
+        public boolean visit(JsStringLiteral x, JsContext ctx) {
+            reference(x.getValue());
+            return true;
+        }
+
+        @Override
+        public boolean visit(JsObjectLiteral x, JsContext ctx) {
+            // members of property descriptors are not declarations, they are defined along with the property
+            boolean descriptor = isPropertyDescriptor(x);
+            List<JsPropertyInitializer> initializers = x.getPropertyInitializers();
+            for (JsPropertyInitializer initializer : initializers) {
+                String name = getLabel(initializer);
+                if (!descriptor && name != null && hasNoSideEffects(initializer.getValueExpr())) {
+                    declare(new PropertyDeclaration(name, initializer, initializers));
+                }
+                else {
+                    accept(initializer.getValueExpr());
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean visit(JsVar x, JsContext ctx) {
+            JsExpression initializer = x.getInitExpression();
+            if (initializer != null && hasNoSideEffects(initializer)) {
+                declare(new VariableDeclaration(x));
+                return false;
+            }
+            return true;
+        }
+    }
+
+    public static final class Result {
+        @NotNull
+        private final List<String> removedNames;
+        // the values as they were before pruning
+        @NotNull
+        private final List<JsExpression> removedValues;
+
+        private Result(@NotNull List<String> removedNames, @NotNull List<JsExpression> removedValues) {
+            this.removedNames = removedNames;
+            this.removedValues = removedValues;
+        }
+
+        public int getRemovedDeclarations() {
+            return removedNames.size();
+        }
+
+        /**
+         * @return the number of characters the removed declarations took in the generated code, except for separators and indents.
+         * The removed values are generated again to count them, the elimination itself doesn't need it.
+         */
+        public int getRemovedCharacters() {
+            int size = 0;
+            for (String name : removedNames) {
+                size += name.length();
+            }
+            for (JsExpression value : removedValues) {
+                TextOutputImpl output = new TextOutputImpl();
+                new JsSourceGenerationVisitor(output).accept(value);
+                size += output.toString().length();
+            }
+            return size;
+        }
+    }
+
+    private abstract static class Declaration {
+        @NotNull
+        protected final String name;
+        private boolean reachable = false;
+
+        protected Declaration(@NotNull String name) {
+            this.name = name;
+        }
+
+        @NotNull
+        protected abstract JsExpression getValue();
+
+        protected abstract void remove();
+    }
+
+    private static class PropertyDeclaration extends Declaration {
+        @NotNull
+        private final JsPropertyInitializer initializer;
+        @NotNull
+        private final List<JsPropertyInitializer> container;
+
+        private PropertyDeclaration(@NotNull String name, @NotNull JsPropertyInitializer initializer,
+                @NotNull List<JsPropertyInitializer> container) {
+            super(name);
+            this.initializer = initializer;
+            this.container = container;
+        }
+
+        @NotNull
+        @Override
+        protected JsExpression getValue() {
+            return initializer.getValueExpr();
+        }
+
+        @Override
+        protected void remove() {
+            container.remove(initializer);
+        }
+    }
+
+    private static class VariableDeclaration extends Declaration {
+        @NotNull
+        private final JsVar var;
+
+        private VariableDeclaration(@NotNull JsVar var) {
+            super(var.getName().getIdent());
+            this.var = var;
+        }
+
+        @NotNull
+        @Override
+        protected JsExpression getValue() {
+            return var.getInitExpression();
+        }
+
+        @Override
+        protected void remove() {
+            // the variable stays declared, it may be assigned later
+            var.setInitExpression(null);
+        }
+    }
+}
@@ -27,12 +27,12 @@ import static com.google.dart.compiler.backend.js.ast.JsVars.JsVar;
 public final class DynamicContext {
     @NotNull
     public static DynamicContext rootContext(@NotNull JsScope rootScope, @NotNull JsBlock globalBlock) {
-        return new DynamicContext(rootScope, globalBlock);
+        return new DynamicContext(rootScope, globalBlock, null);
     }
 
     @NotNull
-    public static DynamicContext newContext(@NotNull JsScope scope, @NotNull JsBlock block) {
-        return new DynamicContext(scope, block);
+    /*package*/ static DynamicContext newContext(@NotNull JsScope scope, @NotNull JsBlock block, @Nullable LocalNameMinifier nameMinifier) {
+        return new DynamicContext(scope, block, nameMinifier);
     }
 
     @NotNull
@@ -41,17 +41,21 @@ public final class DynamicContext {
     @NotNull
     private final JsBlock currentBlock;
 
+    @Nullable
+    private final LocalNameMinifier nameMinifier;
+
     @Nullable
     private JsVars vars;
 
-    private DynamicContext(@NotNull JsScope scope, @NotNull JsBlock block) {
+    private DynamicContext(@NotNull JsScope scope, @NotNull JsBlock block, @Nullable LocalNameMinifier nameMinifier) {
         this.currentScope = scope;
         this.currentBlock = block;
+        this.nameMinifier = nameMinifier;
     }
 
     @NotNull
     public DynamicContext innerBlock(@NotNull JsBlock block) {
-        return new DynamicContext(currentScope, block);
+        return new DynamicContext(currentScope, block, nameMinifier);
     }
 
     @NotNull
@@ -61,17 +65,25 @@ public final class DynamicContext {
             currentBlock.getStatements().add(vars);
         }
 
-        JsName temporaryName = currentScope.declareTemporary();
+        JsName temporaryName = declareTemporaryName();
         vars.add(new JsVar(temporaryName, null));
         return new TemporaryVariable(temporaryName, initExpression);
     }
 
     @NotNull
     public Pair<JsVar, JsNameRef> createTemporary(@Nullable JsExpression initExpression) {
-        JsVar var = new JsVar(currentScope.declareTemporary(), initExpression);
+        JsVar var = new JsVar(declareTemporaryName(), initExpression);
         return new Pair<JsVar, JsNameRef>(var, var.getName().makeRef());
     }
 
+    @NotNull
+    private JsName declareTemporaryName() {
+        if (nameMinifier != null && nameMinifier.isMinified(currentScope)) {
+            return nameMinifier.declareTemporary(currentScope);
+        }
+        return currentScope.declareTemporary();
+    }
+
     @NotNull
     public JsScope getScope() {
         return currentScope;
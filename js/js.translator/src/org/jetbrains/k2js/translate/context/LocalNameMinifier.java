@@ -0,0 +1,111 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.k2js.translate.context;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.dart.compiler.backend.js.ast.JsName;
+import com.google.dart.compiler.backend.js.ast.JsScope;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Short names for parameters, local variables and temporaries of functions, used when the names are minified.
+ *
+ * A short name is "$" followed by a digit and then letters or digits. No other name in the generated code looks like that, so short
+ * names clash only with each other. Short names are unique along the lexical nesting of functions: a function doesn't reuse the names
+ * of the functions enclosing it or of the functions it encloses, so a name referenced from a closure is never shadowed. Functions
+ * which are not nested reuse the same names.
+ *
+ * Function scopes are registered with {@link #addScope} along with the scope of the lexically enclosing function, the names
+ * of the scopes which are not registered are not minified.
+ */
+final class LocalNameMinifier {
+    private static final String FIRST_CHARS = "0123456789";
+    private static final String CHARS = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    @NotNull
+    private final Map<JsScope, JsScope> enclosingScopes = Maps.newHashMap();
+    @NotNull
+    private final Map<JsScope, Set<String>> ownNames = Maps.newHashMap();
+    // names of the scope and of the scopes nested in it
+    @NotNull
+    private final Map<JsScope, Set<String>> nestedNames = Maps.newHashMap();
+
+    void addScope(@NotNull JsScope scope, @Nullable JsScope enclosingScope) {
+        assert !isMinified(scope) : "Scope is already registered: " + scope;
+        assert enclosingScope == null || isMinified(enclosingScope) : "Enclosing scope is not registered: " + enclosingScope;
+        enclosingScopes.put(scope, enclosingScope);
+        ownNames.put(scope, Sets.<String>newHashSet());
+        nestedNames.put(scope, Sets.<String>newHashSet());
+    }
+
+    boolean isMinified(@NotNull JsScope scope) {
+        return ownNames.containsKey(scope);
+    }
+
+    /**
+     * @return the shortest name not used by the scope, the scopes enclosing it and the scopes nested in it
+     */
+    @NotNull
+    String generateName(@NotNull JsScope scope) {
+        Set<String> namesOfNestedScopes = nestedNames.get(scope);
+        assert namesOfNestedScopes != null : "Scope is not registered: " + scope;
+        for (int index = 0; ; index++) {
+            String name = getName(index);
+            if (!namesOfNestedScopes.contains(name) && !isUsedByEnclosingScopes(scope, name)) {
+                return name;
+            }
+        }
+    }
+
+    @NotNull
+    JsName declareName(@NotNull JsScope scope, @NotNull String name) {
+        ownNames.get(scope).add(name);
+        for (JsScope current = scope; current != null; current = enclosingScopes.get(current)) {
+            nestedNames.get(current).add(name);
+        }
+        return scope.declareName(name);
+    }
+
+    @NotNull
+    JsName declareTemporary(@NotNull JsScope scope) {
+        return declareName(scope, generateName(scope));
+    }
+
+    private boolean isUsedByEnclosingScopes(@NotNull JsScope scope, @NotNull String name) {
+        for (JsScope current = enclosingScopes.get(scope); current != null; current = enclosingScopes.get(current)) {
+            if (ownNames.get(current).contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    private static String getName(int index) {
+        StringBuilder name = new StringBuilder("$");
+        name.append(FIRST_CHARS.charAt(index % FIRST_CHARS.length()));
+        for (int rest = index / FIRST_CHARS.length(); rest > 0; rest = (rest - 1) / CHARS.length()) {
+            name.append(CHARS.charAt((rest - 1) % CHARS.length()));
+        }
+        return name.toString();
+    }
+}
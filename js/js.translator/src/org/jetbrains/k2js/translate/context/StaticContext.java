@@ -48,12 +48,15 @@ import static org.jetbrains.k2js.translate.utils.JsDescriptorUtils.*;
  */
 public final class StaticContext {
 
-    public static StaticContext generateStaticContext(@NotNull BindingContext bindingContext, @NotNull EcmaVersion ecmaVersion) {
+    public static StaticContext generateStaticContext(@NotNull BindingContext bindingContext, @NotNull EcmaVersion ecmaVersion,
+            boolean minifyNames) {
         JsProgram program = new JsProgram("main");
         Namer namer = Namer.newInstance(program.getRootScope());
         Intrinsics intrinsics = new Intrinsics();
         StandardClasses standardClasses = StandardClasses.bindImplementations(namer.getKotlinScope());
-        return new StaticContext(program, bindingContext, namer, intrinsics, standardClasses, program.getRootScope(), ecmaVersion);
+        LocalNameMinifier nameMinifier = minifyNames ? new LocalNameMinifier() : null;
+        return new StaticContext(program, bindingContext, namer, intrinsics, standardClasses, program.getRootScope(), ecmaVersion,
+                                 nameMinifier);
     }
 
     @NotNull
@@ -91,10 +94,14 @@ public final class StaticContext {
     @NotNull
     private final LiteralFunctionTranslator literalFunctionTranslator = new LiteralFunctionTranslator();
 
+    @Nullable
+    private final LocalNameMinifier nameMinifier;
+
     //TODO: too many parameters in constructor
     private StaticContext(@NotNull JsProgram program, @NotNull BindingContext bindingContext,
             @NotNull Namer namer, @NotNull Intrinsics intrinsics,
-            @NotNull StandardClasses standardClasses, @NotNull JsScope rootScope, @NotNull EcmaVersion ecmaVersion) {
+            @NotNull StandardClasses standardClasses, @NotNull JsScope rootScope, @NotNull EcmaVersion ecmaVersion,
+            @Nullable LocalNameMinifier nameMinifier) {
         this.program = program;
         this.bindingContext = bindingContext;
         this.namer = namer;
@@ -102,6 +109,7 @@ public final class StaticContext {
         this.rootScope = rootScope;
         this.standardClasses = standardClasses;
         this.ecmaVersion = ecmaVersion;
+        this.nameMinifier = nameMinifier;
     }
 
     @NotNull
@@ -143,6 +151,11 @@ public final class StaticContext {
         return rootScope;
     }
 
+    @Nullable
+    /*package*/ LocalNameMinifier getNameMinifier() {
+        return nameMinifier;
+    }
+
     @NotNull
     public JsScope getScopeForDescriptor(@NotNull DeclarationDescriptor descriptor) {
         JsScope scope = scopes.get(descriptor.getOriginal());
@@ -300,6 +313,24 @@ public final class StaticContext {
                     return result;
                 }
             };
+            Rule<JsName> localVariablesHaveShortNamesWhenMinified = new Rule<JsName>() {
+                @Override
+                public JsName apply(@NotNull DeclarationDescriptor descriptor) {
+                    if (nameMinifier == null || !(descriptor instanceof VariableDescriptor) || descriptor instanceof PropertyDescriptor) {
+                        return null;
+                    }
+                    JsScope scope = getEnclosingScope(descriptor);
+                    if (!nameMinifier.isMinified(scope)) {
+                        return null;
+                    }
+                    String name = nameMinifier.generateName(scope);
+                    // names which are already short enough are kept
+                    if (name.length() >= descriptor.getName().getName().length()) {
+                        return null;
+                    }
+                    return nameMinifier.declareName(scope, name);
+                }
+            };
             addRule(namesForStandardClasses);
             addRule(constructorHasTheSameNameAsTheClass);
             addRule(predefinedObjectsHasUnobfuscatableNames);
@@ -308,10 +339,24 @@ public final class StaticContext {
             addRule(namespacesShouldBeDefinedInRootScope);
             addRule(overridingDescriptorsReferToOriginalName);
             addRule(accessorsHasNamesWithSpecialPrefixes);
+            addRule(localVariablesHaveShortNamesWhenMinified);
             addRule(memberDeclarationsInsideParentsScope);
         }
     }
 
+    // the scope of the function the code of the declaration is nested in, classes are skipped since their code is nested too
+    @Nullable
+    private JsScope getLexicallyEnclosingFunctionScope(@NotNull DeclarationDescriptor descriptor) {
+        DeclarationDescriptor container = descriptor.getContainingDeclaration();
+        while (container != null && !(container instanceof NamespaceDescriptor)) {
+            if (container instanceof CallableDescriptor) {
+                return getScopeForDescriptor(container);
+            }
+            container = container.getContainingDeclaration();
+        }
+        return null;
+    }
+
     @NotNull
     private JsScope getEnclosingScope(@NotNull DeclarationDescriptor descriptor) {
         DeclarationDescriptor containingDeclaration = getContainingDeclaration(descriptor);
@@ -374,6 +419,9 @@ public final class StaticContext {
                     JsFunction correspondingFunction = JsAstUtils.createFunctionWithEmptyBody(enclosingScope);
                     assert (!scopeToFunction.containsKey(correspondingFunction.getScope())) : "Scope to function value overridden for " + descriptor;
                     scopeToFunction.put(correspondingFunction.getScope(), correspondingFunction);
+                    if (nameMinifier != null) {
+                        nameMinifier.addScope(correspondingFunction.getScope(), getLexicallyEnclosingFunctionScope(descriptor));
+                    }
                     return correspondingFunction.getScope();
                 }
             };
@@ -87,7 +87,8 @@ public class TranslationContext {
 
     @NotNull
     protected TranslationContext contextWithScope(@NotNull JsScope newScope, @NotNull JsBlock block, @NotNull AliasingContext aliasingContext) {
-        return new TranslationContext(staticContext, DynamicContext.newContext(newScope, block), aliasingContext);
+        return new TranslationContext(staticContext, DynamicContext.newContext(newScope, block, staticContext.getNameMinifier()),
+                                      aliasingContext);
     }
 
     @NotNull
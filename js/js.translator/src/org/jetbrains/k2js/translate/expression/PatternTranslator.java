@@ -16,17 +16,16 @@
 
 package org.jetbrains.k2js.translate.expression;
 
-import com.google.dart.compiler.backend.js.ast.JsExpression;
-import com.google.dart.compiler.backend.js.ast.JsInvocation;
-import com.google.dart.compiler.backend.js.ast.JsName;
-import com.google.dart.compiler.backend.js.ast.JsNameRef;
+import com.google.dart.compiler.backend.js.ast.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.descriptors.ClassKind;
 import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.k2js.translate.context.TranslationContext;
 import org.jetbrains.k2js.translate.general.AbstractTranslator;
 import org.jetbrains.k2js.translate.general.Translation;
+import org.jetbrains.k2js.translate.utils.AnnotationsUtils;
 import org.jetbrains.k2js.translate.utils.BindingUtils;
 import org.jetbrains.k2js.translate.utils.TranslationUtils;
 
@@ -67,14 +66,28 @@ public final class PatternTranslator extends AbstractTranslator {
     @NotNull
     private JsExpression translateAsIsCheck(@NotNull JsExpression expressionToMatch,
                                             @NotNull JetTypeReference typeReference) {
-        JsInvocation isCheck = new JsInvocation(context().namer().isOperationReference(),
-                                                     expressionToMatch, getClassReference(typeReference));
+        JsExpression isCheck;
+        if (canUseInstanceOf(typeReference)) {
+            isCheck = new JsBinaryOperation(JsBinaryOperator.INSTANCEOF, expressionToMatch, getClassReference(typeReference));
+        }
+        else {
+            isCheck = new JsInvocation(context().namer().isOperationReference(), expressionToMatch, getClassReference(typeReference));
+        }
         if (isNullable(typeReference)) {
             return addNullCheck(expressionToMatch, isCheck);
         }
         return isCheck;
     }
 
+    // ECMA 3 classes are constructors linked by prototypes, traits and native classes are checked by the runtime
+    private boolean canUseInstanceOf(@NotNull JetTypeReference typeReference) {
+        if (context().isEcma5()) {
+            return false;
+        }
+        ClassDescriptor referencedClass = BindingUtils.getClassDescriptorForTypeReference(bindingContext(), typeReference);
+        return referencedClass.getKind() == ClassKind.CLASS && !AnnotationsUtils.isNativeObject(referencedClass);
+    }
+
     @Nullable
     private JsExpression translateAsIntrinsicTypeCheck(@NotNull JsExpression expressionToMatch,
                                                        @NotNull JetTypeReference typeReference) {
@@ -90,7 +103,7 @@ public final class PatternTranslator extends AbstractTranslator {
     }
 
     @NotNull
-    private static JsExpression addNullCheck(@NotNull JsExpression expressionToMatch, @NotNull JsInvocation isCheck) {
+    private static JsExpression addNullCheck(@NotNull JsExpression expressionToMatch, @NotNull JsExpression isCheck) {
         return or(TranslationUtils.isNullCheck(expressionToMatch), isCheck);
     }
 
@@ -16,24 +16,36 @@
 
 package org.jetbrains.k2js.translate.expression;
 
-import com.google.dart.compiler.backend.js.ast.JsExpression;
-import com.google.dart.compiler.backend.js.ast.JsInvocation;
-import com.google.dart.compiler.backend.js.ast.JsNameRef;
-import com.google.dart.compiler.backend.js.ast.JsNumberLiteral;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.dart.compiler.backend.js.ast.*;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.psi.*;
+import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.types.JetType;
 import org.jetbrains.k2js.translate.context.TranslationContext;
 import org.jetbrains.k2js.translate.general.AbstractTranslator;
 import org.jetbrains.k2js.translate.general.Translation;
 
+import java.util.List;
+import java.util.Set;
+
 import static org.jetbrains.k2js.translate.utils.JsAstUtils.sum;
 import static org.jetbrains.k2js.translate.utils.JsDescriptorUtils.getNameIfStandardType;
 
-
+/*
+ * Constant parts of the template are folded into one string literal, entries typed as String or Char are appended as is,
+ * numbers and booleans rely on the native coercion of +. Templates with many entries are joined by Array.prototype.join,
+ * unless an entry may be null: join converts null to an empty string, but the template must append "null".
+ */
 public final class StringTemplateTranslator extends AbstractTranslator {
 
+    private static final int JOIN_THRESHOLD = 8;
+
+    private static final Set<String> STRING_TYPES = Sets.newHashSet("String", "Char");
+    private static final Set<String> COERCED_TYPES = Sets.newHashSet("Int", "Long", "Short", "Byte", "Double", "Float", "Boolean");
+
     @NotNull
     public static JsExpression translate(@NotNull JetStringTemplateExpression expression,
                                          @NotNull TranslationContext context) {
@@ -61,17 +73,13 @@ public final class StringTemplateTranslator extends AbstractTranslator {
 
     private final class EntryVisitor extends JetVisitorVoid {
 
-        @Nullable
-        private JsExpression resultingExpression = null;
-
-        void append(@NotNull JsExpression expression) {
-            if (resultingExpression == null) {
-                resultingExpression = expression;
-            }
-            else {
-                resultingExpression = sum(resultingExpression, expression);
-            }
-        }
+        @NotNull
+        private final List<JsExpression> parts = Lists.newArrayList();
+        @NotNull
+        private final List<Boolean> isStringPart = Lists.newArrayList();
+        @NotNull
+        private final StringBuilder text = new StringBuilder();
+        private boolean hasNullableParts = false;
 
         @Override
         public void visitStringTemplateEntryWithExpression(@NotNull JetStringTemplateEntryWithExpression entry) {
@@ -79,50 +87,78 @@ public final class StringTemplateTranslator extends AbstractTranslator {
             assert entryExpression != null :
                     "JetStringTemplateEntryWithExpression must have not null entry expression.";
             JsExpression translatedExpression = Translation.translateAsExpression(entryExpression, context());
-            if (translatedExpression instanceof JsNumberLiteral) {
-                append(context().program().getStringLiteral(translatedExpression.toString()));
+            if (translatedExpression instanceof JsStringLiteral) {
+                text.append(((JsStringLiteral) translatedExpression).getValue());
                 return;
             }
-            if (mustCallToString(entryExpression)) {
-                append(new JsInvocation(new JsNameRef("toString", translatedExpression)));
-            } else {
-                append(translatedExpression);
+            if (translatedExpression instanceof JsNumberLiteral) {
+                text.append(translatedExpression.toString());
+                return;
             }
-        }
 
-        private boolean mustCallToString(@NotNull JetExpression entryExpression) {
-            Name typeName = getNameIfStandardType(entryExpression, context());
-            if (typeName == null) {
-                return true;
+            JetType type = bindingContext().get(BindingContext.EXPRESSION_TYPE, entryExpression);
+            if (type != null && type.isNullable()) {
+                // null + "" is "null", a call of toString() would fail
+                hasNullableParts = true;
+                appendPart(translatedExpression, false);
+                return;
             }
-            //TODO: this is a hacky optimization, should use some generic approach
-            if (typeName.getName().equals("String")) {
-                return false;
+            Name typeName = type != null ? getNameIfStandardType(type) : null;
+            String name = typeName != null ? typeName.getName() : null;
+            if (STRING_TYPES.contains(name)) {
+                appendPart(translatedExpression, true);
             }
-            if (typeName.getName().equals("Int") && resultingExpression != null) {
-                return false;
+            else if (COERCED_TYPES.contains(name)) {
+                appendPart(translatedExpression, false);
+            }
+            else {
+                appendPart(new JsInvocation(new JsNameRef("toString", translatedExpression)), true);
             }
-            return true;
         }
 
         @Override
         public void visitLiteralStringTemplateEntry(@NotNull JetLiteralStringTemplateEntry entry) {
-            appendText(entry.getText());
+            text.append(entry.getText());
         }
 
         @Override
         public void visitEscapeStringTemplateEntry(@NotNull JetEscapeStringTemplateEntry entry) {
-            appendText(entry.getUnescapedValue());
+            text.append(entry.getUnescapedValue());
+        }
+
+        private void appendPart(@NotNull JsExpression part, boolean isString) {
+            flushText();
+            parts.add(part);
+            isStringPart.add(isString);
         }
 
-        private void appendText(@NotNull String text) {
-            append(program().getStringLiteral(text));
+        private void flushText() {
+            if (text.length() != 0) {
+                parts.add(program().getStringLiteral(text.toString()));
+                isStringPart.add(true);
+                text.setLength(0);
+            }
         }
 
         @NotNull
         public JsExpression getResultingExpression() {
-            assert resultingExpression != null;
-            return resultingExpression;
+            flushText();
+            if (parts.isEmpty()) {
+                return program().getStringLiteral("");
+            }
+            if (parts.size() >= JOIN_THRESHOLD && !hasNullableParts) {
+                return new JsInvocation(new JsNameRef("join", new JsArrayLiteral(parts)), program().getStringLiteral(""));
+            }
+
+            // + adds numbers until one of the operands is a string
+            JsExpression result = parts.get(0);
+            if (!isStringPart.get(0) && (parts.size() == 1 || !isStringPart.get(1))) {
+                result = sum(program().getStringLiteral(""), result);
+            }
+            for (int i = 1; i < parts.size(); i++) {
+                result = sum(result, parts.get(i));
+            }
+            return result;
         }
     }
 }
@@ -14,29 +14,26 @@
  * limitations under the License.
  */
 
+
 package org.jetbrains.k2js.translate.expression.foreach;
 
-import com.google.common.collect.Lists;
-import com.google.dart.compiler.backend.js.ast.*;
+import com.google.dart.compiler.backend.js.ast.JsArrayAccess;
+import com.google.dart.compiler.backend.js.ast.JsExpression;
+import com.google.dart.compiler.backend.js.ast.JsStatement;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.lang.psi.JetExpression;
 import org.jetbrains.jet.lang.psi.JetForExpression;
 import org.jetbrains.jet.lang.types.JetType;
-import org.jetbrains.k2js.translate.context.TemporaryVariable;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 import org.jetbrains.k2js.translate.context.TranslationContext;
-import org.jetbrains.k2js.translate.general.Translation;
 import org.jetbrains.k2js.translate.intrinsic.functions.factories.ArrayFIF;
 import org.jetbrains.k2js.translate.utils.BindingUtils;
 
 import java.util.Collections;
-import java.util.List;
 
-import static org.jetbrains.jet.lang.resolve.DescriptorUtils.getClassDescriptorForType;
-import static org.jetbrains.k2js.translate.utils.JsAstUtils.*;
 import static org.jetbrains.k2js.translate.utils.PsiUtils.getLoopRange;
-import static org.jetbrains.k2js.translate.utils.TemporariesUtils.temporariesInitialization;
 
-public final class ArrayForTranslator extends ForTranslator {
+public final class ArrayForTranslator extends IndexedForTranslator {
 
     @NotNull
     public static JsStatement doTranslate(@NotNull JetForExpression expression,
@@ -48,61 +45,22 @@ public final class ArrayForTranslator extends ForTranslator {
             @NotNull TranslationContext context) {
         JetExpression loopRange = getLoopRange(expression);
         JetType rangeType = BindingUtils.getTypeForExpression(context.bindingContext(), loopRange);
-        //TODO: better check
-        //TODO: IMPORTANT!
-        return getClassDescriptorForType(rangeType).getName().getName().equals("Array")
-               || getClassDescriptorForType(rangeType).getName().getName().equals("IntArray");
+        return KotlinBuiltIns.getInstance().isArray(rangeType) || KotlinBuiltIns.getInstance().isPrimitiveArray(rangeType);
     }
 
-    @NotNull
-    private final TemporaryVariable loopRange;
-
-    @NotNull
-    private final TemporaryVariable end;
-
-    @NotNull
-    private final TemporaryVariable index;
-
     private ArrayForTranslator(@NotNull JetForExpression forExpression, @NotNull TranslationContext context) {
         super(forExpression, context);
-        loopRange = context.declareTemporary(Translation.translateAsExpression(getLoopRange(expression), context));
-
-        JsExpression length = ArrayFIF.ARRAY_LENGTH_INTRINSIC.apply(loopRange.reference(),
-                                                                    Collections.<JsExpression>emptyList(),
-                                                                    context());
-        end = context().declareTemporary(length);
-        index = context().declareTemporary(program().getNumberLiteral(0));
-    }
-
-    @NotNull
-    private JsBlock translate() {
-        List<JsStatement> blockStatements = Lists.newArrayList();
-        blockStatements.add(temporariesInitialization(loopRange, end).makeStmt());
-        blockStatements.add(generateForExpression(getInitExpression(), getCondition(), getIncrementExpression(), getBody()));
-        return new JsBlock(blockStatements);
-    }
-
-
-    @NotNull
-    private JsStatement getBody() {
-        JsArrayAccess arrayAccess = new JsArrayAccess(loopRange.reference(), index.reference());
-        JsStatement currentVar = newVar(parameterName, arrayAccess);
-        JsStatement realBody = translateOriginalBodyExpression();
-        return new JsBlock(currentVar, realBody);
-    }
-
-    @NotNull
-    private JsVars getInitExpression() {
-        return newVar(index.name(), program().getNumberLiteral(0));
     }
 
     @NotNull
-    private JsExpression getCondition() {
-        return inequality(index.reference(), end.reference());
+    @Override
+    protected JsExpression getLength(@NotNull JsExpression container) {
+        return ArrayFIF.ARRAY_LENGTH_INTRINSIC.apply(container, Collections.<JsExpression>emptyList(), context());
     }
 
     @NotNull
-    private JsExpression getIncrementExpression() {
-        return new JsPrefixOperation(JsUnaryOperator.INC, index.reference());
+    @Override
+    protected JsExpression getElement(@NotNull JsExpression container, @NotNull JsExpression index) {
+        return new JsArrayAccess(container, index);
     }
 }
@@ -38,12 +38,21 @@ public abstract class ForTranslator extends AbstractTranslator {
         if (RangeLiteralForTranslator.isApplicable(expression, context)) {
             return RangeLiteralForTranslator.doTranslate(expression, context);
         }
+        if (IndicesForTranslator.isApplicable(expression, context)) {
+            return IndicesForTranslator.doTranslate(expression, context);
+        }
         if (RangeForTranslator.isApplicable(expression, context)) {
             return RangeForTranslator.doTranslate(expression, context);
         }
         if (ArrayForTranslator.isApplicable(expression, context)) {
             return ArrayForTranslator.doTranslate(expression, context);
         }
+        if (StringForTranslator.isApplicable(expression, context)) {
+            return StringForTranslator.doTranslate(expression, context);
+        }
+        if (ListForTranslator.isApplicable(expression, context)) {
+            return ListForTranslator.doTranslate(expression, context);
+        }
         return IteratorForTranslator.doTranslate(expression, context);
     }
 
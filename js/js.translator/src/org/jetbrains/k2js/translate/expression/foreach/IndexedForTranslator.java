@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.translate.expression.foreach;
+
+import com.google.common.collect.Lists;
+import com.google.dart.compiler.backend.js.ast.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.JetForExpression;
+import org.jetbrains.k2js.translate.context.TemporaryVariable;
+import org.jetbrains.k2js.translate.context.TranslationContext;
+import org.jetbrains.k2js.translate.general.Translation;
+
+import java.util.List;
+
+import static org.jetbrains.k2js.translate.utils.JsAstUtils.generateForExpression;
+import static org.jetbrains.k2js.translate.utils.JsAstUtils.newVar;
+import static org.jetbrains.k2js.translate.utils.PsiUtils.getLoopRange;
+import static org.jetbrains.k2js.translate.utils.TemporariesUtils.temporariesInitialization;
+
+/**
+ * Loop over the elements of an indexed container by a counter, without an iterator object.
+ */
+public abstract class IndexedForTranslator extends ForTranslator {
+
+    @NotNull
+    private final TemporaryVariable loopRange;
+
+    @NotNull
+    private final TemporaryVariable index;
+
+    protected IndexedForTranslator(@NotNull JetForExpression forExpression, @NotNull TranslationContext context) {
+        super(forExpression, context);
+        loopRange = context.declareTemporary(Translation.translateAsExpression(getLoopRange(expression), context));
+        index = context().declareTemporary(program().getNumberLiteral(0));
+    }
+
+    @NotNull
+    protected abstract JsExpression getLength(@NotNull JsExpression container);
+
+    @NotNull
+    protected abstract JsExpression getElement(@NotNull JsExpression container, @NotNull JsExpression index);
+
+    @NotNull
+    protected JsBlock translate() {
+        TemporaryVariable end = context().declareTemporary(getLength(loopRange.reference()));
+        List<JsStatement> blockStatements = Lists.newArrayList();
+        blockStatements.add(temporariesInitialization(loopRange, end).makeStmt());
+        blockStatements.add(generateForExpression(getInitExpression(), getCondition(end), getIncrementExpression(), getBody()));
+        return new JsBlock(blockStatements);
+    }
+
+    @NotNull
+    private JsStatement getBody() {
+        JsStatement currentVar = newVar(parameterName, getElement(loopRange.reference(), index.reference()));
+        JsStatement realBody = translateOriginalBodyExpression();
+        return new JsBlock(currentVar, realBody);
+    }
+
+    @NotNull
+    private JsVars getInitExpression() {
+        return newVar(index.name(), program().getNumberLiteral(0));
+    }
+
+    @NotNull
+    private JsExpression getCondition(@NotNull TemporaryVariable end) {
+        return new JsBinaryOperation(JsBinaryOperator.LT, index.reference(), end.reference());
+    }
+
+    @NotNull
+    private JsExpression getIncrementExpression() {
+        return new JsPrefixOperation(JsUnaryOperator.INC, index.reference());
+    }
+}
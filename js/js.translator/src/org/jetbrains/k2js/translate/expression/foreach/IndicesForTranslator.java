@@ -0,0 +1,160 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.translate.expression.foreach;
+
+import com.google.common.collect.Lists;
+import com.google.dart.compiler.backend.js.ast.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.descriptors.CallableDescriptor;
+import org.jetbrains.jet.lang.descriptors.ClassifierDescriptor;
+import org.jetbrains.jet.lang.descriptors.PropertyDescriptor;
+import org.jetbrains.jet.lang.descriptors.ReceiverParameterDescriptor;
+import org.jetbrains.jet.lang.psi.JetDotQualifiedExpression;
+import org.jetbrains.jet.lang.psi.JetExpression;
+import org.jetbrains.jet.lang.psi.JetForExpression;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.DescriptorUtils;
+import org.jetbrains.jet.lang.resolve.calls.model.ResolvedCall;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+import org.jetbrains.k2js.translate.context.TemporaryVariable;
+import org.jetbrains.k2js.translate.context.TranslationContext;
+import org.jetbrains.k2js.translate.general.Translation;
+import org.jetbrains.k2js.translate.intrinsic.functions.factories.ArrayFIF;
+import org.jetbrains.k2js.translate.utils.BindingUtils;
+import org.jetbrains.k2js.translate.utils.JsDescriptorUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.jetbrains.k2js.translate.utils.JsAstUtils.generateForExpression;
+import static org.jetbrains.k2js.translate.utils.JsAstUtils.newVar;
+import static org.jetbrains.k2js.translate.utils.PsiUtils.getLoopRange;
+import static org.jetbrains.k2js.translate.utils.TemporariesUtils.temporariesInitialization;
+
+/**
+ * Loop over array.indices, collection.indices and n.indices by a counter, without creating the range.
+ */
+public final class IndicesForTranslator extends ForTranslator {
+
+    private enum Kind {
+        ARRAY, COLLECTION, INT
+    }
+
+    @NotNull
+    private static final String STDLIB_INDICES = "kotlin.indices";
+
+    @NotNull
+    public static JsStatement doTranslate(@NotNull JetForExpression expression,
+            @NotNull TranslationContext context) {
+        return (new IndicesForTranslator(expression, context).translate());
+    }
+
+    public static boolean isApplicable(@NotNull JetForExpression expression,
+            @NotNull TranslationContext context) {
+        return getKind(getLoopRange(expression), context.bindingContext()) != null;
+    }
+
+    @Nullable
+    private static Kind getKind(@NotNull JetExpression loopRange, @NotNull BindingContext context) {
+        if (!(loopRange instanceof JetDotQualifiedExpression)) {
+            return null;
+        }
+        JetExpression selector = ((JetDotQualifiedExpression) loopRange).getSelectorExpression();
+        if (selector == null) {
+            return null;
+        }
+        ResolvedCall<? extends CallableDescriptor> resolvedCall = context.get(BindingContext.RESOLVED_CALL, selector);
+        if (resolvedCall == null || !(resolvedCall.getResultingDescriptor() instanceof PropertyDescriptor)) {
+            return null;
+        }
+        PropertyDescriptor property = (PropertyDescriptor) resolvedCall.getResultingDescriptor().getOriginal();
+        if (!property.getName().getName().equals("indices")) {
+            return null;
+        }
+
+        ReceiverParameterDescriptor receiverParameter = property.getReceiverParameter();
+        if (receiverParameter == null) {
+            JetExpression receiver = ((JetDotQualifiedExpression) loopRange).getReceiverExpression();
+            JetType receiverType = BindingUtils.getTypeForExpression(context, receiver);
+            boolean isArray = KotlinBuiltIns.getInstance().isArray(receiverType) || KotlinBuiltIns.getInstance().isPrimitiveArray(receiverType);
+            return isArray && JsDescriptorUtils.isStandardDeclaration(property) ? Kind.ARRAY : null;
+        }
+
+        if (!DescriptorUtils.getFQName(property).getFqName().equals(STDLIB_INDICES)) {
+            return null;
+        }
+        ClassifierDescriptor receiverClass = receiverParameter.getType().getConstructor().getDeclarationDescriptor();
+        if (KotlinBuiltIns.getInstance().getCollection().equals(receiverClass)) {
+            return Kind.COLLECTION;
+        }
+        if (KotlinBuiltIns.getInstance().getInt().equals(receiverClass)) {
+            return Kind.INT;
+        }
+        return null;
+    }
+
+    @NotNull
+    private final TemporaryVariable end;
+
+    private IndicesForTranslator(@NotNull JetForExpression forExpression, @NotNull TranslationContext context) {
+        super(forExpression, context);
+        JetExpression loopRange = getLoopRange(expression);
+        Kind kind = getKind(loopRange, bindingContext());
+        assert kind != null;
+        JetExpression receiverExpression = ((JetDotQualifiedExpression) loopRange).getReceiverExpression();
+        JsExpression receiver = Translation.translateAsExpression(receiverExpression, context);
+        end = context.declareTemporary(getSize(kind, receiver));
+    }
+
+    @NotNull
+    private JsExpression getSize(@NotNull Kind kind, @NotNull JsExpression receiver) {
+        switch (kind) {
+            case ARRAY:
+                return ArrayFIF.ARRAY_LENGTH_INTRINSIC.apply(receiver, Collections.<JsExpression>emptyList(), context());
+            case COLLECTION:
+                return new JsInvocation(new JsNameRef("size", receiver));
+            default:
+                return receiver;
+        }
+    }
+
+    @NotNull
+    private JsBlock translate() {
+        List<JsStatement> blockStatements = Lists.newArrayList();
+        blockStatements.add(temporariesInitialization(end).makeStmt());
+        blockStatements.add(generateForExpression(initExpression(), getCondition(), getIncrExpression(), translateOriginalBodyExpression()));
+        return new JsBlock(blockStatements);
+    }
+
+    @NotNull
+    private JsVars initExpression() {
+        return newVar(parameterName, program().getNumberLiteral(0));
+    }
+
+    @NotNull
+    private JsExpression getCondition() {
+        return new JsBinaryOperation(JsBinaryOperator.LT, parameterName.makeRef(), end.reference());
+    }
+
+    @NotNull
+    private JsExpression getIncrExpression() {
+        return new JsPrefixOperation(JsUnaryOperator.INC, parameterName.makeRef());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.translate.expression.foreach;
+
+import com.google.dart.compiler.backend.js.ast.JsExpression;
+import com.google.dart.compiler.backend.js.ast.JsInvocation;
+import com.google.dart.compiler.backend.js.ast.JsNameRef;
+import com.google.dart.compiler.backend.js.ast.JsStatement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.psi.JetExpression;
+import org.jetbrains.jet.lang.psi.JetForExpression;
+import org.jetbrains.jet.lang.resolve.DescriptorUtils;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.TypeUtils;
+import org.jetbrains.k2js.translate.context.TranslationContext;
+import org.jetbrains.k2js.translate.utils.AnnotationsUtils;
+import org.jetbrains.k2js.translate.utils.BindingUtils;
+
+import static org.jetbrains.jet.lang.resolve.DescriptorUtils.getClassDescriptorForType;
+import static org.jetbrains.k2js.translate.utils.PsiUtils.getLoopRange;
+
+/**
+ * Loop over the elements of a list of the library, the iterators of such lists read the elements by get(index) up to the size
+ * the list had when the iteration started, as this loop does.
+ */
+public final class ListForTranslator extends IndexedForTranslator {
+
+    @NotNull
+    private static final String LIBRARY_LIST = "java.util.AbstractList";
+
+    @NotNull
+    public static JsStatement doTranslate(@NotNull JetForExpression expression,
+            @NotNull TranslationContext context) {
+        return (new ListForTranslator(expression, context).translate());
+    }
+
+    public static boolean isApplicable(@NotNull JetForExpression expression,
+            @NotNull TranslationContext context) {
+        JetExpression loopRange = getLoopRange(expression);
+        JetType rangeType = BindingUtils.getTypeForExpression(context.bindingContext(), loopRange);
+        ClassDescriptor rangeClass = getClassDescriptorForType(rangeType);
+        if (!AnnotationsUtils.isLibraryObject(rangeClass)) {
+            return false;
+        }
+        if (isLibraryList(rangeType)) {
+            return true;
+        }
+        for (JetType supertype : TypeUtils.getAllSupertypes(rangeType)) {
+            if (isLibraryList(supertype)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLibraryList(@NotNull JetType type) {
+        ClassDescriptor descriptor = getClassDescriptorForType(type);
+        return DescriptorUtils.getFQName(descriptor).getFqName().equals(LIBRARY_LIST);
+    }
+
+    private ListForTranslator(@NotNull JetForExpression forExpression, @NotNull TranslationContext context) {
+        super(forExpression, context);
+    }
+
+    @NotNull
+    @Override
+    protected JsExpression getLength(@NotNull JsExpression container) {
+        return new JsInvocation(new JsNameRef("size", container));
+    }
+
+    @NotNull
+    @Override
+    protected JsExpression getElement(@NotNull JsExpression container, @NotNull JsExpression index) {
+        return new JsInvocation(new JsNameRef("get", container), index);
+    }
+}
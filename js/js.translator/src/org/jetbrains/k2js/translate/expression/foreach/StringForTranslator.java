@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jetbrains.k2js.translate.expression.foreach;
+
+import com.google.dart.compiler.backend.js.ast.JsExpression;
+import com.google.dart.compiler.backend.js.ast.JsInvocation;
+import com.google.dart.compiler.backend.js.ast.JsNameRef;
+import com.google.dart.compiler.backend.js.ast.JsStatement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.descriptors.FunctionDescriptor;
+import org.jetbrains.jet.lang.psi.JetExpression;
+import org.jetbrains.jet.lang.psi.JetForExpression;
+import org.jetbrains.jet.lang.resolve.DescriptorUtils;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+import org.jetbrains.k2js.translate.context.TranslationContext;
+import org.jetbrains.k2js.translate.utils.BindingUtils;
+
+import static org.jetbrains.k2js.translate.utils.PsiUtils.getLoopRange;
+
+/**
+ * Loop over the characters of a string iterated by CharSequence.iterator() of the standard library.
+ */
+public final class StringForTranslator extends IndexedForTranslator {
+
+    @NotNull
+    private static final String STDLIB_ITERATOR = "kotlin.iterator";
+
+    @NotNull
+    public static JsStatement doTranslate(@NotNull JetForExpression expression,
+            @NotNull TranslationContext context) {
+        return (new StringForTranslator(expression, context).translate());
+    }
+
+    public static boolean isApplicable(@NotNull JetForExpression expression,
+            @NotNull TranslationContext context) {
+        JetExpression loopRange = getLoopRange(expression);
+        JetType rangeType = BindingUtils.getTypeForExpression(context.bindingContext(), loopRange);
+        if (!KotlinBuiltIns.getInstance().getString().equals(rangeType.getConstructor().getDeclarationDescriptor())) {
+            return false;
+        }
+        FunctionDescriptor iterator = BindingUtils.getIteratorFunction(context.bindingContext(), loopRange).getResultingDescriptor();
+        return DescriptorUtils.getFQName(iterator.getOriginal()).getFqName().equals(STDLIB_ITERATOR);
+    }
+
+    private StringForTranslator(@NotNull JetForExpression forExpression, @NotNull TranslationContext context) {
+        super(forExpression, context);
+    }
+
+    @NotNull
+    @Override
+    protected JsExpression getLength(@NotNull JsExpression container) {
+        return new JsNameRef("length", container);
+    }
+
+    @NotNull
+    @Override
+    protected JsExpression getElement(@NotNull JsExpression container, @NotNull JsExpression index) {
+        return new JsInvocation(new JsNameRef("charAt", container), index);
+    }
+}
@@ -153,7 +153,7 @@ public final class Translation {
             @NotNull MainCallParameters mainCallParameters,
             @NotNull Config config) throws MainFunctionNotFoundException {
         //TODO: move some of the code somewhere
-        StaticContext staticContext = StaticContext.generateStaticContext(bindingContext, config.getTarget());
+        StaticContext staticContext = StaticContext.generateStaticContext(bindingContext, config.getTarget(), config.isMinifyNames());
         JsProgram program = staticContext.getProgram();
         JsBlock block = program.getGlobalBlock();
 
@@ -0,0 +1,54 @@
+package foo
+
+import java.util.ArrayList
+
+val SIZE = 2000
+
+fun createArray(): Array<Int> = Array<Int>(SIZE, { it })
+
+fun createList(): ArrayList<Int> {
+    val list = ArrayList<Int>()
+    for (i in 0..SIZE - 1) {
+        list.add(i)
+    }
+    return list
+}
+
+fun viaIterators(): Boolean {
+    val array = createArray()
+    val list = createList()
+    var sum = 0
+    for (repeat in 0..99) {
+        val arrayIterator = array.iterator()
+        while (arrayIterator.hasNext()) {
+            sum += arrayIterator.next()
+        }
+        val indicesIterator = array.indices.iterator()
+        while (indicesIterator.hasNext()) {
+            sum += array[indicesIterator.next()]
+        }
+        val listIterator = list.iterator()
+        while (listIterator.hasNext()) {
+            sum += listIterator.next()
+        }
+    }
+    return sum == 599700000
+}
+
+fun viaForLoops(): Boolean {
+    val array = createArray()
+    val list = createList()
+    var sum = 0
+    for (repeat in 0..99) {
+        for (element in array) {
+            sum += element
+        }
+        for (index in array.indices) {
+            sum += array[index]
+        }
+        for (element in list) {
+            sum += element
+        }
+    }
+    return sum == 599700000
+}
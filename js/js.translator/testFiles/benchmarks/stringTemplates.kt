@@ -0,0 +1,35 @@
+package foo
+
+val SIZE = 20000
+
+class Item(val id: Int, val name: String) {
+    public fun toString(): String = name
+}
+
+fun createItems(): Array<Item> = Array<Item>(100, { Item(it, "item" + it) })
+
+fun viaConcatenation(): Boolean {
+    val items = createItems()
+    var length = 0
+    for (repeat in 0..SIZE / 100 - 1) {
+        for (item in items) {
+            val line = "<li id=\"" + item.id.toString() + "\">" + item.toString() + "</li>"
+            val cell = "<td>" + repeat.toString() + ":" + item.id.toString() + "</td>"
+            length += line.length + cell.length
+        }
+    }
+    return length == 743000
+}
+
+fun viaTemplates(): Boolean {
+    val items = createItems()
+    var length = 0
+    for (repeat in 0..SIZE / 100 - 1) {
+        for (item in items) {
+            val line = "<li id=\"${item.id}\">$item</li>"
+            val cell = "<td>$repeat:${item.id}</td>"
+            length += line.length + cell.length
+        }
+    }
+    return length == 743000
+}
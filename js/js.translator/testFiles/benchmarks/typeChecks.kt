@@ -0,0 +1,49 @@
+package foo
+
+trait Shape {
+    fun area(): Int
+}
+
+trait Named
+
+open class Rectangle(val width: Int, val height: Int) : Shape, Named {
+    override fun area() = width * height
+}
+
+class Square(side: Int) : Rectangle(side, side)
+
+class Circle(val radius: Int) : Shape {
+    override fun area() = 3 * radius * radius
+}
+
+fun create(i: Int): Any = when (i % 3) {
+    0 -> Rectangle(i, 2)
+    1 -> Square(i)
+    else -> Circle(i)
+}
+
+fun kind(shape: Any): Int = when (shape) {
+    is Square -> 1
+    is Rectangle -> 2
+    is Shape -> 3
+    else -> 0
+}
+
+fun box(): String {
+    var rectangles = 0
+    var named = 0
+    var shapes = 0
+    var kinds = 0
+    for (i in 0..29999) {
+        val shape = create(i)
+        if (shape is Rectangle) rectangles++
+        if (shape is Named) named++
+        if (shape is Shape) shapes++
+        kinds += kind(shape)
+    }
+    if (rectangles != 20000) return "fail rectangles: $rectangles"
+    if (named != 20000) return "fail named: $named"
+    if (shapes != 30000) return "fail shapes: $shapes"
+    if (kinds != 60000) return "fail kinds: $kinds"
+    return "OK"
+}
@@ -0,0 +1,18 @@
+package foo
+
+fun box(): Boolean {
+    val a = array(3, 5, 7)
+    var sum = 0
+    var indices = ""
+    for (i in a.indices) {
+        sum += a[i]
+        indices += i
+    }
+    if (sum != 15 || indices != "012") return false
+
+    val empty = intArray()
+    for (i in empty.indices) {
+        return false
+    }
+    return true
+}
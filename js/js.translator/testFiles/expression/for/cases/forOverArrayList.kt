@@ -0,0 +1,20 @@
+package foo
+
+import java.util.ArrayList
+
+fun box(): Boolean {
+    val list = ArrayList<String>()
+    list.add("a")
+    list.add("b")
+    list.add("c")
+    var result = ""
+    for (s in list) {
+        result += s
+    }
+    if (result != "abc") return false
+
+    for (s in ArrayList<String>()) {
+        return false
+    }
+    return true
+}
@@ -0,0 +1,25 @@
+package foo
+
+import java.util.ArrayList
+
+fun box(): Boolean {
+    val list = ArrayList<Int>()
+    list.add(10)
+    list.add(20)
+    var sum = 0
+    for (i in list.indices) {
+        sum += list[i] * i
+    }
+    if (sum != 20) return false
+
+    var count = 0
+    for (i in 4.indices) {
+        count += i
+    }
+    if (count != 6) return false
+
+    for (i in (-1).indices) {
+        return false
+    }
+    return true
+}
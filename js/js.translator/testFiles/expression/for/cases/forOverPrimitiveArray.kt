@@ -0,0 +1,13 @@
+package foo
+
+fun box(): Boolean {
+    var sum = 0.0
+    for (d in doubleArray(0.5, 1.5, 2.0)) {
+        sum += d
+    }
+    var chars = ""
+    for (c in charArray('a', 'b')) {
+        chars += c
+    }
+    return sum == 4.0 && chars == "ab"
+}
@@ -0,0 +1,14 @@
+package foo
+
+fun box(): Boolean {
+    var result = ""
+    for (c in "abc") {
+        result = c + result
+    }
+    if (result != "cba") return false
+
+    for (c in "") {
+        return false
+    }
+    return true
+}
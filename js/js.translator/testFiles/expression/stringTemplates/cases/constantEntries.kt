@@ -0,0 +1,12 @@
+package foo
+
+fun box(): Boolean {
+    val n = 3
+    val s = "a${"b"}${1}c\t${'d'}$n${2}${"e"}"
+    if (s != "ab1c\td3" + "2e") return false
+
+    val empty = "${""}"
+    if (empty != "") return false
+
+    return true
+}
@@ -0,0 +1,21 @@
+package foo
+
+class Point(val x: Int, val y: Int) {
+    public fun toString(): String = "($x, $y)"
+}
+
+fun box(): Boolean {
+    val id = 7
+    val name = "node"
+    val ratio = 0.25
+    val visible = false
+    val point = Point(1, 2)
+
+    val html = "<div id=\"$id\" class=\"$name\" data-ratio=\"$ratio\" data-visible=\"$visible\">$point</div>"
+    if (html != "<div id=\"7\" class=\"node\" data-ratio=\"0.25\" data-visible=\"false\">(1, 2)</div>") return false
+
+    val numbers = "$id$id$id$id$id$id$id$id"
+    if (numbers != "77777777") return false
+
+    return true
+}
@@ -0,0 +1,23 @@
+package foo
+
+class Foo(val name: String) {
+    public fun toString(): String = name
+}
+
+fun box(): Boolean {
+    val s: String? = null
+    val t: String? = "t"
+    val i: Int? = null
+    val j: Int? = 2
+    val foo: Foo? = null
+    val bar: Foo? = Foo("bar")
+
+    if ("$s$s" != "nullnull") return false
+    if ("$t$s" != "tnull") return false
+    if ("$j$j" != "22") return false
+    if ("$i$j" != "null2") return false
+    if ("$foo, $bar" != "null, bar") return false
+    if ("a$s b$t c$i d$j e$foo f$bar g$s h" != "anull bt cnull d2 enull fbar gnull h") return false
+
+    return true
+}
@@ -0,0 +1,22 @@
+package foo
+
+fun box(): Boolean {
+    val a = 1
+    val b = 2
+    val d = 0.5
+    val l: Long = 3
+    val c = 'c'
+    val flag = true
+
+    if ("$a" != "1") return false
+    if ("$a$b" != "12") return false
+    if ("${a + b}$b" != "32") return false
+    if ("$a$b!" != "12!") return false
+    if ("$d$l" != "0.53") return false
+    if ("$c$a" != "c1") return false
+    if ("$a$c" != "1c") return false
+    if ("$flag$flag" != "truetrue") return false
+    if ("${a - b}${b - a}" != "-11") return false
+
+    return true
+}
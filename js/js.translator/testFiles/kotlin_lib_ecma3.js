@@ -40,30 +40,46 @@ var Kotlin = {};
         }
     }
 
-    Kotlin.isType = function (object, klass) {
+    Kotlin.isType = function (object, type) {
         if (object === null || object === undefined) {
             return false;
         }
 
-        var current = object.get_class();
-        while (current !== klass) {
-            if (current === null) {
-                return false;
-            }
-            current = current.superclass;
+        // classes are constructors with prototype chain, so instanceof is valid for them
+        if (typeof type === "function") {
+            return object instanceof type;
         }
-        return true;
+
+        var types = object.$types$;
+        return types !== undefined && types[type.$typeId$] === true;
     };
 
-    Kotlin.createTrait = (function () {
-        return function () {
-            var result = arguments[0];
-            for (var i = 1, n = arguments.length; i < n; i++) {
-                copyProperties(result, arguments[i]);
+    var lastTypeId = 0;
+
+    // ids of the type and of all its supertypes, is check for a trait is a lookup in the set of the object
+    function createTypes(typeId, bases) {
+        var types = {};
+        types[typeId] = true;
+        for (var i = 0, n = bases.length; i < n; i++) {
+            var baseTypes = bases[i].$types$;
+            for (var id in baseTypes) {
+                if (baseTypes.hasOwnProperty(id)) {
+                    types[id] = true;
+                }
             }
-            return result;
         }
-    })();
+        return types;
+    }
+
+    Kotlin.createTrait = function () {
+        var result = {};
+        for (var i = 0, n = arguments.length; i < n; i++) {
+            copyProperties(result, arguments[i]);
+        }
+        result.$typeId$ = ++lastTypeId;
+        result.$types$ = createTypes(result.$typeId$, arguments);
+        return result;
+    };
 
     Kotlin.definePackage = function (members) {
         return members === null ? {} : members;
@@ -107,9 +123,16 @@ var Kotlin = {};
                 }});
             }
 
+            var bases = parent === null ? [] : [parent.prototype];
             for (var i = 0, length = properties.length; i < length; i++) {
                 klass.addMethods(properties[i]);
+                if (properties[i].$types$ !== undefined) {
+                    bases.push(properties[i]);
+                }
             }
+            // types of traits are copied along with their members, so they are set after
+            klass.$typeId$ = ++lastTypeId;
+            klass.prototype.$types$ = createTypes(klass.$typeId$, bases);
 
             if (!klass.prototype.initialize) {
                 klass.prototype.initialize = emptyFunction;
@@ -17,30 +17,61 @@ var Kotlin = Object.create(null);
             return false;
         }
 
-        var proto = Object.getPrototypeOf(object);
-        // todo test nested class
-        //noinspection RedundantIfStatementJS
-        if (proto == type.proto) {
-            return true;
+        var typeId = type.$typeId$;
+        if (typeId === undefined) {
+            // not a kotlin class or trait, e.g. a native one
+            return typeof type === "function" && object instanceof type;
         }
 
-        return false;
+        var types = object.$types$;
+        return types !== undefined && types[typeId] === true;
     };
 
-    // as separated function to reduce scope
-    function createConstructor() {
-        return function $fun() {
-            var o = Object.create($fun.proto);
-            var initializer = $fun.initializer;
-            if (initializer != null) {
-                if (initializer.length == 0) {
-                    initializer.call(o);
-                }
-                else {
-                    initializer.apply(o, arguments);
+    var lastTypeId = 0;
+
+    // ids of the type and of all its supertypes, the set is shared by the prototype of the class, so is check is a lookup
+    function createTypes(bases, typeId) {
+        var types = Object.create(null);
+        if (typeId !== null) {
+            types[typeId] = true;
+        }
+        if (bases !== null) {
+            if (Array.isArray(bases)) {
+                for (var i = 0, n = bases.length; i < n; i++) {
+                    addTypes(types, bases[i].$types$);
                 }
             }
+            else {
+                addTypes(types, bases.$types$);
+            }
+        }
+        return Object.freeze(types);
+    }
+
+    function addTypes(types, baseTypes) {
+        for (var id in baseTypes) {
+            types[id] = true;
+        }
+    }
 
+    // as separated function to reduce scope, the initializer and the prototype are resolved once, not on every instance creation
+    function createConstructor(proto, initializer) {
+        if (initializer === null) {
+            return function () {
+                return Object.seal(Object.create(proto));
+            };
+        }
+        if (initializer.length == 0) {
+            return function () {
+                var o = Object.create(proto);
+                initializer.call(o);
+                Object.seal(o);
+                return o;
+            };
+        }
+        return function () {
+            var o = Object.create(proto);
+            initializer.apply(o, arguments);
             Object.seal(o);
             return o;
         };
@@ -84,6 +115,9 @@ var Kotlin = Object.create(null);
 
     Kotlin.createObject = function (bases, initializer, properties) {
         var o = Object.create(computeProto2(bases, properties), properties || undefined);
+        if (bases !== null) {
+            Object.defineProperty(o, "$types$", {value: createTypes(bases, null)});
+        }
         if (initializer !== null) {
             if (bases !== null) {
                 Object.defineProperty(initializer, "baseInitializer", {value: Array.isArray(bases) ? bases[0].initializer : bases.initializer});
@@ -115,16 +149,28 @@ var Kotlin = Object.create(null);
             }
         }
 
-        var constructor = createConstructor();
-        Object.defineProperty(constructor, "proto", {value: proto});
-        Object.defineProperty(constructor, "properties", {value: properties || null});
+        var typeId = ++lastTypeId;
+        var types = createTypes(bases, typeId);
+        if (isClass) {
+            // proto of a class is always its own
+            Object.defineProperty(proto, "$types$", {value: types});
+        }
+
+        var constructor = createConstructor(proto, isClass ? initializer : null);
+        var descriptors = {
+            proto: {value: proto},
+            properties: {value: properties || null},
+            $typeId$: {value: typeId},
+            $types$: {value: types}
+        };
         if (isClass) {
-            Object.defineProperty(constructor, "initializer", {value: initializer});
+            descriptors.initializer = {value: initializer};
 
             Object.defineProperty(initializer, "baseInitializer", {value: baseInitializer});
             Object.freeze(initializer);
         }
 
+        Object.defineProperties(constructor, descriptors);
         Object.freeze(constructor);
         return constructor;
     }
@@ -0,0 +1,13 @@
+package foo
+
+trait T
+
+trait S : T
+
+open class A() : S
+
+class B() : A()
+
+class C() : T
+
+fun box() = (B() is A) && (B() is S) && (B() is T) && (A() is T) && (C() is T) && (C() !is S) && (A() !is B) && (C() !is A)
@@ -0,0 +1,120 @@
+package kotlin.jdbc
+
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.util.ArrayList
+import kotlin.template.StringTemplate
+
+/**
+ * The default number of statements sent to the database in one batch
+ */
+public val DEFAULT_BATCH_FLUSH_SIZE : Int = 100
+
+/**
+ * Binds [[StringTemplate]]s to [[PreparedStatement]]s and sends them to the database in batches of at most flushSize statements.
+ *
+ * Consecutive templates with the same SQL text share one statement, a template with another SQL text flushes the pending batch first.
+ * Statements are taken from the given statement cache, which keeps them from being evicted while the batch uses them
+ */
+public class BatchUpdate(public val connection : Connection, public val flushSize : Int = DEFAULT_BATCH_FLUSH_SIZE,
+                         statementCache : PreparedStatementCache? = null) {
+    private val ownCache : PreparedStatementCache? = if (statementCache == null) PreparedStatementCache(connection, 1) else null
+    private val cache : PreparedStatementCache = statementCache ?: ownCache!!
+
+    private var sql : String? = null
+    private var statement : PreparedStatement? = null
+    private var pendingCount = 0
+
+    private val updateCounts = ArrayList<IntArray>()
+
+    /**
+     * Binds the template and adds it to the current batch
+     */
+    fun add(template : StringTemplate) {
+        val templateSql = template.toSql()
+        if (templateSql != sql) {
+            flush()
+            cache.acquire(templateSql)
+            releaseStatement()
+            sql = templateSql
+        }
+
+        val builder = PreparedStatementBuilder(template, connection, cache)
+        builder.bind()
+        builder.statement.addBatch()
+        statement = builder.statement
+
+        if (++pendingCount >= flushSize) {
+            flush()
+        }
+    }
+
+    /**
+     * Sends the pending statements to the database
+     */
+    fun flush() {
+        val current = statement
+        if (current != null && pendingCount > 0) {
+            updateCounts.add(current.executeBatch())
+            pendingCount = 0
+        }
+    }
+
+    /**
+     * Flushes the pending statements and returns the update counts of all the templates added so far
+     */
+    fun execute() : IntArray {
+        flush()
+
+        var size = 0
+        for (counts in updateCounts) {
+            size += counts.size
+        }
+        val answer = IntArray(size)
+        var offset = 0
+        for (counts in updateCounts) {
+            System.arraycopy(counts, 0, answer, offset, counts.size)
+            offset += counts.size
+        }
+        return answer
+    }
+
+    /**
+     * Adds all the templates, executes them and closes the batch
+     */
+    fun executeAll(templates : Iterable<StringTemplate>) : IntArray {
+        try {
+            for (template in templates) {
+                add(template)
+            }
+            return execute()
+        } finally {
+            close()
+        }
+    }
+
+    /**
+     * Discards the pending statements and returns the current statement to the cache, the statements are closed
+     * unless the cache was passed to the batch
+     */
+    fun close() {
+        try {
+            if (pendingCount > 0) {
+                statement?.clearBatch()
+            }
+        } finally {
+            pendingCount = 0
+            releaseStatement()
+            ownCache?.close()
+        }
+    }
+
+    private fun releaseStatement() {
+        val current = sql
+        if (current != null) {
+            sql = null
+            statement = null
+            cache.release(current)
+        }
+    }
+}
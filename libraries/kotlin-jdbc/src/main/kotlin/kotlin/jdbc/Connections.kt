@@ -51,7 +51,8 @@ fun Connection.update(sql: String): Int {
 }
 
 /**
- * Performs the SQL update using the [[StringTemplate]]
+ * Performs the SQL update using the [[StringTemplate]]. A new statement is prepared and closed for every call,
+ * use [[withStatementCache]] to reuse statements for repeated updates and queries
  */
 fun Connection.update(template : StringTemplate) : Int {
     val preparedStatement = prepare(template)
@@ -73,13 +74,24 @@ fun <T> Connection.query(sql: String, block: (ResultSet) -> T): T {
 
 /**
  * Perform a query on the connection using the [[StringTemplate]] to generate the SQL text
- * and processes the result set with a function
+ * and processes the result set with a function. A new statement is prepared and closed for every call,
+ * use [[withStatementCache]] to reuse statements for repeated updates and queries
  */
 fun <T> Connection.query(template : StringTemplate, resultBlock : (ResultSet) -> T) : T {
     val preparedStatement = prepare(template)
     return preparedStatement.query(resultBlock)
 }
 
+/**
+ * Performs the SQL updates of the [[StringTemplate]]s as JDBC batches of at most flushSize statements,
+ * consecutive templates with the same SQL text share one [[PreparedStatement]]
+ *
+ * @return the update counts of all the templates
+ */
+fun Connection.batch(templates : Iterable<StringTemplate>, flushSize : Int = DEFAULT_BATCH_FLUSH_SIZE) : IntArray {
+    return BatchUpdate(this, flushSize).executeAll(templates)
+}
+
 /**
  * Creates a [[PreparedStatement]] from the [[StringTemplate]]
  */
@@ -89,7 +101,8 @@ fun Connection.prepare(template : StringTemplate) : PreparedStatement {
     return builder.statement
 }
 
-class PreparedStatementBuilder(val template : StringTemplate, val connection : Connection) {
+class PreparedStatementBuilder(val template : StringTemplate, val connection : Connection,
+                               val cache : PreparedStatementCache? = null) {
     private var parameterIndex = 0
 
     public val sql : String = createSql()
@@ -201,6 +214,11 @@ class PreparedStatementBuilder(val template : StringTemplate, val connection : C
      * Looks up the [[PreparedStatement]] in a cache or creates a new one
      */
     protected fun lookupOrCreateStatement(): PreparedStatement {
+        val statementCache = cache
+        if (statementCache != null) {
+            return statementCache.lookupOrCreate(sql)
+        }
+
         val answer = connection.prepareStatement(sql)
         if (answer == null) {
             throw IllegalStateException("No PreparedStatement returned from $connection")
@@ -211,14 +229,19 @@ class PreparedStatementBuilder(val template : StringTemplate, val connection : C
 
     protected fun nextParameterIndex() : Int = ++parameterIndex
 
-    protected fun createSql() : String {
-        val out = StringBuilder()
-        var constantText = true
-        template.forEach {
-            out.append(if (constantText) it else "?")
-            constantText = !constantText
-        }
-        return out.toString()
-    }
+    protected fun createSql() : String = template.toSql()
+}
+
+/**
+ * Returns the SQL text of the [[StringTemplate]] with a parameter in place of each expression
+ */
+fun StringTemplate.toSql() : String {
+    val out = StringBuilder()
+    var constantText = true
+    forEach {
+        out.append(if (constantText) it else "?")
+        constantText = !constantText
+    }
+    return out.toString()
 }
 
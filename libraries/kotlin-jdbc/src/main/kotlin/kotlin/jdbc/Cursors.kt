@@ -0,0 +1,193 @@
+package kotlin.jdbc
+
+import java.math.BigDecimal
+import java.sql.Connection
+import java.sql.Date
+import java.sql.ResultSet
+import java.sql.Timestamp
+import java.util.ArrayList
+import java.util.Comparator
+import java.util.HashMap
+import java.util.NoSuchElementException
+import java.util.TreeMap
+import javax.sql.DataSource
+import kotlin.template.StringTemplate
+
+/**
+ * The default number of rows fetched from the database at once by a [[RowCursor]]
+ */
+public val DEFAULT_FETCH_SIZE : Int = 1000
+
+/**
+ * Column names and types of a [[ResultSet]] read from its metadata once
+ */
+public class ResultSetColumns(resultSet : ResultSet) {
+    public val names : Array<String>
+    public val types : IntArray
+    // Column names are case insensitive in JDBC, the comparator matches them without creating lower case copies on every lookup
+    private val indices = TreeMap<String, Int>(object : Comparator<String> {
+        public override fun compare(o1 : String, o2 : String) : Int = o1.compareToIgnoreCase(o2)
+    })
+
+    {
+        val meta = resultSet.getMetaData()!!
+        val count = meta.getColumnCount()
+        names = Array<String>(count, { meta.getColumnLabel(it + 1) ?: meta.getColumnName(it + 1) ?: it.toString() })
+        types = IntArray(count)
+        for (i in 0..count - 1) {
+            types[i] = meta.getColumnType(i + 1)
+            // The first of the columns with the same name wins
+            if (!indices.containsKey(names[i])) {
+                indices.put(names[i], i + 1)
+            }
+        }
+    }
+
+    public val size : Int
+        get() = names.size
+
+    /**
+     * Returns the index (starting at 1) of the column with the given name
+     */
+    fun indexOf(columnName : String) : Int {
+        val index = indices.get(columnName)
+        if (index == null) {
+            throw IllegalArgumentException("No column $columnName in ${names.toList()}")
+        }
+        return index
+    }
+}
+
+/**
+ * A lazy cursor through the rows of a [[ResultSet]]. The cursor itself represents the current row,
+ * so iterating it allocates nothing per row and the typed getters read primitives without boxing.
+ * Column names are resolved to indices with the metadata read once per result set
+ */
+public class RowCursor(public val resultSet : ResultSet) : Iterator<RowCursor> {
+    public val columns : ResultSetColumns = ResultSetColumns(resultSet)
+
+    private var hasRow = false
+    private var moved = false
+
+    public override fun hasNext() : Boolean {
+        if (!moved) {
+            hasRow = resultSet.next()
+            moved = true
+        }
+        return hasRow
+    }
+
+    public override fun next() : RowCursor {
+        if (!hasNext()) {
+            throw NoSuchElementException("There are no rows left in cursor")
+        }
+        moved = false
+        return this
+    }
+
+    fun get(columnId : Int) : Any? = resultSet.getObject(columnId)
+    fun get(columnName : String) : Any? = resultSet.getObject(columns.indexOf(columnName))
+
+    fun getInt(columnId : Int) : Int = resultSet.getInt(columnId)
+    fun getInt(columnName : String) : Int = resultSet.getInt(columns.indexOf(columnName))
+
+    fun getLong(columnId : Int) : Long = resultSet.getLong(columnId)
+    fun getLong(columnName : String) : Long = resultSet.getLong(columns.indexOf(columnName))
+
+    fun getDouble(columnId : Int) : Double = resultSet.getDouble(columnId)
+    fun getDouble(columnName : String) : Double = resultSet.getDouble(columns.indexOf(columnName))
+
+    fun getBoolean(columnId : Int) : Boolean = resultSet.getBoolean(columnId)
+    fun getBoolean(columnName : String) : Boolean = resultSet.getBoolean(columns.indexOf(columnName))
+
+    fun getString(columnId : Int) : String? = resultSet.getString(columnId)
+    fun getString(columnName : String) : String? = resultSet.getString(columns.indexOf(columnName))
+
+    fun getBigDecimal(columnId : Int) : BigDecimal? = resultSet.getBigDecimal(columnId)
+    fun getBigDecimal(columnName : String) : BigDecimal? = resultSet.getBigDecimal(columns.indexOf(columnName))
+
+    fun getDate(columnId : Int) : Date? = resultSet.getDate(columnId)
+    fun getDate(columnName : String) : Date? = resultSet.getDate(columns.indexOf(columnName))
+
+    fun getTimestamp(columnId : Int) : Timestamp? = resultSet.getTimestamp(columnId)
+    fun getTimestamp(columnName : String) : Timestamp? = resultSet.getTimestamp(columns.indexOf(columnName))
+
+    /**
+     * Returns true if the last value read by a typed getter was SQL NULL
+     */
+    fun wasNull() : Boolean = resultSet.wasNull()
+
+    /**
+     * Return array filled with values from current row. Values will have the same order as column's order
+     */
+    fun getValues() : Array<Any?> = Array<Any?>(columns.size, { resultSet.getObject(it + 1) })
+
+    /**
+     * Return map filled with values from current row. Uses column names as keys for result map
+     */
+    fun getValuesAsMap() : Map<String, Any?> {
+        val result = HashMap<String, Any?>(columns.size)
+        for (i in 0..columns.size - 1) {
+            result[columns.names[i]] = resultSet.getObject(i + 1)
+        }
+        return result
+    }
+
+    /**
+     * Maps the remaining rows with the mapper function and passes them to the block in lists of at most chunkSize elements
+     */
+    fun <T> forEachChunk(chunkSize : Int, mapper : (RowCursor) -> T, block : (List<T>) -> Unit) {
+        var chunk = ArrayList<T>(chunkSize)
+        while (hasNext()) {
+            chunk.add(mapper(next()))
+            if (chunk.size() >= chunkSize) {
+                block(chunk)
+                chunk = ArrayList<T>(chunkSize)
+            }
+        }
+        if (!chunk.isEmpty()) {
+            block(chunk)
+        }
+    }
+}
+
+/**
+ * Creates a [[RowCursor]] through this [[ResultSet]]
+ */
+fun ResultSet.cursor() : RowCursor = RowCursor(this)
+
+/**
+ * Performs a query on the connection fetching fetchSize rows at once and processes the rows with a cursor
+ */
+fun <T> Connection.cursor(sql : String, fetchSize : Int = DEFAULT_FETCH_SIZE, block : (RowCursor) -> T) : T {
+    return statement{
+        it.setFetchSize(fetchSize)
+        it.executeQuery(sql).use { block(RowCursor(it)) }
+    }
+}
+
+/**
+ * Performs a query on the connection using the [[StringTemplate]] to generate the SQL text,
+ * fetching fetchSize rows at once and processes the rows with a cursor
+ */
+fun <T> Connection.cursor(template : StringTemplate, fetchSize : Int = DEFAULT_FETCH_SIZE, block : (RowCursor) -> T) : T {
+    val builder = PreparedStatementBuilder(template, this)
+    builder.bind()
+    builder.statement.setFetchSize(fetchSize)
+    return builder.statement.query { block(RowCursor(it)) }
+}
+
+/**
+ * Performs a query on a connection from the pool and processes the rows with a cursor
+ */
+fun <T> DataSource.cursor(sql : String, fetchSize : Int = DEFAULT_FETCH_SIZE, block : (RowCursor) -> T) : T {
+    return useDataSource{ it.cursor(sql, fetchSize, block) }
+}
+
+/**
+ * Performs a query on a connection from the pool using the [[StringTemplate]] to generate the SQL text
+ * and processes the rows with a cursor
+ */
+fun <T> DataSource.cursor(template : StringTemplate, fetchSize : Int = DEFAULT_FETCH_SIZE, block : (RowCursor) -> T) : T {
+    return useDataSource{ it.cursor(template, fetchSize, block) }
+}
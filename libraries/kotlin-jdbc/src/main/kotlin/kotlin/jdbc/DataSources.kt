@@ -54,3 +54,10 @@ fun DataSource.update(template : StringTemplate) : Int {
 fun <T> DataSource.query(template : StringTemplate, resultBlock : (ResultSet) -> T) : T {
     return useDataSource{ it.query(template, resultBlock) }
 }
+
+/**
+ * Performs the SQL updates of the [[StringTemplate]]s as JDBC batches on a connection from the pool
+ */
+fun DataSource.batch(templates : Iterable<StringTemplate>, flushSize : Int = DEFAULT_BATCH_FLUSH_SIZE) : IntArray {
+    return useDataSource{ it.batch(templates, flushSize) }
+}
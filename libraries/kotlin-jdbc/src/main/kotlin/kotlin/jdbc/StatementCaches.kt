@@ -0,0 +1,140 @@
+package kotlin.jdbc
+
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.ResultSet
+import java.util.HashMap
+import java.util.LinkedHashMap
+import kotlin.template.StringTemplate
+
+/**
+ * The default number of statements kept open by a [[PreparedStatementCache]]
+ */
+public val DEFAULT_STATEMENT_CACHE_SIZE : Int = 64
+
+/**
+ * A least recently used cache of [[PreparedStatement]]s of a connection keyed by their SQL text.
+ * Statements evicted from the cache are closed, so are the remaining ones when the cache is closed.
+ * A statement acquired with [[acquire]] is not evicted until it is released, so the cache may hold more than maxSize statements meanwhile.
+ *
+ * Like the connection itself the cache should be used by one thread at a time
+ */
+public class PreparedStatementCache(public val connection : Connection, public val maxSize : Int = DEFAULT_STATEMENT_CACHE_SIZE) {
+    private val statements = LinkedHashMap<String, PreparedStatement>(16, 0.75.toFloat(), true)
+    private val pinCounts = HashMap<String, Int>()
+
+    /**
+     * The number of statements currently kept open
+     */
+    public val size : Int
+        get() = statements.size()
+
+    /**
+     * Returns the open statement for the given SQL or prepares a new one, evicting the least recently used statements
+     * which are not acquired if the cache is full
+     */
+    fun lookupOrCreate(sql : String) : PreparedStatement {
+        val cached = statements.get(sql)
+        if (cached != null) {
+            return cached
+        }
+
+        val answer = connection.prepareStatement(sql)
+        if (answer == null) {
+            throw IllegalStateException("No PreparedStatement returned from $connection")
+        }
+        statements.put(sql, answer)
+        evictUnused()
+        return answer
+    }
+
+    /**
+     * Like [[lookupOrCreate]], but the statement is not evicted until it is released by [[release]]
+     */
+    fun acquire(sql : String) : PreparedStatement {
+        pinCounts.put(sql, (pinCounts.get(sql) ?: 0) + 1)
+        return lookupOrCreate(sql)
+    }
+
+    /**
+     * Allows the statement acquired for the given SQL to be evicted again
+     */
+    fun release(sql : String) {
+        val count = pinCounts.get(sql) ?: throw IllegalStateException("Statement is not acquired: $sql")
+        if (count > 1) {
+            pinCounts.put(sql, count - 1)
+        } else {
+            pinCounts.remove(sql)
+            evictUnused()
+        }
+    }
+
+    /**
+     * Creates a [[PreparedStatement]] owned by this cache from the [[StringTemplate]], the statement should not be closed
+     */
+    fun prepare(template : StringTemplate) : PreparedStatement {
+        val builder = PreparedStatementBuilder(template, connection, this)
+        builder.bind()
+        return builder.statement
+    }
+
+    /**
+     * Performs the SQL update using the [[StringTemplate]] and a cached statement
+     */
+    fun update(template : StringTemplate) : Int {
+        return prepare(template).executeUpdate()
+    }
+
+    /**
+     * Perform a query using the [[StringTemplate]] and a cached statement and processes the result set with a function
+     */
+    fun <T> query(template : StringTemplate, resultBlock : (ResultSet) -> T) : T {
+        return prepare(template).executeQuery().use(resultBlock)
+    }
+
+    /**
+     * Performs the SQL updates of the [[StringTemplate]]s as JDBC batches of at most flushSize statements using cached statements
+     *
+     * @return the update counts of all the templates
+     */
+    fun batch(templates : Iterable<StringTemplate>, flushSize : Int = DEFAULT_BATCH_FLUSH_SIZE) : IntArray {
+        return BatchUpdate(connection, flushSize, this).executeAll(templates)
+    }
+
+    /**
+     * Closes all the cached statements
+     */
+    fun close() {
+        val open = statements.values().toList()
+        statements.clear()
+        pinCounts.clear()
+        for (statement in open) {
+            statement.close()
+        }
+    }
+
+    private fun evictUnused() {
+        val iterator = statements.entrySet().iterator()
+        while (statements.size() > maxSize && iterator.hasNext()) {
+            val entry = iterator.next()
+            if (!pinCounts.containsKey(entry.getKey())) {
+                iterator.remove()
+                entry.getValue().close()
+            }
+        }
+    }
+}
+
+/**
+ * Executes the block with a new [[PreparedStatementCache]] of this connection, so that the [[StringTemplate]]s
+ * with the same SQL text passed to its update, query or batch methods reuse the same statement.
+ * The cached statements are closed when the block completes
+ */
+fun <T> Connection.withStatementCache(maxSize : Int = DEFAULT_STATEMENT_CACHE_SIZE, block : (PreparedStatementCache) -> T) : T {
+    val cache = PreparedStatementCache(this, maxSize)
+    try {
+        return block(cache)
+    } finally {
+        cache.close()
+    }
+}
@@ -0,0 +1,128 @@
+package test.kotlin.jdbc
+
+import java.util.ArrayList
+import kotlin.jdbc.*
+import kotlin.template.*
+import kotlin.test.*
+import org.junit.Test as test
+
+val ROW_COUNT = 1000
+
+fun createTable(name : String) {
+    dataSource.update("create table $name (id int primary key, name varchar(100))")
+}
+
+fun insertTemplate(table : String, id : Int) : StringTemplate {
+    // Mimicks "insert into $table (id, name) values ($id, ${"name" + id})"
+    return StringTemplate(array("insert into $table (id, name) values (", id, ", ", "name" + id, ")"))
+}
+
+class JdbcBatchTest {
+    test fun statementCacheReusesStatements() {
+        createTable("cached")
+        dataSource.useDataSource {
+            val first = it.withStatementCache {
+                val first = it.prepare(insertTemplate("cached", 1))
+                val second = it.prepare(insertTemplate("cached", 2))
+                assertTrue(first identityEquals second)
+                assertEquals(1, it.size)
+                first
+            }
+            assertTrue(first.isClosed())
+        }
+    }
+
+    test fun statementCacheEvictsLeastRecentlyUsed() {
+        dataSource.useDataSource {
+            val cache = PreparedStatementCache(it, 2)
+            val foo = cache.lookupOrCreate("select * from foo")
+            cache.lookupOrCreate("select id from foo")
+            cache.lookupOrCreate("select * from foo")
+            cache.lookupOrCreate("select name from foo")
+
+            assertEquals(2, cache.size)
+            assertTrue(foo identityEquals cache.lookupOrCreate("select * from foo"))
+            cache.close()
+            assertTrue(foo.isClosed())
+        }
+    }
+
+    test fun batchStatementIsNotEvicted() {
+        createTable("pinned")
+        dataSource.useDataSource {
+            val cache = PreparedStatementCache(it, 1)
+            val batch = BatchUpdate(it, 10, cache)
+            batch.add(insertTemplate("pinned", 1))
+            val statement = cache.lookupOrCreate(insertTemplate("pinned", 2).toSql())
+            cache.lookupOrCreate("select * from pinned")
+
+            assertEquals(2, cache.size)
+            assertFalse(statement.isClosed())
+            batch.add(insertTemplate("pinned", 2))
+            assertEquals(2, batch.execute().size)
+            cache.lookupOrCreate("select * from pinned")
+
+            batch.close()
+            assertEquals(1, cache.size)
+            assertTrue(statement.isClosed())
+            cache.close()
+        }
+        assertEquals(2, dataSource.query("select count(*) from pinned") { it.singleInt() })
+    }
+
+    test fun closedBatchIsCleared() {
+        createTable("discarded")
+        dataSource.useDataSource {
+            it.withStatementCache {
+                val batch = BatchUpdate(it.connection, 10, it)
+                batch.add(insertTemplate("discarded", 1))
+                batch.add(insertTemplate("discarded", 2))
+                batch.close()
+
+                val statement = it.lookupOrCreate(insertTemplate("discarded", 3).toSql())
+                assertEquals(0, statement.executeBatch().size)
+            }
+        }
+        assertEquals(0, dataSource.query("select count(*) from discarded") { it.singleInt() })
+    }
+
+    test fun batchInsert() {
+        createTable("batched")
+        val templates = ArrayList<StringTemplate>()
+        for (id in 1..25) {
+            templates.add(insertTemplate("batched", id))
+        }
+
+        val counts = dataSource.batch(templates, 10)
+        assertEquals(25, counts.size)
+        assertEquals(25, dataSource.query("select count(*) from batched") { it.singleInt() })
+    }
+
+    test fun insertWithAndWithoutStatementCache() {
+        createTable("single")
+        createTable("cachedsingle")
+        createTable("batch")
+
+        dataSource.useDataSource {
+            for (id in 1..ROW_COUNT) {
+                it.update(insertTemplate("single", id))
+            }
+        }
+        dataSource.useDataSource {
+            it.withStatementCache {
+                for (id in 1..ROW_COUNT) {
+                    it.update(insertTemplate("cachedsingle", id))
+                }
+            }
+        }
+        val templates = ArrayList<StringTemplate>()
+        for (id in 1..ROW_COUNT) {
+            templates.add(insertTemplate("batch", id))
+        }
+        dataSource.batch(templates)
+
+        for (table in array("single", "cachedsingle", "batch")) {
+            assertEquals(ROW_COUNT, dataSource.query("select count(*) from $table") { it.singleInt() })
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package test.kotlin.jdbc
+
+import java.util.ArrayList
+import kotlin.jdbc.*
+import kotlin.template.*
+import kotlin.test.*
+import org.junit.Test as test
+
+val REPORT_ROW_COUNT = 100000
+
+val reportDataSource = createReportTable()
+
+fun createReportTable() : javax.sql.DataSource {
+    dataSource.update("create table report (id int primary key, amount bigint, ratio double, name varchar(100))")
+    val templates = ArrayList<StringTemplate>()
+    for (id in 1..REPORT_ROW_COUNT) {
+        templates.add(StringTemplate(array("insert into report (id, amount, ratio, name) values (", id, ", ", id.toLong() * 10, ", ", id / 2.0, ", ", "name" + id, ")")))
+    }
+    dataSource.batch(templates, 1000)
+    return dataSource
+}
+
+class JdbcCursorTest {
+    test fun typedGetters() {
+        reportDataSource.cursor(StringTemplate(array("select * from report where id = ", 3))) {
+            assertTrue(it.hasNext())
+            val row = it.next()
+            assertEquals(3, row.getInt("id"))
+            assertEquals(30.toLong(), row.getLong("AMOUNT"))
+            assertEquals(1.5, row.getDouble(3))
+            assertEquals("name3", row.getString("name"))
+            assertFalse(row.wasNull())
+            assertEquals(4, row.columns.size)
+            assertFalse(it.hasNext())
+        }
+    }
+
+    test fun chunks() {
+        val sizes = ArrayList<Int>()
+        var sum = 0
+        reportDataSource.cursor("select id from report where id <= 25", 10) {
+            it.forEachChunk(10, { it.getInt(1) }) {
+                sizes.add(it.size)
+                for (id in it) {
+                    sum += id
+                }
+            }
+        }
+        assertEquals(arrayList(10, 10, 5), sizes)
+        assertEquals(25 * 26 / 2, sum)
+    }
+
+    test fun cursorReadsTheSameAsMaps() {
+        var mapSum = 0.toLong()
+        reportDataSource.query("select * from report") {
+            for (row in it) {
+                mapSum += row.getValuesAsMap()["AMOUNT"] as Long
+            }
+        }
+
+        var cursorSum = 0.toLong()
+        reportDataSource.cursor("select * from report") {
+            for (row in it) {
+                cursorSum += row.getLong("amount")
+            }
+        }
+        assertEquals(mapSum, cursorSum)
+    }
+}